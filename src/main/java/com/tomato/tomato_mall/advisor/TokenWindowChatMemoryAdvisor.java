@@ -0,0 +1,278 @@
+package com.tomato.tomato_mall.advisor;
+
+import com.tomato.tomato_mall.entity.ChatMemorySummary;
+import com.tomato.tomato_mall.properties.ChatMemoryProperties;
+import com.tomato.tomato_mall.service.ChatSummaryService;
+import com.tomato.tomato_mall.util.DocumentConverter;
+import com.tomato.tomato_mall.util.QueryCachingEmbeddingModel;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.client.advisor.api.AdvisedResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAroundAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAroundAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.MessageAggregator;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 令牌预算聊天记忆顾问
+ * <p>
+ * 替代 {@code MessageChatMemoryAdvisor}。每轮请求只放入令牌数不超过预算的最近若干条消息，
+ * 更早的消息由 {@link ChatSummaryService} 在后台合并为滚动摘要，以摘要的形式附在系统提示词之后。
+ * 窗口之外尚未摘要的消息达到配置的数量后才会提交摘要，在此之前这些消息暂时不出现在提示词中。
+ * </p>
+ * <p>
+ * 启用早期对话召回时，窗口之外与当前提问语义相近的提问及其回答也会附在系统提示词之后，
+ * 用于回答"之前说过的那本书"一类跨越窗口的追问。
+ * </p>
+ * <p>
+ * 令牌数使用本地分词器估算，每轮提示词的令牌数和窗口内的消息数分别记录在
+ * {@code ai.chat.prompt.tokens} 和 {@code ai.chat.memory.window.messages} 指标中。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class TokenWindowChatMemoryAdvisor extends AbstractChatMemoryAdvisor<ChatMemory> {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenWindowChatMemoryAdvisor.class);
+
+    private final ChatSummaryService chatSummaryService;
+    private final EmbeddingModel embeddingModel;
+    private final ChatMemoryProperties properties;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final DistributionSummary promptTokens;
+    private final DistributionSummary historyTokens;
+    private final DistributionSummary windowMessages;
+
+    /**
+     * 构造函数，初始化顾问所需组件
+     *
+     * @param chatMemory         聊天记忆组件，保存完整的对话消息
+     * @param chatSummaryService 聊天记忆摘要服务，用于生成和读取滚动摘要
+     * @param embeddingModel     嵌入模型，用于召回早期对话
+     * @param properties         聊天记忆配置
+     * @param meterRegistry      指标注册表，用于记录提示词大小
+     */
+    public TokenWindowChatMemoryAdvisor(ChatMemory chatMemory, ChatSummaryService chatSummaryService,
+            EmbeddingModel embeddingModel, ChatMemoryProperties properties, MeterRegistry meterRegistry) {
+        super(chatMemory, DEFAULT_CHAT_MEMORY_CONVERSATION_ID, properties.getRetrieveSize(), true);
+        this.chatSummaryService = chatSummaryService;
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.promptTokens = DistributionSummary.builder("ai.chat.prompt.tokens").baseUnit("tokens")
+                .register(meterRegistry);
+        this.historyTokens = DistributionSummary.builder("ai.chat.memory.history.tokens").baseUnit("tokens")
+                .register(meterRegistry);
+        this.windowMessages = DistributionSummary.builder("ai.chat.memory.window.messages")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        AdvisedResponse advisedResponse = chain.nextAroundCall(before(advisedRequest));
+        observeAfter(advisedResponse);
+        return advisedResponse;
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        Flux<AdvisedResponse> advisedResponses = doNextWithProtectFromBlockingBefore(advisedRequest, chain,
+                this::before);
+        return new MessageAggregator().aggregateAdvisedResponse(advisedResponses, this::observeAfter);
+    }
+
+    /**
+     * 计算消息指纹，用于在历史消息中定位摘要已覆盖到的位置
+     *
+     * @param message 消息
+     * @return 消息类型和内容的 SHA-256 摘要（十六进制）
+     */
+    public static String fingerprint(Message message) {
+        return DocumentConverter.contentHash(message.getMessageType().getValue() + ":" + message.getText());
+    }
+
+    private AdvisedRequest before(AdvisedRequest request) {
+        String conversationId = doGetConversationId(request.adviseContext());
+        int retrieveSize = doGetChatMemoryRetrieveSize(request.adviseContext());
+        List<Message> history = getChatMemoryStore().get(conversationId, retrieveSize);
+
+        int windowStart = windowStart(history);
+        List<Message> window = history.subList(windowStart, history.size());
+        List<Message> older = history.subList(0, windowStart);
+
+        Optional<ChatMemorySummary> summary = older.isEmpty() ? Optional.empty()
+                : chatSummaryService.getSummary(conversationId);
+        submitSummary(conversationId, older, summary);
+
+        StringBuilder systemText = new StringBuilder(request.systemText() == null ? "" : request.systemText());
+        summary.ifPresent(s -> systemText.append("\n\n以下是与该用户较早对话的摘要：\n").append(s.getSummary()));
+        List<Message> recalled = recall(request.userText(), older);
+        if (!recalled.isEmpty()) {
+            systemText.append("\n\n以下是与当前问题相关的较早对话：\n");
+            recalled.forEach(m -> systemText.append(m.getMessageType() == MessageType.USER ? "用户：" : "助手：")
+                    .append(m.getText()).append('\n'));
+        }
+
+        List<Message> messages = new ArrayList<>(request.messages());
+        messages.addAll(window);
+        AdvisedRequest advisedRequest = AdvisedRequest.from(request)
+                .systemText(systemText.toString())
+                .messages(messages)
+                .build();
+
+        int windowTokens = window.stream().mapToInt(this::estimate).sum();
+        historyTokens.record(windowTokens);
+        windowMessages.record(window.size());
+        promptTokens.record(windowTokens + estimate(systemText.toString()) + estimate(request.userText()));
+
+        getChatMemoryStore().add(conversationId, new UserMessage(request.userText(), request.media()));
+        return advisedRequest;
+    }
+
+    private void observeAfter(AdvisedResponse advisedResponse) {
+        List<Message> assistantMessages = advisedResponse.response()
+                .getResults()
+                .stream()
+                .map(g -> (Message) g.getOutput())
+                .toList();
+        getChatMemoryStore().add(doGetConversationId(advisedResponse.adviseContext()), assistantMessages);
+    }
+
+    /**
+     * 从最新的消息向前累加令牌数，返回预算内最早一条消息的下标
+     * <p>
+     * 窗口不以助手消息开头，避免模型看到没有提问的回答
+     * </p>
+     */
+    private int windowStart(List<Message> history) {
+        int tokens = 0;
+        int start = history.size();
+        while (start > 0) {
+            int next = tokens + estimate(history.get(start - 1));
+            if (next > properties.getMaxHistoryTokens()) {
+                break;
+            }
+            tokens = next;
+            start--;
+        }
+        while (start < history.size() && history.get(start).getMessageType() == MessageType.ASSISTANT) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * 窗口之外尚未摘要的消息达到配置数量时提交滚动摘要
+     */
+    private void submitSummary(String conversationId, List<Message> older, Optional<ChatMemorySummary> summary) {
+        int from = 0;
+        if (summary.isPresent()) {
+            String covered = summary.get().getLastMessageFingerprint();
+            for (int i = older.size() - 1; i >= 0; i--) {
+                if (fingerprint(older.get(i)).equals(covered)) {
+                    from = i + 1;
+                    break;
+                }
+            }
+        }
+        List<Message> pending = older.subList(from, older.size());
+        if (pending.size() >= properties.getSummarizeMinMessages()) {
+            chatSummaryService.summarizeAsync(conversationId, summary.map(ChatMemorySummary::getSummary).orElse(null),
+                    List.copyOf(pending), fingerprint(pending.get(pending.size() - 1)));
+        }
+    }
+
+    /**
+     * 召回窗口之外与当前提问语义相近的提问及其回答，按时间顺序返回
+     */
+    private List<Message> recall(String userText, List<Message> older) {
+        if (!properties.isRecallEnabled() || userText == null || userText.isBlank()) {
+            return List.of();
+        }
+        List<Integer> questions = new ArrayList<>();
+        for (int i = 0; i < older.size(); i++) {
+            if (older.get(i).getMessageType() == MessageType.USER) {
+                questions.add(i);
+            }
+        }
+        if (questions.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            float[] query = embeddingModel.embed(userText);
+            List<String> texts = questions.stream().map(i -> older.get(i).getText()).toList();
+            // 早期提问按查询批量嵌入，后续轮次命中进程内查询缓存，不写入持久化缓存
+            List<float[]> embeddings = embeddingModel instanceof QueryCachingEmbeddingModel queryModel
+                    ? queryModel.embedQueries(texts)
+                    : embeddingModel.embed(texts);
+            List<Scored> candidates = new ArrayList<>();
+            for (int q = 0; q < questions.size(); q++) {
+                double score = cosine(query, embeddings.get(q));
+                if (score >= properties.getRecallThreshold()) {
+                    candidates.add(new Scored(questions.get(q), score));
+                }
+            }
+            List<Message> recalled = new ArrayList<>();
+            candidates.stream()
+                    .sorted(Comparator.comparingDouble(Scored::score).reversed())
+                    .limit(properties.getRecallTopK())
+                    .map(Scored::index)
+                    .sorted()
+                    .forEach(i -> {
+                        recalled.add(older.get(i));
+                        if (i + 1 < older.size() && older.get(i + 1).getMessageType() == MessageType.ASSISTANT) {
+                            recalled.add(older.get(i + 1));
+                        }
+                    });
+            return recalled;
+        } catch (RuntimeException e) {
+            log.warn("Failed to recall earlier chat turns", e);
+            return List.of();
+        }
+    }
+
+    private int estimate(Message message) {
+        return estimate(message.getText());
+    }
+
+    private int estimate(String text) {
+        return text == null || text.isEmpty() ? 0 : tokenCountEstimator.estimate(text);
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+
+    /**
+     * 早期提问在历史消息中的下标及其与当前提问的相似度
+     */
+    private record Scored(int index, double score) {
+    }
+}
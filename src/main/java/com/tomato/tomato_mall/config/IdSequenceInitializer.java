@@ -0,0 +1,64 @@
+package com.tomato.tomato_mall.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 主键序列初始化器
+ * <p>
+ * 商品、规格和库存实体的主键由自增列改为 pooled 序列分配后，
+ * 由 Hibernate 新建的序列从1开始计数，会与历史数据的主键冲突。
+ * 该组件在所有单例创建完成后、Web 服务器开始接收请求之前，将各序列推进到对应表的最大ID之后，
+ * 保证启动期间到达的请求分配的ID也不会与已有数据重复。
+ * </p>
+ * <p>
+ * 该操作是幂等的：若序列已经领先于表中数据，则保持不变。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    /**
+     * 与实体中 {@code allocationSize} 保持一致的序列步长
+     */
+    private static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * 需要对齐的表与序列
+     */
+    private static final String[][] SEQUENCES = {
+            { "products", "products_seq" },
+            { "specifications", "specifications_seq" },
+            { "stockpiles", "stockpiles_seq" },
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 构造函数，通过依赖注入初始化组件
+     *
+     * @param jdbcTemplate JDBC操作模板
+     */
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String[] pair : SEQUENCES) {
+            String table = pair[0];
+            String sequence = pair[1];
+            String maxIdQuery = jdbcTemplate.queryForObject(
+                    "SELECT format('SELECT COALESCE(MAX(id), 0) FROM %I', ?)", String.class, table);
+            Long maxId = jdbcTemplate.queryForObject(maxIdQuery, Long.class);
+            jdbcTemplate.queryForObject(
+                    "SELECT setval(CAST(? AS regclass), GREATEST(? + ?,"
+                            + " COALESCE(pg_sequence_last_value(CAST(? AS regclass)), 0)))",
+                    Long.class, sequence, maxId, ALLOCATION_SIZE, sequence);
+        }
+    }
+}
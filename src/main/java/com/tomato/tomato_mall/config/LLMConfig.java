@@ -1,13 +1,41 @@
 package com.tomato.tomato_mall.config;
 
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.tomato.tomato_mall.advisor.TokenWindowChatMemoryAdvisor;
+import com.tomato.tomato_mall.properties.AssistantCacheProperties;
+import com.tomato.tomato_mall.properties.ChatMemoryProperties;
+import com.tomato.tomato_mall.properties.ChatMemoryStoreProperties;
+import com.tomato.tomato_mall.properties.ChatRoutingProperties;
+import com.tomato.tomato_mall.properties.EmbeddingBatchProperties;
+import com.tomato.tomato_mall.repository.EmbeddingCacheRepository;
+import com.tomato.tomato_mall.service.ChatSummaryService;
 import com.tomato.tomato_mall.tool.ProductTools;
+import com.tomato.tomato_mall.util.CachingEmbeddingModel;
+import com.tomato.tomato_mall.util.MicroBatchingEmbeddingModel;
+import com.tomato.tomato_mall.util.QueryCachingEmbeddingModel;
+import com.tomato.tomato_mall.util.RoutingChatModel;
+import com.tomato.tomato_mall.util.StubChatModel;
+import com.tomato.tomato_mall.util.TieredChatMemory;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * 大语言模型配置类
@@ -16,6 +44,13 @@ import com.tomato.tomato_mall.tool.ProductTools;
  * 通过Spring配置管理，集成了聊天记忆、工具调用和日志记录等功能，
  * 为番茄书城提供智能客服支持。
  * </p>
+ * <p>
+ * 同时为嵌入模型加上持久化缓存，向量存储和检索使用的嵌入模型均为带缓存的版本。
+ * 未命中缓存的文本默认经过合批后再请求嵌入接口，检索查询的嵌入另有进程内缓存。
+ * </p>
+ * <p>
+ * 聊天模型默认在主模型之外配置一个备用模型，流式请求在主模型首个片段过慢时对冲，出错时切换。
+ * </p>
  *
  * @author Team CBDDL
  * @version 1.0
@@ -31,14 +66,14 @@ public class LLMConfig {
      * 集成了产品查询工具、对话记忆和调试日志功能
      * </p>
      * 
-     * @param chatClientBuilder 聊天客户端构建器
-     * @param chatMemory        聊天记忆组件，用于维护对话上下文
-     * @param productTools      产品工具，用于查询商品信息
+     * @param chatClientBuilder  聊天客户端构建器
+     * @param chatMemoryAdvisor  令牌预算聊天记忆顾问，用于维护对话上下文
+     * @param productTools       产品工具，用于查询商品信息
      * @return ChatClient 配置完成的聊天客户端实例
      */
     @Bean
-    public ChatClient chatClient(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory,
-            ProductTools productTools) {
+    public ChatClient chatClient(ChatClient.Builder chatClientBuilder,
+            TokenWindowChatMemoryAdvisor chatMemoryAdvisor, ProductTools productTools) {
         return chatClientBuilder
                 .defaultSystem("""
                         你是一个专业的在线实体书商城助手，名叫"番茄书城助手"，提供友好、准确的回复。
@@ -52,9 +87,163 @@ public class LLMConfig {
                         同时注意, 不要在回答中夹杂url链接或者图片引用, 不要使用markdown标记语法。
                         """)
                 .defaultTools(productTools)
-                .defaultAdvisors(new MessageChatMemoryAdvisor(chatMemory))
+                .defaultAdvisors(chatMemoryAdvisor)
                 // debug 使用
                 .defaultAdvisors(new SimpleLoggerAdvisor())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * 创建主备路由聊天模型
+     * 
+     * <p>
+     * 以自动配置的 OpenAI 兼容模型为主模型，按配置创建备用模型，
+     * 作为首选的聊天模型注入聊天客户端和摘要服务，需要通过 {@code app.ai.routing.enabled=true} 开启。
+     * 备用模型类型为 stub 时使用本地模拟模型，不访问外部接口
+     * </p>
+     * 
+     * @param openAiChatModel    自动配置的聊天模型
+     * @param toolCallingManager 工具调用管理器，备用模型同样在内部执行工具调用
+     * @param properties         路由配置
+     * @param meterRegistry      指标注册表
+     * @return 主备路由聊天模型
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.ai.routing.enabled", havingValue = "true")
+    public RoutingChatModel routingChatModel(OpenAiChatModel openAiChatModel, ToolCallingManager toolCallingManager,
+            ChatRoutingProperties properties, MeterRegistry meterRegistry) {
+        ChatModel secondary;
+        if ("stub".equals(properties.getSecondaryProvider())) {
+            secondary = new StubChatModel("您好，我是番茄书城助手（本地模拟回复）。", properties.getStubFirstTokenLatency(),
+                    properties.getStubTokenInterval(), properties.getStubFailureRate());
+        } else {
+            secondary = OpenAiChatModel.builder()
+                    .openAiApi(OpenAiApi.builder()
+                            .baseUrl(properties.getSecondaryBaseUrl())
+                            .apiKey(properties.getSecondaryApiKey())
+                            .build())
+                    .defaultOptions(OpenAiChatOptions.builder().model(properties.getSecondaryModel()).build())
+                    .toolCallingManager(toolCallingManager)
+                    .build();
+        }
+        return new RoutingChatModel(openAiChatModel, secondary, properties, meterRegistry);
+    }
+
+    /**
+     * 创建令牌预算聊天记忆顾问
+     * 
+     * <p>
+     * 每轮请求只携带预算内的最近消息，更早的消息以滚动摘要代替，
+     * 使提示词长度不随对话轮数增长
+     * </p>
+     * 
+     * @param chatMemory         聊天记忆组件，保存完整的对话消息
+     * @param chatSummaryService 聊天记忆摘要服务
+     * @param embeddingModel     嵌入模型，用于召回早期对话
+     * @param properties         聊天记忆配置
+     * @param meterRegistry      指标注册表
+     * @return 聊天记忆顾问
+     */
+    @Bean
+    public TokenWindowChatMemoryAdvisor tokenWindowChatMemoryAdvisor(ChatMemory chatMemory,
+            ChatSummaryService chatSummaryService, EmbeddingModel embeddingModel, ChatMemoryProperties properties,
+            MeterRegistry meterRegistry) {
+        return new TokenWindowChatMemoryAdvisor(chatMemory, chatSummaryService, embeddingModel, properties,
+                meterRegistry);
+    }
+
+    /**
+     * 创建分层聊天记忆存储
+     * 
+     * <p>
+     * 包装自动配置的数据库聊天记忆，活跃对话从进程内缓存读取，新消息延迟批量写入数据库，
+     * 作为首选的聊天记忆注入顾问和对话服务，可以通过 {@code app.ai.memory.store.enabled=false} 关闭
+     * </p>
+     * 
+     * @param jdbcChatMemory 自动配置的数据库聊天记忆
+     * @param jdbcTemplate   JDBC操作模板，用于批量写入消息
+     * @param properties     分层存储配置
+     * @param meterRegistry  指标注册表
+     * @return 分层聊天记忆存储
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.ai.memory.store.enabled", havingValue = "true", matchIfMissing = true)
+    public TieredChatMemory tieredChatMemory(@Qualifier("chatMemory") ChatMemory jdbcChatMemory,
+            JdbcTemplate jdbcTemplate, ChatMemoryStoreProperties properties, MeterRegistry meterRegistry) {
+        return new TieredChatMemory(jdbcChatMemory, jdbcTemplate, properties, meterRegistry);
+    }
+
+    /**
+     * 创建合并并发请求的嵌入模型
+     * 
+     * <p>
+     * 包装自动配置的嵌入模型，把并发的单条查询嵌入合并为批量请求，
+     * 可以通过 {@code app.embedding.micro-batch.enabled=false} 关闭
+     * </p>
+     * 
+     * @param openAiEmbeddingModel 自动配置的嵌入模型
+     * @param properties           合批配置
+     * @param meterRegistry        指标注册表
+     * @return 合并请求的嵌入模型
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.embedding.micro-batch.enabled", havingValue = "true", matchIfMissing = true)
+    public MicroBatchingEmbeddingModel microBatchingEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+            EmbeddingBatchProperties properties, MeterRegistry meterRegistry) {
+        return new MicroBatchingEmbeddingModel(openAiEmbeddingModel, properties, meterRegistry);
+    }
+
+    /**
+     * 创建带持久化缓存的嵌入模型
+     * 
+     * <p>
+     * 包装自动配置的 OpenAI 兼容嵌入模型（启用合批时为合批后的版本），
+     * 相同模型对相同文本的嵌入结果只会计算一次，只用于商品文档的写入和重建
+     * </p>
+     * 
+     * @param openAiEmbeddingModel 自动配置的嵌入模型
+     * @param microBatchingModel   合并请求的嵌入模型，未启用时不存在
+     * @param model                嵌入模型名称
+     * @param cacheRepository      嵌入向量缓存数据访问对象
+     * @param jdbcTemplate         JDBC操作模板，用于批量写入缓存
+     * @param meterRegistry        指标注册表
+     * @return 带缓存的嵌入模型
+     */
+    @Bean
+    public CachingEmbeddingModel cachingEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+            ObjectProvider<MicroBatchingEmbeddingModel> microBatchingModel,
+            @Value("${spring.ai.openai.embedding.options.model}") String model,
+            EmbeddingCacheRepository cacheRepository, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        EmbeddingModel delegate = microBatchingModel.getIfAvailable();
+        return new CachingEmbeddingModel(delegate != null ? delegate : openAiEmbeddingModel, model, cacheRepository,
+                jdbcTemplate, meterRegistry);
+    }
+
+    /**
+     * 创建带进程内查询缓存的嵌入模型
+     * 
+     * <p>
+     * 作为首选的嵌入模型注入向量存储，文档嵌入交给带持久化缓存的嵌入模型；
+     * 检索查询绕过持久化缓存，直接调用自动配置的嵌入模型（启用合批时为合批后的版本），
+     * 规范化后相同的查询只嵌入一次
+     * </p>
+     * 
+     * @param cachingEmbeddingModel 带持久化缓存的嵌入模型
+     * @param openAiEmbeddingModel  自动配置的嵌入模型
+     * @param microBatchingModel    合并请求的嵌入模型，未启用时不存在
+     * @param properties            AI 助手缓存配置
+     * @param meterRegistry         指标注册表
+     * @return 带查询缓存的嵌入模型
+     */
+    @Bean
+    @Primary
+    public QueryCachingEmbeddingModel queryCachingEmbeddingModel(CachingEmbeddingModel cachingEmbeddingModel,
+            OpenAiEmbeddingModel openAiEmbeddingModel, ObjectProvider<MicroBatchingEmbeddingModel> microBatchingModel,
+            AssistantCacheProperties properties, MeterRegistry meterRegistry) {
+        EmbeddingModel queryDelegate = microBatchingModel.getIfAvailable();
+        return new QueryCachingEmbeddingModel(cachingEmbeddingModel,
+                queryDelegate != null ? queryDelegate : openAiEmbeddingModel, properties, meterRegistry);
+    }
+}
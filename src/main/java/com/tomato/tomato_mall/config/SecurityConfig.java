@@ -81,6 +81,8 @@ public class SecurityConfig {
             // 公开访问的端点
             .requestMatchers("/api/accounts", "/api/accounts/login", "/api/oss/avatar", "/api/orders/notify")
             .permitAll()
+            // 健康检查端点供负载均衡和容器探针使用
+            .requestMatchers("/actuator/health").permitAll()
             // 所有其他请求需要认证
             .anyRequest().authenticated())
         // 设置无状态会话管理
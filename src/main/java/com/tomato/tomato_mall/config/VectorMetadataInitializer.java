@@ -0,0 +1,47 @@
+package com.tomato.tomato_mall.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+
+/**
+ * 向量元数据初始化器
+ * <p>
+ * 商品文档的价格和评分元数据由字符串改为数字保存后，已有文档需要迁移才能参与区间过滤。
+ * 该组件在应用启动时原地转换这些字段，不会重新生成嵌入向量。
+ * </p>
+ * <p>
+ * 该操作是幂等的：已转换的文档保持不变。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+public class VectorMetadataInitializer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorMetadataInitializer.class);
+
+    private final VectorStoreUtil vectorStoreUtil;
+
+    /**
+     * 构造函数，通过依赖注入初始化组件
+     *
+     * @param vectorStoreUtil 向量存储工具
+     */
+    public VectorMetadataInitializer(VectorStoreUtil vectorStoreUtil) {
+        this.vectorStoreUtil = vectorStoreUtil;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int migrated = vectorStoreUtil.migrateNumericMetadata();
+        if (migrated > 0) {
+            log.info("Converted price and rate metadata of {} vector documents to numbers", migrated);
+        }
+    }
+}
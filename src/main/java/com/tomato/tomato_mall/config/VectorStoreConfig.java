@@ -0,0 +1,77 @@
+package com.tomato.tomato_mall.config;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.tomato.tomato_mall.properties.HnswVectorStoreProperties;
+import com.tomato.tomato_mall.properties.VectorQuantizationProperties;
+import com.tomato.tomato_mall.util.HnswVectorStore;
+import com.tomato.tomato_mall.util.QuantizedPgVectorStore;
+
+/**
+ * 向量存储配置类
+ * <p>
+ * 开启索引量化（{@code app.vector-store.quantization} 为 halfvec 或 binary）时，
+ * 注册使用量化索引检索的向量存储并作为首选的 {@code VectorStore} 注入，
+ * 向量存储工具和 AI 工具无需任何改动即可使用量化检索。
+ * 未开启时直接使用自动配置的 pgvector 向量存储。
+ * </p>
+ * <p>
+ * 设置 {@code spring.ai.vectorstore.type=hnsw} 时关闭 pgvector 自动配置，
+ * 改用进程内的 HNSW 向量存储，此时量化配置不生效。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Configuration
+public class VectorStoreConfig {
+
+    /**
+     * 创建使用量化索引检索的向量存储
+     *
+     * @param pgVectorStore      自动配置的 pgvector 向量存储，负责写入和删除
+     * @param jdbcTemplate       JDBC操作模板
+     * @param transactionManager 事务管理器
+     * @param embeddingModel     嵌入模型
+     * @param schemaName         向量表所在的模式
+     * @param tableName          向量表名称
+     * @param dimensions         向量维度
+     * @param properties         量化配置
+     * @return 量化向量存储
+     */
+    @Bean
+    @Primary
+    @ConditionalOnExpression("'${spring.ai.vectorstore.type:pgvector}' == 'pgvector'"
+            + " and '${app.vector-store.quantization:none}'.toLowerCase() != 'none'")
+    public QuantizedPgVectorStore quantizedVectorStore(PgVectorStore pgVectorStore, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, EmbeddingModel embeddingModel,
+            @Value("${spring.ai.vectorstore.pgvector.schema-name:public}") String schemaName,
+            @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String tableName,
+            @Value("${spring.ai.vectorstore.pgvector.dimensions}") int dimensions,
+            VectorQuantizationProperties properties) {
+        return new QuantizedPgVectorStore(pgVectorStore, jdbcTemplate, transactionManager, embeddingModel,
+                schemaName, tableName, dimensions, properties);
+    }
+
+    /**
+     * 创建进程内 HNSW 向量存储
+     *
+     * @param embeddingModel 嵌入模型
+     * @param properties     进程内向量存储配置
+     * @return 进程内向量存储
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "hnsw")
+    public HnswVectorStore hnswVectorStore(EmbeddingModel embeddingModel, HnswVectorStoreProperties properties) {
+        return new HnswVectorStore(embeddingModel, properties);
+    }
+}
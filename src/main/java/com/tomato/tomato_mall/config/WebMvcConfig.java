@@ -0,0 +1,42 @@
+package com.tomato.tomato_mall.config;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC 配置类
+ * <p>
+ * 全局的 {@code spring.jpa.open-in-view} 已关闭，这里为除 AI 对话以外的接口保留在视图中打开 EntityManager 的行为。
+ * AI 对话接口在请求期间会等待大模型数秒甚至持续推送流式回复，
+ * 如果整个请求都绑定 EntityManager，已获取的数据库连接会一直被占用，
+ * 因此这些接口只在服务层的短事务中访问数据库。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 构造函数，通过依赖注入初始化所需组件
+     *
+     * @param entityManagerFactory 实体管理器工厂
+     */
+    public WebMvcConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/api/ai/**");
+    }
+}
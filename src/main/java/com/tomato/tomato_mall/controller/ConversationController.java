@@ -2,10 +2,15 @@ package com.tomato.tomato_mall.controller;
 
 import com.tomato.tomato_mall.dto.ConversationCreateDTO;
 import com.tomato.tomato_mall.dto.MessageCreateDTO;
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
 import com.tomato.tomato_mall.service.ConversationService;
+import com.tomato.tomato_mall.service.StreamReplayService;
 import com.tomato.tomato_mall.vo.ConversationVO;
+import com.tomato.tomato_mall.vo.CursorPageVO;
 import com.tomato.tomato_mall.vo.MessageVO;
 import com.tomato.tomato_mall.vo.ResponseVO;
+import com.tomato.tomato_mall.vo.StreamEventVO;
 
 import reactor.core.publisher.Flux;
 
@@ -14,6 +19,7 @@ import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -31,20 +37,24 @@ import java.util.List;
 public class ConversationController {
 
     private final ConversationService conversationService;
+    private final StreamReplayService streamReplayService;
 
     /**
      * 构造函数，通过依赖注入初始化服务
      * 
      * @param conversationService 对话服务，处理AI对话相关业务逻辑
+     * @param streamReplayService 流式回复续传服务，缓冲回复片段供断线重连续传
      */
-    public ConversationController(ConversationService conversationService) {
+    public ConversationController(ConversationService conversationService,
+            StreamReplayService streamReplayService) {
         this.conversationService = conversationService;
+        this.streamReplayService = streamReplayService;
     }
 
     /**
      * 获取用户所有对话接口
      * <p>
-     * 返回当前登录用户的所有对话列表
+     * 返回当前登录用户最近更新的一页对话列表
      * </p>
      * 
      * @return 返回包含用户对话列表的响应体，状态码200
@@ -56,6 +66,25 @@ public class ConversationController {
         return ResponseEntity.ok(ResponseVO.success(conversations));
     }
 
+    /**
+     * 分页获取用户对话接口
+     * <p>
+     * 按更新时间倒序返回当前登录用户的一页对话，响应中的游标用于获取下一页
+     * </p>
+     * 
+     * @param cursor 上一页返回的游标，不指定时返回第一页
+     * @param size   每页数量，不指定时使用默认配置
+     * @return 返回包含对话分页结果的响应体，状态码200
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ResponseVO<CursorPageVO<ConversationVO>>> getUserConversationPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        CursorPageVO<ConversationVO> page = conversationService.getUserConversationPage(username, cursor, size);
+        return ResponseEntity.ok(ResponseVO.success(page));
+    }
+
     /**
      * 创建新对话接口
      * <p>
@@ -76,7 +105,8 @@ public class ConversationController {
     /**
      * 根据ID获取对话详情接口
      * <p>
-     * 返回指定ID的对话详细信息，包含完整的消息历史记录
+     * 返回指定ID的对话详细信息，包含最近一页消息
+     * 更早的消息使用返回的消息游标通过消息分页接口获取
      * 用户只能访问自己的对话
      * </p>
      * 
@@ -90,6 +120,27 @@ public class ConversationController {
         return ResponseEntity.ok(ResponseVO.success(conversation));
     }
 
+    /**
+     * 分页获取对话消息接口
+     * <p>
+     * 从最新的消息开始按创建时间倒序返回一页消息，响应中的游标用于获取更早的消息
+     * 用户只能访问自己的对话
+     * </p>
+     * 
+     * @param conversationId 对话ID
+     * @param cursor         上一页或对话详情返回的游标，不指定时返回最新一页
+     * @param size           每页数量，不指定时使用默认配置
+     * @return 返回包含消息分页结果的响应体，状态码200
+     */
+    @GetMapping("/{conversationId}/messages")
+    public ResponseEntity<ResponseVO<CursorPageVO<MessageVO>>> getMessagePage(@PathVariable String conversationId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        CursorPageVO<MessageVO> page = conversationService.getMessagePage(username, conversationId, cursor, size);
+        return ResponseEntity.ok(ResponseVO.success(page));
+    }
+
     /**
      * 删除对话接口
      * <p>
@@ -131,28 +182,66 @@ public class ConversationController {
      * <p>
      * 在指定对话中发送消息并通过SSE获取AI的实时流式回复
      * 返回的数据流包含消息片段，前端可以实时接收并拼接显示
+     * 每个事件的ID由回复ID和递增序号组成，连接中断后可以通过续传接口继续接收
+     * 短时间内连续到达的片段会合并为一个事件推送，合并窗口可以由客户端指定，为 0 时每个片段单独推送
+     * 大模型繁忙需要排队时，先推送类型为 queue 的事件告知排队位置，开始生成时推送位置 0
      * </p>
      * 
      * @param conversationId 对话ID
+     * @param frameWindow    帧合并窗口（毫秒），不指定时使用默认配置
      * @param messageDTO     消息创建数据传输对象，包含用户发送的消息内容
      * @return 返回SSE流，包含回复的消息片段
      */
     @PostMapping(value = "/stream/{conversationId}", produces = "text/event-stream;charset=UTF-8")
     public Flux<ServerSentEvent<String>> getStreamMessage(@PathVariable String conversationId,
+            @RequestParam(required = false) Integer frameWindow,
             @RequestBody MessageCreateDTO messageDTO) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return conversationService.getStreamMessage(username, conversationId, messageDTO)
-                .map(message -> ServerSentEvent.<String>builder()
-                        .id(String.valueOf(System.currentTimeMillis()))
-                        .event("message")
-                        .data(message)
+        Flux<String> chunks = conversationService.getStreamMessage(username, conversationId, messageDTO);
+        return toServerSentEvents(streamReplayService.publish(username, conversationId, chunks,
+                frameWindow == null ? null : Duration.ofMillis(frameWindow)));
+    }
+
+    /**
+     * 续传AI流式回复接口
+     * <p>
+     * 连接中断后携带最后收到的事件ID重新连接，先补发缺失的消息片段，再继续推送实时片段。
+     * 回复生成结束一段时间后无法再续传，此时应重新获取对话详情
+     * </p>
+     * 
+     * @param conversationId 对话ID
+     * @param lastEventId    最后收到的事件ID，来自 {@code Last-Event-ID} 请求头
+     * @return 返回SSE流，包含缺失及之后的消息片段
+     */
+    @GetMapping(value = "/stream/{conversationId}", produces = "text/event-stream;charset=UTF-8")
+    public Flux<ServerSentEvent<String>> resumeStreamMessage(@PathVariable String conversationId,
+            @RequestHeader("Last-Event-ID") String lastEventId) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return toServerSentEvents(streamReplayService.resume(username, conversationId, lastEventId));
+    }
+
+    private Flux<ServerSentEvent<String>> toServerSentEvents(Flux<StreamEventVO> events) {
+        return events
+                .map(event -> ServerSentEvent.<String>builder()
+                        .id(event.getId())
+                        .event(event.getEvent())
+                        .data(event.getData())
                         .build())
                 .onErrorResume(e -> {
                     return Flux.just(ServerSentEvent.<String>builder()
                             .id("error")
                             .event("error")
-                            .data(e.getMessage())
+                            .data(errorMessage(e))
                             .build());
                 });
     }
-}
\ No newline at end of file
+
+    private static String errorMessage(Throwable e) {
+        if (e instanceof BusinessException businessException) {
+            ErrorTypeEnum errorType = businessException.getErrorType();
+            return businessException.getArgs() != null ? errorType.getMessage(businessException.getArgs())
+                    : errorType.getMessage();
+        }
+        return e.getMessage();
+    }
+}
@@ -1,22 +1,29 @@
 package com.tomato.tomato_mall.controller;
 
 import com.tomato.tomato_mall.dto.ProductCreateDTO;
+import com.tomato.tomato_mall.dto.ProductSearchDTO;
 import com.tomato.tomato_mall.dto.ProductUpdateDTO;
+import com.tomato.tomato_mall.dto.StockpileBulkItemDTO;
 import com.tomato.tomato_mall.dto.StockpileUpdateDTO;
+import com.tomato.tomato_mall.service.ProductBulkService;
 import com.tomato.tomato_mall.service.ProductService;
 import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.vo.ProductBulkResultVO;
 import com.tomato.tomato_mall.vo.ProductVO;
 import com.tomato.tomato_mall.vo.ResponseVO;
+import com.tomato.tomato_mall.vo.StockpileBulkResultVO;
 import com.tomato.tomato_mall.vo.StockpileVO;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 // import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -36,16 +43,20 @@ public class ProductController {
 
     private final ProductService productService;
     private final StockpileService stockpileService;
+    private final ProductBulkService productBulkService;
 
     /**
      * 构造函数，通过依赖注入初始化服务
      * 
-     * @param productService   商品服务，处理商品相关业务逻辑
-     * @param stockpileService 库存服务，处理商品库存相关业务逻辑
+     * @param productService     商品服务，处理商品相关业务逻辑
+     * @param stockpileService   库存服务，处理商品库存相关业务逻辑
+     * @param productBulkService 商品批量操作服务，处理批量导入、更新和删除
      */
-    public ProductController(ProductService productService, StockpileService stockpileService) {
+    public ProductController(ProductService productService, StockpileService stockpileService,
+            ProductBulkService productBulkService) {
         this.productService = productService;
         this.stockpileService = stockpileService;
+        this.productBulkService = productBulkService;
     }
 
     /**
@@ -84,6 +95,22 @@ public class ProductController {
         return ResponseEntity.ok(ResponseVO.success(productsPage));
     }
 
+    /**
+     * 商品语义检索接口
+     * <p>
+     * 根据自然语言描述检索相关商品，可以同时限定价格和评分区间。
+     * 区间条件在向量数据库中与相似度搜索一同执行，返回结果按相似度降序排列。
+     * </p>
+     * 
+     * @param searchDTO 检索条件，包含查询文本、可选的价格和评分区间以及返回数量
+     * @return 返回包含商品列表的响应体，状态码200
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ResponseVO<List<ProductVO>>> searchProducts(@Valid @ModelAttribute ProductSearchDTO searchDTO) {
+        List<ProductVO> products = productService.searchProducts(searchDTO);
+        return ResponseEntity.ok(ResponseVO.success(products));
+    }
+
     /**
      * 根据ID获取商品详情接口
      * <p>
@@ -117,6 +144,29 @@ public class ProductController {
         // return ResponseEntity.status(HttpStatus.CREATED).body(ResponseVO.success(newProduct));
     }
 
+    /**
+     * 批量处理商品接口
+     * <p>
+     * 以 CSV 或 NDJSON 格式流式上传商品数据，批量创建、更新或删除商品，需要管理员权限。
+     * 每条记录通过 op 字段指定操作类型，缺省时根据是否提供 id 推断为创建或更新。
+     * 数据按块提交，单条记录失败不会影响其他记录，失败原因随行号在结果中返回。
+     * </p>
+     * 
+     * @param contentType 请求内容类型，text/csv 或 application/x-ndjson
+     * @param chunkSize   每个事务提交的记录数 (默认为500)
+     * @param body        请求体输入流
+     * @return 返回包含各数据块处理结果的响应体，状态码200
+     */
+    @PostMapping(value = "/bulk", consumes = { "text/csv", "application/x-ndjson" })
+    @PreAuthorize("hasRole('admin')")
+    public ResponseEntity<ResponseVO<ProductBulkResultVO>> bulkProcessProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(defaultValue = "500") @Min(1) int chunkSize,
+            InputStream body) {
+        ProductBulkResultVO result = productBulkService.bulkProcess(body, contentType, chunkSize);
+        return ResponseEntity.ok(ResponseVO.success(result));
+    }
+
     /**
      * 更新商品信息接口
      * <p>
@@ -194,4 +244,22 @@ public class ProductController {
     //     StockpileVO updatedProduct = stockpileService.updateStockpile(productId, stockpileUpdateDTO);
     //     return ResponseEntity.ok(ResponseVO.success(updatedProduct));
     // }
-}
\ No newline at end of file
+
+    /**
+     * 批量同步商品库存接口
+     * <p>
+     * 按仓库推送的绝对数量批量设置商品库存，需要管理员权限。
+     * 低于冻结数量、库存不存在或数据不合法的条目会被拒绝，并在结果中逐条说明原因，其余条目正常生效。
+     * </p>
+     * 
+     * @param items 库存同步条目列表，每项包含商品ID和库存数量
+     * @return 返回包含更新数量和拒绝明细的响应体，状态码200
+     */
+    @PatchMapping("/stockpile")
+    @PreAuthorize("hasRole('admin')")
+    public ResponseEntity<ResponseVO<StockpileBulkResultVO>> bulkUpdateProductStock(
+            @RequestBody List<StockpileBulkItemDTO> items) {
+        StockpileBulkResultVO result = stockpileService.bulkUpdateStockpiles(items);
+        return ResponseEntity.ok(ResponseVO.success(result));
+    }
+}
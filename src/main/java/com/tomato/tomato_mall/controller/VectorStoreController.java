@@ -0,0 +1,71 @@
+package com.tomato.tomato_mall.controller;
+
+import com.tomato.tomato_mall.service.VectorReindexService;
+import com.tomato.tomato_mall.vo.ResponseVO;
+import com.tomato.tomato_mall.vo.VectorConsistencyVO;
+import com.tomato.tomato_mall.vo.VectorReindexJobVO;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 向量库管理控制器
+ * <p>
+ * 提供向量库重建和一致性检查的REST API接口
+ * 所有接口返回统一的ResponseVO格式，包含状态码、消息和数据
+ * 所有接口仅管理员可用
+ * </p>
+ * 
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/vectors")
+public class VectorStoreController {
+
+    private final VectorReindexService vectorReindexService;
+
+    /**
+     * 构造函数，通过依赖注入初始化服务
+     */
+    public VectorStoreController(VectorReindexService vectorReindexService) {
+        this.vectorReindexService = vectorReindexService;
+    }
+
+    /**
+     * 启动向量库重建接口
+     * <p>
+     * 在后台重建全部商品的向量并原子替换正式向量表，可通过进度接口查询状态
+     * </p>
+     * 
+     * @return 返回包含新建任务信息的响应体，状态码200
+     */
+    @PostMapping("/reindex")
+    @PreAuthorize("hasRole('admin')")
+    public ResponseEntity<ResponseVO<VectorReindexJobVO>> startReindex() {
+        return ResponseEntity.ok(ResponseVO.success(vectorReindexService.startReindex()));
+    }
+
+    /**
+     * 查询向量库重建进度接口
+     * 
+     * @return 返回包含最近一次任务进度、吞吐量和预计剩余时间的响应体，状态码200
+     */
+    @GetMapping("/reindex")
+    @PreAuthorize("hasRole('admin')")
+    public ResponseEntity<ResponseVO<VectorReindexJobVO>> getReindexStatus() {
+        return ResponseEntity.ok(ResponseVO.success(vectorReindexService.getLatestJob()));
+    }
+
+    /**
+     * 向量库一致性检查接口
+     * 
+     * @return 返回包含缺失向量的商品和孤立向量统计的响应体，状态码200
+     */
+    @GetMapping("/consistency")
+    @PreAuthorize("hasRole('admin')")
+    public ResponseEntity<ResponseVO<VectorConsistencyVO>> checkConsistency() {
+        return ResponseEntity.ok(ResponseVO.success(vectorReindexService.checkConsistency()));
+    }
+}
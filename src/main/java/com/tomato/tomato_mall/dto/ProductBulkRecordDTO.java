@@ -0,0 +1,88 @@
+package com.tomato.tomato_mall.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 商品批量记录数据传输对象
+ * <p>
+ * 该DTO对应批量导入数据(CSV的一行或NDJSON的一行)中的一条商品记录。
+ * 记录中的字段与{@link ProductCreateDTO}和{@link ProductUpdateDTO}保持一致，
+ * 在处理时会被转换为对应的DTO并复用其Bean Validation约束进行校验。
+ * </p>
+ * <p>
+ * CSV格式中规格字段使用"名称:内容"的形式表示单个规格，多个规格之间以分号分隔。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Data
+public class ProductBulkRecordDTO {
+
+    /**
+     * 操作类型
+     * <p>
+     * 取值为 CREATE、UPDATE 或 DELETE，忽略大小写。
+     * 为空时，未携带商品ID的记录视为创建，携带商品ID的记录视为更新。
+     * </p>
+     */
+    private String op;
+
+    /**
+     * 商品ID
+     * <p>
+     * 更新和删除操作时必填，创建操作时必须为空。
+     * </p>
+     */
+    private Long id;
+
+    /**
+     * 商品标题
+     */
+    private String title;
+
+    /**
+     * 商品价格
+     */
+    private BigDecimal price;
+
+    /**
+     * 商品评分
+     */
+    private Double rate;
+
+    /**
+     * 商品描述
+     */
+    private String description;
+
+    /**
+     * 商品封面URL
+     */
+    private String cover;
+
+    /**
+     * 商品详细说明
+     */
+    private String detail;
+
+    /**
+     * 商品规格列表
+     * <p>
+     * 更新操作时提供该字段会替换商品现有的全部规格。
+     * </p>
+     */
+    private List<SpecificationDTO> specifications;
+
+    /**
+     * 初始库存数量
+     * <p>
+     * 仅在创建操作时生效，为空时初始库存为0。
+     * 已有商品的库存调整请使用库存接口。
+     * </p>
+     */
+    private Integer amount;
+}
@@ -0,0 +1,65 @@
+package com.tomato.tomato_mall.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品语义检索数据传输对象
+ * <p>
+ * 该DTO封装了按自然语言描述检索商品时的查询条件。
+ * 查询文本用于向量相似度搜索，价格和评分区间作为元数据过滤条件与相似度搜索一同执行，
+ * 区间条件均为可选，未提供时不做限制。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Data
+public class ProductSearchDTO {
+    /**
+     * 查询文本
+     * <p>
+     * 用户对商品的自然语言描述，必填字段。
+     * </p>
+     */
+    @NotBlank(message = "Search query cannot be empty")
+    private String query;
+
+    /**
+     * 最低价格（含），可选
+     */
+    @DecimalMin(value = "0", message = "Minimum price cannot be negative")
+    private BigDecimal minPrice;
+
+    /**
+     * 最高价格（含），可选
+     */
+    @DecimalMin(value = "0", message = "Maximum price cannot be negative")
+    private BigDecimal maxPrice;
+
+    /**
+     * 最低评分（含），可选
+     */
+    @Min(value = 0, message = "Minimum rate cannot be less than 0")
+    @Max(value = 10, message = "Minimum rate cannot be greater than 10")
+    private Double minRate;
+
+    /**
+     * 最高评分（含），可选
+     */
+    @Min(value = 0, message = "Maximum rate cannot be less than 0")
+    @Max(value = 10, message = "Maximum rate cannot be greater than 10")
+    private Double maxRate;
+
+    /**
+     * 返回的最大商品数量，默认为10
+     */
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 50, message = "Limit cannot be greater than 50")
+    private Integer limit = 10;
+}
@@ -0,0 +1,32 @@
+package com.tomato.tomato_mall.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量库存同步条目数据传输对象
+ * <p>
+ * 该类描述仓库同步时推送的单个商品的绝对库存数量。
+ * 字段不使用 Bean Validation 注解，非法条目由服务层逐条拒绝并在结果中说明原因，
+ * 不会导致整个同步请求失败。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockpileBulkItemDTO {
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 同步后的库存数量，不能小于当前冻结数量
+     */
+    private Integer amount;
+}
@@ -0,0 +1,63 @@
+package com.tomato.tomato_mall.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 聊天记忆摘要实体类
+ * <p>
+ * 保存每个对话中已经滑出记忆窗口的早期消息的滚动摘要。
+ * 摘要记录最后一条已并入摘要的消息的指纹，下次摘要时只处理该消息之后、窗口之前的消息。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Entity
+@Table(name = "chat_memory_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMemorySummary {
+
+    /**
+     * 聊天记忆中的对话标识
+     */
+    @Id
+    @Column(name = "conversation_key", length = 64)
+    private String conversationKey;
+
+    /**
+     * 早期消息的摘要
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String summary;
+
+    /**
+     * 最后一条已并入摘要的消息的指纹
+     */
+    @Column(name = "last_message_fingerprint", nullable = false, length = 64)
+    private String lastMessageFingerprint;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "update_time", nullable = false)
+    private LocalDateTime updateTime;
+
+    /**
+     * 持久化前的回调方法
+     * <p>
+     * 设置更新时间
+     * </p>
+     */
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updateTime = LocalDateTime.now();
+    }
+}
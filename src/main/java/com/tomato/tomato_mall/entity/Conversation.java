@@ -12,7 +12,9 @@ import java.util.List;
 import org.hibernate.annotations.UuidGenerator;
 
 @Entity
-@Table(name = "conversations")
+@Table(name = "conversations", indexes = {
+        @Index(name = "idx_conversations_user_update_time", columnList = "user_id, deleted, update_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -35,6 +37,10 @@ public class Conversation {
     @Column(name = "update_time")
     private LocalDateTime updateTime;
 
+    // 逻辑删除标记, 只能通过 ConversationRepository.markDeleted 修改, 消息由后台任务清理
+    @Column(nullable = false, updatable = false, columnDefinition = "boolean default false")
+    private Boolean deleted = false;
+
     @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Message> messages = new ArrayList<>();
 
@@ -0,0 +1,71 @@
+package com.tomato.tomato_mall.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 嵌入向量缓存实体类
+ * <p>
+ * 以嵌入模型名称和文本内容的 SHA-256 摘要为键，持久化保存嵌入模型的计算结果。
+ * 相同模型对相同文本的嵌入向量是确定的，命中缓存时无需再次调用嵌入接口，
+ * 商品重新上架、恢复修改或重建索引时都可以直接复用。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Entity
+@Table(name = "embedding_cache", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_embedding_cache_model_text_hash", columnNames = { "model", "text_hash" })
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingCache {
+
+    /**
+     * 缓存记录ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 嵌入模型名称
+     */
+    @Column(nullable = false, length = 100)
+    private String model;
+
+    /**
+     * 文本内容的 SHA-256 摘要（十六进制）
+     */
+    @Column(name = "text_hash", nullable = false, length = 64)
+    private String textHash;
+
+    /**
+     * 嵌入向量，按小端序 float32 编码
+     */
+    @Column(nullable = false)
+    private byte[] embedding;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    /**
+     * 持久化前的回调方法
+     * <p>
+     * 设置创建时间
+     * </p>
+     */
+    @PrePersist
+    protected void onCreate() {
+        createTime = LocalDateTime.now();
+    }
+}
@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.UuidGenerator;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_conversation_create_time", columnList = "conversation_id, create_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
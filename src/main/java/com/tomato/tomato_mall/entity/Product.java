@@ -16,7 +16,7 @@ import java.util.List;
  * 包括但不限于：商品展示、商品管理、库存管理等功能。
  * </p>
  * <p>
- * 该实体通过JPA注解映射到数据库中的"products"表，使用自增长的ID作为主键。
+ * 该实体通过JPA注解映射到数据库中的"products"表，使用序列分配的ID作为主键。
  * </p>
  * <p>
  * 实体使用Lombok注解简化了代码，自动生成了getter、setter、equals、hashCode和toString方法。
@@ -35,11 +35,13 @@ public class Product {
      * 商品ID
      * <p>
      * 系统自动生成的唯一标识符，作为商品实体的主键。
-     * 采用自增长策略，由数据库在插入记录时自动分配。
+     * 采用序列策略，由 Hibernate 的 pooled 优化器每次从数据库序列预取一段ID，
+     * 使批量插入时无需逐条回读自增主键，从而可以合并为 JDBC 批处理。
      * </p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -101,6 +103,17 @@ public class Product {
     @Column(length = 500)
     private String detail;
 
+    /**
+     * 逻辑删除标记
+     * <p>
+     * 删除商品时只将该标记置为true，关联的规格、库存、订单项等数据由后台清理任务批量处理。
+     * 该列不参与实体更新语句，只能通过仓库中的批量语句修改，
+     * 避免持有旧状态的实体在保存时把已删除的商品恢复。
+     * </p>
+     */
+    @Column(nullable = false, updatable = false, columnDefinition = "boolean default false")
+    private Boolean deleted = false;
+
     /**
      * 商品规格列表
      * <p>
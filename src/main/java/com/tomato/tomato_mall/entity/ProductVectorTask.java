@@ -0,0 +1,98 @@
+package com.tomato.tomato_mall.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 商品向量同步任务实体类
+ * <p>
+ * 该类作为事务性发件箱，记录需要同步到向量数据库的商品。
+ * 商品的创建、更新和删除在同一事务中写入任务，由后台任务异步生成嵌入并写入向量数据库，
+ * 保证商品提交成功后向量最终一定会被同步，且嵌入模型调用不会占用业务事务。
+ * </p>
+ * <p>
+ * 任务只记录商品ID，不记录具体操作：处理时按商品的当前状态决定写入或删除向量，
+ * 因此同一商品的多个任务可以直接合并为一次同步。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Entity
+@Table(name = "product_vector_tasks", indexes = {
+        @Index(name = "idx_product_vector_tasks_available_at", columnList = "available_at"),
+        @Index(name = "idx_product_vector_tasks_product_id", columnList = "product_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductVectorTask {
+
+    /**
+     * 任务ID
+     * <p>
+     * 使用 pooled 序列分配，批量导入时任务可以与商品一起批量插入。
+     * </p>
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_vector_tasks_seq")
+    @SequenceGenerator(name = "product_vector_tasks_seq", sequenceName = "product_vector_tasks_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * 需要同步的商品ID
+     * <p>
+     * 不设置外键，商品被清理后任务仍需执行以删除对应的向量。
+     * </p>
+     */
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    /**
+     * 已尝试次数
+     */
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * 任务可被领取的最早时间，失败后按退避策略推迟
+     */
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    /**
+     * 租约到期时间，处理中的任务在此之前不会被其他实例领取
+     */
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    /**
+     * 最近一次失败的错误信息
+     */
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    /**
+     * 任务创建时间，用于计算队列延迟
+     */
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    /**
+     * 持久化前的回调方法
+     * <p>
+     * 设置创建时间，未指定可领取时间时任务立即可被领取。
+     * </p>
+     */
+    @PrePersist
+    protected void onCreate() {
+        createTime = LocalDateTime.now();
+        if (availableAt == null) {
+            availableAt = createTime;
+        }
+    }
+}
@@ -14,7 +14,7 @@ import lombok.ToString;
  * 作为Product实体的关联实体，每条Specification记录都必须关联到一个具体商品。
  * </p>
  * <p>
- * 该实体通过JPA注解映射到数据库中的"specifications"表，使用自增长的ID作为主键。
+ * 该实体通过JPA注解映射到数据库中的"specifications"表，使用序列分配的ID作为主键。
  * </p>
  * <p>
  * 实体使用Lombok注解简化了代码，自动生成了getter、setter、equals、hashCode和toString方法。
@@ -33,11 +33,13 @@ public class Specification {
      * 规格ID
      * <p>
      * 系统自动生成的唯一标识符，作为规格实体的主键。
-     * 采用自增长策略，由数据库在插入记录时自动分配。
+     * 采用序列策略，由 Hibernate 的 pooled 优化器每次从数据库序列预取一段ID，
+     * 使批量插入时无需逐条回读自增主键，从而可以合并为 JDBC 批处理。
      * </p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "specifications_seq")
+    @SequenceGenerator(name = "specifications_seq", sequenceName = "specifications_seq", allocationSize = 50)
     private Long id;
 
     /**
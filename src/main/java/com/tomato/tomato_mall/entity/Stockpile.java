@@ -13,7 +13,7 @@ import lombok.NoArgsConstructor;
  * 支持库存管理、库存预警、订单处理等核心业务功能。
  * </p>
  * <p>
- * 该实体通过JPA注解映射到数据库中的"stockpiles"表，使用自增长的ID作为主键，
+ * 该实体通过JPA注解映射到数据库中的"stockpiles"表，使用序列分配的ID作为主键，
  * 并通过外键与商品实体建立一对一关系。
  * </p>
  * <p>
@@ -35,11 +35,13 @@ public class Stockpile {
      * 库存ID
      * <p>
      * 系统自动生成的唯一标识符，作为库存实体的主键。
-     * 采用自增长策略，由数据库在插入记录时自动分配。
+     * 采用序列策略，由 Hibernate 的 pooled 优化器每次从数据库序列预取一段ID，
+     * 使批量插入时无需逐条回读自增主键，从而可以合并为 JDBC 批处理。
      * </p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stockpiles_seq")
+    @SequenceGenerator(name = "stockpiles_seq", sequenceName = "stockpiles_seq", allocationSize = 50)
     private Long id;
 
     /**
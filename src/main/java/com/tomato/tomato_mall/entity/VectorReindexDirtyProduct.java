@@ -0,0 +1,45 @@
+package com.tomato.tomato_mall.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 向量库重建期间发生变更的商品
+ * <p>
+ * 重建任务运行期间，后台同步任务仍然写入正式向量表，这些写入会随旧表一起被替换掉。
+ * 同步任务因此把期间处理过的商品记录在此，重建任务替换表时为这些商品重新登记同步任务。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Entity
+@Table(name = "vector_reindex_dirty_products", indexes = {
+        @Index(name = "idx_vector_reindex_dirty_products_job_id", columnList = "job_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorReindexDirtyProduct {
+
+    /**
+     * 记录ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 重建任务ID
+     */
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    /**
+     * 商品ID
+     */
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+}
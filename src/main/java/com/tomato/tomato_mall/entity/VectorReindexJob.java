@@ -0,0 +1,130 @@
+package com.tomato.tomato_mall.entity;
+
+import com.tomato.tomato_mall.enums.ReindexStatusEnum;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 向量库重建任务实体类
+ * <p>
+ * 记录一次向量库重建的进度。重建任务按商品ID顺序分页处理，
+ * 每批向量写入影子表的同时在同一事务中推进检查点，进程中断后从检查点继续，不会重复或遗漏商品。
+ * </p>
+ * <p>
+ * 运行中的任务定期刷新心跳时间，心跳超时的任务可被任意实例接管。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Entity
+@Table(name = "vector_reindex_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorReindexJob {
+
+    /**
+     * 任务ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 任务状态
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReindexStatusEnum status;
+
+    /**
+     * 影子表名称
+     */
+    @Column(name = "shadow_table", nullable = false, length = 100)
+    private String shadowTable;
+
+    /**
+     * 检查点：已写入影子表的最大商品ID
+     */
+    @Column(name = "last_product_id", nullable = false)
+    private Long lastProductId = 0L;
+
+    /**
+     * 已处理的商品数量
+     */
+    @Column(nullable = false)
+    private Long processed = 0L;
+
+    /**
+     * 任务开始时需要处理的商品总数
+     */
+    @Column(nullable = false)
+    private Long total = 0L;
+
+    /**
+     * 本轮运行的开始时间，任务被恢复时重置，用于计算吞吐量
+     */
+    @Column(name = "run_start_time", nullable = false)
+    private LocalDateTime runStartTime;
+
+    /**
+     * 本轮运行开始时已处理的商品数量
+     */
+    @Column(name = "run_start_processed", nullable = false)
+    private Long runStartProcessed = 0L;
+
+    /**
+     * 心跳时间
+     */
+    @Column(name = "heartbeat_time", nullable = false)
+    private LocalDateTime heartbeatTime;
+
+    /**
+     * 完成后向量库中缺失向量的商品数量
+     */
+    @Column(name = "missing_count")
+    private Long missingCount;
+
+    /**
+     * 完成后向量库中没有对应商品的向量数量
+     */
+    @Column(name = "orphaned_count")
+    private Long orphanedCount;
+
+    /**
+     * 失败原因
+     */
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+
+    /**
+     * 结束时间
+     */
+    @Column(name = "finish_time")
+    private LocalDateTime finishTime;
+
+    /**
+     * 持久化前的回调方法
+     * <p>
+     * 设置创建时间、本轮开始时间和心跳时间
+     * </p>
+     */
+    @PrePersist
+    protected void onCreate() {
+        createTime = LocalDateTime.now();
+        runStartTime = createTime;
+        heartbeatTime = createTime;
+    }
+}
@@ -0,0 +1,53 @@
+package com.tomato.tomato_mall.enums;
+
+/**
+ * 批量操作类型枚举
+ * <p>
+ * 定义商品批量导入接口中每条记录可以执行的操作类型
+ * 记录未显式指定操作类型时，根据是否携带商品ID推断为创建或更新
+ * </p>
+ * 
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public enum BulkOperationTypeEnum {
+
+    /**
+     * 创建商品
+     * 不允许携带商品ID
+     */
+    CREATE,
+
+    /**
+     * 更新商品
+     * 必须携带商品ID，只更新提供的非空字段
+     */
+    UPDATE,
+
+    /**
+     * 删除商品
+     * 必须携带商品ID
+     */
+    DELETE;
+
+    /**
+     * 通过名称获取对应的操作类型枚举
+     * <p>
+     * 查找并返回与指定名称匹配的操作类型枚举，忽略大小写和首尾空白
+     * </p>
+     * 
+     * @param name 要查找的操作类型名称
+     * @return 匹配的操作类型枚举，如果未找到则返回null
+     */
+    public static BulkOperationTypeEnum getByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (BulkOperationTypeEnum type : values()) {
+            if (type.name().equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
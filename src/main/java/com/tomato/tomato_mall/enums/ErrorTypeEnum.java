@@ -81,6 +81,22 @@ public enum ErrorTypeEnum {
 
     RESPONSE_FETCH_FAILED(HttpStatus.INTERNAL_SERVER_ERROR, "获取回复失败"),
 
+    BULK_FORMAT_NOT_SUPPORTED(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "不支持的批量数据格式: %s"),
+
+    BULK_READ_FAILED(HttpStatus.BAD_REQUEST, "批量数据读取失败"),
+
+    REINDEX_ALREADY_RUNNING(HttpStatus.CONFLICT, "向量库重建任务正在运行"),
+
+    REINDEX_JOB_NOT_FOUND(HttpStatus.NOT_FOUND, "向量库重建任务不存在"),
+
+    STREAM_RESUME_UNAVAILABLE(HttpStatus.NOT_FOUND, "回复流不存在或已无法续传"),
+
+    AI_SERVICE_BUSY(HttpStatus.TOO_MANY_REQUESTS, "AI助手繁忙，请稍后再试"),
+
+    VECTOR_STORE_OPERATION_NOT_SUPPORTED(HttpStatus.BAD_REQUEST, "当前向量存储不支持该操作"),
+
+    INVALID_PAGE_CURSOR(HttpStatus.BAD_REQUEST, "分页游标无效"),
+
 
     // NoResourceFoundException
     RESOURCE_NOT_FOUND(HttpStatus.NOT_FOUND, "请求的资源不存在: %s %s"),
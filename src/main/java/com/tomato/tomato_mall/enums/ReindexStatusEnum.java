@@ -0,0 +1,31 @@
+package com.tomato.tomato_mall.enums;
+
+/**
+ * 向量重建任务状态枚举
+ * <p>
+ * 定义向量库重建任务在生命周期中的各个状态
+ * </p>
+ * 
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public enum ReindexStatusEnum {
+
+    /**
+     * 运行中
+     * 正在分页读取商品并写入影子表，进程退出后可从检查点恢复
+     */
+    RUNNING,
+
+    /**
+     * 已完成
+     * 影子表已替换为正式向量表
+     */
+    COMPLETED,
+
+    /**
+     * 已失败
+     * 影子表已删除，正式向量表保持不变
+     */
+    FAILED
+}
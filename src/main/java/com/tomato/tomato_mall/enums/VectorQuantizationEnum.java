@@ -0,0 +1,32 @@
+package com.tomato.tomato_mall.enums;
+
+/**
+ * 向量索引量化方式枚举
+ * <p>
+ * 定义向量相似度索引中嵌入向量的存储精度。量化只作用于索引，
+ * 向量表中始终保留全精度向量，用于对候选结果精确重排。
+ * </p>
+ * 
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public enum VectorQuantizationEnum {
+
+    /**
+     * 不量化
+     * 直接使用全精度向量上的 HNSW 索引
+     */
+    NONE,
+
+    /**
+     * 半精度
+     * 索引中每个分量以 16 位浮点数保存，索引体积约为全精度的一半
+     */
+    HALFVEC,
+
+    /**
+     * 二值
+     * 索引中每个分量只保留符号位并按汉明距离检索，索引体积约为全精度的 1/32
+     */
+    BINARY
+}
@@ -0,0 +1,53 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * AI 助手准入控制配置属性类
+ * <p>
+ * 该类用于从配置文件中读取大模型调用的并发限制相关配置，
+ * 包括全局和单个用户的并发上限、排队数量上限以及排队超时时间
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.admission")
+@Data
+public class AiAdmissionProperties {
+
+    /**
+     * 是否限制大模型调用的并发数
+     */
+    private boolean enabled = true;
+
+    /**
+     * 所有用户同时进行的大模型调用数量上限
+     */
+    private int maxConcurrent = 32;
+
+    /**
+     * 单个用户同时进行的大模型调用数量上限
+     */
+    private int maxConcurrentPerUser = 2;
+
+    /**
+     * 排队等待的调用数量上限，超出时立即拒绝
+     */
+    private int maxQueued = 256;
+
+    /**
+     * 单个用户排队等待的调用数量上限
+     */
+    private int maxQueuedPerUser = 4;
+
+    /**
+     * 调用排队等待的最长时间，超时后拒绝
+     */
+    private Duration queueTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,63 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * AI 助手降级模式配置属性类
+ * <p>
+ * 该类用于从配置文件中读取降级模式的相关配置，
+ * 包括进入降级模式的慢调用和失败比例阈值、试探恢复的间隔以及本地检索回答的书籍数量
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.degraded")
+@Data
+public class AiDegradedProperties {
+
+    /**
+     * 是否在大模型不可用时以本地检索结果回答荐书类提问
+     */
+    private boolean enabled = true;
+
+    /**
+     * 统计调用结果的滑动窗口大小（最近的调用次数）
+     */
+    private int windowSize = 20;
+
+    /**
+     * 窗口内至少有该数量的调用结果时才判断是否进入降级模式
+     */
+    private int minCalls = 10;
+
+    /**
+     * 首个片段（非流式调用为完整回复）超过该时间到达的调用视为慢调用
+     */
+    private Duration slowCallThreshold = Duration.ofSeconds(10);
+
+    /**
+     * 窗口内慢调用和失败调用的比例达到该值时进入降级模式
+     */
+    private double unhealthyRateThreshold = 0.5;
+
+    /**
+     * 降级期间放行一次试探调用的间隔，试探调用正常完成后恢复正常模式
+     */
+    private Duration probeInterval = Duration.ofSeconds(30);
+
+    /**
+     * 降级回答中最多列出的书籍数量
+     */
+    private int maxResults = 5;
+
+    /**
+     * 降级回答检索书籍的相似度阈值
+     */
+    private double similarityThreshold = 0.5;
+}
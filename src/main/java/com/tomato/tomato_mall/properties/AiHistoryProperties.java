@@ -0,0 +1,36 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * AI 助手历史记录分页配置属性类
+ * <p>
+ * 该类用于从配置文件中读取对话列表和消息历史的分页相关配置，
+ * 包括默认每页数量和客户端可指定的每页数量上限
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.history")
+@Data
+public class AiHistoryProperties {
+
+    /**
+     * 对话列表默认每页数量，获取全部对话接口也只返回最近这么多个对话
+     */
+    private int conversationPageSize = 20;
+
+    /**
+     * 消息历史默认每页数量，获取对话详情接口也只返回最近这么多条消息
+     */
+    private int messagePageSize = 50;
+
+    /**
+     * 客户端可指定的每页数量上限
+     */
+    private int maxPageSize = 100;
+}
@@ -0,0 +1,63 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * AI 助手流式回复配置属性类
+ * <p>
+ * 该类用于从配置文件中读取流式回复的相关配置，
+ * 包括回复阶段性保存的间隔、同时写入数据库的回复数量、断线续传缓冲区的容量和保留时间以及推送帧的合并策略
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.stream")
+@Data
+public class AiStreamProperties {
+
+    /**
+     * 流式回复生成过程中保存已生成内容的间隔
+     */
+    private Duration checkpointInterval = Duration.ofSeconds(2);
+
+    /**
+     * 同时写入数据库的流式回复数量上限，应小于数据库连接池大小
+     */
+    private int persistConcurrency = 8;
+
+    /**
+     * 回复生成结束后缓冲区继续保留的时间，客户端在此期间重连仍可续传
+     */
+    private Duration replayGracePeriod = Duration.ofMinutes(2);
+
+    /**
+     * 每个回复的缓冲区最多保留的字符数，超出时丢弃最早的片段
+     */
+    private int maxBufferedCharsPerReply = 32 * 1024;
+
+    /**
+     * 所有回复缓冲区合计的字符数上限，生成中的回复按单个缓冲区的上限计算
+     */
+    private long maxBufferedChars = 16 * 1024 * 1024;
+
+    /**
+     * 默认的帧合并窗口，距上一帧不足该时间到达的片段合并到同一帧推送，为 0 时每个片段单独推送
+     */
+    private Duration frameWindow = Duration.ofMillis(20);
+
+    /**
+     * 客户端可以指定的最大帧合并窗口
+     */
+    private Duration maxFrameWindow = Duration.ofMillis(200);
+
+    /**
+     * 单帧合并的字符数达到该值时立即推送，不再等待合并窗口结束
+     */
+    private int maxFrameChars = 512;
+}
@@ -0,0 +1,43 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * AI 助手缓存配置属性类
+ * <p>
+ * 该类用于从配置文件中读取 AI 助手进程内缓存的相关配置，
+ * 包括查询嵌入缓存和商品搜索工具结果缓存的容量与过期时间
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.cache")
+@Data
+public class AssistantCacheProperties {
+
+    /**
+     * 查询嵌入缓存的最大条目数
+     */
+    private long queryEmbeddingMaxSize = 10000;
+
+    /**
+     * 查询嵌入在最后一次访问后保留的时间
+     */
+    private Duration queryEmbeddingTtl = Duration.ofHours(1);
+
+    /**
+     * 商品搜索工具结果缓存的最大条目数
+     */
+    private long toolResultMaxSize = 1000;
+
+    /**
+     * 商品搜索工具结果在写入后保留的时间，库存信息不缓存
+     */
+    private Duration toolResultTtl = Duration.ofSeconds(60);
+}
@@ -0,0 +1,56 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * AI 助手聊天记忆配置属性类
+ * <p>
+ * 该类用于从配置文件中读取聊天记忆窗口的相关配置，
+ * 包括历史消息的令牌预算、读取的历史消息数量、触发滚动摘要的消息数量以及早期对话召回的参数
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.memory")
+@Data
+public class ChatMemoryProperties {
+
+    /**
+     * 每轮请求中历史消息最多占用的令牌数
+     */
+    private int maxHistoryTokens = 2000;
+
+    /**
+     * 每轮请求从聊天记忆中读取的最近消息数量
+     */
+    private int retrieveSize = 200;
+
+    /**
+     * 窗口之外未摘要的消息达到该数量时触发滚动摘要
+     */
+    private int summarizeMinMessages = 6;
+
+    /**
+     * 摘要的最大字数
+     */
+    private int maxSummaryLength = 400;
+
+    /**
+     * 是否按语义相似度召回窗口之外的早期对话
+     */
+    private boolean recallEnabled = false;
+
+    /**
+     * 最多召回的早期对话轮数
+     */
+    private int recallTopK = 2;
+
+    /**
+     * 早期提问与当前提问的余弦相似度不低于该值时才会被召回
+     */
+    private double recallThreshold = 0.75;
+}
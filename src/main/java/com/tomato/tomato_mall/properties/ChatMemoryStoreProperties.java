@@ -0,0 +1,53 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 分层聊天记忆存储配置属性类
+ * <p>
+ * 该类用于从配置文件中读取聊天记忆进程内缓存和延迟写入的相关配置，
+ * 包括是否启用、缓存的消息总字符数和空闲过期时间、每个对话缓存的消息数量以及写入数据库的间隔和积压上限
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.memory.store")
+@Data
+public class ChatMemoryStoreProperties {
+
+    /**
+     * 是否在数据库之前增加进程内缓存并延迟写入
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存中所有对话消息的字符总数上限，超过时移出最久未访问的对话
+     */
+    private long maxCachedCharacters = 20_000_000;
+
+    /**
+     * 对话超过该时间未被访问时移出缓存
+     */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 每个对话缓存的最近消息数量，应不小于 {@code app.ai.memory.retrieve-size}
+     */
+    private int messagesPerConversation = 200;
+
+    /**
+     * 新消息写入数据库的间隔，即进程异常退出时最多丢失的时间窗口
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 尚未写入数据库的消息上限，达到上限时由写入消息的线程立即写入
+     */
+    private int maxPendingMessages = 5000;
+}
@@ -0,0 +1,108 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 聊天模型路由配置属性类
+ * <p>
+ * 该类用于从配置文件中读取主备聊天模型之间对冲请求和故障切换的相关配置，
+ * 包括备用模型的接入方式、对冲等待时间的计算方式、熔断条件以及本地模拟模型的延迟
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.routing")
+@Data
+public class ChatRoutingProperties {
+
+    /**
+     * 是否在主模型之外启用备用模型
+     */
+    private boolean enabled = false;
+
+    /**
+     * 备用模型的类型，openai 为 OpenAI 兼容接口，stub 为本地模拟模型
+     */
+    private String secondaryProvider = "openai";
+
+    /**
+     * 备用模型接口地址
+     */
+    private String secondaryBaseUrl;
+
+    /**
+     * 备用模型接口密钥
+     */
+    private String secondaryApiKey;
+
+    /**
+     * 备用模型名称
+     */
+    private String secondaryModel = "qwen-turbo";
+
+    /**
+     * 主模型首个片段迟迟未到达时是否向备用模型发出对冲请求
+     */
+    private boolean hedgeEnabled = false;
+
+    /**
+     * 采样不足时使用的对冲等待时间
+     */
+    private Duration hedgeDelay = Duration.ofSeconds(2);
+
+    /**
+     * 对冲等待时间下限
+     */
+    private Duration minHedgeDelay = Duration.ofMillis(300);
+
+    /**
+     * 对冲等待时间上限
+     */
+    private Duration maxHedgeDelay = Duration.ofSeconds(5);
+
+    /**
+     * 对冲等待时间取主模型首个片段延迟的该分位数
+     */
+    private double hedgePercentile = 0.95;
+
+    /**
+     * 计算分位数时保留的最近延迟样本数
+     */
+    private int latencySamples = 200;
+
+    /**
+     * 样本数达到该值后才按分位数计算对冲等待时间
+     */
+    private int minLatencySamples = 20;
+
+    /**
+     * 连续失败达到该次数后熔断
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * 熔断持续时间，结束后放行一个试探请求
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * 本地模拟模型返回首个片段前的延迟
+     */
+    private Duration stubFirstTokenLatency = Duration.ofMillis(200);
+
+    /**
+     * 本地模拟模型相邻片段之间的间隔
+     */
+    private Duration stubTokenInterval = Duration.ofMillis(20);
+
+    /**
+     * 本地模拟模型返回错误的概率
+     */
+    private double stubFailureRate = 0;
+}
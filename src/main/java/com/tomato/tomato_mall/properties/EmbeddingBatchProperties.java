@@ -0,0 +1,48 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 嵌入请求合批配置属性类
+ * <p>
+ * 该类用于从配置文件中读取嵌入请求合批的相关配置，
+ * 包括是否启用、最长等待时间、单批上限、同时进行的批次数以及调用方等待结果的超时时间
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.embedding.micro-batch")
+@Data
+public class EmbeddingBatchProperties {
+
+    /**
+     * 是否合并并发的嵌入请求
+     */
+    private boolean enabled = true;
+
+    /**
+     * 批次中第一个文本最多等待的时间，超时后不论是否凑满都立即发送
+     */
+    private Duration maxWait = Duration.ofMillis(5);
+
+    /**
+     * 单次嵌入请求包含的最大文本数，需不超过服务商的限制
+     */
+    private int maxBatchSize = 10;
+
+    /**
+     * 同时进行的嵌入请求数，达到上限时新到的文本继续排队并合入下一批
+     */
+    private int maxConcurrentBatches = 4;
+
+    /**
+     * 调用方等待合批结果的最长时间，超时后直接调用实际模型
+     */
+    private Duration resultTimeout = Duration.ofSeconds(10);
+}
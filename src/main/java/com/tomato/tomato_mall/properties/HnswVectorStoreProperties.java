@@ -0,0 +1,54 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 进程内 HNSW 向量存储配置属性类
+ * <p>
+ * 该类用于从配置文件中读取进程内向量存储的相关配置，
+ * 包括数据目录、向量维度、HNSW 图的连接数和搜索宽度以及落盘间隔。
+ * 仅在 {@code spring.ai.vectorstore.type=hnsw} 时生效
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.vector-store.hnsw")
+@Data
+public class HnswVectorStoreProperties {
+
+    /**
+     * 数据文件所在目录
+     */
+    private String path = "data/hnsw";
+
+    /**
+     * 向量维度，需与嵌入模型输出一致
+     */
+    private int dimensions = 1024;
+
+    /**
+     * 每个节点在上层图中的最大连接数，底层图为其两倍
+     */
+    private int m = 16;
+
+    /**
+     * 建图时的候选列表长度
+     */
+    private int efConstruction = 200;
+
+    /**
+     * 检索时的候选列表长度，实际值不小于 topK
+     */
+    private int efSearch = 64;
+
+    /**
+     * 图结构和文档信息写回磁盘的间隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,53 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 商品向量同步配置属性类
+ * <p>
+ * 该类用于从配置文件中读取商品向量同步任务队列的相关配置，
+ * 包括批处理大小、任务租约、重试次数和退避时间
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.product-vector")
+@Data
+public class ProductVectorProperties {
+
+    /**
+     * 后台任务轮询间隔，单位：毫秒
+     */
+    private long pollInterval = 1000;
+
+    /**
+     * 每次领取的最大任务数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 任务租约时长，超过该时间仍未完成的任务可被重新领取
+     */
+    private Duration lease = Duration.ofMinutes(5);
+
+    /**
+     * 最大尝试次数，达到后任务不再重试
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * 首次重试的等待时间，之后每次失败翻倍
+     */
+    private Duration initialBackoff = Duration.ofSeconds(5);
+
+    /**
+     * 重试等待时间上限
+     */
+    private Duration maxBackoff = Duration.ofMinutes(30);
+}
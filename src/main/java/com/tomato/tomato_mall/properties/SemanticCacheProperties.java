@@ -0,0 +1,63 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * AI 助手语义回答缓存配置属性类
+ * <p>
+ * 该类用于从配置文件中读取语义回答缓存的相关配置，
+ * 包括是否启用、相似度阈值、回答的有效期、容量、可缓存提问的长度范围以及流式回放的分片方式
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ai.semantic-cache")
+@Data
+public class SemanticCacheProperties {
+
+    /**
+     * 是否启用语义回答缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 提问与已缓存提问的余弦相似度不低于该值时复用回答
+     */
+    private double similarityThreshold = 0.92;
+
+    /**
+     * 回答写入后的有效期
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * 最多缓存的回答数量
+     */
+    private long maxEntries = 2000;
+
+    /**
+     * 可缓存提问的最小长度
+     */
+    private int minPromptLength = 4;
+
+    /**
+     * 可缓存提问的最大长度
+     */
+    private int maxPromptLength = 200;
+
+    /**
+     * 流式回放时每个分片包含的字符数
+     */
+    private int replayChunkSize = 8;
+
+    /**
+     * 流式回放时分片之间的间隔，为 0 时不等待
+     */
+    private Duration replayInterval = Duration.ofMillis(20);
+}
@@ -0,0 +1,43 @@
+package com.tomato.tomato_mall.properties;
+
+import com.tomato.tomato_mall.enums.VectorQuantizationEnum;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 向量索引量化配置属性类
+ * <p>
+ * 该类用于从配置文件中读取向量索引的量化方式以及量化检索的候选放大倍数和 HNSW 搜索宽度，
+ * 未开启量化时向量检索直接使用自动配置的向量存储
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.vector-store")
+@Data
+public class VectorQuantizationProperties {
+
+    /**
+     * 索引量化方式
+     */
+    private VectorQuantizationEnum quantization = VectorQuantizationEnum.NONE;
+
+    /**
+     * 候选放大倍数，量化索引先取 topK 乘以该倍数的候选，再按全精度向量重排
+     */
+    private int rerankFactor = 4;
+
+    /**
+     * HNSW 搜索时的最小候选列表长度，实际值不小于候选数量
+     */
+    private int efSearch = 100;
+
+    /**
+     * 量化索引创建完成后是否删除全精度 HNSW 索引以释放内存
+     */
+    private boolean dropFullPrecisionIndex = false;
+}
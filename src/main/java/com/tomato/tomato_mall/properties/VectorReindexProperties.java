@@ -0,0 +1,48 @@
+package com.tomato.tomato_mall.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 向量库重建配置属性类
+ * <p>
+ * 该类用于从配置文件中读取向量库重建任务的相关配置，
+ * 包括分页大小、并行度、嵌入接口的批量上限和调用频率限制
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Component
+@ConfigurationProperties(prefix = "app.vector-reindex")
+@Data
+public class VectorReindexProperties {
+
+    /**
+     * 每页读取的商品数量
+     */
+    private int pageSize = 100;
+
+    /**
+     * 同时进行嵌入的页数
+     */
+    private int parallelism = 4;
+
+    /**
+     * 单次嵌入请求包含的最大文本数，需不超过服务商的限制
+     */
+    private int embeddingBatchSize = 10;
+
+    /**
+     * 每秒最多发起的嵌入请求数
+     */
+    private double requestsPerSecond = 5;
+
+    /**
+     * 心跳超时时间，超过该时间未更新心跳的运行中任务会被接管恢复
+     */
+    private Duration heartbeatTimeout = Duration.ofMinutes(2);
+}
@@ -3,8 +3,12 @@ package com.tomato.tomato_mall.repository;
 import com.tomato.tomato_mall.entity.Advertisement;
 import com.tomato.tomato_mall.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -46,14 +50,17 @@ public interface AdvertisementRepository extends JpaRepository<Advertisement, Lo
     List<Advertisement> findByTitleContaining(String keyword);
 
     /**
-     * 根据商品删除所有广告
+     * 批量删除指定商品的所有广告
      * <p>
-     * 用于删除与特定商品关联的所有广告记录，通常在删除商品时调用。
+     * 用于清理已删除商品关联的广告记录，以单条删除语句完成，不加载实体。
      * </p>
-     * 
-     * @param product
+     *
+     * @param productIds 商品ID集合
+     * @return 删除的行数
      */
-    void deleteAllByProduct(Product product);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Advertisement a where a.product.id in :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
 
     /**
      * 检查指定商品的广告数量
@@ -4,8 +4,12 @@ import com.tomato.tomato_mall.entity.CartItem;
 import com.tomato.tomato_mall.entity.User;
 import com.tomato.tomato_mall.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,9 +57,15 @@ public interface CartRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByUserAndProductAndStatus(User user, Product product, CartItem.CartItemStatus status);
 
     /**
-     * 根据商品ID查找删除购物车项
-     * 
-     * @param productId
+     * 批量删除指定商品的购物车项
+     * <p>
+     * 以单条删除语句完成，不加载实体。执行后会清空持久化上下文，避免残留已删除的实体。
+     * </p>
+     *
+     * @param productIds 商品ID集合
+     * @return 删除的行数
      */
-    void deleteByProductId(Long productId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from CartItem c where c.product.id in :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
\ No newline at end of file
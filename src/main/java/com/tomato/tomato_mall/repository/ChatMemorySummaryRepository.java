@@ -0,0 +1,16 @@
+package com.tomato.tomato_mall.repository;
+
+import com.tomato.tomato_mall.entity.ChatMemorySummary;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 聊天记忆摘要数据访问仓库
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Repository
+public interface ChatMemorySummaryRepository extends JpaRepository<ChatMemorySummary, String> {
+}
@@ -2,10 +2,17 @@ package com.tomato.tomato_mall.repository;
 
 import com.tomato.tomato_mall.entity.Conversation;
 import com.tomato.tomato_mall.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 对话数据访问仓库
@@ -17,7 +24,51 @@ import java.util.List;
 public interface ConversationRepository extends JpaRepository<Conversation, String> {
 
     /**
-     * 根据用户查询对话列表并按更新时间倒序排列
+     * 根据ID查询未删除的对话
      */
-    List<Conversation> findByUserOrderByUpdateTimeDesc(User user);
+    @Override
+    @Query("select c from Conversation c where c.id = :id and c.deleted = false")
+    Optional<Conversation> findById(@Param("id") String id);
+
+    /**
+     * 查询用户最近更新的一页未删除对话，按更新时间和ID倒序排列
+     */
+    @Query("select c from Conversation c where c.user = :user and c.deleted = false "
+            + "order by c.updateTime desc, c.id desc")
+    List<Conversation> findPageByUser(@Param("user") User user, Pageable pageable);
+
+    /**
+     * 查询排在游标之后的一页未删除对话，按更新时间和ID倒序排列
+     *
+     * @param user       用户
+     * @param updateTime 上一页最后一个对话的更新时间
+     * @param id         上一页最后一个对话的ID
+     * @param pageable   分页参数，只使用每页数量
+     * @return 更新时间和ID小于游标的对话
+     */
+    @Query("select c from Conversation c where c.user = :user and c.deleted = false "
+            + "and (c.updateTime < :updateTime or (c.updateTime = :updateTime and c.id < :id)) "
+            + "order by c.updateTime desc, c.id desc")
+    List<Conversation> findPageByUserBefore(@Param("user") User user,
+            @Param("updateTime") LocalDateTime updateTime, @Param("id") String id, Pageable pageable);
+
+    /**
+     * 将对话标记为已删除，不清空持久化上下文
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Conversation c set c.deleted = true where c.id = :id and c.deleted = false")
+    int markDeleted(@Param("id") String id);
+
+    /**
+     * 查询一批已标记删除、等待清理的对话ID
+     */
+    @Query("select c.id from Conversation c where c.deleted = true order by c.id")
+    List<String> findDeletedIds(Pageable pageable);
+
+    /**
+     * 物理删除已标记删除的对话，调用前需先删除其消息
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Conversation c where c.id in :ids and c.deleted = true")
+    int purgeByIdIn(@Param("ids") Collection<String> ids);
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.tomato.tomato_mall.repository;
+
+import com.tomato.tomato_mall.entity.EmbeddingCache;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 嵌入向量缓存数据访问仓库
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Repository
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCache, Long> {
+
+    /**
+     * 批量查询指定模型下的缓存向量
+     *
+     * @param model      嵌入模型名称
+     * @param textHashes 文本摘要集合
+     * @return 命中的缓存记录
+     */
+    List<EmbeddingCache> findByModelAndTextHashIn(String model, Collection<String> textHashes);
+}
@@ -2,9 +2,15 @@ package com.tomato.tomato_mall.repository;
 
 import com.tomato.tomato_mall.entity.Conversation;
 import com.tomato.tomato_mall.entity.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,7 +23,49 @@ import java.util.List;
 public interface MessageRepository extends JpaRepository<Message, String> {
 
     /**
-     * 根据对话查询消息列表并按创建时间顺序排列
+     * 查询对话最新的一页消息，按创建时间和ID倒序排列
      */
-    List<Message> findByConversationOrderByCreateTime(Conversation conversation);
-}
\ No newline at end of file
+    @Query("select m from Message m where m.conversation = :conversation "
+            + "order by m.createTime desc, m.id desc")
+    List<Message> findPageByConversation(@Param("conversation") Conversation conversation, Pageable pageable);
+
+    /**
+     * 查询排在游标之后（更早）的一页消息，按创建时间和ID倒序排列
+     *
+     * @param conversation 对话
+     * @param createTime   上一页最后一条消息的创建时间
+     * @param id           上一页最后一条消息的ID
+     * @param pageable     分页参数，只使用每页数量
+     * @return 创建时间和ID小于游标的消息
+     */
+    @Query("select m from Message m where m.conversation = :conversation "
+            + "and (m.createTime < :createTime or (m.createTime = :createTime and m.id < :id)) "
+            + "order by m.createTime desc, m.id desc")
+    List<Message> findPageByConversationBefore(@Param("conversation") Conversation conversation,
+            @Param("createTime") LocalDateTime createTime, @Param("id") String id, Pageable pageable);
+
+    /**
+     * 判断对话中是否已有消息
+     */
+    boolean existsByConversation(Conversation conversation);
+
+    /**
+     * 批量删除指定对话的所有消息
+     * <p>
+     * 以单条删除语句完成，不加载消息实体，执行后清空持久化上下文。
+     * </p>
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Message m where m.conversation.id in :conversationIds")
+    int deleteByConversationIdIn(@Param("conversationIds") Collection<String> conversationIds);
+
+    /**
+     * 更新消息内容
+     * <p>
+     * 以单条更新语句完成，用于流式回复的阶段性保存，不加载消息实体。
+     * </p>
+     */
+    @Modifying
+    @Query("update Message m set m.content = :content where m.id = :id")
+    int updateContent(@Param("id") String id, @Param("content") String content);
+}
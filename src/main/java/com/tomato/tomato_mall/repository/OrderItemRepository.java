@@ -4,8 +4,12 @@ import com.tomato.tomato_mall.entity.OrderItem;
 import com.tomato.tomato_mall.entity.OrderItem.OrderItemStatus;
 import com.tomato.tomato_mall.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -22,4 +26,43 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      * 查询指定商品的待支付订单项是否存在
      */
     boolean existsByProductAndStatus(Product product, OrderItemStatus status);
+
+    /**
+     * 查询一批商品中存在指定状态订单项的商品ID
+     *
+     * @param productIds 商品ID集合
+     * @param status     订单项状态
+     * @return 存在该状态订单项的商品ID列表
+     */
+    @Query("select distinct oi.product.id from OrderItem oi where oi.product.id in :productIds and oi.status = :status")
+    List<Long> findProductIdsByStatus(@Param("productIds") Collection<Long> productIds,
+            @Param("status") OrderItemStatus status);
+
+    /**
+     * 批量解除订单项与商品的关联
+     * <p>
+     * 订单项保留商品名称和价格快照，商品被清理后只需将外键置空。
+     * 以单条更新语句完成，执行后清空持久化上下文，避免托管实体与数据库不一致。
+     * </p>
+     *
+     * @param productIds 商品ID集合
+     * @return 更新的行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OrderItem oi set oi.product = null where oi.product.id in :productIds")
+    int detachProducts(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * 批量解除订单项与指定商品购物车项的关联
+     * <p>
+     * 在删除商品的购物车项之前调用，避免外键约束阻止删除。
+     * </p>
+     *
+     * @param productIds 商品ID集合
+     * @return 更新的行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OrderItem oi set oi.cartItem = null"
+            + " where oi.cartItem.id in (select c.id from CartItem c where c.product.id in :productIds)")
+    int detachCartItemsOfProducts(@Param("productIds") Collection<Long> productIds);
 }
\ No newline at end of file
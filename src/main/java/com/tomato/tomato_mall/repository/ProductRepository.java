@@ -2,9 +2,17 @@ package com.tomato.tomato_mall.repository;
 
 import com.tomato.tomato_mall.entity.Product;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -17,31 +25,143 @@ import org.springframework.stereotype.Repository;
  * 作为数据访问层的核心组件，ProductRepository连接了业务层与数据库，所有与商品数据
  * 相关的持久化操作都通过此接口进行。
  * </p>
+ * <p>
+ * 商品采用逻辑删除，除清理任务使用的方法外，所有查询都会排除已标记删除的商品，
+ * 包括重新声明的{@link #findById}、{@link #existsById}和{@link #findAll}。
+ * </p>
  *
  * @author Team CBDDL
  * @version 1.0
  */
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+  @Override
+  @Query("select p from Product p where p.id = :id and p.deleted = false")
+  Optional<Product> findById(@Param("id") Long id);
+
+  @Override
+  @Query("select count(p) > 0 from Product p where p.id = :id and p.deleted = false")
+  boolean existsById(@Param("id") Long id);
+
+  @Override
+  @Query("select p from Product p where p.deleted = false")
+  List<Product> findAll();
+
+  @Override
+  @Query("select p from Product p where p.deleted = false")
+  Page<Product> findAll(Pageable pageable);
+
+  @Query("select p from Product p where p.deleted = false and (p.title like concat('%', :titleKeyword, '%')"
+      + " or p.description like concat('%', :descriptionKeyword, '%')"
+      + " or upper(p.detail) like upper(concat('%', :detailKeyword, '%')))")
   Page<Product> findByTitleContainingOrDescriptionContainingOrDetailContainingIgnoreCase(
-      String titleKeyword,
-      String descriptionKeyword,
-      String detailKeyword,
+      @Param("titleKeyword") String titleKeyword,
+      @Param("descriptionKeyword") String descriptionKeyword,
+      @Param("detailKeyword") String detailKeyword,
       Pageable pageable);
 
+  @Query("select p from Product p where p.deleted = false and (p.title like concat('%', :titleKeyword, '%')"
+      + " or p.description like concat('%', :descriptionKeyword, '%')"
+      + " or upper(p.detail) like upper(concat('%', :detailKeyword, '%'))) order by p.rate desc")
   Page<Product> findByTitleContainingOrDescriptionContainingOrDetailContainingIgnoreCaseOrderByRateDesc(
-      String titleKeyword,
-      String descriptionKeyword,
-      String detailKeyword,
+      @Param("titleKeyword") String titleKeyword,
+      @Param("descriptionKeyword") String descriptionKeyword,
+      @Param("detailKeyword") String detailKeyword,
       Pageable pageable);
 
+  @Query("select p from Product p where p.deleted = false and (p.title like concat('%', :titleKeyword, '%')"
+      + " or p.description like concat('%', :descriptionKeyword, '%')"
+      + " or upper(p.detail) like upper(concat('%', :detailKeyword, '%'))) order by p.rate asc")
   Page<Product> findByTitleContainingOrDescriptionContainingOrDetailContainingIgnoreCaseOrderByRateAsc(
-      String titleKeyword,
-      String descriptionKeyword,
-      String detailKeyword,
+      @Param("titleKeyword") String titleKeyword,
+      @Param("descriptionKeyword") String descriptionKeyword,
+      @Param("detailKeyword") String detailKeyword,
       Pageable pageable);
 
+  @Query("select p from Product p where p.deleted = false order by p.rate desc")
   Page<Product> findAllByOrderByRateDesc(Pageable pageable);
 
+  @Query("select p from Product p where p.deleted = false order by p.rate asc")
   Page<Product> findAllByOrderByRateAsc(Pageable pageable);
-}
\ No newline at end of file
+
+  /**
+   * 根据ID集合批量查询未删除的商品，并在同一查询中加载规格信息
+   * <p>
+   * 用于批量更新等需要一次性处理多个商品的场景，避免逐个商品加载规格导致的 N+1 查询。
+   * </p>
+   *
+   * @param ids 商品ID集合
+   * @return 存在的商品列表，不保证与参数顺序一致
+   */
+  @EntityGraph(attributePaths = "specifications")
+  List<Product> findWithSpecificationsByIdInAndDeletedFalse(Collection<Long> ids);
+
+  /**
+   * 将商品标记为已删除
+   * <p>
+   * 逻辑删除标记不参与实体更新，只能通过该批量语句修改。
+   * 语句执行前会刷新持久化上下文，但不会清空，调用方已加载的实体仍保持托管状态。
+   * </p>
+   *
+   * @param id 商品ID
+   * @return 受影响的行数
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("update Product p set p.deleted = true where p.id = :id and p.deleted = false")
+  int markDeleted(@Param("id") Long id);
+
+  /**
+   * 将一批商品标记为已删除
+   * <p>
+   * 与 {@link #markDeleted(Long)} 相同，以单条更新语句完成整批商品的逻辑删除。
+   * </p>
+   *
+   * @param ids 商品ID集合
+   * @return 受影响的行数
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("update Product p set p.deleted = true where p.id in :ids and p.deleted = false")
+  int markDeletedByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * 查询一批已标记删除、等待清理的商品ID
+   *
+   * @param pageable 分页参数，用于限制单次清理的数量
+   * @return 已删除商品的ID列表
+   */
+  @Query("select p.id from Product p where p.deleted = true order by p.id")
+  List<Long> findDeletedIds(Pageable pageable);
+
+  /**
+   * 物理删除已标记删除的商品
+   * <p>
+   * 调用前需先清理所有引用这些商品的子记录。
+   * </p>
+   *
+   * @param ids 商品ID集合
+   * @return 删除的行数
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from Product p where p.id in :ids and p.deleted = true")
+  int purgeByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * 按ID顺序分页查询未删除的商品ID
+   * <p>
+   * 基于键集分页，翻页开销与已读取的页数无关，用于全量遍历商品。
+   * </p>
+   *
+   * @param afterId  上一页的最大商品ID，首页传0
+   * @param pageable 分页参数，只使用页大小
+   * @return 大于 afterId 的商品ID，按升序排列
+   */
+  @Query("select p.id from Product p where p.deleted = false and p.id > :afterId order by p.id")
+  List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * 统计未删除的商品数量
+   *
+   * @return 商品数量
+   */
+  long countByDeletedFalse();
+}
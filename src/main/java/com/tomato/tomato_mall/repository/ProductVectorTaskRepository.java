@@ -0,0 +1,65 @@
+package com.tomato.tomato_mall.repository;
+
+import com.tomato.tomato_mall.entity.ProductVectorTask;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 商品向量同步任务数据访问仓库
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Repository
+public interface ProductVectorTaskRepository extends JpaRepository<ProductVectorTask, Long> {
+
+    /**
+     * 领取一批可处理的任务
+     * <p>
+     * 使用 FOR UPDATE SKIP LOCKED 加锁，多个实例并发领取时互不阻塞，也不会领取到同一任务。
+     * 调用方需要在同一事务中设置租约后提交。
+     * </p>
+     *
+     * @param now         当前时间
+     * @param maxAttempts 最大尝试次数，达到该次数的任务不再领取
+     * @param pageable    分页参数，用于限制领取数量
+     * @return 已加锁的任务列表，按创建顺序排列
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select t from ProductVectorTask t where t.attempts < :maxAttempts and t.availableAt <= :now"
+            + " and (t.lockedUntil is null or t.lockedUntil < :now) order by t.id")
+    List<ProductVectorTask> findClaimable(@Param("now") LocalDateTime now,
+            @Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    /**
+     * 统计仍会被处理的任务数量
+     */
+    long countByAttemptsLessThan(int maxAttempts);
+
+    /**
+     * 统计已放弃重试的任务数量
+     */
+    long countByAttemptsGreaterThanEqual(int maxAttempts);
+
+    /**
+     * 查询最早一个待处理任务的创建时间
+     *
+     * @param maxAttempts 最大尝试次数
+     * @return 最早的创建时间，队列为空时返回null
+     */
+    @Query("select min(t.createTime) from ProductVectorTask t where t.attempts < :maxAttempts")
+    LocalDateTime findOldestCreateTime(@Param("maxAttempts") int maxAttempts);
+}
@@ -2,8 +2,13 @@ package com.tomato.tomato_mall.repository;
 
 import com.tomato.tomato_mall.entity.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+
 /**
  * 商品规格数据访问仓库
  * <p>
@@ -19,4 +24,16 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface SpecificationRepository extends JpaRepository<Specification, Long> {
+    /**
+     * 批量删除指定商品的所有规格
+     * <p>
+     * 用于清理已删除商品的规格记录，以单条删除语句完成，不加载实体。
+     * </p>
+     *
+     * @param productIds 商品ID集合
+     * @return 删除的行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Specification s where s.product.id in :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
\ No newline at end of file
@@ -2,8 +2,13 @@ package com.tomato.tomato_mall.repository;
 
 import com.tomato.tomato_mall.entity.Stockpile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -14,13 +19,14 @@ import java.util.Optional;
  * </p>
  * <p>
  * 作为数据访问层的组件，StockpileRepository主要处理与商品库存相关的数据持久化操作。
+ * 批量库存同步等集合式操作由{@link StockpileRepositoryCustom}片段提供。
  * </p>
  *
  * @author Team CBDDL
  * @version 1.0
  */
 @Repository
-public interface StockpileRepository extends JpaRepository<Stockpile, Long> {
+public interface StockpileRepository extends JpaRepository<Stockpile, Long>, StockpileRepositoryCustom {
     /**
      * 根据商品ID查找库存
      * <p>
@@ -32,4 +38,28 @@ public interface StockpileRepository extends JpaRepository<Stockpile, Long> {
      * @return 封装在Optional中的库存实体；如果库存不存在则返回空Optional
      */
     Optional<Stockpile> findByProductId(Long productId);
+
+    /**
+     * 根据商品ID批量查找库存
+     * <p>
+     * 以单条查询读取多个商品的库存，没有库存记录的商品不会出现在结果中。
+     * </p>
+     *
+     * @param productIds 商品ID集合
+     * @return 库存实体列表
+     */
+    List<Stockpile> findByProductIdIn(Collection<Long> productIds);
+
+    /**
+     * 批量删除指定商品的库存
+     * <p>
+     * 用于清理已删除商品的库存记录，以单条删除语句完成，不加载实体。
+     * </p>
+     *
+     * @param productIds 商品ID集合
+     * @return 删除的行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Stockpile s where s.product.id in :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.tomato.tomato_mall.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品库存自定义数据访问接口
+ * <p>
+ * 该接口声明了无法通过 Spring Data 派生查询表达的集合式库存操作，
+ * 由{@link StockpileRepositoryImpl}基于 JDBC 实现，并作为片段合并到{@link StockpileRepository}中。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public interface StockpileRepositoryCustom {
+
+    /**
+     * 按商品ID批量设置库存数量
+     * <p>
+     * 使用单条 UPDATE 语句一次性更新所有条目，仅当新数量不小于当前冻结数量时才会更新对应行，
+     * 判断与更新在数据库中原子完成，不存在先查后改的竞争窗口。已逻辑删除的商品不会被更新。
+     * 两个数组按下标一一对应。
+     * </p>
+     *
+     * @param productIds 商品ID数组
+     * @param amounts    对应的库存数量数组
+     * @return 实际被更新的商品ID列表
+     */
+    List<Long> updateAmountsNotBelowFrozen(Long[] productIds, Integer[] amounts);
+
+    /**
+     * 批量查询商品的冻结库存数量
+     *
+     * @param productIds 商品ID集合
+     * @return 商品ID到冻结数量的映射，不存在库存记录或已删除的商品不包含在内
+     */
+    Map<Long, Integer> findFrozenByProductIds(Collection<Long> productIds);
+}
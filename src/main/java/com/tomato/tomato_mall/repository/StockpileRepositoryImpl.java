@@ -0,0 +1,79 @@
+package com.tomato.tomato_mall.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品库存自定义数据访问实现
+ * <p>
+ * 通过 PostgreSQL 的 unnest 将两组数组展开为虚拟表，与 stockpiles 表关联后一次完成批量更新，
+ * 一个批次只需一次数据库往返，且不经过 JPA 持久化上下文。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see StockpileRepositoryCustom
+ */
+public class StockpileRepositoryImpl implements StockpileRepositoryCustom {
+
+    private static final String UPDATE_AMOUNTS_SQL = """
+            UPDATE stockpiles s
+            SET amount = v.amount
+            FROM unnest(?::bigint[], ?::integer[]) AS v(product_id, amount), products p
+            WHERE s.product_id = v.product_id
+              AND p.id = s.product_id
+              AND p.deleted = false
+              AND v.amount >= s.frozen
+            RETURNING s.product_id
+            """;
+
+    private static final String FIND_FROZEN_SQL = """
+            SELECT s.product_id, s.frozen
+            FROM stockpiles s
+            JOIN products p ON p.id = s.product_id
+            WHERE s.product_id = ANY(?::bigint[])
+              AND p.deleted = false
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 构造函数，通过依赖注入初始化组件
+     *
+     * @param jdbcTemplate JDBC操作模板
+     */
+    public StockpileRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> updateAmountsNotBelowFrozen(Long[] productIds, Integer[] amounts) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPDATE_AMOUNTS_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", productIds));
+            statement.setArray(2, connection.createArrayOf("integer", amounts));
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+
+    @Override
+    public Map<Long, Integer> findFrozenByProductIds(Collection<Long> productIds) {
+        Map<Long, Integer> frozen = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return frozen;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_FROZEN_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", productIds.toArray()));
+            return statement;
+        }, rs -> {
+            frozen.put(rs.getLong("product_id"), rs.getInt("frozen"));
+        });
+        return frozen;
+    }
+}
@@ -0,0 +1,39 @@
+package com.tomato.tomato_mall.repository;
+
+import com.tomato.tomato_mall.entity.VectorReindexDirtyProduct;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 向量库重建期间变更商品的数据访问仓库
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Repository
+public interface VectorReindexDirtyProductRepository extends JpaRepository<VectorReindexDirtyProduct, Long> {
+
+    /**
+     * 查询重建任务期间变更过的商品ID
+     *
+     * @param jobId 重建任务ID
+     * @return 去重后的商品ID列表
+     */
+    @Query("select distinct d.productId from VectorReindexDirtyProduct d where d.jobId = :jobId")
+    List<Long> findProductIdsByJobId(@Param("jobId") Long jobId);
+
+    /**
+     * 删除重建任务的变更记录
+     *
+     * @param jobId 重建任务ID
+     */
+    @Modifying
+    @Query("delete from VectorReindexDirtyProduct d where d.jobId = :jobId")
+    void deleteByJobId(@Param("jobId") Long jobId);
+}
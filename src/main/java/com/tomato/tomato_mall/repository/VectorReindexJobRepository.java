@@ -0,0 +1,74 @@
+package com.tomato.tomato_mall.repository;
+
+import com.tomato.tomato_mall.entity.VectorReindexJob;
+import com.tomato.tomato_mall.enums.ReindexStatusEnum;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 向量库重建任务数据访问仓库
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Repository
+public interface VectorReindexJobRepository extends JpaRepository<VectorReindexJob, Long> {
+
+    /**
+     * 查询最近创建的任务
+     *
+     * @return 最近的任务，如果从未执行过重建则为空
+     */
+    Optional<VectorReindexJob> findFirstByOrderByIdDesc();
+
+    /**
+     * 判断是否存在指定状态的任务
+     *
+     * @param status 任务状态
+     * @return 存在时返回true
+     */
+    boolean existsByStatus(ReindexStatusEnum status);
+
+    /**
+     * 查询指定状态的任务ID
+     *
+     * @param status 任务状态
+     * @return 任务ID列表
+     */
+    @Query("select j.id from VectorReindexJob j where j.status = :status")
+    List<Long> findIdsByStatus(@Param("status") ReindexStatusEnum status);
+
+    /**
+     * 接管心跳超时的任务
+     * <p>
+     * 只有心跳仍早于给定时间时才会更新成功，多个实例同时尝试接管时只有一个能成功。
+     * </p>
+     *
+     * @param id     任务ID
+     * @param before 接管前心跳应早于的时间
+     * @param now    新的心跳时间
+     * @return 更新的行数，成功接管时为1
+     */
+    @Modifying
+    @Query("update VectorReindexJob j set j.heartbeatTime = :now, j.runStartTime = :now,"
+            + " j.runStartProcessed = j.processed where j.id = :id and j.heartbeatTime < :before")
+    int claimStalled(@Param("id") Long id, @Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+    /**
+     * 刷新任务心跳
+     *
+     * @param id  任务ID
+     * @param now 新的心跳时间
+     */
+    @Modifying
+    @Query("update VectorReindexJob j set j.heartbeatTime = :now where j.id = :id")
+    void touchHeartbeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,60 @@
+package com.tomato.tomato_mall.service;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * 大模型调用准入服务接口
+ * <p>
+ * 该接口定义了大模型调用的并发控制机制。同时进行的调用数量受全局上限和单个用户上限的限制，
+ * 超出上限的调用进入排队，按用户轮流放行，同一用户的多个请求不会挤占其他用户的名额。
+ * 排队已满或等待超时的调用以 {@code AI_SERVICE_BUSY} 拒绝。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public interface AiAdmissionService {
+
+    /**
+     * 订阅上下文中排队位置监听器的键
+     * <p>
+     * 订阅 {@link #admit} 返回的流时，可以在 Reactor 上下文中放入一个 {@link java.util.function.IntConsumer}，
+     * 排队期间每当位置变化时以从 1 开始的位置回调，放行时回调 0
+     * </p>
+     */
+    String QUEUE_LISTENER_KEY = AiAdmissionService.class.getName() + ".queueListener";
+
+    /**
+     * 阻塞等待调用许可
+     *
+     * @param username 用户名
+     * @return 调用许可，调用结束后必须关闭
+     * @throws com.tomato.tomato_mall.exception.BusinessException 当排队已满、等待超时或等待被中断时抛出
+     */
+    Permit acquire(String username);
+
+    /**
+     * 在获得许可后订阅调用
+     * <p>
+     * 排队不阻塞线程，调用结束、出错或被取消时释放许可；排队期间取消订阅会离开队列。
+     * </p>
+     *
+     * @param username 用户名
+     * @param call     需要许可才能进行的调用
+     * @param <T>      调用结果的元素类型
+     * @return 获得许可后的调用结果，排队已满或等待超时时以业务异常结束
+     */
+    <T> Flux<T> admit(String username, Flux<T> call);
+
+    /**
+     * 调用许可
+     */
+    interface Permit extends AutoCloseable {
+
+        /**
+         * 释放许可，重复调用无效
+         */
+        @Override
+        void close();
+    }
+}
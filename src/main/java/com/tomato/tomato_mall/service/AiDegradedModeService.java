@@ -0,0 +1,87 @@
+package com.tomato.tomato_mall.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * AI 助手降级模式服务接口
+ * <p>
+ * 该接口定义了大模型不可用时的降级机制。根据最近一段时间大模型调用的延迟和失败情况判断是否进入降级模式，
+ * 降级期间荐书类提问不再调用大模型，直接以商品语义检索结果和库存信息按模板生成回答；
+ * 降级期间定期放行试探调用，试探调用正常完成后自动恢复正常模式。
+ * 降级回答以 {@link #NOTICE} 开头，便于前端和历史消息识别。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see com.tomato.tomato_mall.service.ConversationService
+ */
+public interface AiDegradedModeService {
+
+    /**
+     * 降级回答的开头标记
+     */
+    String NOTICE = "【简化回答】";
+
+    /**
+     * 判断提问是否为荐书类提问，只有荐书类提问可以使用降级回答
+     *
+     * @param prompt 用户提问
+     * @return 是否为荐书类提问
+     */
+    boolean isRecommendation(String prompt);
+
+    /**
+     * 判断本次提问是否应直接使用降级回答
+     * <p>
+     * 未处于降级模式时返回false；处于降级模式时，距上次试探超过配置的间隔则放行本次调用作为试探并返回false。
+     * </p>
+     *
+     * @return 是否应跳过大模型调用
+     */
+    boolean shouldDegrade();
+
+    /**
+     * 根据本地检索结果生成降级回答
+     *
+     * @param prompt 用户提问
+     * @return 以 {@link #NOTICE} 开头的回答，检索失败或未启用降级模式时为空
+     */
+    Optional<String> answer(String prompt);
+
+    /**
+     * 记录一次成功的大模型调用
+     *
+     * @param latency 首个片段的延迟，非流式调用为完整回复的耗时
+     */
+    void recordSuccess(Duration latency);
+
+    /**
+     * 记录一次失败的大模型调用，包括因繁忙被拒绝的调用
+     */
+    void recordFailure();
+
+    /**
+     * 记录一次在返回首个片段前被取消的大模型调用，等待时间超过慢调用阈值时按慢调用计入
+     *
+     * @param waited 取消前已等待的时间
+     */
+    void recordCancelled(Duration waited);
+
+    /**
+     * 判断当前是否处于降级模式
+     *
+     * @return 是否处于降级模式
+     */
+    boolean isDegraded();
+
+    /**
+     * 判断回答是否为降级回答
+     *
+     * @param content 回答内容
+     * @return 是否以 {@link #NOTICE} 开头
+     */
+    static boolean isDegradedAnswer(String content) {
+        return content != null && content.startsWith(NOTICE);
+    }
+}
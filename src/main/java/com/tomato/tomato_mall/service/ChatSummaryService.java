@@ -0,0 +1,53 @@
+package com.tomato.tomato_mall.service;
+
+import com.tomato.tomato_mall.entity.ChatMemorySummary;
+
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 聊天记忆摘要服务接口
+ * <p>
+ * 该接口定义了对话早期消息的滚动摘要机制。消息滑出令牌预算内的记忆窗口后，
+ * 由后台线程调用大模型将其与已有摘要合并为新的摘要，后续请求以摘要代替这些消息，
+ * 使每轮请求的提示词长度不随对话轮数增长。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see com.tomato.tomato_mall.advisor.TokenWindowChatMemoryAdvisor
+ */
+public interface ChatSummaryService {
+
+    /**
+     * 获取对话当前的摘要
+     *
+     * @param conversationKey 聊天记忆中的对话标识
+     * @return 对话的摘要，尚未生成时为空
+     */
+    Optional<ChatMemorySummary> getSummary(String conversationKey);
+
+    /**
+     * 在后台将消息并入对话的摘要
+     * <p>
+     * 同一对话同时只会有一个摘要任务，已有任务进行中或任务队列已满时直接忽略，
+     * 未并入的消息会在下一轮请求时重新提交。
+     * </p>
+     *
+     * @param conversationKey        聊天记忆中的对话标识
+     * @param previousSummary        已有的摘要，没有时为null
+     * @param messages               需要并入摘要的消息，按时间顺序排列
+     * @param lastMessageFingerprint 最后一条消息的指纹
+     */
+    void summarizeAsync(String conversationKey, String previousSummary, List<Message> messages,
+            String lastMessageFingerprint);
+
+    /**
+     * 删除对话的摘要
+     *
+     * @param conversationKey 聊天记忆中的对话标识
+     */
+    void clear(String conversationKey);
+}
@@ -3,6 +3,7 @@ package com.tomato.tomato_mall.service;
 import com.tomato.tomato_mall.dto.ConversationCreateDTO;
 import com.tomato.tomato_mall.dto.MessageCreateDTO;
 import com.tomato.tomato_mall.vo.ConversationVO;
+import com.tomato.tomato_mall.vo.CursorPageVO;
 import com.tomato.tomato_mall.vo.MessageVO;
 
 import reactor.core.publisher.Flux;
@@ -24,7 +25,8 @@ public interface ConversationService {
     /**
      * 获取用户所有对话
      * <p>
-     * 根据用户名查询该用户的所有对话记录
+     * 根据用户名查询该用户最近更新的一页对话记录，按更新时间倒序排列
+     * 更早的对话通过 {@link #getUserConversationPage} 获取
      * </p>
      * 
      * @param username 用户名
@@ -32,6 +34,21 @@ public interface ConversationService {
      */
     List<ConversationVO> getUserConversations(String username);
 
+    /**
+     * 分页获取用户对话
+     * <p>
+     * 按更新时间和ID倒序返回一页对话，不包含消息
+     * 下一页使用本页返回的游标查询，游标由服务端生成，客户端不应解析其内容
+     * </p>
+     * 
+     * @param username 用户名
+     * @param cursor   上一页返回的游标，为空时查询第一页
+     * @param size     每页数量，为空时使用默认配置，超过上限时取上限
+     * @return 对话分页结果
+     * @throws com.tomato.tomato_mall.exception.BusinessException 游标无效时抛出
+     */
+    CursorPageVO<ConversationVO> getUserConversationPage(String username, String cursor, Integer size);
+
     /**
      * 创建新对话
      * <p>
@@ -47,7 +64,8 @@ public interface ConversationService {
     /**
      * 获取对话详情
      * <p>
-     * 根据对话ID获取对话的详细信息，包含完整的消息历史记录
+     * 根据对话ID获取对话的详细信息，包含最近一页消息，按创建时间顺序排列
+     * 还有更早的消息时同时返回消息游标，通过 {@link #getMessagePage} 继续获取
      * 验证用户权限，确保用户只能访问自己的对话
      * </p>
      * 
@@ -57,6 +75,22 @@ public interface ConversationService {
      */
     ConversationVO getConversation(String username, String conversationId);
 
+    /**
+     * 分页获取对话消息
+     * <p>
+     * 按创建时间和ID倒序返回一页消息，即从最新的消息开始向前翻页
+     * 验证用户权限，确保用户只能访问自己的对话
+     * </p>
+     * 
+     * @param username       用户名
+     * @param conversationId 对话ID
+     * @param cursor         上一页或对话详情返回的游标，为空时查询最新一页
+     * @param size           每页数量，为空时使用默认配置，超过上限时取上限
+     * @return 消息分页结果
+     * @throws com.tomato.tomato_mall.exception.BusinessException 游标无效时抛出
+     */
+    CursorPageVO<MessageVO> getMessagePage(String username, String conversationId, String cursor, Integer size);
+
     /**
      * 删除对话
      * <p>
@@ -0,0 +1,40 @@
+package com.tomato.tomato_mall.service;
+
+import com.tomato.tomato_mall.vo.ProductBulkResultVO;
+
+import java.io.InputStream;
+
+/**
+ * 商品批量操作服务接口
+ * <p>
+ * 该接口定义了商品目录的批量导入、更新和删除功能，面向后台一次性同步成千上万条商品数据的场景。
+ * 数据以流的方式逐条读取，按数据块分批写入数据库，每个数据块在独立的事务中提交，
+ * 单条记录的校验失败只会跳过该记录，不会影响同一数据块中的其他记录。
+ * </p>
+ * <p>
+ * 商品向量索引的更新在数据块提交之后异步进行，不会阻塞数据库写入。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see com.tomato.tomato_mall.util.ProductBulkReader
+ * @see com.tomato.tomato_mall.service.ProductService
+ */
+public interface ProductBulkService {
+
+    /**
+     * 批量处理商品数据
+     * <p>
+     * 根据内容类型选择 CSV 或 NDJSON 解析方式，逐条读取记录并按数据块写入。
+     * 返回结果中包含每个数据块的提交状态以及每条失败记录的行号和原因。
+     * 已提交的数据块不会因为后续数据块失败而回滚。
+     * </p>
+     *
+     * @param inputStream 批量数据输入流
+     * @param contentType 请求内容类型，支持 text/csv 与 application/x-ndjson
+     * @param chunkSize   每个数据块包含的记录数
+     * @return 批量处理结果视图对象
+     * @throws com.tomato.tomato_mall.exception.BusinessException 当数据格式不受支持或读取失败时抛出
+     */
+    ProductBulkResultVO bulkProcess(InputStream inputStream, String contentType, int chunkSize);
+}
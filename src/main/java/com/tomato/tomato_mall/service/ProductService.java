@@ -1,6 +1,7 @@
 package com.tomato.tomato_mall.service;
 
 import com.tomato.tomato_mall.dto.ProductCreateDTO;
+import com.tomato.tomato_mall.dto.ProductSearchDTO;
 import com.tomato.tomato_mall.dto.ProductUpdateDTO;
 import com.tomato.tomato_mall.vo.ProductVO;
 
@@ -74,6 +75,18 @@ public interface ProductService {
      */
     ProductVO getProductById(Long id);
 
+    /**
+     * 按自然语言描述检索商品
+     * <p>
+     * 在向量数据库中执行相似度搜索，价格和评分区间作为元数据过滤条件一同下推，
+     * 返回的商品均满足区间条件，并按与查询文本的相似度降序排列。
+     * </p>
+     *
+     * @param searchDTO 检索条件，包含查询文本、可选的价格和评分区间以及返回数量
+     * @return 满足条件的商品视图对象列表
+     */
+    List<ProductVO> searchProducts(ProductSearchDTO searchDTO);
+
     /**
      * 更新商品信息
      * <p>
@@ -89,8 +102,8 @@ public interface ProductService {
     /**
      * 删除商品
      * <p>
-     * 根据提供的商品ID删除对应的商品记录。根据业务需求，可能是物理删除或逻辑删除。
-     * 如果是逻辑删除，通常会保留商品记录但将其标记为已删除状态。
+     * 根据提供的商品ID删除对应的商品记录。采用逻辑删除，商品记录被标记为已删除后立即对查询不可见，
+     * 关联的规格、库存等数据由后台任务异步清理。
      * </p>
      *
      * @param id 要删除的商品ID
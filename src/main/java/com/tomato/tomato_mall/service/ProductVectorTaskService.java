@@ -0,0 +1,48 @@
+package com.tomato.tomato_mall.service;
+
+import java.util.Collection;
+
+/**
+ * 商品向量同步任务服务接口
+ * <p>
+ * 该接口定义了商品向量的异步同步机制。商品写操作只需在自身事务中登记任务，
+ * 后台任务负责合并同一商品的重复任务、跨商品批量生成嵌入、失败重试，并最终使向量数据库与商品数据一致。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see com.tomato.tomato_mall.entity.ProductVectorTask
+ */
+public interface ProductVectorTaskService {
+
+    /**
+     * 登记单个商品的向量同步任务
+     * <p>
+     * 必须在商品写操作的事务中调用，任务与商品数据一同提交或回滚。
+     * </p>
+     *
+     * @param productId 商品ID
+     */
+    void enqueue(Long productId);
+
+    /**
+     * 批量登记商品的向量同步任务
+     * <p>
+     * 必须在商品写操作的事务中调用，任务与商品数据一同提交或回滚。
+     * </p>
+     *
+     * @param productIds 商品ID集合
+     */
+    void enqueueAll(Collection<Long> productIds);
+
+    /**
+     * 领取并处理一批待同步任务
+     * <p>
+     * 同一商品的多个任务合并为一次同步；仍存在的商品批量写入向量，已删除的商品移除向量。
+     * 处理失败的任务按指数退避推迟，达到最大尝试次数后不再重试。
+     * </p>
+     *
+     * @return 本次领取的任务数量
+     */
+    int processPendingTasks();
+}
@@ -0,0 +1,61 @@
+package com.tomato.tomato_mall.service;
+
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * AI 助手语义回答缓存服务接口
+ * <p>
+ * 该接口定义了对通用提问复用已有回答的机制。提问经嵌入后与近期缓存的提问比较余弦相似度，
+ * 超过阈值即返回缓存的回答，不再调用大模型。
+ * 依赖对话上下文的追问（例如"这本书多少钱"）不参与缓存，
+ * 且只有在没有历史消息的对话中生成的回答才会被缓存，保证回答本身不依赖上下文。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see com.tomato.tomato_mall.service.ConversationService
+ */
+public interface SemanticCacheService {
+
+    /**
+     * 判断提问是否可以使用缓存
+     * <p>
+     * 未启用缓存、提问过短或过长、包含指代上下文或个人信息的词语时返回false。
+     * </p>
+     *
+     * @param prompt 用户提问
+     * @return 是否可以使用缓存
+     */
+    boolean isEligible(String prompt);
+
+    /**
+     * 查找语义相近提问的缓存回答
+     * <p>
+     * 只应对 {@link #isEligible(String)} 返回true的提问调用，命中时记录节省的生成时间。
+     * </p>
+     *
+     * @param prompt 用户提问
+     * @return 缓存的回答，未命中时为空
+     */
+    Optional<String> findAnswer(String prompt);
+
+    /**
+     * 缓存大模型生成的回答
+     *
+     * @param prompt         用户提问
+     * @param answer         大模型的完整回答
+     * @param generationTime 生成回答所用的时间
+     */
+    void saveAnswer(String prompt, String answer, Duration generationTime);
+
+    /**
+     * 将缓存的回答拆分为模拟的流式分片
+     *
+     * @param answer 缓存的回答
+     * @return 按配置的分片大小和间隔依次发出的回答分片
+     */
+    Flux<String> replay(String answer);
+}
@@ -1,8 +1,14 @@
 package com.tomato.tomato_mall.service;
 
+import com.tomato.tomato_mall.dto.StockpileBulkItemDTO;
 import com.tomato.tomato_mall.dto.StockpileUpdateDTO;
+import com.tomato.tomato_mall.vo.StockpileBulkResultVO;
 import com.tomato.tomato_mall.vo.StockpileVO;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 库存服务接口
  * <p>
@@ -33,6 +39,18 @@ public interface StockpileService {
      */
     StockpileVO getStockpileByProductId(Long productId);
 
+    /**
+     * 根据商品ID批量获取库存信息
+     * <p>
+     * 以单次查询获取多个商品的库存状态，适用于搜索结果等需要同时展示多个商品库存的场景。
+     * 不存在的商品或没有库存记录的商品不会出现在结果中，不会抛出异常。
+     * </p>
+     *
+     * @param productIds 要查询库存的商品ID集合
+     * @return 以商品ID为键的库存视图对象映射
+     */
+    Map<Long, StockpileVO> getStockpilesByProductIds(Collection<Long> productIds);
+
     /**
      * 更新商品库存
      * <p>
@@ -45,4 +63,17 @@ public interface StockpileService {
      * @return 更新后的库存视图对象
      */
     StockpileVO updateStockpile(Long productId, StockpileUpdateDTO stockpileUpdateDTO);
-}
\ No newline at end of file
+
+    /**
+     * 批量同步商品库存
+     * <p>
+     * 将仓库推送的绝对库存数量按批次写入数据库，每个批次由一条集合式更新语句完成，
+     * 并在数据库中逐行保证新数量不小于冻结数量。
+     * 非法、重复、不存在或低于冻结数量的条目不会被应用，而是在结果中逐条返回拒绝原因。
+     * </p>
+     *
+     * @param items 库存同步条目列表
+     * @return 批量同步结果视图对象
+     */
+    StockpileBulkResultVO bulkUpdateStockpiles(List<StockpileBulkItemDTO> items);
+}
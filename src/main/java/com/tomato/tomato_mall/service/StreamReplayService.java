@@ -0,0 +1,51 @@
+package com.tomato.tomato_mall.service;
+
+import com.tomato.tomato_mall.vo.StreamEventVO;
+
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * 流式回复续传服务接口
+ * <p>
+ * 该接口定义了与 HTTP 连接解耦的流式回复缓冲机制。每次生成的回复都有独立的有界缓冲区，
+ * 片段按单调递增的序号编号；回复的生成不受客户端断开影响，
+ * 客户端携带最后收到的事件ID重连时，先补发缺失的片段再继续推送实时片段。
+ * 模型输出的细碎片段按合并窗口合并为帧后再编号和推送，减少事件数量和网络写入次数。
+ * 回复生成结束后缓冲区保留一段时间后清除。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see com.tomato.tomato_mall.service.ConversationService#getStreamMessage
+ */
+public interface StreamReplayService {
+
+    /**
+     * 开始缓冲一次流式回复
+     * <p>
+     * 立即订阅回复片段流并写入缓冲区，返回的事件流从第一帧开始推送，
+     * 取消订阅不会中断回复的生成。距上一帧超过合并窗口到达的片段立即推送，
+     * 否则与窗口内后续到达的片段合并，窗口结束或字符数达到上限时推送。
+     * </p>
+     *
+     * @param username       用户名
+     * @param conversationId 对话ID
+     * @param chunks         回复片段流
+     * @param frameWindow    帧合并窗口，为 null 时使用默认配置，超过上限时按上限处理，为 0 时不合并
+     * @return 带事件ID的回复帧流
+     */
+    Flux<StreamEventVO> publish(String username, String conversationId, Flux<String> chunks, Duration frameWindow);
+
+    /**
+     * 从指定事件之后续传流式回复
+     *
+     * @param username       用户名
+     * @param conversationId 对话ID
+     * @param lastEventId    客户端最后收到的事件ID
+     * @return 缺失的片段以及之后的实时片段
+     * @throws com.tomato.tomato_mall.exception.BusinessException 当回复不存在、不属于该用户或缺失的片段已被丢弃时抛出
+     */
+    Flux<StreamEventVO> resume(String username, String conversationId, String lastEventId);
+}
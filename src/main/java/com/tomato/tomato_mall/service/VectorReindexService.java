@@ -0,0 +1,44 @@
+package com.tomato.tomato_mall.service;
+
+import com.tomato.tomato_mall.vo.VectorConsistencyVO;
+import com.tomato.tomato_mall.vo.VectorReindexJobVO;
+
+/**
+ * 向量库重建服务接口
+ * <p>
+ * 该接口定义了向量库的全量重建与一致性检查功能。更换嵌入模型或调整文档内容格式后，
+ * 管理员可以触发重建任务，在不影响线上检索的情况下生成新的向量库并原子替换。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public interface VectorReindexService {
+
+    /**
+     * 启动向量库重建任务
+     * <p>
+     * 任务在后台运行，同一时间只允许一个重建任务处于运行状态。
+     * </p>
+     *
+     * @return 新创建的任务信息
+     * @throws com.tomato.tomato_mall.exception.BusinessException 已有任务正在运行或使用进程内向量存储时抛出
+     */
+    VectorReindexJobVO startReindex();
+
+    /**
+     * 获取最近一次重建任务的进度
+     *
+     * @return 任务信息，包含吞吐量和预计剩余时间
+     * @throws com.tomato.tomato_mall.exception.BusinessException 从未执行过重建时抛出
+     */
+    VectorReindexJobVO getLatestJob();
+
+    /**
+     * 检查向量库与商品数据的一致性
+     *
+     * @return 一致性报告
+     * @throws com.tomato.tomato_mall.exception.BusinessException 使用进程内向量存储时抛出
+     */
+    VectorConsistencyVO checkConsistency();
+}
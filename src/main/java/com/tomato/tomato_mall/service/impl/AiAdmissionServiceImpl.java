@@ -0,0 +1,312 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.properties.AiAdmissionProperties;
+import com.tomato.tomato_mall.service.AiAdmissionService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * 大模型调用准入服务实现类
+ * <p>
+ * 每个用户有独立的先进先出队列，有空闲名额时按用户轮流放行：刚被放行的用户排到最后，
+ * 已达到单用户并发上限的用户暂时跳过。排队位置按轮流放行的顺序估算，变化时通知排队者。
+ * 所有状态由同一把锁保护，放行和通知在锁外进行。
+ * </p>
+ * <p>
+ * 进行中和排队中的调用数量记录在 {@code ai.admission.in.flight} 和 {@code ai.admission.queued} 指标中，
+ * 获得许可前的等待时间记录在 {@code ai.admission.wait}，
+ * 被拒绝的调用记录在 {@code ai.admission.rejections}（reason 为 queue_full 或 timeout）。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Service
+public class AiAdmissionServiceImpl implements AiAdmissionService {
+
+    private static final Permit UNLIMITED = () -> {
+    };
+
+    private final AiAdmissionProperties properties;
+    /**
+     * 有排队调用的用户及其队列，按放行顺序排列
+     */
+    private final LinkedHashMap<String, ArrayDeque<Waiter>> queues = new LinkedHashMap<>();
+    private final Map<String, Integer> inFlightByUser = new HashMap<>();
+    private int inFlight;
+    private int queued;
+    private final Timer waitTime;
+    private final Counter queueFullCounter;
+    private final Counter timeoutCounter;
+
+    /**
+     * 构造函数，通过依赖注入初始化所需组件
+     *
+     * @param properties    准入控制配置
+     * @param meterRegistry 指标注册表，用于记录并发数、排队数、等待时间和拒绝次数
+     */
+    public AiAdmissionServiceImpl(AiAdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.waitTime = Timer.builder("ai.admission.wait").register(meterRegistry);
+        this.queueFullCounter = Counter.builder("ai.admission.rejections").tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("ai.admission.rejections").tag("reason", "timeout")
+                .register(meterRegistry);
+        Gauge.builder("ai.admission.in.flight", this, AiAdmissionServiceImpl::inFlight).register(meterRegistry);
+        Gauge.builder("ai.admission.queued", this, AiAdmissionServiceImpl::queued).register(meterRegistry);
+    }
+
+    @Override
+    public Permit acquire(String username) {
+        if (!properties.isEnabled()) {
+            return UNLIMITED;
+        }
+        CompletableFuture<Permit> permit = enqueue(username, null);
+        try {
+            return permit.get();
+        } catch (InterruptedException e) {
+            permit.cancel(false);
+            permit.thenAccept(Permit::close);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY);
+        } catch (ExecutionException e) {
+            throw new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY);
+        }
+    }
+
+    @Override
+    public <T> Flux<T> admit(String username, Flux<T> call) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+        return Flux.deferContextual(context -> {
+            IntConsumer listener = context.<IntConsumer>getOrEmpty(QUEUE_LISTENER_KEY).orElse(null);
+            CompletableFuture<Permit> permit = enqueue(username, listener);
+            return Mono.fromFuture(permit, false)
+                    // 放行与取消同时发生时，许可已经发出但没有被使用
+                    .doOnCancel(() -> permit.thenAccept(Permit::close))
+                    .onErrorMap(TimeoutException.class, e -> new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY))
+                    .flatMapMany(granted -> call.doFinally(signal -> granted.close()));
+        });
+    }
+
+    private synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private synchronized int queued() {
+        return queued;
+    }
+
+    /**
+     * 加入用户的队列并尝试放行
+     *
+     * @return 获得许可时完成的结果，排队超时时以 {@link TimeoutException} 结束
+     * @throws BusinessException 当排队已满时抛出
+     */
+    private CompletableFuture<Permit> enqueue(String username, IntConsumer listener) {
+        Waiter waiter = new Waiter(username, listener);
+        List<Runnable> callbacks;
+        synchronized (this) {
+            ArrayDeque<Waiter> queue = queues.get(username);
+            if (queued >= properties.getMaxQueued()
+                    || (queue != null && queue.size() >= properties.getMaxQueuedPerUser())) {
+                queueFullCounter.increment();
+                throw new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY);
+            }
+            queues.computeIfAbsent(username, key -> new ArrayDeque<>()).addLast(waiter);
+            queued++;
+            callbacks = dispatch();
+        }
+        callbacks.forEach(Runnable::run);
+        if (!waiter.future.isDone()) {
+            // 先离开队列再以超时结束，订阅方收到超时时拒绝次数已经记录
+            CompletableFuture.delayedExecutor(properties.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                    .execute(() -> {
+                        if (abandon(waiter, true)) {
+                            waiter.future.completeExceptionally(new TimeoutException());
+                        }
+                    });
+        }
+        waiter.future.whenComplete((permit, error) -> {
+            if (error != null) {
+                abandon(waiter, false);
+            }
+        });
+        return waiter.future;
+    }
+
+    /**
+     * 超时或取消的调用离开队列
+     *
+     * @return 调用是否仍在排队，已被放行或已离开队列时返回 false
+     */
+    private boolean abandon(Waiter waiter, boolean timedOut) {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            ArrayDeque<Waiter> queue = queues.get(waiter.username);
+            if (queue == null || !queue.remove(waiter)) {
+                return false;
+            }
+            if (queue.isEmpty()) {
+                queues.remove(waiter.username);
+            }
+            queued--;
+            if (timedOut) {
+                timeoutCounter.increment();
+            }
+            callbacks = dispatch();
+        }
+        callbacks.forEach(Runnable::run);
+        return true;
+    }
+
+    private void release(String username) {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            inFlight--;
+            inFlightByUser.computeIfPresent(username, (key, count) -> count > 1 ? count - 1 : null);
+            callbacks = dispatch();
+        }
+        callbacks.forEach(Runnable::run);
+    }
+
+    /**
+     * 按用户轮流放行排队的调用，并重新计算排队位置，调用方需持有锁
+     *
+     * @return 需要在锁外执行的位置通知和放行，通知排在放行之前
+     */
+    private List<Runnable> dispatch() {
+        List<Runnable> grants = new ArrayList<>();
+        while (inFlight < properties.getMaxConcurrent()) {
+            String next = null;
+            for (String username : queues.keySet()) {
+                if (inFlightByUser.getOrDefault(username, 0) < properties.getMaxConcurrentPerUser()) {
+                    next = username;
+                    break;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            // 放行后排到所有用户之后
+            ArrayDeque<Waiter> queue = queues.remove(next);
+            Waiter waiter = queue.removeFirst();
+            if (!queue.isEmpty()) {
+                queues.put(next, queue);
+            }
+            queued--;
+            inFlight++;
+            inFlightByUser.merge(next, 1, Integer::sum);
+            waiter.position = 0;
+            waitTime.record(System.nanoTime() - waiter.enqueuedNanos, TimeUnit.NANOSECONDS);
+            grants.add(() -> grant(waiter));
+        }
+
+        List<Runnable> callbacks = new ArrayList<>();
+        // 按轮流放行的顺序估算位置：每一轮依次取每个用户队列中的下一个调用
+        List<Iterator<Waiter>> cursors = new ArrayList<>();
+        queues.values().forEach(queue -> cursors.add(queue.iterator()));
+        int position = 0;
+        while (!cursors.isEmpty()) {
+            for (Iterator<Iterator<Waiter>> round = cursors.iterator(); round.hasNext();) {
+                Iterator<Waiter> cursor = round.next();
+                if (!cursor.hasNext()) {
+                    round.remove();
+                    continue;
+                }
+                Waiter waiter = cursor.next();
+                int current = ++position;
+                if (waiter.listener != null && waiter.position != current) {
+                    waiter.position = current;
+                    callbacks.add(() -> {
+                        // 放行时执行的回调可能已经改变了位置
+                        if (waiter.position == current) {
+                            waiter.listener.accept(current);
+                        }
+                    });
+                }
+            }
+        }
+        callbacks.addAll(grants);
+        return callbacks;
+    }
+
+    private void grant(Waiter waiter) {
+        GrantedPermit permit = new GrantedPermit(waiter.username);
+        if (waiter.future.isDone()) {
+            // 放行前已超时或被取消
+            permit.close();
+            return;
+        }
+        if (waiter.listener != null) {
+            waiter.listener.accept(0);
+        }
+        if (!waiter.future.complete(permit)) {
+            permit.close();
+        }
+    }
+
+    /**
+     * 排队中的调用
+     */
+    private static final class Waiter {
+
+        private final String username;
+        private final IntConsumer listener;
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+        private final long enqueuedNanos = System.nanoTime();
+        /**
+         * 最近一次计算的排队位置，已放行时为 0
+         */
+        private volatile int position;
+
+        private Waiter(String username, IntConsumer listener) {
+            this.username = username;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * 已发出的许可
+     */
+    private final class GrantedPermit implements Permit {
+
+        private final String username;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private GrantedPermit(String username) {
+            this.username = username;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(username);
+            }
+        }
+    }
+}
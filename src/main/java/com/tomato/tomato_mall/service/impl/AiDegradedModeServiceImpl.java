@@ -0,0 +1,221 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.properties.AiDegradedProperties;
+import com.tomato.tomato_mall.service.AiDegradedModeService;
+import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+import com.tomato.tomato_mall.vo.StockpileVO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * AI 助手降级模式服务实现类
+ * <p>
+ * 最近若干次大模型调用的结果保存在环形窗口中，首个片段超过慢调用阈值或调用失败都视为异常。
+ * 窗口内的调用数达到下限且异常比例达到阈值时进入降级模式；降级期间任何一次正常完成的调用
+ * （包括定期放行的试探调用）都会使服务恢复正常模式并清空窗口。
+ * </p>
+ * <p>
+ * 降级回答只使用向量检索和一次批量库存查询，不经过大模型，通常在数十毫秒内返回。
+ * 是否处于降级模式记录在 {@code ai.degraded.mode} 指标中，模式切换记录在
+ * {@code ai.degraded.transitions}（to 为 degraded 或 normal），生成的降级回答数记录在 {@code ai.degraded.answers}。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Service
+public class AiDegradedModeServiceImpl implements AiDegradedModeService {
+
+    private static final Logger log = LoggerFactory.getLogger(AiDegradedModeServiceImpl.class);
+
+    /**
+     * 荐书类提问的关键词
+     */
+    private static final Pattern RECOMMENDATION = Pattern.compile(
+            "推荐|荐书|书单|好书|有什么.{0,8}书|想(看|读|买)|找.{0,6}书|适合.{0,10}(看|读)|类似.{0,10}的书"
+                    + "|\\b(recommend|suggest)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final AiDegradedProperties properties;
+    private final VectorStoreUtil vectorStoreUtil;
+    private final StockpileService stockpileService;
+    /**
+     * 最近的调用是否异常，环形缓冲区
+     */
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int unhealthy;
+    private boolean degraded;
+    private long lastProbe;
+    private final Counter degradedCounter;
+    private final Counter recoveredCounter;
+    private final Counter answerCounter;
+
+    /**
+     * 构造函数，通过依赖注入初始化所需组件
+     *
+     * @param properties       降级模式配置
+     * @param vectorStoreUtil  向量存储工具，用于检索相关书籍
+     * @param stockpileService 库存服务，用于查询书籍库存
+     * @param meterRegistry    指标注册表，用于记录降级状态和降级回答数
+     */
+    public AiDegradedModeServiceImpl(AiDegradedProperties properties, VectorStoreUtil vectorStoreUtil,
+            StockpileService stockpileService, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.vectorStoreUtil = vectorStoreUtil;
+        this.stockpileService = stockpileService;
+        this.outcomes = new boolean[Math.max(1, properties.getWindowSize())];
+        this.degradedCounter = Counter.builder("ai.degraded.transitions").tag("to", "degraded")
+                .register(meterRegistry);
+        this.recoveredCounter = Counter.builder("ai.degraded.transitions").tag("to", "normal")
+                .register(meterRegistry);
+        this.answerCounter = Counter.builder("ai.degraded.answers").register(meterRegistry);
+        Gauge.builder("ai.degraded.mode", this, service -> service.isDegraded() ? 1 : 0).register(meterRegistry);
+    }
+
+    @Override
+    public boolean isRecommendation(String prompt) {
+        return properties.isEnabled() && prompt != null && RECOMMENDATION.matcher(prompt).find();
+    }
+
+    @Override
+    public synchronized boolean shouldDegrade() {
+        if (!properties.isEnabled() || !degraded) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - lastProbe >= properties.getProbeInterval().toNanos()) {
+            // 放行本次调用作为试探，试探结束前其他提问继续使用降级回答
+            lastProbe = now;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<String> answer(String prompt) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        List<Document> documents;
+        Map<Long, StockpileVO> stockpiles;
+        try {
+            documents = vectorStoreUtil.searchProducts(prompt, properties.getMaxResults(),
+                    properties.getSimilarityThreshold(), null);
+            List<Long> productIds = documents.stream()
+                    .map(AiDegradedModeServiceImpl::productId)
+                    .filter(Objects::nonNull)
+                    .toList();
+            stockpiles = productIds.isEmpty() ? Map.of() : stockpileService.getStockpilesByProductIds(productIds);
+        } catch (RuntimeException e) {
+            log.warn("Failed to build degraded answer", e);
+            return Optional.empty();
+        }
+
+        StringBuilder sb = new StringBuilder(NOTICE);
+        if (documents.isEmpty()) {
+            sb.append("AI助手当前繁忙，暂时没有找到与您的描述相关的书籍，请换个说法或稍后再试。");
+        } else {
+            sb.append("AI助手当前繁忙，以下是根据您的描述检索到的书籍：\n");
+            int index = 1;
+            for (Document document : documents) {
+                Map<String, Object> metadata = document.getMetadata();
+                sb.append(index++).append(". 《").append(metadata.getOrDefault("title", "未知书名")).append("》");
+                if (metadata.get("price") != null) {
+                    sb.append(" 价格：").append(metadata.get("price")).append("元");
+                }
+                if (metadata.get("rate") != null) {
+                    sb.append(" 评分：").append(metadata.get("rate"));
+                }
+                StockpileVO stockpile = stockpiles.get(productId(document));
+                if (stockpile != null && stockpile.getAmount() != null) {
+                    sb.append(stockpile.getAmount() > 0 ? " 有货（可售 " + stockpile.getAmount() + " 本）" : " 暂时缺货");
+                }
+                sb.append("\n");
+            }
+            sb.append("如需更详细的介绍，请稍后再次提问。");
+        }
+        answerCounter.increment();
+        return Optional.of(sb.toString());
+    }
+
+    @Override
+    public void recordSuccess(Duration latency) {
+        record(latency.compareTo(properties.getSlowCallThreshold()) >= 0);
+    }
+
+    @Override
+    public void recordFailure() {
+        record(true);
+    }
+
+    @Override
+    public void recordCancelled(Duration waited) {
+        if (waited.compareTo(properties.getSlowCallThreshold()) >= 0) {
+            record(true);
+        }
+    }
+
+    @Override
+    public synchronized boolean isDegraded() {
+        return degraded;
+    }
+
+    private synchronized void record(boolean unhealthyCall) {
+        if (degraded) {
+            if (unhealthyCall) {
+                return;
+            }
+            degraded = false;
+            recorded = 0;
+            next = 0;
+            unhealthy = 0;
+            recoveredCounter.increment();
+            log.info("AI assistant recovered from degraded mode");
+            return;
+        }
+
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                unhealthy--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = unhealthyCall;
+        if (unhealthyCall) {
+            unhealthy++;
+        }
+        next = (next + 1) % outcomes.length;
+
+        if (recorded >= properties.getMinCalls()
+                && unhealthy >= properties.getUnhealthyRateThreshold() * recorded) {
+            degraded = true;
+            lastProbe = System.nanoTime();
+            degradedCounter.increment();
+            log.warn("AI assistant entered degraded mode, {} of last {} model calls slow or failed",
+                    unhealthy, recorded);
+        }
+    }
+
+    private static Long productId(Document document) {
+        long productId = Long.parseLong(String.valueOf(document.getMetadata().getOrDefault("id", "0")));
+        return productId == 0 ? null : productId;
+    }
+}
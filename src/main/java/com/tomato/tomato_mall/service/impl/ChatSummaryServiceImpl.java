@@ -0,0 +1,181 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.entity.ChatMemorySummary;
+import com.tomato.tomato_mall.properties.ChatMemoryProperties;
+import com.tomato.tomato_mall.repository.ChatMemorySummaryRepository;
+import com.tomato.tomato_mall.service.ChatSummaryService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天记忆摘要服务实现类
+ * <p>
+ * 摘要直接调用聊天模型生成，不经过聊天客户端的工具和记忆顾问。
+ * 摘要任务在固定大小的后台线程池中执行，队列有界，队列已满时放弃本次摘要。
+ * 对话在摘要进行中被删除时，生成的摘要不会写入。
+ * </p>
+ * <p>
+ * 摘要结果记录在 {@code ai.chat.memory.summarizations} 指标中（result 为 success 或 failure），
+ * 生成耗时记录在 {@code ai.chat.memory.summarization.time}。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Service
+public class ChatSummaryServiceImpl implements ChatSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatSummaryServiceImpl.class);
+
+    /**
+     * 摘要线程数
+     */
+    private static final int SUMMARIZER_THREADS = 2;
+
+    /**
+     * 等待执行的摘要任务上限
+     */
+    private static final int SUMMARIZER_QUEUE_CAPACITY = 100;
+
+    private static final String INSTRUCTION = """
+            你负责为番茄书城助手压缩对话历史。
+            请把"已有摘要"和"新增对话"合并为一份新的摘要，保留用户的阅读偏好、预算、提到过的书名、作者和商品id、
+            已经给出的推荐以及尚未解决的问题，省略寒暄和重复内容。
+            摘要使用第三人称陈述句，不超过%d字，只输出摘要本身。
+            """;
+
+    private final ChatModel chatModel;
+    private final ChatMemorySummaryRepository summaryRepository;
+    private final ChatMemoryProperties properties;
+    private final Executor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Timer summarizationTime;
+
+    /**
+     * 构造函数，通过依赖注入初始化所需组件
+     *
+     * @param chatModel         聊天模型，用于生成摘要
+     * @param summaryRepository 聊天记忆摘要数据访问接口
+     * @param properties        聊天记忆配置
+     * @param meterRegistry     指标注册表，用于记录摘要次数和耗时
+     */
+    public ChatSummaryServiceImpl(ChatModel chatModel, ChatMemorySummaryRepository summaryRepository,
+            ChatMemoryProperties properties, MeterRegistry meterRegistry) {
+        this(chatModel, summaryRepository, properties, meterRegistry, new ThreadPoolExecutor(
+                SUMMARIZER_THREADS, SUMMARIZER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(SUMMARIZER_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "chat-memory-summarizer");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    ChatSummaryServiceImpl(ChatModel chatModel, ChatMemorySummaryRepository summaryRepository,
+            ChatMemoryProperties properties, MeterRegistry meterRegistry, Executor executor) {
+        this.chatModel = chatModel;
+        this.summaryRepository = summaryRepository;
+        this.properties = properties;
+        this.executor = executor;
+        this.successCounter = Counter.builder("ai.chat.memory.summarizations").tag("result", "success")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("ai.chat.memory.summarizations").tag("result", "failure")
+                .register(meterRegistry);
+        this.summarizationTime = Timer.builder("ai.chat.memory.summarization.time").register(meterRegistry);
+    }
+
+    @Override
+    public Optional<ChatMemorySummary> getSummary(String conversationKey) {
+        return summaryRepository.findById(conversationKey);
+    }
+
+    @Override
+    public void summarizeAsync(String conversationKey, String previousSummary, List<Message> messages,
+            String lastMessageFingerprint) {
+        if (messages.isEmpty() || !inFlight.add(conversationKey)) {
+            return;
+        }
+        try {
+            executor.execute(() -> summarize(conversationKey, previousSummary, messages, lastMessageFingerprint));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(conversationKey);
+            log.debug("Summarization queue full, skipping conversation {}", conversationKey);
+        }
+    }
+
+    @Override
+    public void clear(String conversationKey) {
+        // 进行中的任务完成后发现标记已被移除，不再写入摘要
+        inFlight.remove(conversationKey);
+        if (summaryRepository.existsById(conversationKey)) {
+            summaryRepository.deleteById(conversationKey);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void summarize(String conversationKey, String previousSummary, List<Message> messages,
+            String lastMessageFingerprint) {
+        long start = System.nanoTime();
+        try {
+            String summary = chatModel.call(
+                    new SystemMessage(INSTRUCTION.formatted(properties.getMaxSummaryLength())),
+                    new UserMessage(transcript(previousSummary, messages)));
+            summarizationTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (summary == null || summary.isBlank()) {
+                failureCounter.increment();
+                return;
+            }
+            if (inFlight.contains(conversationKey)) {
+                summaryRepository.save(new ChatMemorySummary(conversationKey, summary.strip(),
+                        lastMessageFingerprint, null));
+                successCounter.increment();
+            }
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.warn("Failed to summarize chat memory of conversation {}", conversationKey, e);
+        } finally {
+            inFlight.remove(conversationKey);
+        }
+    }
+
+    private static String transcript(String previousSummary, List<Message> messages) {
+        StringBuilder builder = new StringBuilder("已有摘要：\n")
+                .append(previousSummary == null || previousSummary.isBlank() ? "无" : previousSummary)
+                .append("\n\n新增对话：\n");
+        for (Message message : messages) {
+            builder.append(message.getMessageType() == MessageType.USER ? "用户：" : "助手：")
+                    .append(message.getText())
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+}
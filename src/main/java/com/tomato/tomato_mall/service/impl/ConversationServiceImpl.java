@@ -8,24 +8,58 @@ import com.tomato.tomato_mall.entity.User;
 import com.tomato.tomato_mall.entity.Message.Role;
 import com.tomato.tomato_mall.enums.ErrorTypeEnum;
 import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.properties.AiHistoryProperties;
+import com.tomato.tomato_mall.properties.AiStreamProperties;
 import com.tomato.tomato_mall.repository.ConversationRepository;
 import com.tomato.tomato_mall.repository.MessageRepository;
 import com.tomato.tomato_mall.repository.UserRepository;
+import com.tomato.tomato_mall.service.AiAdmissionService;
+import com.tomato.tomato_mall.service.AiDegradedModeService;
+import com.tomato.tomato_mall.service.ChatSummaryService;
 import com.tomato.tomato_mall.service.ConversationService;
+import com.tomato.tomato_mall.service.SemanticCacheService;
 import com.tomato.tomato_mall.vo.ConversationVO;
+import com.tomato.tomato_mall.vo.CursorPageVO;
 import com.tomato.tomato_mall.vo.MessageVO;
 
+import jakarta.annotation.PreDestroy;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.ai.chat.client.*;
 import org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -34,6 +68,34 @@ import java.util.stream.Collectors;
  * 实现AI对话和消息管理的核心业务逻辑
  * 包括对话创建、查询、删除和消息处理功能
  * 集成Spring AI客户端实现AI对话功能，支持聊天记忆和流式响应
+ * 对话删除采用逻辑删除，消息由定时清理任务批量删除
+ * </p>
+ * <p>
+ * 启用语义回答缓存时，与近期提问语义相近的通用提问直接复用缓存的回答，
+ * 流式接口将其拆分为分片回放；命中缓存的一问一答会手动写入聊天记忆，保证后续追问仍有上下文。
+ * </p>
+ * <p>
+ * 发送消息的流程不在同一个事务中完成：先保存用户消息，再在任何事务之外调用大模型，
+ * 最后在新的短事务中保存回复，调用大模型的数秒内不占用数据库连接。
+ * </p>
+ * <p>
+ * 流式回复的写入不在推送回复的响应式线程上执行，而是交给虚拟线程执行器，
+ * 同时写入的回复数量受 {@code app.ai.stream.persist-concurrency} 限制。
+ * 生成过程中按 {@code app.ai.stream.checkpoint-interval} 保存已生成的内容，
+ * 客户端断开、模型出错或进程退出时保留已生成的部分；没有生成任何内容时不写入回复消息。
+ * </p>
+ * <p>
+ * 每次调用大模型前都要经过 {@link AiAdmissionService} 获得许可，命中语义缓存的提问不占用名额。
+ * </p>
+ * <p>
+ * 大模型调用的首个片段延迟和失败情况上报给 {@link AiDegradedModeService}。处于降级模式时荐书类提问直接以本地检索结果回答；
+ * 正常模式下荐书类提问的调用在返回任何内容前失败（包括因繁忙被拒绝）时，同样以降级回答代替错误。
+ * 降级回答与缓存回答一样写入消息和聊天记忆。
+ * </p>
+ * <p>
+ * 对话列表和消息历史采用游标分页：对话按更新时间和ID倒序，消息按创建时间和ID倒序，
+ * 游标是上一页最后一条记录的时间和ID经 Base64 编码后的字符串，翻页查询直接利用复合索引定位，不随页数变慢。
+ * 获取全部对话和对话详情的接口只返回最近一页，更早的记录通过分页接口获取。
  * </p>
  * 
  * @author Team CBDDL
@@ -42,11 +104,28 @@ import java.util.stream.Collectors;
 @Service
 public class ConversationServiceImpl implements ConversationService {
 
+    private static final Logger log = LoggerFactory.getLogger(ConversationServiceImpl.class);
+
+    /**
+     * 单次清理的已删除对话数量上限
+     */
+    static final int PURGE_BATCH_SIZE = 200;
+
     private final ConversationRepository conversationRepository;
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final ChatClient chatClient;
     private final ChatMemory chatMemory;
+    private final SemanticCacheService semanticCacheService;
+    private final ChatSummaryService chatSummaryService;
+    private final TransactionTemplate transactionTemplate;
+    private final AiStreamProperties streamProperties;
+    private final AiAdmissionService aiAdmissionService;
+    private final AiDegradedModeService degradedModeService;
+    private final AiHistoryProperties historyProperties;
+    private final ExecutorService persistExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ai-stream-persist-", 0).factory());
+    private final Semaphore persistPermits;
 
     /**
      * 构造函数，通过依赖注入初始化所需服务
@@ -56,18 +135,40 @@ public class ConversationServiceImpl implements ConversationService {
      * @param userRepository         用户数据访问接口
      * @param chatClient             Spring AI聊天客户端，用于与AI模型交互
      * @param chatMemory             聊天记忆组件，用于保存对话上下文
+     * @param semanticCacheService   语义回答缓存服务，用于复用通用提问的回答
+     * @param chatSummaryService     聊天记忆摘要服务，删除对话时一并清除摘要
+     * @param transactionManager     事务管理器，用于在调用大模型前后开启独立的短事务
+     * @param streamProperties       流式回复配置
+     * @param aiAdmissionService     大模型调用准入服务，限制全局和单个用户的并发调用数
+     * @param degradedModeService    降级模式服务，大模型不可用时以本地检索结果回答荐书类提问
+     * @param historyProperties      历史记录分页配置
      */
     public ConversationServiceImpl(
             ConversationRepository conversationRepository,
             MessageRepository messageRepository,
             UserRepository userRepository,
             ChatClient chatClient,
-            ChatMemory chatMemory) {
+            ChatMemory chatMemory,
+            SemanticCacheService semanticCacheService,
+            ChatSummaryService chatSummaryService,
+            PlatformTransactionManager transactionManager,
+            AiStreamProperties streamProperties,
+            AiAdmissionService aiAdmissionService,
+            AiDegradedModeService degradedModeService,
+            AiHistoryProperties historyProperties) {
         this.conversationRepository = conversationRepository;
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
         this.chatClient = chatClient;
         this.chatMemory = chatMemory;
+        this.semanticCacheService = semanticCacheService;
+        this.chatSummaryService = chatSummaryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.streamProperties = streamProperties;
+        this.persistPermits = new Semaphore(streamProperties.getPersistConcurrency());
+        this.aiAdmissionService = aiAdmissionService;
+        this.degradedModeService = degradedModeService;
+        this.historyProperties = historyProperties;
     }
 
     @Override
@@ -75,12 +176,43 @@ public class ConversationServiceImpl implements ConversationService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new BusinessException(ErrorTypeEnum.USER_NOT_FOUND));
 
-        List<Conversation> conversations = conversationRepository.findByUserOrderByUpdateTimeDesc(user);
+        List<Conversation> conversations = conversationRepository.findPageByUser(user,
+                PageRequest.of(0, historyProperties.getConversationPageSize()));
         return conversations.stream()
                 .map(this::convertToConversationVO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPageVO<ConversationVO> getUserConversationPage(String username, String cursor, Integer size) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new BusinessException(ErrorTypeEnum.USER_NOT_FOUND));
+
+        int pageSize = resolvePageSize(size, historyProperties.getConversationPageSize());
+        // 多查一条用于判断是否还有下一页
+        PageRequest pageable = PageRequest.of(0, pageSize + 1);
+        List<Conversation> conversations;
+        if (cursor == null || cursor.isBlank()) {
+            conversations = conversationRepository.findPageByUser(user, pageable);
+        } else {
+            PageCursor pageCursor = PageCursor.decode(cursor);
+            conversations = conversationRepository.findPageByUserBefore(user, pageCursor.time(), pageCursor.id(),
+                    pageable);
+        }
+
+        boolean hasMore = conversations.size() > pageSize;
+        List<Conversation> page = hasMore ? conversations.subList(0, pageSize) : conversations;
+        String nextCursor = null;
+        if (hasMore) {
+            Conversation last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getUpdateTime(), last.getId()).encode();
+        }
+        List<ConversationVO> items = page.stream()
+                .map(this::convertToConversationVO)
+                .collect(Collectors.toList());
+        return new CursorPageVO<>(items, nextCursor, hasMore);
+    }
+
     @Override
     @Transactional
     public ConversationVO createConversation(String username, ConversationCreateDTO createDTO) {
@@ -97,19 +229,19 @@ public class ConversationServiceImpl implements ConversationService {
 
     @Override
     public ConversationVO getConversation(String username, String conversationId) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new BusinessException(ErrorTypeEnum.USER_NOT_FOUND));
-
-        Conversation conversation = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new BusinessException(ErrorTypeEnum.CONVERSATION_NOT_FOUND));
-
-        if (!conversation.getUser().getId().equals(user.getId())) {
-            throw new BusinessException(ErrorTypeEnum.CONVERSATION_NOT_BELONG_TO_USER);
-        }
-
+        Conversation conversation = getOwnedConversation(username, conversationId);
         return convertToConversationVO(conversation, true);
     }
 
+    @Override
+    public CursorPageVO<MessageVO> getMessagePage(String username, String conversationId, String cursor,
+            Integer size) {
+        Conversation conversation = getOwnedConversation(username, conversationId);
+        int pageSize = resolvePageSize(size, historyProperties.getMessagePageSize());
+        PageCursor pageCursor = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+        return loadMessagePage(conversation, pageCursor, pageSize);
+    }
+
     @Override
     @Transactional
     public void deleteConversation(String username, String conversationId) {
@@ -126,11 +258,32 @@ public class ConversationServiceImpl implements ConversationService {
 
         String conversationKey = conversationId.substring(0, 12);
         chatMemory.clear(conversationKey);
-        conversationRepository.delete(conversation);
+        chatSummaryService.clear(conversationKey);
+        // 只做逻辑删除, 消息由 purgeDeletedConversations 批量清理
+        conversationRepository.markDeleted(conversationId);
+        conversation.setDeleted(true);
     }
 
-    @Override
+    /**
+     * 清理已删除的对话
+     * <p>
+     * 定时任务，每30秒执行一次，每次处理一批已标记删除的对话。
+     * 先以单条语句删除这些对话的全部消息，再删除对话本身，不加载任何消息实体。
+     * </p>
+     */
+    @Scheduled(fixedDelay = 30000) // 每30秒执行一次
     @Transactional
+    public void purgeDeletedConversations() {
+        List<String> ids = conversationRepository.findDeletedIds(PageRequest.of(0, PURGE_BATCH_SIZE));
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        messageRepository.deleteByConversationIdIn(ids);
+        conversationRepository.purgeByIdIn(ids);
+    }
+
+    @Override
     public MessageVO getMessage(String username, String conversationId, MessageCreateDTO messageDTO) {
         // 验证用户和会话
         User user = userRepository.findByUsername(username)
@@ -143,41 +296,58 @@ public class ConversationServiceImpl implements ConversationService {
             throw new BusinessException(ErrorTypeEnum.CONVERSATION_NOT_BELONG_TO_USER);
         }
 
+        String content = messageDTO.getContent();
+        boolean cacheable = semanticCacheService.isEligible(content);
+        // 只有对话的第一个提问生成的回答不依赖上下文，可以写入缓存
+        boolean firstTurn = cacheable && !messageRepository.existsByConversation(conversation);
+
         // 保存用户消息
         Message userMessage = new Message();
         userMessage.setConversation(conversation);
         userMessage.setRole(Role.USER);
-        userMessage.setContent(messageDTO.getContent());
+        userMessage.setContent(content);
         userMessage = messageRepository.save(userMessage);
 
         String conversationKey = conversationId.substring(0, 12);
+        Optional<String> cachedAnswer = cacheable ? semanticCacheService.findAnswer(content) : Optional.empty();
+        boolean recommendation = degradedModeService.isRecommendation(content);
 
         try {
-            String response = chatClient.prompt()
-                    .user(messageDTO.getContent())
-                    .advisors(a -> a.param(AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY, conversationKey))
-                    .call()
-                    .content();
-
-            // 保存AI回复
-            Message assistantMessage = new Message();
-            assistantMessage.setConversation(conversation);
-            assistantMessage.setRole(Role.ASSISTANT);
-            assistantMessage.setContent(response);
-            assistantMessage = messageRepository.save(assistantMessage);
-
-            // 更新会话
-            conversation.setUpdateTime(LocalDateTime.now());
-            conversationRepository.save(conversation);
+            String response;
+            Optional<String> degradedAnswer;
+            if (cachedAnswer.isPresent()) {
+                response = cachedAnswer.get();
+                rememberCachedTurn(conversationKey, content, response);
+            } else if (recommendation && degradedModeService.shouldDegrade()
+                    && (degradedAnswer = degradedModeService.answer(content)).isPresent()) {
+                response = degradedAnswer.get();
+                rememberCachedTurn(conversationKey, content, response);
+            } else {
+                response = callModel(username, content, conversationKey, firstTurn, recommendation);
+            }
+
+            // 在新的短事务中保存AI回复并更新会话
+            Message assistantMessage = transactionTemplate.execute(status -> {
+                Message reply = new Message();
+                reply.setConversation(conversation);
+                reply.setRole(Role.ASSISTANT);
+                reply.setContent(response);
+                reply = messageRepository.save(reply);
+
+                conversation.setUpdateTime(LocalDateTime.now());
+                conversationRepository.save(conversation);
+                return reply;
+            });
 
             return convertToMessageVO(assistantMessage);
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             throw new BusinessException(ErrorTypeEnum.RESPONSE_FETCH_FAILED);
         }
     }
 
     @Override
-    @Transactional
     public Flux<String> getStreamMessage(String username, String conversationId, MessageCreateDTO messageDTO) {
         // 验证用户和会话
         User user = userRepository.findByUsername(username)
@@ -188,51 +358,208 @@ public class ConversationServiceImpl implements ConversationService {
             throw new BusinessException(ErrorTypeEnum.CONVERSATION_NOT_BELONG_TO_USER);
         }
 
+        String content = messageDTO.getContent();
+        boolean cacheable = semanticCacheService.isEligible(content);
+        // 只有对话的第一个提问生成的回答不依赖上下文，可以写入缓存
+        boolean firstTurn = cacheable && !messageRepository.existsByConversation(conversation);
+
         // 保存用户消息
         Message userMessage = new Message();
         userMessage.setConversation(conversation);
         userMessage.setRole(Role.USER);
-        userMessage.setContent(messageDTO.getContent());
+        userMessage.setContent(content);
         userMessage = messageRepository.save(userMessage);
         String conversationKey = conversationId.substring(0, 12);
 
-        // 创建AI回复消息对象，但先不保存内容
-        Message assistantMessage = new Message();
-        assistantMessage.setConversation(conversation);
-        assistantMessage.setRole(Role.ASSISTANT);
-        assistantMessage.setContent(""); // 初始为空
-        assistantMessage = messageRepository.save(assistantMessage);
+        Optional<String> cachedAnswer = cacheable ? semanticCacheService.findAnswer(content) : Optional.empty();
+        if (cachedAnswer.isPresent()) {
+            // 命中缓存时直接保存完整回复，并以分片回放
+            saveCompleteReply(conversation, cachedAnswer.get());
+            rememberCachedTurn(conversationKey, content, cachedAnswer.get());
+            return semanticCacheService.replay(cachedAnswer.get());
+        }
+
+        boolean recommendation = degradedModeService.isRecommendation(content);
+        if (recommendation && degradedModeService.shouldDegrade()) {
+            Optional<String> degradedAnswer = degradedModeService.answer(content);
+            if (degradedAnswer.isPresent()) {
+                saveCompleteReply(conversation, degradedAnswer.get());
+                rememberCachedTurn(conversationKey, content, degradedAnswer.get());
+                return Flux.just(degradedAnswer.get());
+            }
+        }
 
-        // 最终要保存的完整内容
-        final StringBuilder completeResponse = new StringBuilder();
-        final String assistantMessageId = assistantMessage.getId();
+        // AI回复消息在生成出内容后才写入，取消或出错时不会留下空消息
+        StreamingReply reply = new StreamingReply(conversation);
+        // 生成耗时不包含排队时间
+        AtomicLong start = new AtomicLong();
+        AtomicBoolean received = new AtomicBoolean();
 
-        // 获取流式回复并处理
-        Flux<String> responseFlux = chatClient.prompt()
-                .user(messageDTO.getContent())
+        // 获取流式回复并处理，获得许可后才开始生成
+        Flux<String> responseFlux = aiAdmissionService.admit(username, chatClient.prompt()
+                .user(content)
                 .advisors(a -> a.param(AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY, conversationKey))
                 .stream()
-                .content();
-
-        // 转换流，同时收集完整回复
-        return responseFlux
+                .content()
+                .doOnSubscribe(subscription -> start.set(System.nanoTime())))
                 .doOnNext(chunk -> {
-                    // 累积响应内容
-                    completeResponse.append(chunk);
+                    if (received.compareAndSet(false, true)) {
+                        degradedModeService.recordSuccess(Duration.ofNanos(System.nanoTime() - start.get()));
+                    }
+                })
+                // 未获得许可的调用没有访问模型，排队失败不计入模型健康状况
+                .doOnError(e -> {
+                    if (!received.get() && start.get() != 0) {
+                        degradedModeService.recordFailure();
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (!received.get() && start.get() != 0) {
+                        degradedModeService.recordCancelled(Duration.ofNanos(System.nanoTime() - start.get()));
+                    }
                 })
-                .doOnComplete(() -> {
-                    // 流完成时，保存完整响应到数据库
-                    messageRepository.findById(assistantMessageId).ifPresent(msg -> {
-                        msg.setContent(completeResponse.toString());
-                        messageRepository.save(msg);
-
-                        // 更新会话
-                        conversation.setUpdateTime(LocalDateTime.now());
-                        conversationRepository.save(conversation);
-                    });
+                // 荐书类提问在返回任何内容前失败时以降级回答代替，降级回答的检索在弹性线程上执行
+                .onErrorResume(e -> recommendation && !received.get(), e -> Mono
+                        .fromCallable(() -> degradedModeService.answer(content))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMapMany(degradedAnswer -> {
+                            if (degradedAnswer.isEmpty()) {
+                                return Flux.error(e);
+                            }
+                            rememberFallbackTurn(conversationKey, content, degradedAnswer.get(), start.get() != 0);
+                            return Flux.just(degradedAnswer.get());
+                        }));
+
+        // 转换流，同时收集完整回复，所有数据库写入都交给持久化线程
+        return responseFlux
+                .doOnNext(reply::append)
+                .doFinally(signal -> {
+                    String completeResponse = reply.finish();
+                    // 降级回答和未获得许可的调用不是模型生成的回答，不写入缓存
+                    if (signal == SignalType.ON_COMPLETE && firstTurn && start.get() != 0
+                            && !AiDegradedModeService.isDegradedAnswer(completeResponse)) {
+                        Duration generationTime = Duration.ofNanos(System.nanoTime() - start.get());
+                        reply.enqueue(() -> semanticCacheService.saveAnswer(content, completeResponse,
+                                generationTime));
+                    }
                 });
     }
 
+    /**
+     * 停止流式回复的持久化线程
+     * <p>
+     * 等待已提交的写入完成，应用正常关闭时不会丢失已生成的回复
+     * </p>
+     *
+     * @throws InterruptedException 等待时被中断
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        persistExecutor.shutdown();
+        if (!persistExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Streaming reply writes did not finish before shutdown");
+        }
+    }
+
+    /**
+     * 调用大模型生成回复
+     * <p>
+     * 调用时不持有事务和数据库连接，获得许可后的调用结果上报给降级模式服务。
+     * 荐书类提问调用失败时以降级回答代替，降级回答同样写入聊天记忆。
+     * 获得许可后记忆顾问已写入用户消息，此时只补写降级回答。
+     * </p>
+     *
+     * @param username        用户名
+     * @param content         用户提问
+     * @param conversationKey 聊天记忆中的对话标识
+     * @param firstTurn       是否为对话的第一个提问，第一个提问的回答写入语义缓存
+     * @param recommendation  是否为荐书类提问
+     * @return 大模型的回复或降级回答
+     */
+    private String callModel(String username, String content, String conversationKey, boolean firstTurn,
+            boolean recommendation) {
+        String response;
+        long start = 0;
+        try (AiAdmissionService.Permit permit = aiAdmissionService.acquire(username)) {
+            start = System.nanoTime();
+            response = chatClient.prompt()
+                    .user(content)
+                    .advisors(a -> a.param(AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY,
+                            conversationKey))
+                    .call()
+                    .content();
+        } catch (RuntimeException e) {
+            // 未获得许可的调用没有访问模型，排队失败不计入模型健康状况
+            if (start != 0) {
+                degradedModeService.recordFailure();
+            }
+            Optional<String> degradedAnswer = recommendation ? degradedModeService.answer(content) : Optional.empty();
+            if (degradedAnswer.isEmpty()) {
+                throw e;
+            }
+            rememberFallbackTurn(conversationKey, content, degradedAnswer.get(), start != 0);
+            return degradedAnswer.get();
+        }
+        Duration generationTime = Duration.ofNanos(System.nanoTime() - start);
+        degradedModeService.recordSuccess(generationTime);
+        if (firstTurn) {
+            semanticCacheService.saveAnswer(content, response, generationTime);
+        }
+        return response;
+    }
+
+    /**
+     * 在新的短事务中保存完整的AI回复并更新会话时间
+     *
+     * @param conversation 对话
+     * @param answer       回复内容
+     */
+    private void saveCompleteReply(Conversation conversation, String answer) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Message assistantMessage = new Message();
+            assistantMessage.setConversation(conversation);
+            assistantMessage.setRole(Role.ASSISTANT);
+            assistantMessage.setContent(answer);
+            messageRepository.save(assistantMessage);
+
+            conversation.setUpdateTime(LocalDateTime.now());
+            conversationRepository.save(conversation);
+        });
+    }
+
+    /**
+     * 将命中缓存或降级回答的一问一答写入聊天记忆
+     * <p>
+     * 命中缓存或降级回答时没有经过聊天记忆顾问，需要手动补充，保证后续追问能够引用这一轮对话
+     * </p>
+     * 
+     * @param conversationKey 聊天记忆中的对话标识
+     * @param prompt          用户提问
+     * @param answer          缓存的回答或降级回答
+     */
+    private void rememberCachedTurn(String conversationKey, String prompt, String answer) {
+        chatMemory.add(conversationKey, List.of(new UserMessage(prompt), new AssistantMessage(answer)));
+    }
+
+    /**
+     * 将模型调用失败后的降级回答写入聊天记忆
+     * <p>
+     * 调用已经开始时记忆顾问已写入用户消息，只补写回答；未获得许可时顾问没有执行，写入完整的一问一答。
+     * </p>
+     *
+     * @param conversationKey 聊天记忆中的对话标识
+     * @param prompt          用户提问
+     * @param answer          降级回答
+     * @param modelCalled     是否已开始调用大模型
+     */
+    private void rememberFallbackTurn(String conversationKey, String prompt, String answer, boolean modelCalled) {
+        if (modelCalled) {
+            chatMemory.add(conversationKey, new AssistantMessage(answer));
+        } else {
+            rememberCachedTurn(conversationKey, prompt, answer);
+        }
+    }
+
     /**
      * 将对话实体转换为视图对象（不包含消息）
      * <p>
@@ -262,16 +589,100 @@ public class ConversationServiceImpl implements ConversationService {
         BeanUtils.copyProperties(conversation, vo);
 
         if (hasMessages) {
-            List<Message> messages = messageRepository.findByConversationOrderByCreateTime(conversation);
-            List<MessageVO> messageVOs = messages.stream()
-                    .map(this::convertToMessageVO)
-                    .collect(Collectors.toList());
+            CursorPageVO<MessageVO> page = loadMessagePage(conversation, null,
+                    historyProperties.getMessagePageSize());
+            // 最近一页按时间顺序返回，与完整历史的顺序保持一致
+            List<MessageVO> messageVOs = new ArrayList<>(page.getItems());
+            Collections.reverse(messageVOs);
             vo.setMessages(messageVOs);
+            vo.setNextMessageCursor(page.getNextCursor());
+            vo.setHasMoreMessages(page.isHasMore());
         }
 
         return vo;
     }
 
+    /**
+     * 查询一页消息，按创建时间和ID倒序排列
+     *
+     * @param conversation 对话实体
+     * @param cursor       上一页返回的游标，为null时查询最新一页
+     * @param pageSize     每页数量
+     * @return 消息分页结果
+     */
+    private CursorPageVO<MessageVO> loadMessagePage(Conversation conversation, PageCursor cursor, int pageSize) {
+        // 多查一条用于判断是否还有下一页
+        PageRequest pageable = PageRequest.of(0, pageSize + 1);
+        List<Message> messages = cursor == null
+                ? messageRepository.findPageByConversation(conversation, pageable)
+                : messageRepository.findPageByConversationBefore(conversation, cursor.time(), cursor.id(), pageable);
+
+        boolean hasMore = messages.size() > pageSize;
+        List<Message> page = hasMore ? messages.subList(0, pageSize) : messages;
+        String nextCursor = null;
+        if (hasMore) {
+            Message last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreateTime(), last.getId()).encode();
+        }
+        List<MessageVO> items = page.stream()
+                .map(this::convertToMessageVO)
+                .collect(Collectors.toList());
+        return new CursorPageVO<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * 查询对话并校验其属于指定用户
+     *
+     * @param username       用户名
+     * @param conversationId 对话ID
+     * @return 对话实体
+     * @throws BusinessException 用户或对话不存在、对话不属于该用户时抛出
+     */
+    private Conversation getOwnedConversation(String username, String conversationId) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new BusinessException(ErrorTypeEnum.USER_NOT_FOUND));
+
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new BusinessException(ErrorTypeEnum.CONVERSATION_NOT_FOUND));
+
+        if (!conversation.getUser().getId().equals(user.getId())) {
+            throw new BusinessException(ErrorTypeEnum.CONVERSATION_NOT_BELONG_TO_USER);
+        }
+        return conversation;
+    }
+
+    /**
+     * 计算实际的每页数量，未指定或不合法时使用默认值，超过上限时取上限
+     */
+    private int resolvePageSize(Integer size, int defaultSize) {
+        int pageSize = size != null && size > 0 ? size : defaultSize;
+        return Math.min(pageSize, historyProperties.getMaxPageSize());
+    }
+
+    /**
+     * 分页游标，记录上一页最后一条记录的排序时间和ID
+     */
+    private record PageCursor(LocalDateTime time, String id) {
+
+        String encode() {
+            String raw = time + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                if (separator <= 0 || separator == raw.length() - 1) {
+                    throw new BusinessException(ErrorTypeEnum.INVALID_PAGE_CURSOR);
+                }
+                return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new BusinessException(ErrorTypeEnum.INVALID_PAGE_CURSOR);
+            }
+        }
+    }
+
     /**
      * 将消息实体转换为视图对象
      * <p>
@@ -285,6 +696,87 @@ public class ConversationServiceImpl implements ConversationService {
         MessageVO vo = new MessageVO();
         BeanUtils.copyProperties(message, vo);
         vo.setRole(message.getRole().toString());
+        vo.setDegraded(message.getRole() == Role.ASSISTANT
+                && AiDegradedModeService.isDegradedAnswer(message.getContent()));
         return vo;
     }
-}
\ No newline at end of file
+
+    /**
+     * 一条正在生成的流式回复
+     * <p>
+     * 信号线程只负责累积内容，数据库写入按提交顺序在持久化线程上依次执行：
+     * 第一次写入时插入消息，之后按消息ID更新内容，最终写入同时更新会话时间。
+     * 上一次阶段性保存尚未完成时跳过本次保存，避免写入堆积。
+     * </p>
+     */
+    private final class StreamingReply {
+
+        private final Conversation conversation;
+        private final StringBuilder content = new StringBuilder();
+        private CompletableFuture<Void> writes = CompletableFuture.completedFuture(null);
+        private long lastCheckpoint = System.nanoTime();
+        /**
+         * 只在持久化任务中读写，任务依次执行
+         */
+        private String messageId;
+
+        private StreamingReply(Conversation conversation) {
+            this.conversation = conversation;
+        }
+
+        private void append(String chunk) {
+            content.append(chunk);
+            long now = System.nanoTime();
+            if (now - lastCheckpoint >= streamProperties.getCheckpointInterval().toNanos() && writes.isDone()) {
+                lastCheckpoint = now;
+                String snapshot = content.toString();
+                enqueue(() -> write(snapshot, false));
+            }
+        }
+
+        /**
+         * 提交最终写入，内容为空时不写入任何消息
+         *
+         * @return 已生成的完整内容
+         */
+        private String finish() {
+            String snapshot = content.toString();
+            if (!snapshot.isEmpty()) {
+                enqueue(() -> write(snapshot, true));
+            }
+            return snapshot;
+        }
+
+        private void enqueue(Runnable task) {
+            writes = writes.thenRunAsync(() -> {
+                persistPermits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    persistPermits.release();
+                }
+            }, persistExecutor).exceptionally(e -> {
+                log.warn("Failed to persist streaming reply of conversation {}", conversation.getId(), e);
+                return null;
+            });
+        }
+
+        private void write(String snapshot, boolean last) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (messageId == null) {
+                    Message assistantMessage = new Message();
+                    assistantMessage.setConversation(conversation);
+                    assistantMessage.setRole(Role.ASSISTANT);
+                    assistantMessage.setContent(snapshot);
+                    messageId = messageRepository.save(assistantMessage).getId();
+                } else {
+                    messageRepository.updateContent(messageId, snapshot);
+                }
+                if (last) {
+                    conversation.setUpdateTime(LocalDateTime.now());
+                    conversationRepository.save(conversation);
+                }
+            });
+        }
+    }
+}
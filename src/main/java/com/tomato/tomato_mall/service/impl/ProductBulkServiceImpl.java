@@ -0,0 +1,353 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.dto.ProductBulkRecordDTO;
+import com.tomato.tomato_mall.dto.ProductCreateDTO;
+import com.tomato.tomato_mall.dto.ProductUpdateDTO;
+import com.tomato.tomato_mall.entity.OrderItem;
+import com.tomato.tomato_mall.entity.Product;
+import com.tomato.tomato_mall.enums.BulkOperationTypeEnum;
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.repository.OrderItemRepository;
+import com.tomato.tomato_mall.repository.ProductRepository;
+import com.tomato.tomato_mall.service.ProductBulkService;
+import com.tomato.tomato_mall.service.ProductVectorTaskService;
+import com.tomato.tomato_mall.util.ProductBulkReader;
+import com.tomato.tomato_mall.vo.BulkChunkResultVO;
+import com.tomato.tomato_mall.vo.BulkRecordErrorVO;
+import com.tomato.tomato_mall.vo.ProductBulkResultVO;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 商品批量操作服务实现类
+ * <p>
+ * 该类实现了{@link ProductBulkService}接口，以流式读取、分块提交的方式处理大批量商品数据。
+ * 每个数据块在独立事务中执行：新建商品通过 saveAll 配合 pooled 序列和 JDBC 批处理一次性写入，
+ * 待更新和待删除的商品通过一次查询统一加载，待删除商品的订单占用检查和逻辑删除也按整个数据块一次完成，
+ * 避免逐条查询和逐条提交带来的往返开销。
+ * </p>
+ * <p>
+ * 数据块提交后会清空持久化上下文，使内存占用与数据块大小而非总记录数相关。
+ * 新建、更新和删除商品的向量同步任务与数据块在同一事务中登记，由后台任务批量写入向量，嵌入模型的调用不会占用数据库事务。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see ProductBulkService
+ * @see ProductBulkReader
+ */
+@Service
+public class ProductBulkServiceImpl implements ProductBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBulkServiceImpl.class);
+
+    /**
+     * 单个数据块允许的最大记录数
+     */
+    static final int MAX_CHUNK_SIZE = 5000;
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductVectorTaskService productVectorTaskService;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 构造函数，通过依赖注入初始化服务
+     *
+     * @param productRepository        商品数据访问对象
+     * @param orderItemRepository      订单项数据访问对象，用于删除前检查商品是否被订单占用
+     * @param productVectorTaskService 商品向量同步任务服务，用于登记向量同步任务
+     * @param validator                Bean Validation 校验器，按单个商品接口的规则校验每条记录
+     * @param entityManager            实体管理器，用于在数据块结束时刷新并清空持久化上下文
+     * @param transactionManager       事务管理器，用于为每个数据块开启独立事务
+     */
+    public ProductBulkServiceImpl(
+            ProductRepository productRepository,
+            OrderItemRepository orderItemRepository,
+            ProductVectorTaskService productVectorTaskService,
+            Validator validator,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productVectorTaskService = productVectorTaskService;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 批量处理商品数据
+     * <p>
+     * 按数据块大小缓冲读取到的记录，缓冲区满后立即提交，
+     * 数据块大小会被限制在1到{@value #MAX_CHUNK_SIZE}之间。
+     * </p>
+     *
+     * @param inputStream 批量数据输入流
+     * @param contentType 请求内容类型
+     * @param chunkSize   每个数据块包含的记录数
+     * @return 批量处理结果视图对象
+     * @throws BusinessException 当数据格式不受支持或读取失败时抛出
+     */
+    @Override
+    public ProductBulkResultVO bulkProcess(InputStream inputStream, String contentType, int chunkSize) {
+        ProductBulkReader.Format format = resolveFormat(contentType);
+        int size = Math.min(Math.max(chunkSize, 1), MAX_CHUNK_SIZE);
+
+        List<BulkChunkResultVO> chunks = new ArrayList<>();
+        int total = 0;
+        try (ProductBulkReader reader = ProductBulkReader.of(format, inputStream)) {
+            List<ProductBulkReader.Entry> buffer = new ArrayList<>(size);
+            while (reader.hasNext()) {
+                buffer.add(reader.next());
+                total++;
+                if (buffer.size() == size) {
+                    chunks.add(processChunk(chunks.size(), buffer));
+                    buffer = new ArrayList<>(size);
+                }
+            }
+            if (!buffer.isEmpty()) {
+                chunks.add(processChunk(chunks.size(), buffer));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new BusinessException(ErrorTypeEnum.BULK_READ_FAILED);
+        }
+
+        int failed = chunks.stream().mapToInt(BulkChunkResultVO::getFailed).sum();
+        return ProductBulkResultVO.builder()
+                .total(total)
+                .succeeded(total - failed)
+                .failed(failed)
+                .chunks(chunks)
+                .build();
+    }
+
+    private ProductBulkReader.Format resolveFormat(String contentType) {
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            throw new BusinessException(ErrorTypeEnum.BULK_FORMAT_NOT_SUPPORTED, String.valueOf(contentType));
+        }
+        if (TEXT_CSV.isCompatibleWith(mediaType)) {
+            return ProductBulkReader.Format.CSV;
+        }
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(mediaType)) {
+            return ProductBulkReader.Format.NDJSON;
+        }
+        throw new BusinessException(ErrorTypeEnum.BULK_FORMAT_NOT_SUPPORTED, contentType);
+    }
+
+    /**
+     * 在独立事务中处理一个数据块
+     * <p>
+     * 记录级的校验失败只会被记入结果；若数据库层面出错导致事务回滚，
+     * 整个数据块中的记录都视为失败。
+     * </p>
+     */
+    private BulkChunkResultVO processChunk(int index, List<ProductBulkReader.Entry> entries) {
+        BulkChunkResultVO result = BulkChunkResultVO.builder()
+                .index(index)
+                .firstLine(entries.get(0).getLine())
+                .lastLine(entries.get(entries.size() - 1).getLine())
+                .build();
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyChunk(entries, result));
+        } catch (RuntimeException e) {
+            log.warn("Bulk chunk {} rolled back", index, e);
+            entityManager.clear();
+            result.getErrors().add(0, new BulkRecordErrorVO(result.getFirstLine(), null,
+                    "数据块已回滚: " + rootMessage(e)));
+            result.setCommitted(false);
+            result.setCreated(0);
+            result.setUpdated(0);
+            result.setDeleted(0);
+            result.setFailed(entries.size());
+            return result;
+        }
+
+        result.setCommitted(true);
+        return result;
+    }
+
+    private void applyChunk(List<ProductBulkReader.Entry> entries, BulkChunkResultVO result) {
+        // 一次性加载本数据块内所有待更新和待删除的商品
+        Set<Long> ids = entries.stream()
+                .filter(entry -> entry.getRecord() != null && entry.getRecord().getId() != null)
+                .map(entry -> entry.getRecord().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = new HashMap<>();
+        if (!ids.isEmpty()) {
+            productRepository.findWithSpecificationsByIdInAndDeletedFalse(ids)
+                    .forEach(product -> products.put(product.getId(), product));
+        }
+        // 一次性查询本数据块内被未支付订单项占用的待删除商品
+        Set<Long> deleteIds = entries.stream()
+                .filter(entry -> entry.getRecord() != null && entry.getRecord().getId() != null
+                        && resolveOperation(entry.getRecord()) == BulkOperationTypeEnum.DELETE)
+                .map(entry -> entry.getRecord().getId())
+                .collect(Collectors.toSet());
+        Set<Long> occupied = deleteIds.isEmpty() ? Set.of()
+                : new HashSet<>(orderItemRepository.findProductIdsByStatus(deleteIds,
+                        OrderItem.OrderItemStatus.PENDING));
+        Set<Long> touched = new HashSet<>();
+        List<Product> created = new ArrayList<>();
+        List<Product> updated = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+
+        for (ProductBulkReader.Entry entry : entries) {
+            if (entry.getError() != null) {
+                reject(result, entry, null, entry.getError());
+                continue;
+            }
+            ProductBulkRecordDTO record = entry.getRecord();
+            BulkOperationTypeEnum operation = resolveOperation(record);
+            if (operation == null) {
+                reject(result, entry, record.getId(), "未知的操作类型: " + record.getOp());
+                continue;
+            }
+            switch (operation) {
+                case CREATE -> create(entry, result, created);
+                case UPDATE -> update(entry, result, products, touched, updated);
+                case DELETE -> delete(entry, result, products, occupied, touched, updated, deleted);
+            }
+        }
+
+        productRepository.saveAll(created);
+        // 只做逻辑删除, 关联数据由 ProductServiceImpl.purgeDeletedProducts 批量清理
+        if (!deleted.isEmpty()) {
+            productRepository.markDeletedByIdIn(deleted);
+        }
+        List<Long> changedIds = new ArrayList<>(created.size() + updated.size() + deleted.size());
+        created.forEach(product -> changedIds.add(product.getId()));
+        updated.forEach(product -> changedIds.add(product.getId()));
+        changedIds.addAll(deleted);
+        productVectorTaskService.enqueueAll(changedIds);
+        entityManager.flush();
+        entityManager.clear();
+        result.setCreated(created.size());
+        result.setUpdated(updated.size());
+    }
+
+    private BulkOperationTypeEnum resolveOperation(ProductBulkRecordDTO record) {
+        if (record.getOp() == null || record.getOp().isBlank()) {
+            return record.getId() == null ? BulkOperationTypeEnum.CREATE : BulkOperationTypeEnum.UPDATE;
+        }
+        return BulkOperationTypeEnum.getByName(record.getOp().trim());
+    }
+
+    private void create(ProductBulkReader.Entry entry, BulkChunkResultVO result, List<Product> created) {
+        ProductBulkRecordDTO record = entry.getRecord();
+        ProductCreateDTO createDTO = new ProductCreateDTO();
+        BeanUtils.copyProperties(record, createDTO);
+        String violation = validate(createDTO);
+        if (violation == null && record.getAmount() != null && record.getAmount() < 0) {
+            violation = "初始库存不能为负数";
+        }
+        if (violation != null) {
+            reject(result, entry, null, violation);
+            return;
+        }
+
+        Product product = ProductServiceImpl.buildProduct(createDTO);
+        product.getStockpile().setAmount(record.getAmount() == null ? 0 : record.getAmount());
+        created.add(product);
+    }
+
+    private void update(ProductBulkReader.Entry entry, BulkChunkResultVO result,
+            Map<Long, Product> products, Set<Long> touched, List<Product> updated) {
+        ProductBulkRecordDTO record = entry.getRecord();
+        ProductUpdateDTO updateDTO = new ProductUpdateDTO();
+        BeanUtils.copyProperties(record, updateDTO);
+        String violation = validate(updateDTO);
+        if (violation != null) {
+            reject(result, entry, record.getId(), violation);
+            return;
+        }
+        Product product = products.get(record.getId());
+        if (product == null) {
+            reject(result, entry, record.getId(), ErrorTypeEnum.PRODUCT_NOT_FOUND.getMessage());
+            return;
+        }
+
+        ProductServiceImpl.applyUpdate(product, updateDTO);
+        if (touched.add(product.getId())) {
+            updated.add(product);
+        }
+    }
+
+    private void delete(ProductBulkReader.Entry entry, BulkChunkResultVO result, Map<Long, Product> products,
+            Set<Long> occupied, Set<Long> touched, List<Product> updated, List<Long> deleted) {
+        Long id = entry.getRecord().getId();
+        Product product = id == null ? null : products.get(id);
+        if (product == null) {
+            reject(result, entry, id, ErrorTypeEnum.PRODUCT_NOT_FOUND.getMessage());
+            return;
+        }
+        // 提前检查，避免在共享事务中抛出业务异常导致整个数据块被标记为回滚
+        if (occupied.contains(id)) {
+            reject(result, entry, id, ErrorTypeEnum.PRODUCT_OCCUPIED_BY_ORDER.getMessage());
+            return;
+        }
+
+        // 数据块结束时统一标记删除
+        deleted.add(id);
+        product.setDeleted(true);
+        products.remove(id);
+        if (touched.remove(id)) {
+            updated.remove(product);
+        }
+        result.setDeleted(result.getDeleted() + 1);
+    }
+
+    private String validate(Object dto) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void reject(BulkChunkResultVO result, ProductBulkReader.Entry entry, Long productId, String message) {
+        result.setFailed(result.getFailed() + 1);
+        result.getErrors().add(new BulkRecordErrorVO(entry.getLine(), productId, message));
+    }
+
+    private String rootMessage(Throwable throwable) {
+        Throwable root = throwable;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() == null ? root.getClass().getSimpleName() : root.getMessage();
+    }
+}
@@ -1,11 +1,11 @@
 package com.tomato.tomato_mall.service.impl;
 
 import com.tomato.tomato_mall.dto.ProductCreateDTO;
+import com.tomato.tomato_mall.dto.ProductSearchDTO;
 import com.tomato.tomato_mall.dto.ProductUpdateDTO;
 import com.tomato.tomato_mall.entity.Product;
 import com.tomato.tomato_mall.entity.Specification;
 import com.tomato.tomato_mall.entity.Stockpile;
-import com.tomato.tomato_mall.entity.OrderItem;
 import com.tomato.tomato_mall.entity.OrderItem.OrderItemStatus;
 import com.tomato.tomato_mall.repository.AdvertisementRepository;
 import com.tomato.tomato_mall.repository.CartRepository;
@@ -13,20 +13,29 @@ import com.tomato.tomato_mall.repository.OrderItemRepository;
 import com.tomato.tomato_mall.enums.ErrorTypeEnum;
 import com.tomato.tomato_mall.exception.BusinessException;
 import com.tomato.tomato_mall.repository.ProductRepository;
+import com.tomato.tomato_mall.repository.SpecificationRepository;
 import com.tomato.tomato_mall.repository.StockpileRepository;
 import com.tomato.tomato_mall.service.ProductService;
+import com.tomato.tomato_mall.service.ProductVectorTaskService;
+import com.tomato.tomato_mall.util.ProductFilterBuilder;
 import com.tomato.tomato_mall.util.VectorStoreUtil;
 import com.tomato.tomato_mall.vo.ProductVO;
 import com.tomato.tomato_mall.vo.SpecificationVO;
 
+import org.springframework.ai.document.Document;
 import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +44,13 @@ import java.util.stream.Collectors;
  * 该类实现了{@link ProductService}接口，提供商品的创建、查询、更新和删除等核心功能。
  * 包含商品信息处理、规格管理和数据转换等业务逻辑的具体实现。
  * </p>
+ * <p>
+ * 商品的向量不在请求中同步写入，而是在同一事务中登记向量同步任务，由后台任务批量生成嵌入。
+ * </p>
+ * <p>
+ * 商品删除采用逻辑删除：删除请求只标记商品并登记移除其向量的任务，
+ * 规格、库存、购物车项、广告以及订单项关联由定时清理任务通过批量语句处理。
+ * </p>
  * 
  * @author Team CBDDL
  * @version 1.0
@@ -42,66 +58,68 @@ import java.util.stream.Collectors;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    /**
+     * 单次清理的已删除商品数量上限
+     */
+    static final int PURGE_BATCH_SIZE = 200;
+
+    /**
+     * 语义检索的相似度阈值
+     */
+    static final double SEARCH_SIMILARITY_THRESHOLD = 0.5;
+
     private final ProductRepository productRepository;
+    private final SpecificationRepository specificationRepository;
     private final StockpileRepository stockpileRepository;
     private final CartRepository cartRepository;
     private final OrderItemRepository orderItemRepository;
     private final AdvertisementRepository advertisementRepository;
+    private final ProductVectorTaskService productVectorTaskService;
     private final VectorStoreUtil vectorStoreUtil;
+    private final TransactionTemplate readOnlyTransaction;
 
     /**
      * 构造函数，通过依赖注入初始化商品服务组件
      * 
-     * @param productRepository       商品数据访问对象
-     * @param stockpileRepository     库存数据访问对象
-     * @param cartRepository          购物车项数据访问对象
-     * @param orderItemRepository     订单项数据访问对象
-     * @param advertisementRepository 广告数据访问对象
-     * @param vectorStoreUtil         向量存储工具
+     * @param productRepository        商品数据访问对象
+     * @param specificationRepository  规格数据访问对象
+     * @param stockpileRepository      库存数据访问对象
+     * @param cartRepository           购物车项数据访问对象
+     * @param orderItemRepository      订单项数据访问对象
+     * @param advertisementRepository  广告数据访问对象
+     * @param productVectorTaskService 商品向量同步任务服务
+     * @param vectorStoreUtil          向量存储工具，用于语义检索
+     * @param transactionManager       事务管理器，用于语义检索后的短只读事务
      */
     public ProductServiceImpl(
             ProductRepository productRepository,
+            SpecificationRepository specificationRepository,
             StockpileRepository stockpileRepository,
             CartRepository cartRepository,
             OrderItemRepository orderItemRepository,
             AdvertisementRepository advertisementRepository,
-            VectorStoreUtil vectorStoreUtil) {
+            ProductVectorTaskService productVectorTaskService,
+            VectorStoreUtil vectorStoreUtil,
+            PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
+        this.specificationRepository = specificationRepository;
         this.stockpileRepository = stockpileRepository;
         this.cartRepository = cartRepository;
         this.orderItemRepository = orderItemRepository;
         this.advertisementRepository = advertisementRepository;
+        this.productVectorTaskService = productVectorTaskService;
         this.vectorStoreUtil = vectorStoreUtil;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     @Override
     @Transactional
     public ProductVO createProduct(ProductCreateDTO createDTO) {
-        Product product = new Product();
-        BeanUtils.copyProperties(createDTO, product);
-
-        if (createDTO.getDetail() != null && createDTO.getDetail().length() > 500) {
-            product.setDetail(createDTO.getDetail().substring(0, 490));
-        }
-
-        if (createDTO.getSpecifications() != null) {
-            List<Specification> specifications = createDTO.getSpecifications().stream()
-                    .map(specDTO -> {
-                        Specification spec = new Specification();
-                        BeanUtils.copyProperties(specDTO, spec);
-                        spec.setProduct(product);
-                        return spec;
-                    })
-                    .collect(Collectors.toList());
-            product.setSpecifications(specifications);
-        }
-
-        Stockpile stockpile = new Stockpile();
-        stockpile.setProduct(product);
-        product.setStockpile(stockpile);
+        Product product = buildProduct(createDTO);
 
         Product savedProduct = productRepository.save(product);
-        vectorStoreUtil.addProductVector(savedProduct);
+        productVectorTaskService.enqueue(savedProduct.getId());
 
         return convertToProductVO(savedProduct);
     }
@@ -117,31 +135,35 @@ public class ProductServiceImpl implements ProductService {
             throw new BusinessException(ErrorTypeEnum.PRODUCT_OCCUPIED_BY_ORDER);
         }
 
-        // 删除关联购物车项
-        cartRepository.deleteByProductId(id);
-
-        // 处理关联订单项
-        List<OrderItem> orderItems = orderItemRepository.findByProduct(product);
-        orderItems.forEach(item -> {
-            item.setProduct(null);
-        });
-        orderItemRepository.saveAll(orderItems);
-
-        // 删除规格
-        product.getSpecifications().clear();
+        // 只做逻辑删除, 关联数据由 purgeDeletedProducts 批量清理
+        productRepository.markDeleted(id);
+        product.setDeleted(true);
+        productVectorTaskService.enqueue(id);
+    }
 
-        // 删除关联库存
-        Stockpile stockpile = product.getStockpile();
-        if (stockpile != null) {
-            product.setStockpile(null);
-            stockpileRepository.delete(stockpile);
+    /**
+     * 清理已删除的商品
+     * <p>
+     * 定时任务，每30秒执行一次，每次处理一批已标记删除的商品。
+     * 依次解除订单项对商品和购物车项的引用，删除购物车项、广告、规格和库存，最后删除商品本身。
+     * 所有步骤均为基于商品ID集合的批量语句，执行次数与关联数据的数量无关。
+     * </p>
+     */
+    @Scheduled(fixedDelay = 30000) // 每30秒执行一次
+    @Transactional
+    public void purgeDeletedProducts() {
+        List<Long> ids = productRepository.findDeletedIds(PageRequest.of(0, PURGE_BATCH_SIZE));
+        if (ids.isEmpty()) {
+            return;
         }
 
-        // 删除关联广告
-        advertisementRepository.deleteAllByProduct(product);
-
-        productRepository.delete(product);
-        vectorStoreUtil.removeProductVector(id);
+        orderItemRepository.detachCartItemsOfProducts(ids);
+        orderItemRepository.detachProducts(ids);
+        cartRepository.deleteByProductIdIn(ids);
+        advertisementRepository.deleteByProductIdIn(ids);
+        specificationRepository.deleteByProductIdIn(ids);
+        stockpileRepository.deleteByProductIdIn(ids);
+        productRepository.purgeByIdIn(ids);
     }
 
     @Override
@@ -150,43 +172,10 @@ public class ProductServiceImpl implements ProductService {
         Product product = productRepository.findById(updateDTO.getId())
                 .orElseThrow(() -> new BusinessException(ErrorTypeEnum.PRODUCT_NOT_FOUND));
 
-        // 全量更新, 符合 PUT 语义
-        // BeanUtils.copyProperties(updateDTO, product);
-
-        // Bad Practice: 只更新非空字段
-        if (updateDTO.getTitle() != null) {
-            product.setTitle(updateDTO.getTitle());
-        }
-        if (updateDTO.getPrice() != null) {
-            product.setPrice(updateDTO.getPrice());
-        }
-        if (updateDTO.getRate() != null) {
-            product.setRate(updateDTO.getRate());
-        }
-        if (updateDTO.getDescription() != null) {
-            product.setDescription(updateDTO.getDescription());
-        }
-        if (updateDTO.getCover() != null) {
-            product.setCover(updateDTO.getCover());
-        }
-        if (updateDTO.getDetail() != null) {
-            product.setDetail(updateDTO.getDetail());
-        }
-
-        // 处理规格更新, 替换更新
-        if (updateDTO.getSpecifications() != null) {
-            List<Specification> existingSpecs = product.getSpecifications();
-            existingSpecs.clear();
-            updateDTO.getSpecifications().forEach(specDTO -> {
-                Specification spec = new Specification();
-                BeanUtils.copyProperties(specDTO, spec);
-                spec.setProduct(product);
-                existingSpecs.add(spec);
-            });
-        }
+        applyUpdate(product, updateDTO);
 
         Product updateProduct = productRepository.save(product);
-        vectorStoreUtil.updateProductVector(updateProduct);
+        productVectorTaskService.enqueue(updateProduct.getId());
         return convertToProductVO(updateProduct);
     }
 
@@ -223,6 +212,43 @@ public class ProductServiceImpl implements ProductService {
         return convertToProductVO(product);
     }
 
+    /**
+     * 按语义检索商品
+     * <p>
+     * 语义检索需要远程生成查询嵌入，在事务外执行；只有按ID读取商品的操作在短只读事务中完成，
+     * 避免远程调用期间占用数据库连接。
+     * </p>
+     */
+    @Override
+    public List<ProductVO> searchProducts(ProductSearchDTO searchDTO) {
+        int limit = searchDTO.getLimit() != null ? searchDTO.getLimit() : 10;
+        List<Document> documents = vectorStoreUtil.searchProducts(searchDTO.getQuery().trim(), limit,
+                SEARCH_SIMILARITY_THRESHOLD, ProductFilterBuilder.create()
+                        .minPrice(searchDTO.getMinPrice())
+                        .maxPrice(searchDTO.getMaxPrice())
+                        .minRate(searchDTO.getMinRate())
+                        .maxRate(searchDTO.getMaxRate())
+                        .build());
+        if (documents.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = documents.stream()
+                .map(document -> Long.valueOf(String.valueOf(document.getMetadata().get("id"))))
+                .distinct()
+                .toList();
+        // 以数据库中的最新数据为准，向量尚未同步的已删除商品会被过滤掉，结果保持相似度顺序
+        return readOnlyTransaction.execute(status -> {
+            Map<Long, Product> products = productRepository.findWithSpecificationsByIdInAndDeletedFalse(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            return ids.stream()
+                    .map(products::get)
+                    .filter(product -> product != null)
+                    .map(this::convertToProductVO)
+                    .toList();
+        });
+    }
+
     private Page<Product> getSortedProductPage(String keyword, Pageable pageable, String sort) {
         if ("rate-desc".equals(sort)) {
             return productRepository
@@ -248,6 +274,88 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    /**
+     * 根据创建数据构建商品实体
+     * <p>
+     * 复制商品基本信息，截断超长的详细说明，并初始化规格列表和空库存。
+     * 单个创建和批量导入共用此方法，保证两条路径构建出的商品一致。
+     * </p>
+     *
+     * @param createDTO 商品创建数据传输对象
+     * @return 尚未持久化的商品实体
+     */
+    static Product buildProduct(ProductCreateDTO createDTO) {
+        Product product = new Product();
+        BeanUtils.copyProperties(createDTO, product);
+
+        if (createDTO.getDetail() != null && createDTO.getDetail().length() > 500) {
+            product.setDetail(createDTO.getDetail().substring(0, 490));
+        }
+
+        if (createDTO.getSpecifications() != null) {
+            List<Specification> specifications = createDTO.getSpecifications().stream()
+                    .map(specDTO -> {
+                        Specification spec = new Specification();
+                        BeanUtils.copyProperties(specDTO, spec);
+                        spec.setProduct(product);
+                        return spec;
+                    })
+                    .collect(Collectors.toList());
+            product.setSpecifications(specifications);
+        }
+
+        Stockpile stockpile = new Stockpile();
+        stockpile.setProduct(product);
+        product.setStockpile(stockpile);
+        return product;
+    }
+
+    /**
+     * 将更新数据应用到商品实体
+     * <p>
+     * 单个更新和批量更新共用此方法，只更新提供的非空字段，规格信息整体替换。
+     * </p>
+     *
+     * @param product   要更新的商品实体
+     * @param updateDTO 商品更新数据传输对象
+     */
+    static void applyUpdate(Product product, ProductUpdateDTO updateDTO) {
+        // 全量更新, 符合 PUT 语义
+        // BeanUtils.copyProperties(updateDTO, product);
+
+        // Bad Practice: 只更新非空字段
+        if (updateDTO.getTitle() != null) {
+            product.setTitle(updateDTO.getTitle());
+        }
+        if (updateDTO.getPrice() != null) {
+            product.setPrice(updateDTO.getPrice());
+        }
+        if (updateDTO.getRate() != null) {
+            product.setRate(updateDTO.getRate());
+        }
+        if (updateDTO.getDescription() != null) {
+            product.setDescription(updateDTO.getDescription());
+        }
+        if (updateDTO.getCover() != null) {
+            product.setCover(updateDTO.getCover());
+        }
+        if (updateDTO.getDetail() != null) {
+            product.setDetail(updateDTO.getDetail());
+        }
+
+        // 处理规格更新, 替换更新
+        if (updateDTO.getSpecifications() != null) {
+            List<Specification> existingSpecs = product.getSpecifications();
+            existingSpecs.clear();
+            updateDTO.getSpecifications().forEach(specDTO -> {
+                Specification spec = new Specification();
+                BeanUtils.copyProperties(specDTO, spec);
+                spec.setProduct(product);
+                existingSpecs.add(spec);
+            });
+        }
+    }
+
     /**
      * 将商品实体转换为视图对象
      * <p>
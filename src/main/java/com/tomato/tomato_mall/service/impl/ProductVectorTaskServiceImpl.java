@@ -0,0 +1,302 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.entity.Product;
+import com.tomato.tomato_mall.entity.ProductVectorTask;
+import com.tomato.tomato_mall.entity.VectorReindexDirtyProduct;
+import com.tomato.tomato_mall.enums.ReindexStatusEnum;
+import com.tomato.tomato_mall.properties.ProductVectorProperties;
+import com.tomato.tomato_mall.repository.ProductRepository;
+import com.tomato.tomato_mall.repository.ProductVectorTaskRepository;
+import com.tomato.tomato_mall.repository.VectorReindexDirtyProductRepository;
+import com.tomato.tomato_mall.repository.VectorReindexJobRepository;
+import com.tomato.tomato_mall.service.ProductVectorTaskService;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 商品向量同步任务服务实现类
+ * <p>
+ * 该类实现了{@link ProductVectorTaskService}接口，基于数据库任务表实现事务性发件箱。
+ * 每轮处理分为三步：在短事务中以 SKIP LOCKED 领取任务并设置租约；在事务之外调用嵌入模型和向量数据库；
+ * 再在短事务中删除已完成的任务或记录失败。嵌入模型的调用因此不会占用数据库连接，
+ * 进程在处理中途退出时，租约到期后任务会被重新领取。
+ * </p>
+ * <p>
+ * 批量同步失败时会逐个商品重试，避免单个无法处理的商品拖累整批任务。
+ * 队列深度、最大延迟以及任务处理结果通过 Micrometer 指标对外暴露。
+ * </p>
+ * <p>
+ * 向量库重建期间，领取到的商品会被记录到重建任务中，重建完成替换向量表后重新同步。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see ProductVectorTaskService
+ */
+@Service
+public class ProductVectorTaskServiceImpl implements ProductVectorTaskService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductVectorTaskServiceImpl.class);
+
+    private final ProductVectorTaskRepository taskRepository;
+    private final ProductRepository productRepository;
+    private final VectorReindexJobRepository reindexJobRepository;
+    private final VectorReindexDirtyProductRepository dirtyProductRepository;
+    private final VectorStoreUtil vectorStoreUtil;
+    private final ProductVectorProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong pendingTasks = new AtomicLong();
+    private final AtomicLong deadTasks = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Counter completedCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Counter coalescedCounter;
+    private final Timer syncTimer;
+
+    /**
+     * 构造函数，通过依赖注入初始化服务并注册监控指标
+     *
+     * @param taskRepository         任务数据访问对象
+     * @param productRepository      商品数据访问对象
+     * @param reindexJobRepository   向量库重建任务数据访问对象
+     * @param dirtyProductRepository 重建期间变更商品的数据访问对象
+     * @param vectorStoreUtil        向量存储工具
+     * @param properties             向量同步配置
+     * @param meterRegistry          指标注册表
+     * @param transactionManager     事务管理器，用于领取和完成任务的短事务
+     */
+    public ProductVectorTaskServiceImpl(
+            ProductVectorTaskRepository taskRepository,
+            ProductRepository productRepository,
+            VectorReindexJobRepository reindexJobRepository,
+            VectorReindexDirtyProductRepository dirtyProductRepository,
+            VectorStoreUtil vectorStoreUtil,
+            ProductVectorProperties properties,
+            MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.productRepository = productRepository;
+        this.reindexJobRepository = reindexJobRepository;
+        this.dirtyProductRepository = dirtyProductRepository;
+        this.vectorStoreUtil = vectorStoreUtil;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("product.vector.tasks.pending", pendingTasks, AtomicLong::get)
+                .description("Product vector tasks waiting to be processed")
+                .register(meterRegistry);
+        Gauge.builder("product.vector.tasks.dead", deadTasks, AtomicLong::get)
+                .description("Product vector tasks that exhausted all attempts")
+                .register(meterRegistry);
+        Gauge.builder("product.vector.tasks.lag", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest pending product vector task")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.completedCounter = tasksCounter(meterRegistry, "completed");
+        this.retriedCounter = tasksCounter(meterRegistry, "retried");
+        this.deadCounter = tasksCounter(meterRegistry, "dead");
+        this.coalescedCounter = tasksCounter(meterRegistry, "coalesced");
+        this.syncTimer = Timer.builder("product.vector.sync")
+                .description("Time spent embedding and writing one batch of products")
+                .register(meterRegistry);
+    }
+
+    private static Counter tasksCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("product.vector.tasks")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long productId) {
+        taskRepository.save(newTask(productId));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        taskRepository.saveAll(productIds.stream().map(this::newTask).toList());
+    }
+
+    private ProductVectorTask newTask(Long productId) {
+        ProductVectorTask task = new ProductVectorTask();
+        task.setProductId(productId);
+        return task;
+    }
+
+    /**
+     * 定时处理待同步任务
+     * <p>
+     * 按配置的间隔轮询，队列积压时连续处理满批次的任务，直到队列中没有可领取的任务。
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${app.product-vector.poll-interval:1000}")
+    public void poll() {
+        try {
+            while (processPendingTasks() >= properties.getBatchSize()) {
+                // 继续处理下一批
+            }
+        } catch (RuntimeException e) {
+            log.error("Product vector task polling failed", e);
+        }
+    }
+
+    @Override
+    public int processPendingTasks() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ProductVectorTask> tasks = transactionTemplate.execute(status -> {
+            List<ProductVectorTask> claimed = taskRepository.findClaimable(
+                    now, properties.getMaxAttempts(), PageRequest.of(0, properties.getBatchSize()));
+            LocalDateTime leaseUntil = now.plus(properties.getLease());
+            claimed.forEach(task -> task.setLockedUntil(leaseUntil));
+            recordReindexChanges(claimed);
+            return claimed;
+        });
+        refreshQueueMetrics(now);
+        if (tasks == null || tasks.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, List<ProductVectorTask>> tasksByProduct = tasks.stream()
+                .collect(Collectors.groupingBy(ProductVectorTask::getProductId, LinkedHashMap::new,
+                        Collectors.toList()));
+        coalescedCounter.increment(tasks.size() - tasksByProduct.size());
+
+        try {
+            syncTimer.record(() -> sync(tasksByProduct.keySet()));
+            complete(tasks);
+        } catch (RuntimeException e) {
+            if (tasksByProduct.size() == 1) {
+                fail(tasks, e);
+            } else {
+                log.warn("Batch vector sync of {} products failed, retrying one by one", tasksByProduct.size(), e);
+                tasksByProduct.forEach((productId, productTasks) -> {
+                    try {
+                        sync(Set.of(productId));
+                        complete(productTasks);
+                    } catch (RuntimeException ex) {
+                        fail(productTasks, ex);
+                    }
+                });
+            }
+        }
+        return tasks.size();
+    }
+
+    /**
+     * 记录重建期间需要同步的商品
+     * <p>
+     * 这些商品本次写入的是即将被替换的旧向量表，重建任务替换表后会为它们重新登记同步任务。
+     * </p>
+     */
+    private void recordReindexChanges(List<ProductVectorTask> tasks) {
+        List<Long> jobIds = reindexJobRepository.findIdsByStatus(ReindexStatusEnum.RUNNING);
+        if (jobIds.isEmpty() || tasks.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = tasks.stream().map(ProductVectorTask::getProductId).distinct().toList();
+        List<VectorReindexDirtyProduct> dirtyProducts = new ArrayList<>();
+        for (Long jobId : jobIds) {
+            productIds.forEach(productId -> dirtyProducts.add(new VectorReindexDirtyProduct(null, jobId, productId)));
+        }
+        dirtyProductRepository.saveAll(dirtyProducts);
+    }
+
+    /**
+     * 按商品的当前状态同步向量
+     * <p>
+     * 仍存在的商品在一次调用中批量写入，由向量存储合并为尽量少的嵌入请求；
+     * 不存在或已删除的商品移除其向量。
+     * </p>
+     */
+    private void sync(Set<Long> productIds) {
+        List<Product> products = productRepository.findWithSpecificationsByIdInAndDeletedFalse(productIds);
+        Set<Long> existing = products.stream().map(Product::getId).collect(Collectors.toSet());
+        List<Long> removed = productIds.stream().filter(id -> !existing.contains(id)).toList();
+
+        vectorStoreUtil.updateProductVectors(products);
+        vectorStoreUtil.removeProductVectors(removed);
+    }
+
+    private void complete(List<ProductVectorTask> tasks) {
+        transactionTemplate.executeWithoutResult(status -> taskRepository.deleteAllByIdInBatch(
+                tasks.stream().map(ProductVectorTask::getId).toList()));
+        completedCounter.increment(tasks.size());
+    }
+
+    private void fail(List<ProductVectorTask> tasks, RuntimeException e) {
+        LocalDateTime now = LocalDateTime.now();
+        String error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+        if (error.length() > 500) {
+            error = error.substring(0, 500);
+        }
+        for (ProductVectorTask task : tasks) {
+            int attempts = task.getAttempts() + 1;
+            task.setAttempts(attempts);
+            task.setLockedUntil(null);
+            task.setLastError(error);
+            task.setAvailableAt(now.plus(backoff(attempts)));
+            if (attempts >= properties.getMaxAttempts()) {
+                deadCounter.increment();
+                log.error("Giving up vector sync for product {} after {} attempts", task.getProductId(), attempts, e);
+            } else {
+                retriedCounter.increment();
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> taskRepository.saveAll(tasks));
+    }
+
+    /**
+     * 计算第 n 次失败后的退避时间：初始等待时间按失败次数翻倍，不超过上限
+     *
+     * @param attempts 已失败次数
+     * @return 退避时间
+     */
+    Duration backoff(int attempts) {
+        Duration max = properties.getMaxBackoff();
+        Duration delay = properties.getInitialBackoff();
+        for (int i = 1; i < attempts && delay.compareTo(max) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(max) > 0 ? max : delay;
+    }
+
+    private void refreshQueueMetrics(LocalDateTime now) {
+        int maxAttempts = properties.getMaxAttempts();
+        pendingTasks.set(taskRepository.countByAttemptsLessThan(maxAttempts));
+        deadTasks.set(taskRepository.countByAttemptsGreaterThanEqual(maxAttempts));
+        LocalDateTime oldest = taskRepository.findOldestCreateTime(maxAttempts);
+        lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, now).toSeconds()));
+    }
+}
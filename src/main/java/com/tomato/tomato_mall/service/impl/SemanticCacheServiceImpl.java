@@ -0,0 +1,202 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tomato.tomato_mall.properties.SemanticCacheProperties;
+import com.tomato.tomato_mall.service.SemanticCacheService;
+import com.tomato.tomato_mall.util.QueryCachingEmbeddingModel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * AI 助手语义回答缓存服务实现类
+ * <p>
+ * 回答以规范化后的提问为键保存在有界的进程内缓存中，写入后超过有效期即失效。
+ * 查找时先按规范化文本精确匹配，再对所有未过期条目的提问向量计算余弦相似度，取最相近且超过阈值的一条。
+ * 缓存容量为数千条时逐条比较的开销远小于一次模型调用。
+ * </p>
+ * <p>
+ * 查找结果记录在 {@code ai.semantic.cache.lookups} 指标中（result 为 hit、miss 或 ineligible），
+ * 命中时原回答的生成时间和长度分别累计到 {@code ai.semantic.cache.saved.time}
+ * 和 {@code ai.semantic.cache.saved.characters}。
+ * 嵌入提问失败时按未命中处理，不影响正常对话。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Service
+public class SemanticCacheServiceImpl implements SemanticCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticCacheServiceImpl.class);
+
+    /**
+     * 指代上下文或涉及个人信息的提问，回答依赖对话历史或用户身份，不能复用
+     */
+    private static final Pattern CONTEXT_DEPENDENT = Pattern.compile(
+            "这本|那本|这部|那部|这些|那些|这个|那个|它|上面|上述|刚才|刚刚|之前|前面|继续|还有吗|还有别的|换一|再来|再推荐"
+                    + "|第[一二三四五六七八九十0-9]+[本个部条]|我的|我买|订单|购物车"
+                    + "|\\b(it|this|that|these|those|above|previous|more)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final EmbeddingModel embeddingModel;
+    private final SemanticCacheProperties properties;
+    private final Cache<String, CachedAnswer> answers;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter ineligibleCounter;
+    private final Timer savedTime;
+    private final DistributionSummary savedCharacters;
+
+    /**
+     * 构造函数，通过依赖注入初始化所需组件
+     *
+     * @param embeddingModel 嵌入模型，用于计算提问向量
+     * @param properties     语义回答缓存配置
+     * @param meterRegistry  指标注册表，用于记录命中率和节省的开销
+     */
+    public SemanticCacheServiceImpl(EmbeddingModel embeddingModel, SemanticCacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.answers = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        this.hitCounter = Counter.builder("ai.semantic.cache.lookups").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("ai.semantic.cache.lookups").tag("result", "miss").register(meterRegistry);
+        this.ineligibleCounter = Counter.builder("ai.semantic.cache.lookups").tag("result", "ineligible")
+                .register(meterRegistry);
+        this.savedTime = Timer.builder("ai.semantic.cache.saved.time").register(meterRegistry);
+        this.savedCharacters = DistributionSummary.builder("ai.semantic.cache.saved.characters")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isEligible(String prompt) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        String normalized = prompt == null ? "" : QueryCachingEmbeddingModel.normalize(prompt);
+        boolean eligible = normalized.length() >= properties.getMinPromptLength()
+                && normalized.length() <= properties.getMaxPromptLength()
+                && !CONTEXT_DEPENDENT.matcher(normalized).find();
+        if (!eligible) {
+            ineligibleCounter.increment();
+        }
+        return eligible;
+    }
+
+    @Override
+    public Optional<String> findAnswer(String prompt) {
+        String normalized = QueryCachingEmbeddingModel.normalize(prompt);
+        CachedAnswer best = answers.getIfPresent(normalized);
+        if (best == null) {
+            best = findSimilar(normalized);
+        }
+
+        if (best == null) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+        hitCounter.increment();
+        savedTime.record(best.generationTime());
+        savedCharacters.record(best.answer().length());
+        return Optional.of(best.answer());
+    }
+
+    @Override
+    public void saveAnswer(String prompt, String answer, Duration generationTime) {
+        if (answer == null || answer.isBlank()) {
+            return;
+        }
+        String normalized = QueryCachingEmbeddingModel.normalize(prompt);
+        try {
+            answers.put(normalized, new CachedAnswer(unit(embeddingModel.embed(normalized)), answer, generationTime));
+        } catch (RuntimeException e) {
+            log.warn("Failed to embed prompt for semantic cache", e);
+        }
+    }
+
+    @Override
+    public Flux<String> replay(String answer) {
+        // 按码点切分，避免拆开代理对
+        List<String> chunks = new ArrayList<>();
+        int[] codePoints = answer.codePoints().toArray();
+        for (int from = 0; from < codePoints.length; from += properties.getReplayChunkSize()) {
+            int count = Math.min(properties.getReplayChunkSize(), codePoints.length - from);
+            chunks.add(new String(codePoints, from, count));
+        }
+        Flux<String> flux = Flux.fromIterable(chunks);
+        Duration interval = properties.getReplayInterval();
+        return interval.isZero() || interval.isNegative() ? flux : flux.delayElements(interval);
+    }
+
+    /**
+     * 在未过期的条目中查找与提问最相近且超过阈值的一条
+     */
+    private CachedAnswer findSimilar(String normalized) {
+        float[] query;
+        try {
+            query = unit(embeddingModel.embed(normalized));
+        } catch (RuntimeException e) {
+            log.warn("Failed to embed prompt for semantic cache", e);
+            return null;
+        }
+        CachedAnswer best = null;
+        double bestScore = properties.getSimilarityThreshold();
+        for (CachedAnswer candidate : answers.asMap().values()) {
+            double score = dot(query, candidate.embedding());
+            if (score >= bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static float[] unit(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return vector;
+        }
+        float[] result = new float[vector.length];
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = vector[i] * scale;
+        }
+        return result;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 缓存的回答及其提问向量
+     */
+    private record CachedAnswer(float[] embedding, String answer, Duration generationTime) {
+    }
+}
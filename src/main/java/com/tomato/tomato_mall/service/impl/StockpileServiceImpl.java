@@ -1,5 +1,6 @@
 package com.tomato.tomato_mall.service.impl;
 
+import com.tomato.tomato_mall.dto.StockpileBulkItemDTO;
 import com.tomato.tomato_mall.dto.StockpileUpdateDTO;
 import com.tomato.tomato_mall.entity.Stockpile;
 import com.tomato.tomato_mall.enums.ErrorTypeEnum;
@@ -7,11 +8,23 @@ import com.tomato.tomato_mall.exception.BusinessException;
 import com.tomato.tomato_mall.repository.ProductRepository;
 import com.tomato.tomato_mall.repository.StockpileRepository;
 import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.vo.StockpileBulkResultVO;
+import com.tomato.tomato_mall.vo.StockpileRejectionVO;
 import com.tomato.tomato_mall.vo.StockpileVO;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 /**
  * 库存服务实现类
  * <p>
@@ -25,6 +38,11 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class StockpileServiceImpl implements StockpileService {
 
+    /**
+     * 批量库存同步时单条更新语句处理的条目数
+     */
+    static final int BULK_BATCH_SIZE = 1000;
+
     private final StockpileRepository stockpileRepository;
     private final ProductRepository productRepository;
 
@@ -51,6 +69,16 @@ public class StockpileServiceImpl implements StockpileService {
         return convertToStockpileVO(stockpile);
     }
 
+    @Override
+    public Map<Long, StockpileVO> getStockpilesByProductIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return stockpileRepository.findByProductIdIn(productIds).stream()
+                .map(this::convertToStockpileVO)
+                .collect(Collectors.toMap(StockpileVO::getProductId, stockpileVO -> stockpileVO));
+    }
+
     @Override
     @Transactional
     public StockpileVO updateStockpile(Long productId, StockpileUpdateDTO stockpileUpdateDTO) {
@@ -73,6 +101,75 @@ public class StockpileServiceImpl implements StockpileService {
         return convertToStockpileVO(stockpile);
     }
 
+    /**
+     * 批量同步商品库存
+     * <p>
+     * 先在内存中过滤非法和重复的条目，再按{@value #BULK_BATCH_SIZE}条一批执行集合式更新。
+     * 每个批次按商品ID排序后提交，使并发同步以相同顺序加锁，避免死锁；
+     * 批次之间独立提交，同步是幂等的，失败后可以直接重试整个请求。
+     * 未被更新的商品通过一次查询区分为库存不存在或低于冻结数量。
+     * </p>
+     *
+     * @param items 库存同步条目列表
+     * @return 批量同步结果视图对象
+     */
+    @Override
+    public StockpileBulkResultVO bulkUpdateStockpiles(List<StockpileBulkItemDTO> items) {
+        List<StockpileRejectionVO> rejections = new ArrayList<>();
+        Map<Long, Integer> accepted = new LinkedHashMap<>();
+        for (StockpileBulkItemDTO item : items) {
+            if (item == null || item.getProductId() == null || item.getAmount() == null || item.getAmount() < 0) {
+                rejections.add(rejection(item == null ? null : item.getProductId(),
+                        item == null ? null : item.getAmount(), null, "库存数量不合法"));
+            } else if (accepted.putIfAbsent(item.getProductId(), item.getAmount()) != null) {
+                rejections.add(rejection(item.getProductId(), item.getAmount(), null, "重复的商品ID"));
+            }
+        }
+
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(accepted.entrySet());
+        entries.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+        Set<Long> updated = new HashSet<>();
+        for (int from = 0; from < entries.size(); from += BULK_BATCH_SIZE) {
+            List<Map.Entry<Long, Integer>> batch = entries.subList(from, Math.min(from + BULK_BATCH_SIZE, entries.size()));
+            Long[] productIds = new Long[batch.size()];
+            Integer[] amounts = new Integer[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                productIds[i] = batch.get(i).getKey();
+                amounts[i] = batch.get(i).getValue();
+            }
+            updated.addAll(stockpileRepository.updateAmountsNotBelowFrozen(productIds, amounts));
+        }
+
+        List<Long> missed = accepted.keySet().stream()
+                .filter(productId -> !updated.contains(productId))
+                .toList();
+        if (!missed.isEmpty()) {
+            Map<Long, Integer> frozen = stockpileRepository.findFrozenByProductIds(missed);
+            for (Long productId : missed) {
+                Integer frozenAmount = frozen.get(productId);
+                rejections.add(frozenAmount == null
+                        ? rejection(productId, accepted.get(productId), null, ErrorTypeEnum.STOCKPILE_NOT_FOUND.getMessage())
+                        : rejection(productId, accepted.get(productId), frozenAmount, "库存数量不能小于冻结数量"));
+            }
+        }
+
+        return StockpileBulkResultVO.builder()
+                .total(items.size())
+                .updated(updated.size())
+                .rejected(rejections.size())
+                .rejections(rejections)
+                .build();
+    }
+
+    private StockpileRejectionVO rejection(Long productId, Integer amount, Integer frozen, String reason) {
+        return StockpileRejectionVO.builder()
+                .productId(productId)
+                .amount(amount)
+                .frozen(frozen)
+                .reason(reason)
+                .build();
+    }
+
     /**
      * 将库存实体转换为视图对象
      * <p>
@@ -0,0 +1,361 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.properties.AiStreamProperties;
+import com.tomato.tomato_mall.service.AiAdmissionService;
+import com.tomato.tomato_mall.service.StreamReplayService;
+import com.tomato.tomato_mall.vo.StreamEventVO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * 流式回复续传服务实现类
+ * <p>
+ * 每次回复对应一个按字符数限长的环形缓冲区，超出上限时丢弃最早的片段。
+ * 缓冲区保存在进程内缓存中：生成中的回复不会过期，生成结束后保留 {@code replayGracePeriod}；
+ * 缓存的总权重按字符数计算，生成中的回复按单个缓冲区的上限预留，超出总量时淘汰最久未使用的缓冲区。
+ * 被淘汰的回复仍会继续推送给已连接的客户端，只是无法再续传。
+ * </p>
+ * <p>
+ * 片段写入缓冲区前先合并为帧：距上一帧超过合并窗口到达的片段立即成帧，保证首个片段和稀疏输出的延迟；
+ * 输出密集时窗口内的片段合并为一帧，在窗口结束时推送。缓冲区和续传都以帧为单位。
+ * </p>
+ * <p>
+ * 回复在 {@link AiAdmissionService} 中排队时，排队位置的变化作为不带ID的 {@code queue} 事件推送，
+ * 不进入缓冲区；重连时如果仍在排队，先推送当前位置。
+ * </p>
+ * <p>
+ * 续传结果记录在 {@code ai.stream.resumes} 指标中（result 为 replayed 或 unavailable），
+ * 当前缓冲区数量记录在 {@code ai.stream.buffers}，推送的帧数和每帧的 UTF-8 字节数
+ * 分别记录在 {@code ai.stream.frames} 和 {@code ai.stream.frame.size} 中。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Service
+public class StreamReplayServiceImpl implements StreamReplayService {
+
+    private static final char SEQUENCE_SEPARATOR = ':';
+
+    /**
+     * 从缓冲区中最早的片段开始推送，不检查之前的片段是否已被丢弃
+     */
+    private static final long FROM_BUFFER_START = -1;
+
+    private final AiStreamProperties properties;
+    private final Cache<String, Generation> generations;
+    private final Counter replayedCounter;
+    private final Counter unavailableCounter;
+    private final Counter frames;
+    private final DistributionSummary frameSize;
+
+    /**
+     * 构造函数，通过依赖注入初始化所需组件
+     *
+     * @param properties    流式回复配置
+     * @param meterRegistry 指标注册表，用于记录续传次数、缓冲区数量和推送帧的大小
+     */
+    public StreamReplayServiceImpl(AiStreamProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        long gracePeriodNanos = properties.getReplayGracePeriod().toNanos();
+        this.generations = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxBufferedChars())
+                .<String, Generation>weigher((id, generation) -> generation.weight())
+                .expireAfter(new Expiry<String, Generation>() {
+                    @Override
+                    public long expireAfterCreate(String id, Generation generation, long currentTime) {
+                        return generation.isDone() ? gracePeriodNanos : Long.MAX_VALUE;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, Generation generation, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(id, generation, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, Generation generation, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.replayedCounter = Counter.builder("ai.stream.resumes").tag("result", "replayed").register(meterRegistry);
+        this.unavailableCounter = Counter.builder("ai.stream.resumes").tag("result", "unavailable")
+                .register(meterRegistry);
+        Gauge.builder("ai.stream.buffers", generations, Cache::estimatedSize).register(meterRegistry);
+        this.frames = Counter.builder("ai.stream.frames").register(meterRegistry);
+        this.frameSize = DistributionSummary.builder("ai.stream.frame.size").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Flux<StreamEventVO> publish(String username, String conversationId, Flux<String> chunks,
+            Duration frameWindow) {
+        Generation generation = new Generation(UUID.randomUUID().toString(), username, conversationId,
+                properties.getMaxBufferedCharsPerReply());
+        generations.put(generation.id, generation);
+        // 回复的生成与客户端连接解耦，客户端断开后继续写入缓冲区
+        FrameCoalescer coalescer = new FrameCoalescer(generation, resolveFrameWindow(frameWindow));
+        chunks.contextWrite(Context.of(AiAdmissionService.QUEUE_LISTENER_KEY, (IntConsumer) generation::queued))
+                .subscribe(coalescer::next, coalescer::error, coalescer::complete);
+        return Flux.create(sink -> generation.attach(sink, FROM_BUFFER_START));
+    }
+
+    @Override
+    public Flux<StreamEventVO> resume(String username, String conversationId, String lastEventId) {
+        int separator = lastEventId == null ? -1 : lastEventId.lastIndexOf(SEQUENCE_SEPARATOR);
+        Generation generation = separator < 0 ? null : generations.getIfPresent(lastEventId.substring(0, separator));
+        long lastSequence = separator < 0 ? -1 : parseSequence(lastEventId.substring(separator + 1));
+        if (generation == null || lastSequence < 0 || !generation.username.equals(username)
+                || !generation.conversationId.equals(conversationId) || !generation.canReplayAfter(lastSequence)) {
+            unavailableCounter.increment();
+            throw new BusinessException(ErrorTypeEnum.STREAM_RESUME_UNAVAILABLE);
+        }
+        replayedCounter.increment();
+        return Flux.create(sink -> generation.attach(sink, lastSequence));
+    }
+
+    private Duration resolveFrameWindow(Duration requested) {
+        if (requested == null) {
+            return properties.getFrameWindow();
+        }
+        if (requested.isNegative()) {
+            return Duration.ZERO;
+        }
+        return requested.compareTo(properties.getMaxFrameWindow()) > 0 ? properties.getMaxFrameWindow() : requested;
+    }
+
+    private static long parseSequence(String sequence) {
+        try {
+            return Long.parseLong(sequence);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 将一次回复的片段合并为帧写入缓冲区
+     */
+    private final class FrameCoalescer {
+
+        private final Generation generation;
+        private final long windowNanos;
+        private final StringBuilder pending = new StringBuilder();
+        private long lastFrameNanos;
+        private Disposable timer;
+        /**
+         * 已推送的帧数，用于忽略在推送后才触发的过期定时任务
+         */
+        private long frameCount;
+
+        private FrameCoalescer(Generation generation, Duration window) {
+            this.generation = generation;
+            this.windowNanos = window.toNanos();
+        }
+
+        private synchronized void next(String chunk) {
+            if (chunk == null || chunk.isEmpty()) {
+                return;
+            }
+            pending.append(chunk);
+            if (timer != null && pending.length() < properties.getMaxFrameChars()) {
+                return;
+            }
+            long wait = frameCount == 0 ? 0 : lastFrameNanos + windowNanos - System.nanoTime();
+            if (wait <= 0 || pending.length() >= properties.getMaxFrameChars()) {
+                emit();
+            } else {
+                long frame = frameCount;
+                timer = Schedulers.parallel().schedule(() -> onTimer(frame), wait, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private synchronized void onTimer(long frame) {
+            if (frame == frameCount && !pending.isEmpty()) {
+                emit();
+            }
+        }
+
+        private void complete() {
+            drain();
+            generation.complete();
+        }
+
+        private void error(Throwable cause) {
+            drain();
+            generation.fail(cause);
+        }
+
+        private synchronized void drain() {
+            if (!pending.isEmpty()) {
+                emit();
+            }
+        }
+
+        /**
+         * 推送当前合并的片段，调用方需持有锁
+         */
+        private void emit() {
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+            String frame = pending.toString();
+            pending.setLength(0);
+            frameCount++;
+            lastFrameNanos = System.nanoTime();
+            generation.append(frame);
+            frames.increment();
+            frameSize.record(frame.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    /**
+     * 一次回复的缓冲区及其在线订阅者
+     */
+    private final class Generation {
+
+        private final String id;
+        private final String username;
+        private final String conversationId;
+        private final int maxChars;
+        private final ArrayDeque<StreamEventVO> events = new ArrayDeque<>();
+        private final List<FluxSink<StreamEventVO>> listeners = new CopyOnWriteArrayList<>();
+        /**
+         * 缓冲区中第一个片段的序号
+         */
+        private long firstSequence = 1;
+        private long nextSequence = 1;
+        private int chars;
+        /**
+         * 当前的排队位置，未排队或已开始生成时为 0
+         */
+        private int queuePosition;
+        private boolean done;
+        private Throwable error;
+
+        private Generation(String id, String username, String conversationId, int maxChars) {
+            this.id = id;
+            this.username = username;
+            this.conversationId = conversationId;
+            this.maxChars = maxChars;
+        }
+
+        private synchronized void append(String chunk) {
+            StreamEventVO event = new StreamEventVO(id + SEQUENCE_SEPARATOR + nextSequence++, chunk);
+            events.addLast(event);
+            chars += chunk.length();
+            while (chars > maxChars && events.size() > 1) {
+                chars -= events.removeFirst().getData().length();
+                firstSequence++;
+            }
+            queuePosition = 0;
+            listeners.forEach(sink -> sink.next(event));
+        }
+
+        private synchronized void queued(int position) {
+            if (done || position == queuePosition) {
+                return;
+            }
+            queuePosition = position;
+            StreamEventVO event = queueEvent();
+            listeners.forEach(sink -> sink.next(event));
+        }
+
+        private StreamEventVO queueEvent() {
+            return new StreamEventVO(null, StreamEventVO.QUEUE, String.valueOf(queuePosition));
+        }
+
+        private void complete() {
+            finish(null);
+        }
+
+        private void fail(Throwable cause) {
+            finish(cause);
+        }
+
+        private void finish(Throwable cause) {
+            synchronized (this) {
+                done = true;
+                error = cause;
+                listeners.forEach(sink -> {
+                    if (cause == null) {
+                        sink.complete();
+                    } else {
+                        sink.error(cause);
+                    }
+                });
+                listeners.clear();
+            }
+            // 重新计算权重并开始计算保留时间，已被淘汰的缓冲区不再放回
+            generations.asMap().replace(id, this, this);
+        }
+
+        private synchronized boolean isDone() {
+            return done;
+        }
+
+        private synchronized int weight() {
+            return done ? Math.max(chars, 1) : maxChars;
+        }
+
+        private synchronized boolean canReplayAfter(long sequence) {
+            return sequence >= firstSequence - 1 && sequence < nextSequence;
+        }
+
+        private synchronized void attach(FluxSink<StreamEventVO> sink, long afterSequence) {
+            if (afterSequence != FROM_BUFFER_START && !canReplayAfter(afterSequence)) {
+                sink.error(new BusinessException(ErrorTypeEnum.STREAM_RESUME_UNAVAILABLE));
+                return;
+            }
+            long sequence = firstSequence;
+            for (StreamEventVO event : events) {
+                if (sequence++ > afterSequence) {
+                    sink.next(event);
+                }
+            }
+            if (done) {
+                if (error == null) {
+                    sink.complete();
+                } else {
+                    sink.error(error);
+                }
+                return;
+            }
+            if (queuePosition > 0) {
+                sink.next(queueEvent());
+            }
+            listeners.add(sink);
+            sink.onDispose(() -> detach(sink));
+        }
+
+        private synchronized void detach(FluxSink<StreamEventVO> sink) {
+            listeners.remove(sink);
+        }
+    }
+}
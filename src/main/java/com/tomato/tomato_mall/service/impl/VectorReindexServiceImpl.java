@@ -0,0 +1,431 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.entity.Product;
+import com.tomato.tomato_mall.entity.VectorReindexJob;
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.enums.ReindexStatusEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.properties.VectorReindexProperties;
+import com.tomato.tomato_mall.repository.ProductRepository;
+import com.tomato.tomato_mall.repository.VectorReindexDirtyProductRepository;
+import com.tomato.tomato_mall.repository.VectorReindexJobRepository;
+import com.tomato.tomato_mall.service.ProductVectorTaskService;
+import com.tomato.tomato_mall.service.VectorReindexService;
+import com.tomato.tomato_mall.util.DocumentConverter;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+import com.tomato.tomato_mall.vo.VectorConsistencyVO;
+import com.tomato.tomato_mall.vo.VectorReindexJobVO;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 向量库重建服务实现类
+ * <p>
+ * 该类实现了{@link VectorReindexService}接口。重建任务按商品ID做键集分页，
+ * 每次读取若干页并行生成嵌入，嵌入请求按配置的频率限流；每批结果写入影子表的同时在同一事务中推进检查点。
+ * 全部写入后为影子表创建索引，再在一个事务中用影子表替换正式向量表，线上检索全程不受影响。
+ * </p>
+ * <p>
+ * 运行中的任务定期刷新心跳。进程退出后，心跳超时的任务会被任意实例接管并从检查点继续。
+ * 重建期间后台同步任务处理过的商品会被记录下来，替换表后重新登记同步任务，避免这些变更随旧表丢失。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see VectorReindexService
+ */
+@Service
+public class VectorReindexServiceImpl implements VectorReindexService {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorReindexServiceImpl.class);
+
+    /**
+     * 一致性报告中返回的商品ID样本数量
+     */
+    static final int SAMPLE_SIZE = 100;
+
+    private final VectorReindexJobRepository jobRepository;
+    private final VectorReindexDirtyProductRepository dirtyProductRepository;
+    private final ProductRepository productRepository;
+    private final ProductVectorTaskService productVectorTaskService;
+    private final VectorStoreUtil vectorStoreUtil;
+    private final EmbeddingModel embeddingModel;
+    private final VectorReindexProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(daemonThreads("vector-reindex"));
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 构造函数，通过依赖注入初始化服务
+     *
+     * @param jobRepository            重建任务数据访问对象
+     * @param dirtyProductRepository   重建期间变更商品的数据访问对象
+     * @param productRepository        商品数据访问对象
+     * @param productVectorTaskService 商品向量同步任务服务，用于替换表后补登记变更商品
+     * @param vectorStoreUtil          向量存储工具，用于操作影子表
+     * @param embeddingModel           嵌入模型
+     * @param properties               重建配置
+     * @param transactionManager       事务管理器
+     */
+    public VectorReindexServiceImpl(
+            VectorReindexJobRepository jobRepository,
+            VectorReindexDirtyProductRepository dirtyProductRepository,
+            ProductRepository productRepository,
+            ProductVectorTaskService productVectorTaskService,
+            VectorStoreUtil vectorStoreUtil,
+            EmbeddingModel embeddingModel,
+            VectorReindexProperties properties,
+            PlatformTransactionManager transactionManager) {
+        this.jobRepository = jobRepository;
+        this.dirtyProductRepository = dirtyProductRepository;
+        this.productRepository = productRepository;
+        this.productVectorTaskService = productVectorTaskService;
+        this.vectorStoreUtil = vectorStoreUtil;
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public VectorReindexJobVO startReindex() {
+        requireTableBackedStore();
+        VectorReindexJob job = transactionTemplate.execute(status -> {
+            if (jobRepository.existsByStatus(ReindexStatusEnum.RUNNING)) {
+                throw new BusinessException(ErrorTypeEnum.REINDEX_ALREADY_RUNNING);
+            }
+            VectorReindexJob created = new VectorReindexJob();
+            created.setStatus(ReindexStatusEnum.RUNNING);
+            created.setShadowTable("");
+            created.setTotal(productRepository.countByDeletedFalse());
+            created = jobRepository.save(created);
+            created.setShadowTable(vectorStoreUtil.shadowTableName(created.getId()));
+            vectorStoreUtil.createShadowTable(created.getShadowTable());
+            return created;
+        });
+        submit(job.getId());
+        return convertToJobVO(job);
+    }
+
+    @Override
+    public VectorReindexJobVO getLatestJob() {
+        return jobRepository.findFirstByOrderByIdDesc()
+                .map(this::convertToJobVO)
+                .orElseThrow(() -> new BusinessException(ErrorTypeEnum.REINDEX_JOB_NOT_FOUND));
+    }
+
+    @Override
+    public VectorConsistencyVO checkConsistency() {
+        requireTableBackedStore();
+        return VectorConsistencyVO.builder()
+                .missingCount(vectorStoreUtil.countMissingProducts())
+                .orphanedCount(vectorStoreUtil.countOrphanedVectors())
+                .missingProductIds(vectorStoreUtil.findMissingProductIds(SAMPLE_SIZE))
+                .orphanedProductIds(vectorStoreUtil.findOrphanedProductIds(SAMPLE_SIZE))
+                .build();
+    }
+
+    /**
+     * 接管心跳超时的重建任务
+     * <p>
+     * 定时任务，每分钟检查一次。本实例没有正在运行的重建任务时，
+     * 尝试接管一个心跳超时的任务并从检查点继续执行。
+     * </p>
+     */
+    @Scheduled(fixedDelay = 60000) // 每分钟执行一次
+    public void resumeStalledJobs() {
+        if (running.get() || vectorStoreUtil.isEmbeddedStore()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime stalledBefore = now.minus(properties.getHeartbeatTimeout());
+        for (Long jobId : jobRepository.findIdsByStatus(ReindexStatusEnum.RUNNING)) {
+            Integer claimed = transactionTemplate.execute(
+                    status -> jobRepository.claimStalled(jobId, stalledBefore, now));
+            if (claimed != null && claimed == 1) {
+                log.info("Resuming vector reindex job {}", jobId);
+                submit(jobId);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 中断的任务保持运行状态，由其他实例或重启后的本实例接管
+        runner.shutdownNow();
+    }
+
+    private void submit(Long jobId) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        runner.execute(() -> {
+            try {
+                run(jobId);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * 执行重建任务，从检查点继续直到替换表完成
+     *
+     * @param jobId 任务ID
+     */
+    void run(Long jobId) {
+        VectorReindexJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() != ReindexStatusEnum.RUNNING) {
+            return;
+        }
+
+        long heartbeatMillis = Math.max(1000, properties.getHeartbeatTimeout().toMillis() / 4);
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+                daemonThreads("vector-reindex-heartbeat"));
+        heartbeat.scheduleWithFixedDelay(() -> touchHeartbeat(jobId), heartbeatMillis, heartbeatMillis,
+                TimeUnit.MILLISECONDS);
+        ExecutorService embedders = Executors.newFixedThreadPool(properties.getParallelism(),
+                daemonThreads("vector-reindex-embed"));
+        RateLimiter rateLimiter = new RateLimiter(properties.getRequestsPerSecond());
+        try {
+            while (processWindow(job, embedders, rateLimiter)) {
+                // 继续处理下一组分页
+            }
+            vectorStoreUtil.createShadowIndexes(job.getShadowTable());
+            complete(job);
+            log.info("Vector reindex job {} completed, {} products indexed", jobId, job.getProcessed());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Vector reindex job {} interrupted at product {}", jobId, job.getLastProductId());
+        } catch (RuntimeException | ExecutionException e) {
+            log.error("Vector reindex job {} failed", jobId, e);
+            fail(job, e);
+        } finally {
+            embedders.shutdownNow();
+            heartbeat.shutdownNow();
+        }
+    }
+
+    /**
+     * 读取检查点之后的若干页商品，并行生成嵌入后写入影子表并推进检查点
+     *
+     * @return 还有剩余商品时返回true
+     */
+    private boolean processWindow(VectorReindexJob job, ExecutorService embedders, RateLimiter rateLimiter)
+            throws InterruptedException, ExecutionException {
+        List<List<Long>> pages = new ArrayList<>();
+        long afterId = job.getLastProductId();
+        int pageSize = properties.getPageSize();
+        for (int i = 0; i < properties.getParallelism(); i++) {
+            List<Long> ids = productRepository.findIdsAfter(afterId, PageRequest.of(0, pageSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            pages.add(ids);
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < pageSize) {
+                break;
+            }
+        }
+        if (pages.isEmpty()) {
+            return false;
+        }
+
+        List<Future<EmbeddedPage>> futures = new ArrayList<>();
+        for (List<Long> ids : pages) {
+            futures.add(embedders.submit(() -> embedPage(ids, rateLimiter)));
+        }
+        List<Document> documents = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        for (Future<EmbeddedPage> future : futures) {
+            EmbeddedPage page = future.get();
+            documents.addAll(page.documents());
+            embeddings.addAll(page.embeddings());
+        }
+
+        long checkpoint = afterId;
+        VectorReindexJob saved = transactionTemplate.execute(status -> {
+            vectorStoreUtil.insertShadowDocuments(job.getShadowTable(), documents, embeddings);
+            VectorReindexJob current = jobRepository.findById(job.getId()).orElseThrow();
+            current.setLastProductId(checkpoint);
+            current.setProcessed(current.getProcessed() + documents.size());
+            return jobRepository.save(current);
+        });
+        job.setLastProductId(saved.getLastProductId());
+        job.setProcessed(saved.getProcessed());
+        return pages.size() == properties.getParallelism() && pages.get(pages.size() - 1).size() == pageSize;
+    }
+
+    /**
+     * 加载一页商品并生成嵌入，嵌入请求按服务商的批量上限拆分并限流
+     */
+    private EmbeddedPage embedPage(List<Long> ids, RateLimiter rateLimiter) throws InterruptedException {
+        List<Product> products = new ArrayList<>(productRepository.findWithSpecificationsByIdInAndDeletedFalse(ids));
+        products.sort(Comparator.comparing(Product::getId));
+        List<Document> documents = DocumentConverter.convertToDocuments(products);
+
+        List<float[]> embeddings = new ArrayList<>(documents.size());
+        int batchSize = properties.getEmbeddingBatchSize();
+        for (int from = 0; from < documents.size(); from += batchSize) {
+            List<String> texts = documents.subList(from, Math.min(from + batchSize, documents.size())).stream()
+                    .map(Document::getText)
+                    .toList();
+            rateLimiter.acquire();
+            embeddings.addAll(embeddingModel.embed(texts));
+        }
+        return new EmbeddedPage(documents, embeddings);
+    }
+
+    /**
+     * 用影子表替换正式向量表，并为重建期间变更过的商品重新登记同步任务
+     */
+    private void complete(VectorReindexJob job) {
+        transactionTemplate.executeWithoutResult(status -> {
+            vectorStoreUtil.swapShadowTable(job.getShadowTable());
+            productVectorTaskService.enqueueAll(dirtyProductRepository.findProductIdsByJobId(job.getId()));
+            dirtyProductRepository.deleteByJobId(job.getId());
+            VectorReindexJob current = jobRepository.findById(job.getId()).orElseThrow();
+            current.setStatus(ReindexStatusEnum.COMPLETED);
+            current.setFinishTime(LocalDateTime.now());
+            jobRepository.save(current);
+        });
+
+        VectorReindexJob current = jobRepository.findById(job.getId()).orElseThrow();
+        current.setMissingCount(vectorStoreUtil.countMissingProducts());
+        current.setOrphanedCount(vectorStoreUtil.countOrphanedVectors());
+        jobRepository.save(current);
+    }
+
+    /**
+     * 标记任务失败并删除影子表，正式向量表保持不变
+     */
+    private void fail(VectorReindexJob job, Exception e) {
+        try {
+            vectorStoreUtil.dropShadowTable(job.getShadowTable());
+            String message = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+            transactionTemplate.executeWithoutResult(status -> {
+                dirtyProductRepository.deleteByJobId(job.getId());
+                VectorReindexJob current = jobRepository.findById(job.getId()).orElseThrow();
+                current.setStatus(ReindexStatusEnum.FAILED);
+                current.setErrorMessage(message.length() > 500 ? message.substring(0, 500) : message);
+                current.setFinishTime(LocalDateTime.now());
+                jobRepository.save(current);
+            });
+        } catch (RuntimeException ex) {
+            log.error("Failed to mark vector reindex job {} as failed", job.getId(), ex);
+        }
+    }
+
+    private void touchHeartbeat(Long jobId) {
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> jobRepository.touchHeartbeat(jobId, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh heartbeat of vector reindex job {}", jobId, e);
+        }
+    }
+
+    /**
+     * 重建和一致性检查依赖向量表，进程内向量存储不支持
+     */
+    private void requireTableBackedStore() {
+        if (vectorStoreUtil.isEmbeddedStore()) {
+            throw new BusinessException(ErrorTypeEnum.VECTOR_STORE_OPERATION_NOT_SUPPORTED);
+        }
+    }
+
+    /**
+     * 将任务实体转换为视图对象，并估算吞吐量和剩余时间
+     *
+     * @param job 任务实体
+     * @return 任务视图对象
+     */
+    private VectorReindexJobVO convertToJobVO(VectorReindexJob job) {
+        LocalDateTime end = job.getFinishTime() != null ? job.getFinishTime() : LocalDateTime.now();
+        double seconds = Duration.between(job.getRunStartTime(), end).toMillis() / 1000.0;
+        long processedInRun = job.getProcessed() - job.getRunStartProcessed();
+        Double throughput = seconds > 0 ? processedInRun / seconds : null;
+        Long etaSeconds = null;
+        if (job.getStatus() == ReindexStatusEnum.RUNNING && throughput != null && throughput > 0) {
+            etaSeconds = (long) Math.ceil(Math.max(0, job.getTotal() - job.getProcessed()) / throughput);
+        }
+        return VectorReindexJobVO.builder()
+                .id(job.getId())
+                .status(job.getStatus().name())
+                .processed(job.getProcessed())
+                .total(job.getTotal())
+                .lastProductId(job.getLastProductId())
+                .throughput(throughput)
+                .etaSeconds(etaSeconds)
+                .missingCount(job.getMissingCount())
+                .orphanedCount(job.getOrphanedCount())
+                .errorMessage(job.getErrorMessage())
+                .createTime(job.getCreateTime())
+                .finishTime(job.getFinishTime())
+                .build();
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 一页商品的文档及其嵌入向量
+     */
+    private record EmbeddedPage(List<Document> documents, List<float[]> embeddings) {
+    }
+
+    /**
+     * 按固定间隔发放许可的简单限流器，多个嵌入线程共享
+     */
+    private static final class RateLimiter {
+
+        private final long intervalNanos;
+        private long nextSlot = System.nanoTime();
+
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        }
+
+        void acquire() throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(now, nextSlot);
+                nextSlot = slot + intervalNanos;
+                waitNanos = slot - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
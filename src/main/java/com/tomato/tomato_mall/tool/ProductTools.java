@@ -1,15 +1,27 @@
 package com.tomato.tomato_mall.tool;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tomato.tomato_mall.properties.AssistantCacheProperties;
 import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.util.ProductFilterBuilder;
+import com.tomato.tomato_mall.util.QueryCachingEmbeddingModel;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
 import com.tomato.tomato_mall.vo.StockpileVO;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Component;
 
 /**
@@ -17,6 +29,10 @@ import org.springframework.stereotype.Component;
  * <p>
  * 为大模型提供产品相关的方法调用
  * </p>
+ * <p>
+ * 同一对话中模型经常以相同条件重复调用搜索，语义搜索命中的商品列表按规范化后的查询和过滤条件
+ * 缓存一小段时间；库存信息不进入缓存，每次调用都重新查询。
+ * </p>
  * 
  * @author Team CBDDL
  * @version 1.0
@@ -24,20 +40,32 @@ import org.springframework.stereotype.Component;
 @Component
 public class ProductTools {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductTools.class);
+
     private final StockpileService stockpileService;
-    private final VectorStore vectorStore;
+    private final VectorStoreUtil vectorStoreUtil;
     private final Integer defaultLimit = 5;
     private final Double defaultSimilarityThreshold = 0.6;
+    private final Cache<SearchKey, List<Document>> searchResults;
 
     /**
      * 构造函数，通过依赖注入初始化服务
      * 
      * @param stockpileService 库存服务，用于获取商品库存信息
-     * @param vectorStore 向量存储服务，用于执行语义搜索
+     * @param vectorStoreUtil 向量存储工具，用于执行语义搜索
+     * @param cacheProperties AI 助手缓存配置
+     * @param meterRegistry   指标注册表，用于记录搜索结果缓存命中情况
      */
-    public ProductTools(StockpileService stockpileService, VectorStore vectorStore) {
+    public ProductTools(StockpileService stockpileService, VectorStoreUtil vectorStoreUtil,
+            AssistantCacheProperties cacheProperties, MeterRegistry meterRegistry) {
         this.stockpileService = stockpileService;
-        this.vectorStore = vectorStore;
+        this.vectorStoreUtil = vectorStoreUtil;
+        this.searchResults = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getToolResultMaxSize())
+                .expireAfterWrite(cacheProperties.getToolResultTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, searchResults, "product-tool-search");
     }
 
     /**
@@ -45,11 +73,15 @@ public class ProductTools {
      * <p>
      * 使用向量数据库进行语义搜索，根据用户的自然语言描述
      * 找到最相关的书籍列表，并附带库存信息
-     * 支持各种搜索场景，如按主题、作者风格、类型等搜索
+     * 支持各种搜索场景，如按主题、作者风格、类型等搜索，
+     * 价格和评分区间会作为过滤条件在向量数据库中与语义搜索一同执行
      * </p>
      * 
-     * @param query 用户的书籍描述或需求，例如"推荐关于人工智能的科幻小说"
-     * @param limit 返回的最大书籍数量，可选参数，默认为5
+     * @param query    用户的书籍描述或需求，例如"推荐关于人工智能的科幻小说"
+     * @param limit    返回的最大书籍数量，可选参数，默认为5
+     * @param minPrice 最低价格，可选参数
+     * @param maxPrice 最高价格，可选参数
+     * @param minRate  最低评分，可选参数
      * @return 返回搜索结果的字符串，包含书籍信息和库存状态
      *         如果未找到相关书籍，返回提示信息
      *         如果查询为空，返回错误提示
@@ -59,42 +91,68 @@ public class ProductTools {
             如有必要可以拓展搜索请求.
             例如: '推荐关于人工智能的科幻小说', '找一些风格类似村上春树的书'.
             返回找到的书籍列表, 可以通过 limit 指定最多返回数量, 默认最多返回 5 条.
+            如果用户提到价格或评分要求, 可以通过 minPrice, maxPrice, minRate 限定范围, 评分范围为 0 到 10.
             书籍信息包含 书籍id, 书名, 简介, 详情, 规格, 库存.
             """)
     public String searchSimilarBooks(
             @ToolParam(description = "用户的书籍描述或需求") String query,
-            @ToolParam(description = "返回的最大书籍数量", required = false) Integer limit) {
+            @ToolParam(description = "返回的最大书籍数量", required = false) Integer limit,
+            @ToolParam(description = "最低价格(元)", required = false) BigDecimal minPrice,
+            @ToolParam(description = "最高价格(元)", required = false) BigDecimal maxPrice,
+            @ToolParam(description = "最低评分(0-10)", required = false) Double minRate) {
         if (limit == null || limit <= 0) {
             limit = defaultLimit;
         }
         if (query == null || query.isBlank()) {
             return "搜索描述不能为空";
         }
-        System.out.println("query: " + query);
-        System.out.println("limit: " + limit);
+        int topK = limit;
+        SearchKey key = new SearchKey(QueryCachingEmbeddingModel.normalize(query), topK, stripZeros(minPrice),
+                stripZeros(maxPrice), minRate);
+        List<Document> similarDocuments = searchResults.get(key, k -> vectorStoreUtil.searchProducts(query, topK,
+                defaultSimilarityThreshold,
+                ProductFilterBuilder.create().minPrice(minPrice).maxPrice(maxPrice).minRate(minRate).build()));
 
-        SearchRequest searchRequest = SearchRequest.builder().query(query).topK(limit)
-                .similarityThreshold(defaultSimilarityThreshold).build();
-        List<Document> similarDocuments = vectorStore.similaritySearch(searchRequest);
-
-        if (similarDocuments == null || similarDocuments.isEmpty()) {
+        log.debug("searchSimilarBooks query={}, limit={}, hits={}", query, topK, similarDocuments.size());
+        if (similarDocuments.isEmpty()) {
             return "没有找到与描述相关的书籍.";
         }
 
+        // 所有命中商品的库存通过一次查询获取
+        List<Long> productIds = similarDocuments.stream()
+                .map(ProductTools::productId)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<Long, StockpileVO> stockpiles = stockpileService.getStockpilesByProductIds(productIds);
+
         StringBuilder sb = new StringBuilder("搜索结果：\n");
         for (Document document : similarDocuments) {
             sb.append(document.getText()).append("\n");
-            long productId = Long.parseLong(String.valueOf(document.getMetadata().getOrDefault("id", "0")));
-            if (productId == 0)
+            Long productId = productId(document);
+            if (productId == null)
                 continue;
-            StockpileVO stockpileVO = stockpileService.getStockpileByProductId(productId);
+            StockpileVO stockpileVO = stockpiles.get(productId);
             if (stockpileVO != null) {
                 sb.append("库存总数: ").append(stockpileVO.getAmount()).append("\n");
                 sb.append("冻结数量: ").append(stockpileVO.getFrozen()).append("\n");
             }
             sb.append("-------------------------\n");
         }
-        System.out.println(sb.toString());
         return sb.toString();
     }
+
+    private static Long productId(Document document) {
+        long productId = Long.parseLong(String.valueOf(document.getMetadata().getOrDefault("id", "0")));
+        return productId == 0 ? null : productId;
+    }
+
+    private static BigDecimal stripZeros(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros();
+    }
+
+    /**
+     * 搜索结果缓存键
+     */
+    private record SearchKey(String query, int limit, BigDecimal minPrice, BigDecimal maxPrice, Double minRate) {
+    }
 }
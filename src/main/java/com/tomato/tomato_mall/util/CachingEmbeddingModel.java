@@ -0,0 +1,161 @@
+package com.tomato.tomato_mall.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.EmbeddingResponseMetadata;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tomato.tomato_mall.repository.EmbeddingCacheRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 带持久化缓存的嵌入模型
+ * <p>
+ * 包装实际的嵌入模型，以（模型名称, 文本 SHA-256 摘要）为键在数据库中缓存嵌入向量。
+ * 一次请求中只有未命中缓存的文本会被提交给实际模型，且同一请求内的重复文本只计算一次，
+ * 新生成的向量以一次批量插入写入缓存。
+ * </p>
+ * <p>
+ * 只有商品文档的写入和重建经过该缓存，用户提问等检索查询由 {@link QueryCachingEmbeddingModel}
+ * 缓存在进程内，不会写入数据库。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final String defaultModel;
+    private final EmbeddingCacheRepository cacheRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate        实际调用的嵌入模型
+     * @param defaultModel    请求未指定模型时使用的模型名称，作为缓存键的一部分
+     * @param cacheRepository 嵌入向量缓存数据访问对象，用于批量查询缓存
+     * @param jdbcTemplate    JDBC操作模板，用于批量写入缓存
+     * @param meterRegistry   指标注册表，用于记录缓存命中情况
+     */
+    public CachingEmbeddingModel(EmbeddingModel delegate, String defaultModel,
+            EmbeddingCacheRepository cacheRepository, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.defaultModel = defaultModel;
+        this.cacheRepository = cacheRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.hitCounter = Counter.builder("embedding.cache").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("embedding.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        String model = request.getOptions() != null && request.getOptions().getModel() != null
+                ? request.getOptions().getModel()
+                : defaultModel;
+        List<String> texts = request.getInstructions();
+        List<String> hashes = texts.stream().map(DocumentConverter::contentHash).toList();
+
+        Map<String, float[]> vectors = new HashMap<>();
+        cacheRepository.findByModelAndTextHashIn(model, hashes)
+                .forEach(entry -> vectors.put(entry.getTextHash(), decode(entry.getEmbedding())));
+
+        // 未命中的文本去重后一次性提交给实际模型
+        Map<String, String> misses = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!vectors.containsKey(hashes.get(i))) {
+                misses.putIfAbsent(hashes.get(i), texts.get(i));
+            }
+        }
+        hitCounter.increment(texts.size() - misses.size());
+        missCounter.increment(misses.size());
+
+        EmbeddingResponseMetadata metadata = new EmbeddingResponseMetadata(model, null);
+        if (!misses.isEmpty()) {
+            List<String> missHashes = new ArrayList<>(misses.keySet());
+            EmbeddingResponse response = delegate.call(
+                    new EmbeddingRequest(new ArrayList<>(misses.values()), request.getOptions()));
+            List<Embedding> results = response.getResults();
+            List<Object[]> rows = new ArrayList<>(results.size());
+            for (int i = 0; i < results.size(); i++) {
+                Embedding result = results.get(i);
+                String hash = missHashes.get(result.getIndex() != null ? result.getIndex() : i);
+                vectors.put(hash, result.getOutput());
+                rows.add(new Object[] { model, hash, encode(result.getOutput()) });
+            }
+            insertIgnoringConflict(rows);
+            metadata = response.getMetadata();
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(vectors.get(hashes.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings, metadata);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * 批量写入缓存向量，已存在相同键的记录时忽略
+     * <p>
+     * 多个实例可能同时为相同文本生成嵌入，使用 ON CONFLICT DO NOTHING 避免唯一约束冲突。
+     * 开启 {@code reWriteBatchedInserts} 时整批合并为一条多行插入语句。
+     * </p>
+     *
+     * @param rows 每行依次为模型名称、文本摘要和编码后的嵌入向量
+     */
+    private void insertIgnoringConflict(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO embedding_cache (model, text_hash, embedding, create_time)"
+                + " VALUES (?, ?, ?, now()) ON CONFLICT (model, text_hash) DO NOTHING", rows);
+    }
+
+    /**
+     * 将嵌入向量编码为字节数组
+     *
+     * @param vector 嵌入向量
+     * @return 小端序 float32 编码的字节数组
+     */
+    static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    /**
+     * 将字节数组解码为嵌入向量
+     *
+     * @param bytes 小端序 float32 编码的字节数组
+     * @return 嵌入向量
+     */
+    static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+}
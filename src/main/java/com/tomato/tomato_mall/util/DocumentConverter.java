@@ -1,6 +1,10 @@
 package com.tomato.tomato_mall.util;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,6 +22,11 @@ import com.tomato.tomato_mall.entity.Specification;
  */
 public class DocumentConverter {
 
+  /**
+   * 文档内容指纹的元数据键
+   */
+  public static final String CONTENT_HASH_KEY = "contentHash";
+
   /**
    * 将单个商品对象转换为Spring AI文档格式
    * 
@@ -41,15 +50,34 @@ public class DocumentConverter {
         contentBuilder.append("- ").append(spec.getItem()).append(": ").append(spec.getValue()).append("\n");
       }
     }
+    String content = contentBuilder.toString();
     // 为文档添加元数据，方便后续过滤
     Map<String, Object> metadata = new HashMap<>();
     metadata.put("id", product.getId().toString());
     metadata.put("title", product.getTitle());
-    metadata.put("rate", product.getRate().toString());
-    metadata.put("price", product.getPrice().toString());
+    // 数值字段以数字形式保存，检索时可以直接按区间过滤
+    metadata.put("rate", product.getRate());
+    metadata.put("price", product.getPrice().doubleValue());
+    // 内容指纹，文本未变化时无需重新生成嵌入
+    metadata.put(CONTENT_HASH_KEY, contentHash(content));
 
     // 创建文档对象
-    return new Document(contentBuilder.toString(), metadata);
+    return new Document(content, metadata);
+  }
+
+  /**
+   * 计算文本内容指纹
+   * 
+   * @param text 文本内容
+   * @return 文本 UTF-8 编码的 SHA-256 摘要（十六进制）
+   */
+  public static String contentHash(String text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
   }
 
   /**
@@ -0,0 +1,880 @@
+package com.tomato.tomato_mall.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import com.tomato.tomato_mall.properties.HnswVectorStoreProperties;
+
+/**
+ * 进程内 HNSW 向量存储
+ * <p>
+ * 在应用进程内维护嵌入向量的 HNSW 图，不依赖 pgvector，可用于本地开发或追求低延迟的部署。
+ * 向量和底层图的邻接表保存在内存映射文件中，位于堆外且由操作系统按需换入换出；
+ * 上层图、文档内容和元数据保存在堆内，并定期以快照形式写回磁盘。
+ * </p>
+ * <p>
+ * 检索和写入通过读写锁隔离：检索之间可以并发执行，写入在计算完嵌入向量后才获取写锁，
+ * 因此嵌入接口的调用不会阻塞检索。删除采用标记删除，已删除节点仍参与图的导航但不会被返回，
+ * 已删除节点多于存活节点时在落盘前重建图以回收空间。
+ * </p>
+ * <p>
+ * 元数据过滤条件按 Spring AI 内存向量存储的规则转换为 SpEL 表达式，在底层图的搜索过程中逐个节点判断，
+ * 过滤条件选择性较高时搜索会扩展到更多节点，最坏情况下退化为对满足条件节点的完整扫描。
+ * 向量在写入和检索前均做 L2 归一化，相似度为余弦相似度。
+ * </p>
+ * <p>
+ * 数据文件由快照文件 {@code hnsw-meta.bin} 和按代编号的向量文件 {@code hnsw-vectors-<代>.bin} 组成，
+ * 快照文件的原子替换是提交点：进程异常退出后从最近一次快照恢复，之后写入的文档需要重新同步。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class HnswVectorStore implements VectorStore, InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswVectorStore.class);
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int FORMAT_VERSION = 1;
+    private static final String META_FILE = "hnsw-meta.bin";
+    private static final String VECTOR_FILE_PREFIX = "hnsw-vectors-";
+
+    /**
+     * 每个内存映射分段容纳的节点数
+     */
+    private static final int CHUNK_NODES = 4096;
+
+    /**
+     * 节点层数上限
+     */
+    private static final int MAX_LEVEL = 16;
+
+    private final EmbeddingModel embeddingModel;
+    private final Path directory;
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private volatile int efSearch;
+    private final Duration flushInterval;
+    private final double levelMultiplier;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final FilterExpressionConverter filterExpressionConverter = new SimpleVectorStoreFilterExpressionConverter();
+    private final TokenCountBatchingStrategy batchingStrategy = new TokenCountBatchingStrategy();
+
+    private ScheduledExecutorService flushExecutor;
+    private Graph graph;
+
+    /**
+     * 构造函数
+     *
+     * @param embeddingModel 嵌入模型
+     * @param properties     进程内向量存储配置
+     */
+    public HnswVectorStore(EmbeddingModel embeddingModel, HnswVectorStoreProperties properties) {
+        this.embeddingModel = embeddingModel;
+        this.directory = Path.of(properties.getPath());
+        this.dimensions = properties.getDimensions();
+        this.m = properties.getM();
+        this.efConstruction = properties.getEfConstruction();
+        this.efSearch = properties.getEfSearch();
+        this.flushInterval = properties.getFlushInterval();
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    /**
+     * 从数据目录加载已有的图，并启动定期落盘任务
+     */
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Files.createDirectories(directory);
+        graph = load();
+        log.info("Loaded HNSW vector store from {} with {} live documents", directory, graph.liveCount());
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hnsw-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Failed to flush HNSW vector store", e);
+            }
+        }, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止落盘任务并写回最后一次快照
+     */
+    @Override
+    public void destroy() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+        flush();
+        graph.close();
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return;
+        }
+        // 嵌入在获取写锁之前完成，避免阻塞检索
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                graph.markDeleted(document.getId());
+                insert(graph, normalize(embeddings.get(i)),
+                        new Node(document.getId(), document.getText(), new HashMap<>(document.getMetadata()),
+                                randomLevel()));
+            }
+            dirty.set(true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            idList.forEach(graph::markDeleted);
+            dirty.set(true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        NodeFilter filter = compile(filterExpression);
+        lock.writeLock().lock();
+        try {
+            for (int node = 0; node < graph.size(); node++) {
+                Node info = graph.node(node);
+                if (!info.deleted && filter.test(info)) {
+                    graph.markDeleted(info.id);
+                }
+            }
+            dirty.set(true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return similaritySearch(embeddingModel.embed(request.getQuery()), request.getTopK(), request.getSimilarityThreshold(),
+                request.getFilterExpression());
+    }
+
+    /**
+     * 按查询向量检索文档
+     *
+     * @param queryEmbedding      查询向量
+     * @param topK                最多返回的文档数量
+     * @param similarityThreshold 相似度阈值
+     * @param filterExpression    元数据过滤表达式，为null时不过滤
+     * @return 按相似度降序排列的文档列表
+     */
+    public List<Document> similaritySearch(float[] queryEmbedding, int topK, double similarityThreshold,
+            Filter.Expression filterExpression) {
+        float[] query = normalize(queryEmbedding);
+        NodeFilter filter = compile(filterExpression);
+        lock.readLock().lock();
+        try {
+            if (graph.entryPoint < 0) {
+                return List.of();
+            }
+            int entry = graph.entryPoint;
+            for (int layer = graph.maxLevel; layer > 0; layer--) {
+                entry = searchLayer(graph, query, entry, 1, layer, node -> true).get(0).node;
+            }
+            List<Candidate> results = searchLayer(graph, query, entry, Math.max(efSearch, topK), 0,
+                    node -> {
+                        Node info = graph.node(node);
+                        return !info.deleted && filter.test(info);
+                    });
+            List<Document> documents = new ArrayList<>();
+            for (Candidate candidate : results) {
+                double similarity = 1 - candidate.distance;
+                if (documents.size() >= topK || similarity < similarityThreshold) {
+                    break;
+                }
+                Node info = graph.node(candidate.node);
+                documents.add(Document.builder()
+                        .id(info.id)
+                        .text(info.text)
+                        .metadata(new HashMap<>(info.metadata))
+                        .score(similarity)
+                        .build());
+            }
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询满足过滤条件的文档，不计算相似度
+     *
+     * @param filterExpression 元数据过滤表达式
+     * @return 满足条件的文档列表，包含文档ID、内容和元数据
+     */
+    public List<Document> findDocuments(Filter.Expression filterExpression) {
+        NodeFilter filter = compile(filterExpression);
+        lock.readLock().lock();
+        try {
+            List<Document> documents = new ArrayList<>();
+            for (int node = 0; node < graph.size(); node++) {
+                Node info = graph.node(node);
+                if (!info.deleted && filter.test(info)) {
+                    documents.add(new Document(info.id, info.text, new HashMap<>(info.metadata)));
+                }
+            }
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 替换文档的元数据，不改动内容和嵌入向量
+     *
+     * @param documentId 文档ID
+     * @param metadata   新的元数据
+     */
+    public void updateMetadata(String documentId, Map<String, Object> metadata) {
+        lock.writeLock().lock();
+        try {
+            Integer node = graph.index.get(documentId);
+            if (node != null) {
+                graph.node(node).metadata = new HashMap<>(metadata);
+                dirty.set(true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 将图结构和文档信息写回磁盘
+     * <p>
+     * 已删除节点多于存活节点时先重建图。没有新的写入时不做任何操作。
+     * </p>
+     */
+    public synchronized void flush() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (graph.deletedCount > graph.liveCount()) {
+                compact();
+            }
+            graph.force();
+            writeMeta(graph);
+        } catch (IOException e) {
+            dirty.set(true);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 调整检索时的候选列表长度，对之后的检索立即生效
+     *
+     * @param efSearch 候选列表长度
+     */
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return Optional.empty();
+    }
+
+    /**
+     * 将一个节点插入图中
+     */
+    private void insert(Graph target, float[] vector, Node info) {
+        int node = target.append(vector, info);
+        if (target.entryPoint < 0) {
+            target.entryPoint = node;
+            target.maxLevel = info.level;
+            return;
+        }
+
+        int entry = target.entryPoint;
+        for (int layer = target.maxLevel; layer > info.level; layer--) {
+            entry = searchLayer(target, vector, entry, 1, layer, n -> true).get(0).node;
+        }
+        for (int layer = Math.min(info.level, target.maxLevel); layer >= 0; layer--) {
+            List<Candidate> candidates = searchLayer(target, vector, entry, efConstruction, layer, n -> n != node);
+            int maxConnections = maxConnections(layer);
+            int[] neighbors = selectNeighbors(target, candidates, maxConnections);
+            target.setNeighbors(node, layer, neighbors);
+            for (int neighbor : neighbors) {
+                connect(target, neighbor, node, layer, maxConnections);
+            }
+            if (!candidates.isEmpty()) {
+                entry = candidates.get(0).node;
+            }
+        }
+        if (info.level > target.maxLevel) {
+            target.entryPoint = node;
+            target.maxLevel = info.level;
+        }
+    }
+
+    /**
+     * 为邻居节点添加反向连接，连接数超过上限时按启发式规则裁剪
+     */
+    private void connect(Graph target, int from, int to, int layer, int maxConnections) {
+        int[] existing = target.neighbors(from, layer);
+        if (existing.length < maxConnections) {
+            int[] extended = Arrays.copyOf(existing, existing.length + 1);
+            extended[existing.length] = to;
+            target.setNeighbors(from, layer, extended);
+            return;
+        }
+        float[] base = target.vector(from);
+        List<Candidate> candidates = new ArrayList<>(existing.length + 1);
+        for (int neighbor : existing) {
+            candidates.add(new Candidate(neighbor, target.distance(base, neighbor)));
+        }
+        candidates.add(new Candidate(to, target.distance(base, to)));
+        candidates.sort(Comparator.comparingDouble(Candidate::distance));
+        target.setNeighbors(from, layer, selectNeighbors(target, candidates, maxConnections));
+    }
+
+    /**
+     * 启发式邻居选择：优先保留彼此之间距离较远的候选，使连接覆盖不同方向；
+     * 不足上限时再用被跳过的最近候选补齐
+     *
+     * @param candidates 按距离升序排列的候选
+     */
+    private int[] selectNeighbors(Graph target, List<Candidate> candidates, int maxConnections) {
+        List<Integer> selected = new ArrayList<>(maxConnections);
+        List<Integer> skipped = new ArrayList<>();
+        List<float[]> selectedVectors = new ArrayList<>(maxConnections);
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= maxConnections) {
+                break;
+            }
+            float[] vector = target.vector(candidate.node);
+            boolean diverse = true;
+            for (float[] chosen : selectedVectors) {
+                if (1 - dot(vector, chosen) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.node);
+                selectedVectors.add(vector);
+            } else {
+                skipped.add(candidate.node);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < maxConnections; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 在指定层搜索距离查询向量最近的节点
+     *
+     * @param accept 判断节点能否进入结果的条件，不满足条件的节点仍用于导航
+     * @return 按距离升序排列的结果，最多 ef 个
+     */
+    private List<Candidate> searchLayer(Graph target, float[] query, int entry, int ef, int layer,
+            IntPredicate accept) {
+        BitSet visited = new BitSet(target.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::distance).reversed());
+
+        Candidate start = new Candidate(entry, target.distance(query, entry));
+        visited.set(entry);
+        candidates.add(start);
+        if (accept.test(entry)) {
+            results.add(start);
+        }
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.distance > results.peek().distance) {
+                break;
+            }
+            for (int neighbor : target.neighbors(current.node, layer)) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                double distance = target.distance(query, neighbor);
+                if (results.size() < ef || distance < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbor, distance);
+                    candidates.add(candidate);
+                    if (accept.test(neighbor)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        // 上层导航不设过滤条件，结果为空只可能发生在入口节点本身不满足条件时
+        if (results.isEmpty() && layer > 0) {
+            results.add(start);
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Candidate::distance));
+        return sorted;
+    }
+
+    private int maxConnections(int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    private int randomLevel() {
+        double random = 1 - ThreadLocalRandom.current().nextDouble();
+        return Math.min(MAX_LEVEL, (int) (-Math.log(random) * levelMultiplier));
+    }
+
+    /**
+     * 重建图，只保留存活节点，并切换到新一代的向量文件
+     */
+    private void compact() throws IOException {
+        Graph fresh = Graph.create(directory, graph.generation + 1, dimensions, m);
+        for (int node = 0; node < graph.size(); node++) {
+            Node info = graph.node(node);
+            if (!info.deleted) {
+                insert(fresh, graph.vector(node), new Node(info.id, info.text, info.metadata, info.level));
+            }
+        }
+        log.info("Compacted HNSW vector store: {} live documents, {} deleted removed",
+                fresh.liveCount(), graph.deletedCount);
+        graph.close();
+        graph = fresh;
+    }
+
+    /**
+     * 加载最近一次快照；没有快照时创建空图
+     */
+    private Graph load() throws IOException {
+        Path metaFile = directory.resolve(META_FILE);
+        Graph loaded;
+        if (!Files.exists(metaFile)) {
+            loaded = Graph.create(directory, 0, dimensions, m);
+        } else {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(metaFile)))) {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Unrecognized HNSW snapshot " + metaFile);
+                }
+                long generation = in.readLong();
+                if (in.readInt() != dimensions || in.readInt() != m) {
+                    throw new IOException("HNSW snapshot dimensions or M differ from configuration");
+                }
+                int count = in.readInt();
+                loaded = Graph.open(directory, generation, dimensions, m, count);
+                loaded.entryPoint = in.readInt();
+                loaded.maxLevel = in.readInt();
+                for (int node = 0; node < count; node++) {
+                    boolean deleted = in.readBoolean();
+                    int level = in.readInt();
+                    String id = readString(in);
+                    String text = readString(in);
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> metadata = JsonUtils.fromJson(readString(in), Map.class);
+                    Node info = new Node(id, text, metadata, level);
+                    for (int layer = 1; layer <= level; layer++) {
+                        int[] neighbors = new int[in.readInt()];
+                        for (int i = 0; i < neighbors.length; i++) {
+                            neighbors[i] = in.readInt();
+                        }
+                        info.upper[layer - 1] = neighbors;
+                    }
+                    loaded.restore(node, info, deleted);
+                }
+                // 快照之后写入的节点不在快照中，去掉指向它们的底层连接
+                loaded.truncateLinks(count);
+            }
+        }
+        deleteStaleVectorFiles(loaded.generation);
+        return loaded;
+    }
+
+    private void writeMeta(Graph target) throws IOException {
+        Path temp = directory.resolve(META_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(target.generation);
+            out.writeInt(dimensions);
+            out.writeInt(m);
+            out.writeInt(target.size());
+            out.writeInt(target.entryPoint);
+            out.writeInt(target.maxLevel);
+            for (int node = 0; node < target.size(); node++) {
+                Node info = target.node(node);
+                out.writeBoolean(info.deleted);
+                out.writeInt(info.level);
+                writeString(out, info.id);
+                writeString(out, info.text);
+                writeString(out, JsonUtils.toJson(info.metadata));
+                for (int layer = 1; layer <= info.level; layer++) {
+                    int[] neighbors = info.upper[layer - 1];
+                    out.writeInt(neighbors.length);
+                    for (int neighbor : neighbors) {
+                        out.writeInt(neighbor);
+                    }
+                }
+            }
+        }
+        Files.move(temp, directory.resolve(META_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        deleteStaleVectorFiles(target.generation);
+    }
+
+    private void deleteStaleVectorFiles(long generation) throws IOException {
+        String current = Graph.vectorFileName(generation);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, VECTOR_FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 将过滤表达式编译为节点判断条件
+     */
+    private NodeFilter compile(Filter.Expression filterExpression) {
+        if (filterExpression == null) {
+            return node -> true;
+        }
+        Expression expression = parser.parseExpression(filterExpressionConverter.convertExpression(filterExpression));
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        return node -> {
+            context.setVariable("metadata", node.metadata);
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "Embedding dimension " + vector.length + " does not match configured " + dimensions);
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = vector.clone();
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= scale;
+            }
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @FunctionalInterface
+    private interface NodeFilter {
+        boolean test(Node node);
+    }
+
+    private record Candidate(int node, double distance) {
+    }
+
+    /**
+     * 节点的堆内信息
+     */
+    private static class Node {
+        private final String id;
+        private final String text;
+        private Map<String, Object> metadata;
+        private final int level;
+        private final int[][] upper;
+        private boolean deleted;
+
+        Node(String id, String text, Map<String, Object> metadata, int level) {
+            this.id = id;
+            this.text = text;
+            this.metadata = metadata;
+            this.level = level;
+            this.upper = new int[level][];
+            for (int i = 0; i < level; i++) {
+                upper[i] = new int[0];
+            }
+        }
+    }
+
+    /**
+     * 一代图数据：向量和底层邻接表位于内存映射文件，其余信息位于堆内
+     * <p>
+     * 文件中每个节点占用固定长度的记录：向量分量、底层连接数、底层连接数组。
+     * 文件按固定节点数分段映射，容量不足时追加新的分段。
+     * </p>
+     */
+    private static class Graph {
+        private final long generation;
+        private final int dimensions;
+        private final int maxLinks;
+        private final int recordBytes;
+        private final FileChannel channel;
+        private final List<MappedByteBuffer> chunks = new ArrayList<>();
+        private final List<Node> nodes = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+        private int entryPoint = -1;
+        private int maxLevel = -1;
+        private int deletedCount;
+
+        private Graph(Path directory, long generation, int dimensions, int m, boolean create) throws IOException {
+            this.generation = generation;
+            this.dimensions = dimensions;
+            this.maxLinks = 2 * m;
+            this.recordBytes = (dimensions + 1 + maxLinks) * Float.BYTES;
+            Path file = directory.resolve(vectorFileName(generation));
+            if (create) {
+                Files.deleteIfExists(file);
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        static String vectorFileName(long generation) {
+            return VECTOR_FILE_PREFIX + generation + ".bin";
+        }
+
+        static Graph create(Path directory, long generation, int dimensions, int m) throws IOException {
+            return new Graph(directory, generation, dimensions, m, true);
+        }
+
+        static Graph open(Path directory, long generation, int dimensions, int m, int count) throws IOException {
+            Graph graph = new Graph(directory, generation, dimensions, m, false);
+            if (count > 0) {
+                graph.ensureCapacity(count - 1);
+            }
+            return graph;
+        }
+
+        int size() {
+            return nodes.size();
+        }
+
+        int liveCount() {
+            return nodes.size() - deletedCount;
+        }
+
+        Node node(int node) {
+            return nodes.get(node);
+        }
+
+        int append(float[] vector, Node info) {
+            int node = nodes.size();
+            ensureCapacity(node);
+            MappedByteBuffer chunk = chunk(node);
+            int offset = offset(node);
+            for (int i = 0; i < dimensions; i++) {
+                chunk.putFloat(offset + i * Float.BYTES, vector[i]);
+            }
+            chunk.putInt(offset + dimensions * Float.BYTES, 0);
+            nodes.add(info);
+            index.put(info.id, node);
+            return node;
+        }
+
+        void restore(int node, Node info, boolean deleted) {
+            info.deleted = deleted;
+            nodes.add(info);
+            if (deleted) {
+                deletedCount++;
+            } else {
+                index.put(info.id, node);
+            }
+        }
+
+        void markDeleted(String id) {
+            Integer node = index.remove(id);
+            if (node != null) {
+                nodes.get(node).deleted = true;
+                deletedCount++;
+            }
+        }
+
+        float[] vector(int node) {
+            MappedByteBuffer chunk = chunk(node);
+            int offset = offset(node);
+            float[] vector = new float[dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = chunk.getFloat(offset + i * Float.BYTES);
+            }
+            return vector;
+        }
+
+        double distance(float[] query, int node) {
+            MappedByteBuffer chunk = chunk(node);
+            int offset = offset(node);
+            double sum = 0;
+            for (int i = 0; i < dimensions; i++) {
+                sum += query[i] * chunk.getFloat(offset + i * Float.BYTES);
+            }
+            return 1 - sum;
+        }
+
+        int[] neighbors(int node, int layer) {
+            if (layer > 0) {
+                Node info = nodes.get(node);
+                return layer <= info.level ? info.upper[layer - 1] : new int[0];
+            }
+            MappedByteBuffer chunk = chunk(node);
+            int offset = offset(node) + dimensions * Float.BYTES;
+            int[] neighbors = new int[chunk.getInt(offset)];
+            for (int i = 0; i < neighbors.length; i++) {
+                neighbors[i] = chunk.getInt(offset + (i + 1) * Integer.BYTES);
+            }
+            return neighbors;
+        }
+
+        void setNeighbors(int node, int layer, int[] neighbors) {
+            if (layer > 0) {
+                nodes.get(node).upper[layer - 1] = neighbors;
+                return;
+            }
+            MappedByteBuffer chunk = chunk(node);
+            int offset = offset(node) + dimensions * Float.BYTES;
+            chunk.putInt(offset, neighbors.length);
+            for (int i = 0; i < neighbors.length; i++) {
+                chunk.putInt(offset + (i + 1) * Integer.BYTES, neighbors[i]);
+            }
+        }
+
+        /**
+         * 移除指向不存在节点的底层连接
+         */
+        void truncateLinks(int count) {
+            for (int node = 0; node < count; node++) {
+                int[] neighbors = neighbors(node, 0);
+                int[] valid = Arrays.stream(neighbors).filter(neighbor -> neighbor < count).toArray();
+                if (valid.length != neighbors.length) {
+                    setNeighbors(node, 0, valid);
+                }
+            }
+        }
+
+        void force() {
+            chunks.forEach(MappedByteBuffer::force);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void ensureCapacity(int node) {
+            try {
+                while ((long) chunks.size() * CHUNK_NODES <= node) {
+                    long chunkBytes = (long) CHUNK_NODES * recordBytes;
+                    chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * chunkBytes, chunkBytes));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private MappedByteBuffer chunk(int node) {
+            return chunks.get(node / CHUNK_NODES);
+        }
+
+        private int offset(int node) {
+            return (node % CHUNK_NODES) * recordBytes;
+        }
+    }
+}
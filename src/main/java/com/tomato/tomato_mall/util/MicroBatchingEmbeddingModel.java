@@ -0,0 +1,279 @@
+package com.tomato.tomato_mall.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.tomato.tomato_mall.properties.EmbeddingBatchProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 合并并发请求的嵌入模型
+ * <p>
+ * 包装实际的嵌入模型，将并发到达的小请求（例如检索时对单个查询的嵌入）放入队列，
+ * 由后台线程在第一个文本等待满 {@code maxWait} 或凑满 {@code maxBatchSize} 时合并为一次请求发送，
+ * 再把结果分发给各个调用方。同一批内的重复文本只计算一次。
+ * 同时进行的请求数受 {@code maxConcurrentBatches} 限制，达到上限时新文本继续排队，批次随负载自然变大。
+ * </p>
+ * <p>
+ * 指定了模型或维度的请求，以及本身已经达到单批上限的请求不参与合并，直接交给实际模型。
+ * 调用方最多等待 {@code resultTimeout}，超时或合批已停止时同样直接调用实际模型，不会一直阻塞。
+ * 批次大小和填充率（批次大小 / 单批上限）记录在 {@code embedding.batch.size}
+ * 和 {@code embedding.batch.fill.ratio} 指标中。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class MicroBatchingEmbeddingModel implements EmbeddingModel, InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MicroBatchingEmbeddingModel.class);
+
+    private final EmbeddingModel delegate;
+    private final long maxWaitNanos;
+    private final long resultTimeoutNanos;
+    private final int maxBatchSize;
+    private final Semaphore inFlight;
+    private final BlockingQueue<PendingEmbedding> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSize;
+    private final DistributionSummary fillRatio;
+    private final Counter fullBatches;
+    private final Counter timedOutBatches;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+    private ExecutorService senders;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate      实际调用的嵌入模型
+     * @param properties    合批配置
+     * @param meterRegistry 指标注册表，用于记录批次大小和填充率
+     */
+    public MicroBatchingEmbeddingModel(EmbeddingModel delegate, EmbeddingBatchProperties properties,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.resultTimeoutNanos = properties.getResultTimeout().toNanos();
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.inFlight = new Semaphore(properties.getMaxConcurrentBatches());
+        this.batchSize = DistributionSummary.builder("embedding.batch.size").register(meterRegistry);
+        this.fillRatio = DistributionSummary.builder("embedding.batch.fill.ratio").register(meterRegistry);
+        this.fullBatches = Counter.builder("embedding.batch.flush").tag("reason", "full").register(meterRegistry);
+        this.timedOutBatches = Counter.builder("embedding.batch.flush").tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        dispatcher = new Thread(this::dispatch, "embedding-batch-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // 停止后仍在队列中的文本直接发送，不让调用方一直等待
+        List<PendingEmbedding> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += maxBatchSize) {
+            send(remaining.subList(from, Math.min(remaining.size(), from + maxBatchSize)));
+        }
+        if (senders != null) {
+            senders.shutdown();
+        }
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        if (!running || !isBatchable(request.getOptions()) || texts.size() >= maxBatchSize) {
+            return delegate.call(request);
+        }
+
+        long now = System.nanoTime();
+        List<PendingEmbedding> pending = texts.stream()
+                .map(text -> new PendingEmbedding(text, now, new CompletableFuture<>()))
+                .toList();
+        queue.addAll(pending);
+        if (!running && queue.removeAll(pending)) {
+            // 入队前合批已停止，关闭流程不会再取出这些文本
+            return delegate.call(request);
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(pending.size());
+        long deadline = now + resultTimeoutNanos;
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                float[] output = pending.get(i).result().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                embeddings.add(new Embedding(output, i));
+            }
+        } catch (TimeoutException e) {
+            log.warn("Batched embedding of {} texts timed out, calling the embedding model directly", texts.size());
+            pending.forEach(text -> text.result().cancel(false));
+            return delegate.call(request);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.forEach(text -> text.result().cancel(false));
+            throw new IllegalStateException("Interrupted while waiting for batched embedding", e);
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * 只有使用默认模型和维度的请求才能合并到一起
+     */
+    private static boolean isBatchable(EmbeddingOptions options) {
+        return options == null || (options.getModel() == null && options.getDimensions() == null);
+    }
+
+    /**
+     * 后台合批循环：取出第一个文本后，在其截止时间前继续收集，凑满或超时后异步发送
+     */
+    private void dispatch() {
+        while (running) {
+            List<PendingEmbedding> batch = new ArrayList<>(maxBatchSize);
+            try {
+                PendingEmbedding first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAt() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingEmbedding next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                // 等待空闲名额期间到达的文本一并发送
+                inFlight.acquire();
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                record(batch.size());
+                try {
+                    senders.execute(() -> {
+                        try {
+                            send(batch);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // 关闭期间发送线程池已停止，在当前线程发送
+                    try {
+                        send(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // 合批线程不能退出，否则之后的调用方只能等到超时
+                log.error("Embedding batch dispatch failed", e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void record(int size) {
+        batchSize.record(size);
+        fillRatio.record((double) size / maxBatchSize);
+        if (size >= maxBatchSize) {
+            fullBatches.increment();
+        } else {
+            timedOutBatches.increment();
+        }
+    }
+
+    /**
+     * 将一批文本去重后一次提交给实际模型，并完成每个调用方的结果
+     */
+    private void send(List<PendingEmbedding> batch) {
+        Map<String, List<PendingEmbedding>> byText = new LinkedHashMap<>();
+        batch.stream()
+                .filter(pending -> !pending.result().isDone()) // 已超时的调用方不再等待结果
+                .forEach(pending -> byText.computeIfAbsent(pending.text(), key -> new ArrayList<>()).add(pending));
+        if (byText.isEmpty()) {
+            return;
+        }
+        List<String> texts = new ArrayList<>(byText.keySet());
+        try {
+            EmbeddingResponse response = delegate.call(
+                    new EmbeddingRequest(texts, EmbeddingOptionsBuilder.builder().build()));
+            List<Embedding> results = response.getResults();
+            for (int i = 0; i < results.size(); i++) {
+                Embedding result = results.get(i);
+                String text = texts.get(result.getIndex() != null ? result.getIndex() : i);
+                byText.get(text).forEach(pending -> pending.result().complete(result.getOutput()));
+            }
+            IllegalStateException missing = new IllegalStateException("Embedding missing from batched response");
+            batch.forEach(pending -> pending.result().completeExceptionally(missing));
+        } catch (RuntimeException e) {
+            log.warn("Batched embedding request of {} texts failed", texts.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 等待合批的文本及其结果
+     */
+    private record PendingEmbedding(String text, long enqueuedAt, CompletableFuture<float[]> result) {
+    }
+}
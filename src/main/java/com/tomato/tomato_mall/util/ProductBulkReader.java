@@ -0,0 +1,315 @@
+package com.tomato.tomato_mall.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import com.tomato.tomato_mall.dto.ProductBulkRecordDTO;
+import com.tomato.tomato_mall.dto.SpecificationDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 商品批量数据流式读取器
+ * <p>
+ * 逐条解析 CSV 或 NDJSON 格式的商品批量数据，读取过程不会将整个请求体加载到内存中。
+ * 单条记录解析失败不会中断读取，而是以带错误信息的条目返回，由调用方决定如何处理。
+ * </p>
+ * <p>
+ * CSV 格式要求首行为表头，列名与{@link ProductBulkRecordDTO}的字段名对应（忽略大小写），
+ * 支持 RFC 4180 风格的双引号转义，字段内容可以包含逗号和换行。
+ * NDJSON 格式要求每行一个 JSON 对象，空行会被忽略。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public abstract class ProductBulkReader implements Iterator<ProductBulkReader.Entry>, Closeable {
+
+    /**
+     * 批量数据格式
+     */
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * 读取到的单条记录
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        /**
+         * 记录在原始数据中的起始行号（从1开始）
+         */
+        private long line;
+
+        /**
+         * 解析后的记录，解析失败时为null
+         */
+        private ProductBulkRecordDTO record;
+
+        /**
+         * 解析错误信息，解析成功时为null
+         */
+        private String error;
+    }
+
+    protected final BufferedReader reader;
+    protected long lineNumber = 0;
+    private Entry next;
+
+    protected ProductBulkReader(InputStream inputStream) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 创建指定格式的读取器
+     *
+     * @param format      数据格式
+     * @param inputStream 数据输入流
+     * @return 对应格式的读取器
+     */
+    public static ProductBulkReader of(Format format, InputStream inputStream) {
+        return format == Format.CSV ? new CsvReader(inputStream) : new NdjsonReader(inputStream);
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 下一条记录，数据读取完毕时返回null
+     * @throws IOException 读取输入流失败
+     */
+    protected abstract Entry readNext() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Entry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry entry = next;
+        next = null;
+        return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * NDJSON 格式读取器
+     */
+    private static class NdjsonReader extends ProductBulkReader {
+
+        NdjsonReader(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        protected Entry readNext() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new Entry(lineNumber, JsonUtils.fromJson(line, ProductBulkRecordDTO.class), null);
+                } catch (RuntimeException e) {
+                    return new Entry(lineNumber, null, "JSON 格式错误");
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * CSV 格式读取器
+     */
+    private static class CsvReader extends ProductBulkReader {
+
+        private List<String> header;
+
+        CsvReader(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        protected Entry readNext() throws IOException {
+            if (header == null) {
+                List<String> columns = readRow();
+                if (columns == null) {
+                    return null;
+                }
+                header = new ArrayList<>();
+                for (String column : columns) {
+                    // 去除 Excel 导出文件可能携带的 BOM
+                    header.add(column.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT));
+                }
+            }
+
+            List<String> row;
+            long startLine;
+            do {
+                startLine = lineNumber + 1;
+                row = readRow();
+                if (row == null) {
+                    return null;
+                }
+            } while (row.size() == 1 && row.get(0).isBlank());
+
+            if (row.size() > header.size()) {
+                return new Entry(startLine, null, "列数超过表头定义");
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < row.size(); i++) {
+                values.put(header.get(i), row.get(i));
+            }
+            try {
+                return new Entry(startLine, toRecord(values), null);
+            } catch (IllegalArgumentException e) {
+                return new Entry(startLine, null, e.getMessage());
+            }
+        }
+
+        /**
+         * 读取一行 CSV 记录，处理双引号包裹的字段以及其中的逗号、换行和转义引号
+         *
+         * @return 字段列表，输入结束时返回null
+         */
+        private List<String> readRow() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i >= line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // 引号内的换行属于字段内容
+                    line = reader.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    lineNumber++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        /**
+         * 将列名到字段值的映射转换为批量记录
+         *
+         * @param values 列名到字段值的映射
+         * @return 批量记录
+         * @throws IllegalArgumentException 字段格式错误
+         */
+        private ProductBulkRecordDTO toRecord(Map<String, String> values) {
+            ProductBulkRecordDTO record = new ProductBulkRecordDTO();
+            record.setOp(text(values, "op"));
+            record.setId(parse(values, "id", Long::valueOf));
+            record.setTitle(text(values, "title"));
+            record.setPrice(parse(values, "price", BigDecimal::new));
+            record.setRate(parse(values, "rate", Double::valueOf));
+            record.setDescription(text(values, "description"));
+            record.setCover(text(values, "cover"));
+            record.setDetail(text(values, "detail"));
+            record.setAmount(parse(values, "amount", Integer::valueOf));
+
+            String specifications = text(values, "specifications");
+            if (specifications != null) {
+                List<SpecificationDTO> specs = new ArrayList<>();
+                for (String pair : specifications.split(";")) {
+                    if (pair.isBlank()) {
+                        continue;
+                    }
+                    int separator = pair.indexOf(':');
+                    if (separator < 0) {
+                        throw new IllegalArgumentException("规格格式错误: " + pair);
+                    }
+                    SpecificationDTO spec = new SpecificationDTO();
+                    spec.setItem(pair.substring(0, separator).trim());
+                    spec.setValue(pair.substring(separator + 1).trim());
+                    specs.add(spec);
+                }
+                record.setSpecifications(specs);
+            }
+            return record;
+        }
+
+        private String text(Map<String, String> values, String column) {
+            String value = values.get(column);
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        private <T> T parse(Map<String, String> values, String column, Function<String, T> parser) {
+            String value = text(values, column);
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return parser.apply(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("字段 " + column + " 格式错误: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.tomato.tomato_mall.util;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+/**
+ * 商品向量检索过滤条件构建器
+ * <p>
+ * 将价格、评分区间转换为向量数据库的元数据过滤表达式，
+ * 检索时由向量数据库在相似度搜索中直接过滤，而不是先多取结果再由调用方筛选。
+ * 条件依赖文档元数据中以数字形式保存的 price 和 rate 字段。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see DocumentConverter
+ */
+public class ProductFilterBuilder {
+
+    private final FilterExpressionBuilder builder = new FilterExpressionBuilder();
+    private final List<FilterExpressionBuilder.Op> conditions = new ArrayList<>();
+
+    /**
+     * 创建空的过滤条件构建器
+     *
+     * @return 构建器实例
+     */
+    public static ProductFilterBuilder create() {
+        return new ProductFilterBuilder();
+    }
+
+    /**
+     * 最低价格（含）
+     *
+     * @param minPrice 最低价格，为null时忽略
+     * @return 当前构建器
+     */
+    public ProductFilterBuilder minPrice(BigDecimal minPrice) {
+        if (minPrice != null) {
+            conditions.add(builder.gte("price", minPrice.doubleValue()));
+        }
+        return this;
+    }
+
+    /**
+     * 最高价格（含）
+     *
+     * @param maxPrice 最高价格，为null时忽略
+     * @return 当前构建器
+     */
+    public ProductFilterBuilder maxPrice(BigDecimal maxPrice) {
+        if (maxPrice != null) {
+            conditions.add(builder.lte("price", maxPrice.doubleValue()));
+        }
+        return this;
+    }
+
+    /**
+     * 最低评分（含）
+     *
+     * @param minRate 最低评分，为null时忽略
+     * @return 当前构建器
+     */
+    public ProductFilterBuilder minRate(Double minRate) {
+        if (minRate != null) {
+            conditions.add(builder.gte("rate", minRate));
+        }
+        return this;
+    }
+
+    /**
+     * 最高评分（含）
+     *
+     * @param maxRate 最高评分，为null时忽略
+     * @return 当前构建器
+     */
+    public ProductFilterBuilder maxRate(Double maxRate) {
+        if (maxRate != null) {
+            conditions.add(builder.lte("rate", maxRate));
+        }
+        return this;
+    }
+
+    /**
+     * 生成过滤表达式
+     *
+     * @return 所有条件以 AND 连接的表达式，没有任何条件时返回null
+     */
+    public Filter.Expression build() {
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        FilterExpressionBuilder.Op combined = conditions.get(0);
+        for (int i = 1; i < conditions.size(); i++) {
+            combined = builder.and(combined, conditions.get(i));
+        }
+        return combined.build();
+    }
+}
@@ -0,0 +1,268 @@
+package com.tomato.tomato_mall.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tomato.tomato_mall.enums.VectorQuantizationEnum;
+import com.tomato.tomato_mall.properties.VectorQuantizationProperties;
+
+/**
+ * 使用量化索引检索的 pgvector 向量存储
+ * <p>
+ * 向量表中仍保存全精度向量，写入和删除直接委托给自动配置的 {@link VectorStore}；
+ * 检索时在全精度向量的半精度或二值表达式上建立 HNSW 索引，先通过量化索引取出
+ * topK 乘以放大倍数的候选，再按全精度余弦距离重排并截取前 topK 条。
+ * 索引只保存量化后的向量，从而显著降低 HNSW 索引的内存占用。
+ * </p>
+ * <p>
+ * 该实现假定向量存储使用余弦距离，与 {@code spring.ai.vectorstore.pgvector.distance-type} 的配置保持一致。
+ * 元数据过滤条件与 pgvector 向量存储的写法相同，在取候选时一同执行。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class QuantizedPgVectorStore implements VectorStore, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(QuantizedPgVectorStore.class);
+
+    /**
+     * 将检索结果行转换为文档，得分为 1 减去余弦距离
+     */
+    private static final RowMapper<Document> DOCUMENT_ROW_MAPPER = (rs, rowNum) -> {
+        double distance = rs.getDouble("distance");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> metadata = new HashMap<>(JsonUtils.fromJson(rs.getString("metadata"), Map.class));
+        metadata.put("distance", distance);
+        return Document.builder()
+                .id(rs.getString("id"))
+                .text(rs.getString("content"))
+                .metadata(metadata)
+                .score(1 - distance)
+                .build();
+    };
+
+    private final VectorStore delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmbeddingModel embeddingModel;
+    private final String schemaName;
+    private final String tableName;
+    private final String qualifiedTableName;
+    private final String indexName;
+    private final int dimensions;
+    private final VectorQuantizationEnum quantization;
+    private final int rerankFactor;
+    private final int efSearch;
+    private final boolean dropFullPrecisionIndex;
+    private final FilterExpressionConverter filterExpressionConverter = new PgVectorFilterExpressionConverter();
+
+    /**
+     * 构造函数
+     *
+     * @param delegate           负责写入和删除的向量存储
+     * @param jdbcTemplate       JDBC操作模板
+     * @param transactionManager 事务管理器，用于在检索事务内设置 HNSW 搜索参数
+     * @param embeddingModel     嵌入模型，用于计算查询文本的向量
+     * @param schemaName         向量表所在的模式
+     * @param tableName          向量表名称
+     * @param dimensions         向量维度
+     * @param properties         量化配置
+     */
+    public QuantizedPgVectorStore(VectorStore delegate, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, EmbeddingModel embeddingModel,
+            String schemaName, String tableName, int dimensions, VectorQuantizationProperties properties) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.embeddingModel = embeddingModel;
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.qualifiedTableName = schemaName + "." + tableName;
+        this.quantization = properties.getQuantization();
+        this.indexName = tableName + "_" + quantization.name().toLowerCase() + "_idx";
+        this.dimensions = dimensions;
+        this.rerankFactor = Math.max(1, properties.getRerankFactor());
+        this.efSearch = properties.getEfSearch();
+        this.dropFullPrecisionIndex = properties.isDropFullPrecisionIndex();
+    }
+
+    /**
+     * 在后台线程中创建量化索引
+     * <p>
+     * HNSW 索引的构建耗时较长，不阻塞应用启动；索引建好之前检索按顺序扫描执行，结果不受影响。
+     * </p>
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (quantization == VectorQuantizationEnum.NONE) {
+            return;
+        }
+        Thread builder = new Thread(() -> {
+            try {
+                createIndexes();
+            } catch (RuntimeException e) {
+                log.error("Failed to build {} index {}", quantization, indexName, e);
+            }
+        }, "quantized-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * 创建量化表达式上的 HNSW 索引
+     * <p>
+     * 使用 {@code CREATE INDEX CONCURRENTLY} 构建，构建期间向量表仍可写入；该语句不能在事务中执行。
+     * 上次构建中断留下的无效索引会先删除再重建，索引已存在且有效时不做任何操作。
+     * 配置要求时，在量化索引建好后删除向量表上的全精度索引以释放内存，全精度索引按向量表从系统目录中查找。
+     * </p>
+     */
+    public void createIndexes() {
+        if (quantization == VectorQuantizationEnum.NONE) {
+            return;
+        }
+        List<Boolean> valid = jdbcTemplate.queryForList("SELECT i.indisvalid FROM pg_index i"
+                + " JOIN pg_class c ON c.oid = i.indexrelid JOIN pg_namespace n ON n.oid = c.relnamespace"
+                + " WHERE n.nspname = ? AND c.relname = ?", Boolean.class, schemaName, indexName);
+        if (valid.contains(Boolean.FALSE)) {
+            log.warn("Rebuilding invalid {} index {}", quantization, indexName);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + schemaName + "." + indexName);
+        }
+        String operatorClass = quantization == VectorQuantizationEnum.HALFVEC ? "halfvec_cosine_ops" : "bit_hamming_ops";
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName + " ON " + qualifiedTableName
+                + " USING hnsw ((" + quantizedColumn() + ") " + operatorClass + ")");
+        if (dropFullPrecisionIndex) {
+            for (String fullPrecisionIndex : fullPrecisionIndexes()) {
+                jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + schemaName + "." + fullPrecisionIndex);
+                log.info("Dropped full-precision vector index {}", fullPrecisionIndex);
+            }
+        }
+        log.info("Vector similarity search uses {} index {}", quantization, indexName);
+    }
+
+    /**
+     * 查询向量表上直接建立在全精度向量列上的近似索引
+     * <p>
+     * 量化索引建立在表达式上，不会被匹配到。
+     * </p>
+     *
+     * @return 全精度索引名称列表
+     */
+    private List<String> fullPrecisionIndexes() {
+        return jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE schemaname = ? AND tablename = ?"
+                + " AND indexdef ~ ?", String.class, schemaName, tableName, " USING (hnsw|ivfflat) \\(embedding ");
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] queryEmbedding = embeddingModel.embed(request.getQuery());
+        return similaritySearch(queryEmbedding, request.getTopK(), request.getSimilarityThreshold(),
+                request.getFilterExpression());
+    }
+
+    /**
+     * 按查询向量检索文档
+     *
+     * @param queryEmbedding      查询向量
+     * @param topK                最多返回的文档数量
+     * @param similarityThreshold 相似度阈值
+     * @param filter              元数据过滤表达式，为null时不过滤
+     * @return 按相似度降序排列的文档列表，文档得分为全精度余弦相似度
+     */
+    public List<Document> similaritySearch(float[] queryEmbedding, int topK, double similarityThreshold,
+            Filter.Expression filter) {
+        String vector = VectorStoreUtil.toVectorLiteral(queryEmbedding);
+        String where = filter == null ? ""
+                : " WHERE metadata::jsonb @@ '" + filterExpressionConverter.convertExpression(filter) + "'::jsonpath";
+        double maxDistance = 1 - similarityThreshold;
+
+        if (quantization == VectorQuantizationEnum.NONE) {
+            String sql = "SELECT * FROM (SELECT id, content, metadata, embedding <=> ?::vector AS distance FROM "
+                    + qualifiedTableName + where + " ORDER BY distance LIMIT ?) c WHERE distance <= ? ORDER BY distance";
+            return search(topK, () -> jdbcTemplate.query(sql, DOCUMENT_ROW_MAPPER, vector, topK, maxDistance));
+        }
+
+        int candidates = topK * rerankFactor;
+        String sql = "SELECT * FROM (SELECT id, content, metadata, embedding <=> ?::vector AS distance FROM "
+                + qualifiedTableName + where + " ORDER BY " + quantizedColumn() + " " + quantizedQuery()
+                + " LIMIT ?) c WHERE distance <= ? ORDER BY distance LIMIT ?";
+        return search(candidates,
+                () -> jdbcTemplate.query(sql, DOCUMENT_ROW_MAPPER, vector, vector, candidates, maxDistance, topK));
+    }
+
+    /**
+     * 在只读事务中执行检索，事务内的 HNSW 候选列表长度不小于需要的候选数量
+     */
+    private List<Document> search(int candidates, Supplier<List<Document>> query) {
+        List<Document> documents = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', ?, true)", String.class,
+                    String.valueOf(Math.min(1000, Math.max(efSearch, candidates))));
+            return query.get();
+        });
+        return documents == null ? List.of() : documents;
+    }
+
+    /**
+     * 索引中使用的量化向量表达式，检索时的排序表达式必须与之完全一致才能使用索引
+     */
+    private String quantizedColumn() {
+        return quantization == VectorQuantizationEnum.HALFVEC
+                ? "embedding::halfvec(" + dimensions + ")"
+                : "binary_quantize(embedding)::bit(" + dimensions + ")";
+    }
+
+    /**
+     * 与量化向量表达式对应的距离运算符和查询参数
+     */
+    private String quantizedQuery() {
+        return quantization == VectorQuantizationEnum.HALFVEC
+                ? "<=> ?::halfvec(" + dimensions + ")"
+                : "<~> binary_quantize(?::vector)";
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        @SuppressWarnings("unchecked")
+        T client = (T) jdbcTemplate;
+        return Optional.of(client);
+    }
+}
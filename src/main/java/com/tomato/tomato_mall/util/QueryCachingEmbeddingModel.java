@@ -0,0 +1,121 @@
+package com.tomato.tomato_mall.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tomato.tomato_mall.properties.AssistantCacheProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * 带进程内查询缓存的嵌入模型
+ * <p>
+ * 向量存储检索时通过 {@link #embed(String)} 嵌入单条查询，该方法先将查询规范化
+ * （Unicode NFKC、去除首尾空白、合并连续空白、英文转小写），再以规范化后的文本为键
+ * 在有界的进程内缓存中查找，未命中时直接调用查询嵌入模型并写入缓存。
+ * 写法略有不同的重复提问因此只嵌入一次；查询文本只在进程内缓存，过期后丢弃，不会写入持久化缓存。
+ * 需要同时嵌入多条查询时使用 {@link #embedQueries(List)}，未命中的查询合并为一次批量请求。
+ * </p>
+ * <p>
+ * 文档写入走批量嵌入接口，原样交给文档嵌入模型（带持久化缓存），不经过该缓存。
+ * 缓存命中情况以 {@code cache.*{cache=query-embedding}} 指标导出。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class QueryCachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingModel queryDelegate;
+    private final Cache<String, float[]> cache;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate      文档嵌入模型，用于批量嵌入文档
+     * @param queryDelegate 查询嵌入模型，用于嵌入未命中缓存的单条查询
+     * @param properties    缓存配置
+     * @param meterRegistry 指标注册表，用于记录缓存命中情况
+     */
+    public QueryCachingEmbeddingModel(EmbeddingModel delegate, EmbeddingModel queryDelegate,
+            AssistantCacheProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.queryDelegate = queryDelegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getQueryEmbeddingMaxSize())
+                .expireAfterAccess(properties.getQueryEmbeddingTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "query-embedding");
+    }
+
+    @Override
+    public float[] embed(String text) {
+        String normalized = normalize(text);
+        return cache.get(normalized, queryDelegate::embed);
+    }
+
+    /**
+     * 批量嵌入多条查询
+     * <p>
+     * 与 {@link #embed(String)} 共用进程内缓存，规范化后未命中缓存的查询去重后一次性提交给查询嵌入模型。
+     * </p>
+     *
+     * @param texts 查询文本列表
+     * @return 与查询文本一一对应的嵌入向量
+     */
+    public List<float[]> embedQueries(List<String> texts) {
+        List<String> keys = texts.stream().map(QueryCachingEmbeddingModel::normalize).toList();
+        Map<String, float[]> vectors = cache.getAll(keys, missing -> {
+            List<String> misses = new ArrayList<>(missing);
+            List<float[]> embeddings = queryDelegate.embed(misses);
+            Map<String, float[]> loaded = new HashMap<>();
+            for (int i = 0; i < misses.size(); i++) {
+                loaded.put(misses.get(i), embeddings.get(i));
+            }
+            return loaded;
+        });
+        return keys.stream().map(vectors::get).toList();
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * 规范化查询文本，作为缓存键
+     *
+     * @param text 查询文本
+     * @return 规范化后的文本
+     */
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .strip()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+}
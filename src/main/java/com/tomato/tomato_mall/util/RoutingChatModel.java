@@ -0,0 +1,355 @@
+package com.tomato.tomato_mall.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+
+import com.tomato.tomato_mall.properties.ChatRoutingProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 主备路由聊天模型
+ * <p>
+ * 流式请求先发给主模型，主模型的首个片段在对冲等待时间内没有到达时，再向备用模型发出同样的请求，
+ * 采用先返回首个片段的一方并取消另一方。对冲等待时间取主模型最近若干次首个片段延迟的分位数
+ * （默认 p95），并限制在配置的上下限之间，因此只有约 5% 的请求会产生额外调用。
+ * 主模型在返回任何片段之前出错时立即切换到备用模型；已经返回片段后出错则直接结束，不会重复输出。
+ * </p>
+ * <p>
+ * 每个模型各有一个熔断器：连续失败达到阈值后熔断，熔断期间请求直接发给另一个模型，
+ * 熔断时间结束后放行一个试探请求，成功则恢复。非流式请求不做对冲，只在出错时切换。
+ * 两个模型都不可用时抛出 {@link ProviderUnavailableException}。
+ * </p>
+ * <p>
+ * 默认选项不指定模型名称，各模型使用自己配置的模型。
+ * 对冲和切换次数记录在 {@code ai.chat.routing.secondary} 指标中（reason 为 hedge 或 failover），
+ * 各模型的调用结果、胜出次数和熔断状态分别记录在 {@code ai.chat.provider.calls}、
+ * {@code ai.chat.routing.wins} 和 {@code ai.chat.provider.circuit}（0 关闭、1 熔断、2 试探）中，
+ * 当前的对冲等待时间记录在 {@code ai.chat.routing.hedge.delay}。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class RoutingChatModel implements ChatModel {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingChatModel.class);
+
+    private final Provider primary;
+    private final Provider secondary;
+    private final ChatRoutingProperties properties;
+    private final LatencyWindow primaryLatency;
+    private final Counter hedgeCounter;
+    private final Counter failoverCounter;
+
+    /**
+     * 构造函数
+     *
+     * @param primary       主模型
+     * @param secondary     备用模型
+     * @param properties    路由配置
+     * @param meterRegistry 指标注册表，用于记录对冲、切换和熔断情况
+     */
+    public RoutingChatModel(ChatModel primary, ChatModel secondary, ChatRoutingProperties properties,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.primary = new Provider("primary", primary, properties, meterRegistry);
+        this.secondary = new Provider("secondary", secondary, properties, meterRegistry);
+        this.primaryLatency = new LatencyWindow(properties.getLatencySamples());
+        this.hedgeCounter = Counter.builder("ai.chat.routing.secondary").tag("reason", "hedge")
+                .register(meterRegistry);
+        this.failoverCounter = Counter.builder("ai.chat.routing.secondary").tag("reason", "failover")
+                .register(meterRegistry);
+        Gauge.builder("ai.chat.routing.hedge.delay", this, model -> model.hedgeDelay().toMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return ToolCallingChatOptions.builder().build();
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        RuntimeException failure = null;
+        for (Provider provider : new Provider[] { primary, secondary }) {
+            if (!provider.breaker.tryAcquire()) {
+                continue;
+            }
+            if (provider == secondary) {
+                failoverCounter.increment();
+            }
+            try {
+                ChatResponse response = provider.model.call(prompt);
+                provider.succeeded();
+                return response;
+            } catch (RuntimeException e) {
+                provider.failed(e);
+                failure = e;
+            }
+        }
+        throw failure != null ? failure : new ProviderUnavailableException();
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            AtomicBoolean decided = new AtomicBoolean();
+            AtomicBoolean primaryEnded = new AtomicBoolean();
+            Sinks.Empty<Void> failover = Sinks.empty();
+            Flux<ChatResponse> first = attempt(primary, prompt, decided)
+                    .doOnError(e -> endPrimary(primaryEnded, failover))
+                    .doOnComplete(() -> endPrimary(primaryEnded, failover));
+            Mono<Void> trigger = properties.isHedgeEnabled()
+                    ? Mono.firstWithSignal(Mono.delay(hedgeDelay()).then(), failover.asMono())
+                    : failover.asMono();
+            Flux<ChatResponse> second = Flux.defer(() -> {
+                (primaryEnded.get() ? failoverCounter : hedgeCounter).increment();
+                return attempt(secondary, prompt, decided);
+            }).delaySubscription(trigger);
+            // 两个模型都没有返回片段时，以主模型的错误结束
+            return Flux.firstWithValue(first, second)
+                    .onErrorMap(NoSuchElementException.class, e -> e.getCause() != null
+                            ? Exceptions.unwrapMultiple(e.getCause()).get(0)
+                            : e);
+        });
+    }
+
+    /**
+     * 当前的对冲等待时间
+     *
+     * @return 主模型首个片段延迟的分位数，样本不足时为配置的默认值
+     */
+    public Duration hedgeDelay() {
+        long nanos = primaryLatency.percentile(properties.getHedgePercentile(), properties.getMinLatencySamples());
+        if (nanos < 0) {
+            return properties.getHedgeDelay();
+        }
+        long min = properties.getMinHedgeDelay().toNanos();
+        long max = properties.getMaxHedgeDelay().toNanos();
+        return Duration.ofNanos(Math.min(max, Math.max(min, nanos)));
+    }
+
+    /**
+     * 主模型没有返回片段就结束时立即向备用模型发出请求
+     */
+    private static void endPrimary(AtomicBoolean primaryEnded, Sinks.Empty<Void> failover) {
+        primaryEnded.set(true);
+        failover.tryEmitEmpty();
+    }
+
+    /**
+     * 向单个模型发出流式请求，记录首个片段延迟、胜出情况和熔断结果
+     */
+    private Flux<ChatResponse> attempt(Provider provider, Prompt prompt, AtomicBoolean decided) {
+        return Flux.defer(() -> {
+            if (!provider.breaker.tryAcquire()) {
+                return Flux.error(new ProviderUnavailableException());
+            }
+            long start = System.nanoTime();
+            AtomicBoolean firstChunk = new AtomicBoolean(true);
+            return provider.model.stream(prompt)
+                    .doOnNext(response -> {
+                        if (firstChunk.getAndSet(false)) {
+                            if (provider == primary) {
+                                primaryLatency.record(System.nanoTime() - start);
+                            }
+                            if (decided.compareAndSet(false, true)) {
+                                provider.wins.increment();
+                            }
+                            provider.succeeded();
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (firstChunk.get()) {
+                            provider.succeeded();
+                        }
+                    })
+                    .doOnError(provider::failed)
+                    .doOnCancel(() -> {
+                        if (firstChunk.get()) {
+                            // 被对冲请求取代时主模型尚未返回片段，按已等待的时间计入延迟样本；
+                            // 调用方自行取消时没有模型胜出，等待时间不代表主模型延迟
+                            if (provider == primary && decided.get()) {
+                                primaryLatency.record(System.nanoTime() - start);
+                            }
+                            provider.cancelled();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * 没有可用模型时抛出的异常
+     */
+    public static class ProviderUnavailableException extends RuntimeException {
+
+        public ProviderUnavailableException() {
+            super("No chat model provider available");
+        }
+    }
+
+    /**
+     * 单个模型及其熔断器
+     */
+    private static final class Provider {
+
+        private final String name;
+        private final ChatModel model;
+        private final CircuitBreaker breaker;
+        private final Counter successCounter;
+        private final Counter failureCounter;
+        private final Counter cancelledCounter;
+        private final Counter wins;
+
+        private Provider(String name, ChatModel model, ChatRoutingProperties properties,
+                MeterRegistry meterRegistry) {
+            this.name = name;
+            this.model = model;
+            this.breaker = new CircuitBreaker(properties.getFailureThreshold(), properties.getOpenDuration());
+            this.successCounter = Counter.builder("ai.chat.provider.calls").tag("provider", name)
+                    .tag("result", "success").register(meterRegistry);
+            this.failureCounter = Counter.builder("ai.chat.provider.calls").tag("provider", name)
+                    .tag("result", "failure").register(meterRegistry);
+            this.cancelledCounter = Counter.builder("ai.chat.provider.calls").tag("provider", name)
+                    .tag("result", "cancelled").register(meterRegistry);
+            this.wins = Counter.builder("ai.chat.routing.wins").tag("provider", name).register(meterRegistry);
+            Gauge.builder("ai.chat.provider.circuit", breaker, CircuitBreaker::state).tag("provider", name)
+                    .register(meterRegistry);
+        }
+
+        private void succeeded() {
+            successCounter.increment();
+            breaker.onSuccess();
+        }
+
+        private void failed(Throwable error) {
+            if (error instanceof ProviderUnavailableException) {
+                return;
+            }
+            failureCounter.increment();
+            if (breaker.onFailure()) {
+                log.warn("Chat model provider {} circuit opened", name, error);
+            }
+        }
+
+        private void cancelled() {
+            cancelledCounter.increment();
+            breaker.onCancel();
+        }
+    }
+
+    /**
+     * 连续失败计数熔断器
+     */
+    private static final class CircuitBreaker {
+
+        private static final int CLOSED = 0;
+        private static final int OPEN = 1;
+        private static final int HALF_OPEN = 2;
+
+        private final int failureThreshold;
+        private final long openNanos;
+        private int state = CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        private CircuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openDuration.toNanos();
+        }
+
+        private synchronized boolean tryAcquire() {
+            if (state == OPEN && System.nanoTime() - openedAt >= openNanos) {
+                state = HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (state == HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            }
+            return state == CLOSED;
+        }
+
+        private synchronized void onSuccess() {
+            state = CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+
+        /**
+         * @return 本次失败是否导致熔断
+         */
+        private synchronized boolean onFailure() {
+            if (state == HALF_OPEN || (++consecutiveFailures >= failureThreshold && state == CLOSED)) {
+                state = OPEN;
+                openedAt = System.nanoTime();
+                trialInFlight = false;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void onCancel() {
+            trialInFlight = false;
+        }
+
+        private synchronized int state() {
+            return state;
+        }
+    }
+
+    /**
+     * 最近若干次延迟的环形缓冲区
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples;
+        private int count;
+        private int next;
+
+        private LatencyWindow(int size) {
+            this.samples = new long[Math.max(1, size)];
+        }
+
+        private synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * @return 分位数（纳秒），样本数不足时返回 -1
+         */
+        private synchronized long percentile(double percentile, int minSamples) {
+            if (count == 0 || count < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.tomato.tomato_mall.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 本地模拟聊天模型
+ * <p>
+ * 不访问任何外部接口，按配置的延迟返回固定的回复，用于在本地验证对冲请求、故障切换和熔断。
+ * 首个片段延迟、片段间隔和失败概率可以在运行时修改，修改对之后的调用生效。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class StubChatModel implements ChatModel {
+
+    /**
+     * 每个片段的字符数
+     */
+    private static final int CHUNK_CHARS = 2;
+
+    private final String reply;
+    private volatile Duration firstTokenLatency;
+    private volatile Duration tokenInterval;
+    private volatile double failureRate;
+
+    /**
+     * 构造函数
+     *
+     * @param reply             固定返回的回复
+     * @param firstTokenLatency 返回首个片段前的延迟
+     * @param tokenInterval     相邻片段之间的间隔
+     * @param failureRate       返回错误的概率
+     */
+    public StubChatModel(String reply, Duration firstTokenLatency, Duration tokenInterval, double failureRate) {
+        this.reply = reply;
+        this.firstTokenLatency = firstTokenLatency;
+        this.tokenInterval = tokenInterval;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Duration latency = firstTokenLatency;
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stub chat model interrupted", e);
+        }
+        if (shouldFail()) {
+            throw new IllegalStateException("Stub chat model failure");
+        }
+        return response(reply);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        Duration latency = firstTokenLatency;
+        Duration interval = tokenInterval;
+        return Mono.delay(latency).flatMapMany(tick -> {
+            if (shouldFail()) {
+                return Flux.error(new IllegalStateException("Stub chat model failure"));
+            }
+            List<String> chunks = chunks();
+            return Flux.fromIterable(chunks.subList(1, chunks.size()))
+                    .delayElements(interval)
+                    .startWith(chunks.get(0))
+                    .map(StubChatModel::response);
+        });
+    }
+
+    public void setFirstTokenLatency(Duration firstTokenLatency) {
+        this.firstTokenLatency = firstTokenLatency;
+    }
+
+    public void setTokenInterval(Duration tokenInterval) {
+        this.tokenInterval = tokenInterval;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    private boolean shouldFail() {
+        return failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate;
+    }
+
+    private List<String> chunks() {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < reply.length(); i += CHUNK_CHARS) {
+            chunks.add(reply.substring(i, Math.min(reply.length(), i + CHUNK_CHARS)));
+        }
+        if (chunks.isEmpty()) {
+            chunks.add("");
+        }
+        return chunks;
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
@@ -0,0 +1,319 @@
+package com.tomato.tomato_mall.util;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tomato.tomato_mall.properties.ChatMemoryStoreProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * 分层聊天记忆存储
+ * <p>
+ * 包装基于数据库的聊天记忆，活跃对话的最近消息保存在进程内缓存中，缓存按消息字符总数限制大小，
+ * 超过空闲时间未访问或超出容量的对话移出缓存，再次访问时才从数据库加载。
+ * 新消息先进入待写队列，由后台线程按 {@code flushInterval} 分对话批量写入数据库；
+ * 积压达到 {@code maxPendingMessages} 时由写入消息的线程立即写入，应用关闭时写入全部积压消息。
+ * 进程异常退出时最多丢失一个写入间隔内的消息。
+ * </p>
+ * <p>
+ * 同一对话的读取和追加在同一把分段锁内进行，从数据库加载时会合并尚未写入和正在写入的消息，
+ * 因此读到的内容总是包含已追加的全部消息。写入数据库时不持有锁，写入失败的消息放回队列头部，下一次写入时重试。
+ * </p>
+ * <p>
+ * 数据库中的消息只按写入时间排序，列默认值取数据库的当前时间，同一条语句插入的多行时间相同。
+ * 因此积压消息通过一次批量插入写入，并为每条消息显式指定严格递增的时间，重新加载时问答顺序不会错乱。
+ * </p>
+ * <p>
+ * 缓存命中率记录在名为 {@code chat-memory} 的缓存指标中，
+ * 积压消息数和写入情况分别记录在 {@code ai.chat.memory.pending.messages}、
+ * {@code ai.chat.memory.flushed.messages} 和 {@code ai.chat.memory.flush.time} 指标中。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+public class TieredChatMemory implements ChatMemory, InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredChatMemory.class);
+
+    /**
+     * 分段锁数量
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private static final String INSERT_SQL = "INSERT INTO ai_chat_memory (conversation_id, content, type, \"timestamp\")"
+            + " VALUES (?, ?, ?, ?)";
+
+    private final ChatMemory delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+    private final int maxPendingMessages;
+    private final long flushIntervalMillis;
+    private final Cache<String, Deque<Message>> recent;
+    private final Map<String, List<Message>> pending = new ConcurrentHashMap<>();
+    private final Map<String, List<Message>> writing = new ConcurrentHashMap<>();
+    private final AtomicLong lastTimestampMicros = new AtomicLong();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Counter flushedMessages;
+    private final Counter failedMessages;
+    private final Timer flushTime;
+
+    private ScheduledExecutorService flushExecutor;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate      基于数据库的聊天记忆，用于读取和清除消息
+     * @param jdbcTemplate  JDBC操作模板，用于批量写入消息
+     * @param properties    分层存储配置
+     * @param meterRegistry 指标注册表，用于记录缓存命中率和写入情况
+     */
+    public TieredChatMemory(ChatMemory delegate, JdbcTemplate jdbcTemplate, ChatMemoryStoreProperties properties,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = properties.getMessagesPerConversation();
+        this.maxPendingMessages = properties.getMaxPendingMessages();
+        this.flushIntervalMillis = properties.getFlushInterval().toMillis();
+        this.recent = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxCachedCharacters())
+                .weigher((String conversationId, Deque<Message> messages) -> weigh(messages))
+                .expireAfterAccess(properties.getIdleTimeout())
+                .recordStats()
+                .build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "chat-memory");
+        Gauge.builder("ai.chat.memory.pending.messages", pendingCount, AtomicInteger::get).register(meterRegistry);
+        this.flushedMessages = Counter.builder("ai.chat.memory.flushed.messages").tag("result", "success")
+                .register(meterRegistry);
+        this.failedMessages = Counter.builder("ai.chat.memory.flushed.messages").tag("result", "failure")
+                .register(meterRegistry);
+        this.flushTime = Timer.builder("ai.chat.memory.flush.time").register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-memory-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        flush();
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int backlog;
+        synchronized (lockFor(conversationId)) {
+            pending.computeIfAbsent(conversationId, key -> new ArrayList<>()).addAll(messages);
+            backlog = pendingCount.addAndGet(messages.size());
+            Deque<Message> cached = recent.getIfPresent(conversationId);
+            if (cached != null) {
+                cached.addAll(messages);
+                trim(cached, capacity);
+                recent.put(conversationId, cached); // 重新计算缓存权重
+            }
+        }
+        if (backlog >= maxPendingMessages) {
+            flush();
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        if (lastN <= 0) {
+            return List.of();
+        }
+        synchronized (lockFor(conversationId)) {
+            if (lastN > capacity) {
+                return List.copyOf(load(conversationId, lastN));
+            }
+            Deque<Message> cached = recent.getIfPresent(conversationId);
+            if (cached == null) {
+                cached = load(conversationId, capacity);
+                recent.put(conversationId, cached);
+            }
+            List<Message> messages = new ArrayList<>(cached);
+            return List.copyOf(messages.subList(Math.max(0, messages.size() - lastN), messages.size()));
+        }
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        synchronized (lockFor(conversationId)) {
+            List<Message> discarded = pending.remove(conversationId);
+            if (discarded != null) {
+                pendingCount.addAndGet(-discarded.size());
+            }
+            if (writing.containsKey(conversationId)) {
+                // 正在写入的消息写完后由写入线程再次清除，清除前不写入该对话的新消息
+                writing.put(conversationId, List.of());
+            }
+            recent.invalidate(conversationId);
+            delegate.clear(conversationId);
+        }
+    }
+
+    /**
+     * 将所有尚未写入的消息写入数据库
+     * <p>
+     * 每个对话的积压消息通过一次批量插入写入，某个对话写入失败不影响其他对话。
+     * 同一对话上一批消息仍在写入时跳过该对话，留到下一次写入，保证写入顺序与追加顺序一致。
+     * </p>
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (String conversationId : List.copyOf(pending.keySet())) {
+            flush(conversationId);
+        }
+        flushTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void flush(String conversationId) {
+        List<Message> messages;
+        List<Object[]> rows;
+        synchronized (lockFor(conversationId)) {
+            if (writing.containsKey(conversationId)) {
+                return;
+            }
+            messages = pending.remove(conversationId);
+            if (messages == null) {
+                return;
+            }
+            writing.put(conversationId, messages);
+            rows = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                rows.add(new Object[] { conversationId, message.getText(), message.getMessageType().name(),
+                        nextTimestamp() });
+            }
+        }
+
+        RuntimeException failure = null;
+        try {
+            // 写入数据库时不持有对话的锁
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        boolean cleared;
+        synchronized (lockFor(conversationId)) {
+            cleared = writing.get(conversationId) != messages;
+            if (failure != null && !cleared) {
+                // 未写入的消息放回队列头部，下一次写入时重试
+                List<Message> requeued = new ArrayList<>(messages);
+                requeued.addAll(pending.getOrDefault(conversationId, List.of()));
+                pending.put(conversationId, requeued);
+            }
+            if (!cleared || failure != null) {
+                writing.remove(conversationId);
+            }
+        }
+        if (failure == null && cleared) {
+            // 写入期间对话被清除，删除刚写入的消息后再允许写入新消息
+            try {
+                delegate.clear(conversationId);
+            } finally {
+                writing.remove(conversationId);
+            }
+        }
+        if (failure != null) {
+            failedMessages.increment(messages.size());
+            if (cleared) {
+                pendingCount.addAndGet(-messages.size());
+            }
+            log.warn("Failed to write {} chat memory messages of conversation {}", messages.size(), conversationId,
+                    failure);
+            return;
+        }
+        pendingCount.addAndGet(-messages.size());
+        flushedMessages.increment(messages.size());
+    }
+
+    /**
+     * 生成严格递增的消息写入时间，精度与数据库时间列一致（微秒）
+     */
+    private Timestamp nextTimestamp() {
+        long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        long micros = lastTimestampMicros.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
+        return Timestamp.from(Instant.EPOCH.plus(micros, ChronoUnit.MICROS));
+    }
+
+    /**
+     * 从数据库加载最近的消息并合并尚未写入的消息，调用方需持有对话的锁
+     */
+    private Deque<Message> load(String conversationId, int lastN) {
+        Deque<Message> messages = new ArrayDeque<>(delegate.get(conversationId, lastN));
+        messages.addAll(writing.getOrDefault(conversationId, List.of()));
+        messages.addAll(pending.getOrDefault(conversationId, List.of()));
+        trim(messages, lastN);
+        return messages;
+    }
+
+    private Object lockFor(String conversationId) {
+        return locks[Math.floorMod(conversationId.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * 对话在缓存中的权重，即消息字符总数
+     */
+    private static int weigh(Deque<Message> messages) {
+        long characters = 0;
+        for (Message message : messages) {
+            characters += message.getText() == null ? 1 : message.getText().length() + 1;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, characters);
+    }
+
+    private static void trim(Deque<Message> messages, int size) {
+        while (messages.size() > size) {
+            messages.removeFirst();
+        }
+    }
+}
@@ -1,14 +1,32 @@
 package com.tomato.tomato_mall.util;
 
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
 import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import com.tomato.tomato_mall.entity.Product;
 
 /**
  * 与向量数据库交互的工具类
+ * <p>
+ * 商品文档的元数据中保存了文档文本的内容指纹。更新商品向量时，
+ * 文本未发生变化的商品（如只修改了价格或封面）只原地更新元数据，
+ * 不会重新生成嵌入，也不会删除重建向量索引中的条目。
+ * </p>
  * 
  * @author Team CBDDL
  * @version 1.0
@@ -16,10 +34,33 @@ import com.tomato.tomato_mall.entity.Product;
 @Component
 public class VectorStoreUtil {
 
+    /**
+     * 可以安全转换为 numeric 的字符串格式
+     */
+    private static final String NUMERIC_PATTERN = "^\\s*[-+]?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)([eE][-+]?[0-9]+)?\\s*$";
+
     private final VectorStore vectorStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final String schemaName;
+    private final String tableName;
+    private final String qualifiedTableName;
 
-    public VectorStoreUtil(VectorStore vectorStore) {
+    /**
+     * 构造函数，通过依赖注入初始化工具类
+     * 
+     * @param vectorStore  向量存储
+     * @param jdbcTemplate JDBC操作模板，用于直接读取和更新向量表中的元数据
+     * @param schemaName   向量表所在的模式
+     * @param tableName    向量表名称
+     */
+    public VectorStoreUtil(VectorStore vectorStore, JdbcTemplate jdbcTemplate,
+            @Value("${spring.ai.vectorstore.pgvector.schema-name:public}") String schemaName,
+            @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String tableName) {
         this.vectorStore = vectorStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.qualifiedTableName = schemaName + "." + tableName;
     }
 
     /**
@@ -35,6 +76,47 @@ public class VectorStoreUtil {
         vectorStore.add(documents);
     }
 
+    /**
+     * 将多个商品信息批量注入向量数据库
+     * <p>
+     * 所有商品的文档在一次调用中提交，由向量存储按批次生成嵌入向量，
+     * 避免逐个商品发起嵌入请求。
+     * </p>
+     * 
+     * @param products 商品对象列表，规格信息需已加载
+     */
+    public void addProductVectors(List<Product> products) {
+        if (products == null || products.isEmpty())
+            return;
+        vectorStore.add(DocumentConverter.convertToDocuments(products));
+    }
+
+    /**
+     * 按语义相似度检索商品文档
+     * <p>
+     * 过滤条件在向量数据库中与相似度搜索一同执行，返回的结果均满足过滤条件。
+     * </p>
+     * 
+     * @param query               查询文本
+     * @param topK                最多返回的文档数量
+     * @param similarityThreshold 相似度阈值
+     * @param filter              元数据过滤表达式，为null时不过滤
+     * @return 按相似度降序排列的文档列表
+     * @see ProductFilterBuilder
+     */
+    public List<Document> searchProducts(String query, int topK, double similarityThreshold,
+            Filter.Expression filter) {
+        SearchRequest.Builder builder = SearchRequest.builder()
+                .query(query)
+                .topK(topK)
+                .similarityThreshold(similarityThreshold);
+        if (filter != null) {
+            builder.filterExpression(filter);
+        }
+        List<Document> documents = vectorStore.similaritySearch(builder.build());
+        return documents == null ? List.of() : documents;
+    }
+
     /**
      * 从向量数据库中移除指定ID的商品信息
      * 
@@ -53,15 +135,347 @@ public class VectorStoreUtil {
     }
 
     /**
-     * 更新向量数据库中的商品信息（先删除后添加）
+     * 从向量数据库中批量移除多个商品信息
+     * 
+     * @param productIds 商品ID列表
+     */
+    public void removeProductVectors(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty())
+            return;
+
+        List<String> ids = productIds.stream().map(String::valueOf).collect(Collectors.toList());
+        Filter.Expression expression = new Filter.Expression(
+                Filter.ExpressionType.IN,
+                new Filter.Key("id"),
+                new Filter.Value(ids));
+        vectorStore.delete(expression);
+    }
+
+    /**
+     * 批量更新向量数据库中的商品信息
+     * <p>
+     * 对比已存储文档的内容指纹：文本未变化的商品只更新元数据；
+     * 文本已变化或尚未写入的商品先批量删除后批量添加。
+     * </p>
+     * 
+     * @param products 商品对象列表，规格信息需已加载
+     */
+    public void updateProductVectors(List<Product> products) {
+        if (products == null || products.isEmpty())
+            return;
+
+        List<Document> documents = DocumentConverter.convertToDocuments(products);
+        Map<String, String[]> stored = findStoredDocuments(
+                documents.stream().map(document -> (String) document.getMetadata().get("id")).toList());
+
+        List<Document> unchanged = new ArrayList<>();
+        List<Document> changed = new ArrayList<>();
+        for (Document document : documents) {
+            String[] existing = stored.get((String) document.getMetadata().get("id"));
+            Object hash = document.getMetadata().get(DocumentConverter.CONTENT_HASH_KEY);
+            if (existing != null && hash.equals(existing[1])) {
+                unchanged.add(new Document(existing[0], document.getText(), document.getMetadata()));
+            } else {
+                changed.add(document);
+            }
+        }
+
+        updateMetadata(unchanged);
+        if (!changed.isEmpty()) {
+            removeProductVectors(changed.stream()
+                    .map(document -> Long.valueOf((String) document.getMetadata().get("id")))
+                    .collect(Collectors.toList()));
+            vectorStore.add(changed);
+        }
+    }
+
+    /**
+     * 更新向量数据库中的商品信息
      * 
      * @param product 商品对象
+     * @see #updateProductVectors(List)
      */
     public void updateProductVector(Product product) {
         if (product == null || product.getId() == null)
             return;
-        // 注意：某些 VectorStore 可能提供更高效的更新方法
-        removeProductVector(product.getId());
-        addProductVector(product);
+        updateProductVectors(List.of(product));
+    }
+
+    /**
+     * 查询商品已存储文档的ID和内容指纹
+     * <p>
+     * 同一商品存在多个文档时视为需要重建，不返回该商品。
+     * </p>
+     * 
+     * @param productIds 商品ID列表（字符串形式，与文档元数据一致）
+     * @return 商品ID到 [文档ID, 内容指纹] 的映射
+     */
+    private Map<String, String[]> findStoredDocuments(List<String> productIds) {
+        Map<String, String[]> stored = new HashMap<>();
+        Set<String> duplicated = new HashSet<>();
+        if (vectorStore instanceof HnswVectorStore embedded) {
+            embedded.findDocuments(new Filter.Expression(Filter.ExpressionType.IN, new Filter.Key("id"),
+                    new Filter.Value(productIds))).forEach(document -> {
+                        String productId = (String) document.getMetadata().get("id");
+                        Object hash = document.getMetadata().get(DocumentConverter.CONTENT_HASH_KEY);
+                        if (stored.put(productId, new String[] { document.getId(),
+                                hash == null ? null : hash.toString() }) != null) {
+                            duplicated.add(productId);
+                        }
+                    });
+        } else {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT id::text, metadata->>'id', metadata->>'" + DocumentConverter.CONTENT_HASH_KEY
+                                + "' FROM " + qualifiedTableName + " WHERE metadata->>'id' = ANY(?)");
+                statement.setArray(1, connection.createArrayOf("text", productIds.toArray()));
+                return statement;
+            }, resultSet -> {
+                String productId = resultSet.getString(2);
+                if (stored.put(productId, new String[] { resultSet.getString(1), resultSet.getString(3) }) != null) {
+                    duplicated.add(productId);
+                }
+            });
+        }
+        duplicated.forEach(stored::remove);
+        return stored;
+    }
+
+    /**
+     * 原地更新文档的元数据，不改动内容和嵌入向量
+     * 
+     * @param documents 携带已存储文档ID的文档列表
+     */
+    private void updateMetadata(List<Document> documents) {
+        if (documents.isEmpty())
+            return;
+        if (vectorStore instanceof HnswVectorStore embedded) {
+            documents.forEach(document -> embedded.updateMetadata(document.getId(), document.getMetadata()));
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE " + qualifiedTableName + " SET metadata = ?::jsonb WHERE id = ?::uuid",
+                documents.stream()
+                        .map(document -> new Object[] { JsonUtils.toJson(document.getMetadata()), document.getId() })
+                        .toList());
+    }
+
+    /**
+     * 判断当前是否使用进程内向量存储
+     * <p>
+     * 进程内向量存储没有数据库表，依赖向量表的重建、一致性检查等操作不可用。
+     * </p>
+     * 
+     * @return 使用进程内向量存储时返回true
+     * @see HnswVectorStore
+     */
+    public boolean isEmbeddedStore() {
+        return vectorStore instanceof HnswVectorStore;
+    }
+
+    /**
+     * 将文档元数据中以字符串保存的价格和评分转换为数字
+     * <p>
+     * 早期写入的文档以字符串保存数值字段，无法参与区间过滤。每个字段单独转换后合并回原元数据，
+     * 只有字段存在且为数字形式的字符串时才改写，缺失、为null或无法解析的字段保持原样，
+     * 不会因某个字段转换为 null 而清空整条元数据。该操作可重复执行，已转换的文档不受影响。
+     * </p>
+     * 
+     * @return 转换的文档数量
+     */
+    public int migrateNumericMetadata() {
+        if (isEmbeddedStore()) {
+            return 0;
+        }
+        return jdbcTemplate.update("UPDATE " + qualifiedTableName + " SET metadata = metadata::jsonb"
+                + " || jsonb_strip_nulls(jsonb_build_object('price', " + numericStringToNumber("price")
+                + ", 'rate', " + numericStringToNumber("rate") + "))"
+                + " WHERE " + isNumericString("price") + " OR " + isNumericString("rate"));
+    }
+
+    /**
+     * 生成将元数据中指定字段由数字字符串转换为数字的表达式
+     * 
+     * @param key 字段名
+     * @return 字段为数字字符串时返回转换后的 jsonb 数字，否则返回 null
+     */
+    private static String numericStringToNumber(String key) {
+        return "CASE WHEN " + isNumericString(key) + " THEN to_jsonb((metadata->>'" + key + "')::numeric) END";
+    }
+
+    /**
+     * 生成判断元数据中指定字段是否为数字字符串的条件
+     * 
+     * @param key 字段名
+     * @return SQL 条件表达式
+     */
+    private static String isNumericString(String key) {
+        return "(json_typeof((metadata::json)->'" + key + "') = 'string' AND metadata->>'" + key + "' ~ '"
+                + NUMERIC_PATTERN + "')";
+    }
+
+    /**
+     * 获取重建任务使用的影子表名称
+     * 
+     * @param jobId 重建任务ID
+     * @return 不含模式名的影子表名称
+     */
+    public String shadowTableName(Long jobId) {
+        return tableName + "_reindex_" + jobId;
+    }
+
+    /**
+     * 创建与正式向量表结构相同的影子表
+     * <p>
+     * 影子表只带主键，向量索引在数据全部写入后再创建，避免逐行维护 HNSW 索引。
+     * </p>
+     * 
+     * @param shadowTable 影子表名称
+     */
+    public void createShadowTable(String shadowTable) {
+        String qualifiedShadow = schemaName + "." + shadowTable;
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + qualifiedShadow);
+        jdbcTemplate.execute("CREATE TABLE " + qualifiedShadow + " (LIKE " + qualifiedTableName
+                + " INCLUDING DEFAULTS, CONSTRAINT " + shadowTable + "_pkey PRIMARY KEY (id))");
+    }
+
+    /**
+     * 将已生成嵌入的文档写入影子表
+     * 
+     * @param shadowTable 影子表名称
+     * @param documents   文档列表
+     * @param embeddings  与文档一一对应的嵌入向量
+     */
+    public void insertShadowDocuments(String shadowTable, List<Document> documents, List<float[]> embeddings) {
+        List<Object[]> rows = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            rows.add(new Object[] { document.getId(), document.getText(), JsonUtils.toJson(document.getMetadata()),
+                    toVectorLiteral(embeddings.get(i)) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + schemaName + "." + shadowTable
+                + " (id, content, metadata, embedding) VALUES (?::uuid, ?, ?::jsonb, ?::vector)", rows);
+    }
+
+    /**
+     * 按正式向量表的索引定义为影子表创建索引
+     * <p>
+     * 索引名称带有影子表前缀，替换表后再改回原名称。该操作可重复执行。
+     * </p>
+     * 
+     * @param shadowTable 影子表名称
+     */
+    public void createShadowIndexes(String shadowTable) {
+        List<String[]> indexes = jdbcTemplate.query(
+                "SELECT i.indexname, i.indexdef FROM pg_indexes i WHERE i.schemaname = ? AND i.tablename = ?"
+                        + " AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conname = i.indexname)",
+                (resultSet, rowNum) -> new String[] { resultSet.getString(1), resultSet.getString(2) },
+                schemaName, tableName);
+        for (String[] index : indexes) {
+            String definition = index[1]
+                    .replaceFirst("INDEX " + Pattern.quote(index[0]) + " ON ",
+                            "INDEX IF NOT EXISTS " + shadowTable + "_" + index[0] + " ON ")
+                    .replaceFirst(" ON (ONLY )?" + Pattern.quote(qualifiedTableName) + " ", " ON " + schemaName + "." + shadowTable + " ");
+            jdbcTemplate.execute(definition);
+        }
+    }
+
+    /**
+     * 用影子表替换正式向量表
+     * <p>
+     * 必须在事务中调用：锁定正式表后完成改名、删除旧表并恢复索引和主键名称，
+     * 对读写向量表的其他会话而言替换是原子的。
+     * </p>
+     * 
+     * @param shadowTable 影子表名称
+     */
+    public void swapShadowTable(String shadowTable) {
+        String replaced = shadowTable + "_replaced";
+        jdbcTemplate.execute("LOCK TABLE " + qualifiedTableName + " IN ACCESS EXCLUSIVE MODE");
+        jdbcTemplate.execute("ALTER TABLE " + qualifiedTableName + " RENAME TO " + replaced);
+        jdbcTemplate.execute("ALTER TABLE " + schemaName + "." + shadowTable + " RENAME TO " + tableName);
+        jdbcTemplate.execute("DROP TABLE " + schemaName + "." + replaced);
+
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE schemaname = ? AND tablename = ? AND indexname LIKE ?",
+                String.class, schemaName, tableName, shadowTable + "\\_%");
+        for (String index : indexes) {
+            jdbcTemplate.execute("ALTER INDEX " + schemaName + "." + index + " RENAME TO "
+                    + index.substring(shadowTable.length() + 1));
+        }
+    }
+
+    /**
+     * 删除影子表
+     * 
+     * @param shadowTable 影子表名称
+     */
+    public void dropShadowTable(String shadowTable) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + schemaName + "." + shadowTable);
+    }
+
+    /**
+     * 统计没有向量的商品数量
+     * 
+     * @return 未删除但向量库中没有对应文档的商品数量
+     */
+    public long countMissingProducts() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM products p WHERE " + missingCondition(), Long.class);
+    }
+
+    /**
+     * 查询没有向量的商品ID
+     * 
+     * @param limit 最多返回的数量
+     * @return 按ID升序排列的商品ID列表
+     */
+    public List<Long> findMissingProductIds(int limit) {
+        return jdbcTemplate.queryForList("SELECT p.id FROM products p WHERE " + missingCondition()
+                + " ORDER BY p.id LIMIT ?", Long.class, limit);
+    }
+
+    /**
+     * 统计孤立向量的数量
+     * 
+     * @return 对应商品不存在或已删除的文档数量
+     */
+    public long countOrphanedVectors() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + qualifiedTableName + " v WHERE "
+                + orphanedCondition(), Long.class);
+    }
+
+    /**
+     * 查询孤立向量对应的商品ID
+     * 
+     * @param limit 最多返回的数量
+     * @return 去重后按升序排列的商品ID列表
+     */
+    public List<Long> findOrphanedProductIds(int limit) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT (v.metadata->>'id')::bigint AS product_id FROM "
+                + qualifiedTableName + " v WHERE " + orphanedCondition() + " ORDER BY product_id LIMIT ?",
+                Long.class, limit);
+    }
+
+    private String missingCondition() {
+        return "p.deleted = false AND NOT EXISTS (SELECT 1 FROM " + qualifiedTableName
+                + " v WHERE v.metadata->>'id' = p.id::text)";
+    }
+
+    private String orphanedCondition() {
+        return "NOT EXISTS (SELECT 1 FROM products p WHERE p.id::text = v.metadata->>'id' AND p.deleted = false)";
+    }
+
+    /**
+     * 将嵌入向量转换为 pgvector 的文本表示
+     * 
+     * @param embedding 嵌入向量
+     * @return 形如 {@code [0.1,0.2]} 的向量字面量
+     */
+    static String toVectorLiteral(float[] embedding) {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (float value : embedding) {
+            joiner.add(Float.toString(value));
+        }
+        return joiner.toString();
     }
-}
\ No newline at end of file
+}
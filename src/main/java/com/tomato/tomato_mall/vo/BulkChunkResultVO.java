@@ -0,0 +1,77 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量操作数据块结果视图对象
+ * <p>
+ * 批量数据按固定大小切分为数据块，每个数据块在独立的事务中提交。
+ * 该类描述单个数据块的处理结果：块内单条记录的校验失败不影响其他记录，
+ * 而数据库层面的错误会导致整个数据块回滚。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see BulkRecordErrorVO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkChunkResultVO {
+    /**
+     * 数据块序号（从0开始）
+     */
+    private Integer index;
+
+    /**
+     * 数据块中第一条记录的行号
+     */
+    private Long firstLine;
+
+    /**
+     * 数据块中最后一条记录的行号
+     */
+    private Long lastLine;
+
+    /**
+     * 数据块是否已提交
+     */
+    private Boolean committed;
+
+    /**
+     * 创建成功的商品数量
+     */
+    @Builder.Default
+    private Integer created = 0;
+
+    /**
+     * 更新成功的商品数量
+     */
+    @Builder.Default
+    private Integer updated = 0;
+
+    /**
+     * 删除成功的商品数量
+     */
+    @Builder.Default
+    private Integer deleted = 0;
+
+    /**
+     * 处理失败的记录数量
+     */
+    @Builder.Default
+    private Integer failed = 0;
+
+    /**
+     * 失败记录的错误详情
+     */
+    @Builder.Default
+    private List<BulkRecordErrorVO> errors = new ArrayList<>();
+}
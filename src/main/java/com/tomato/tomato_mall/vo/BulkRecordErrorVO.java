@@ -0,0 +1,36 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量操作记录错误视图对象
+ * <p>
+ * 该类描述批量数据中单条记录处理失败的原因，用于定位原始数据中的问题行。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkRecordErrorVO {
+    /**
+     * 记录在原始数据中的行号
+     */
+    private Long line;
+
+    /**
+     * 记录关联的商品ID，创建失败或解析失败时为空
+     */
+    private Long productId;
+
+    /**
+     * 错误信息
+     */
+    private String message;
+}
@@ -14,4 +14,6 @@ public class ConversationVO {
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
     private List<MessageVO> messages;
+    private String nextMessageCursor;
+    private boolean hasMoreMessages;
 }
\ No newline at end of file
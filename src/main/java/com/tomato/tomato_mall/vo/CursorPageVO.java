@@ -0,0 +1,16 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageVO<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
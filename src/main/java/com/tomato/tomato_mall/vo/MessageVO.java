@@ -12,4 +12,5 @@ public class MessageVO {
     private String role;
     private String content;
     private LocalDateTime createTime;
+    private boolean degraded;
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 商品批量操作结果视图对象
+ * <p>
+ * 该类用于向前端返回一次商品批量导入、更新、删除请求的处理结果，
+ * 包括记录总数、成功与失败数量以及每个数据块的处理详情。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see BulkChunkResultVO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductBulkResultVO {
+    /**
+     * 读取到的记录总数
+     */
+    private Integer total;
+
+    /**
+     * 处理成功的记录数量
+     */
+    private Integer succeeded;
+
+    /**
+     * 处理失败的记录数量
+     */
+    private Integer failed;
+
+    /**
+     * 各数据块的处理结果
+     */
+    private List<BulkChunkResultVO> chunks;
+}
@@ -0,0 +1,44 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量库存同步结果视图对象
+ * <p>
+ * 该类汇总一次批量库存同步的处理情况，包括成功更新的数量和每个被拒绝商品的原因。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ * @see StockpileRejectionVO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockpileBulkResultVO {
+    /**
+     * 请求中的条目总数
+     */
+    private Integer total;
+
+    /**
+     * 成功更新的库存数量
+     */
+    private Integer updated;
+
+    /**
+     * 被拒绝的条目数量
+     */
+    private Integer rejected;
+
+    /**
+     * 被拒绝条目的明细
+     */
+    private List<StockpileRejectionVO> rejections;
+}
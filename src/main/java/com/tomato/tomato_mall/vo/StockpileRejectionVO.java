@@ -0,0 +1,41 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 库存同步拒绝条目视图对象
+ * <p>
+ * 该类描述批量库存同步中未被应用的单个商品及其原因。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockpileRejectionVO {
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 请求同步的库存数量
+     */
+    private Integer amount;
+
+    /**
+     * 当前冻结数量，仅在因低于冻结数量被拒绝时返回
+     */
+    private Integer frozen;
+
+    /**
+     * 拒绝原因
+     */
+    private String reason;
+}
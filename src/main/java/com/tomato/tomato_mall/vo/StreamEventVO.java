@@ -0,0 +1,57 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 流式回复事件视图对象
+ * <p>
+ * 该类描述流式回复中的一个事件。回复片段事件的ID由回复ID和单调递增的序号组成，
+ * 客户端断线重连时通过 {@code Last-Event-ID} 回传，用于续传之后的片段。
+ * 排队事件没有ID，内容为当前的排队位置，开始生成时内容为 0。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamEventVO {
+
+    /**
+     * 回复片段事件
+     */
+    public static final String MESSAGE = "message";
+
+    /**
+     * 排队位置事件
+     */
+    public static final String QUEUE = "queue";
+
+    /**
+     * 事件ID，格式为 回复ID:序号，排队事件为 null
+     */
+    private String id;
+
+    /**
+     * 事件类型
+     */
+    private String event;
+
+    /**
+     * 回复片段或排队位置
+     */
+    private String data;
+
+    /**
+     * 创建回复片段事件
+     *
+     * @param id   事件ID
+     * @param data 回复片段
+     */
+    public StreamEventVO(String id, String data) {
+        this(id, MESSAGE, data);
+    }
+}
@@ -0,0 +1,44 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 向量库一致性报告视图对象
+ * <p>
+ * 该类对比向量库与商品数据，列出缺少向量的商品和没有对应商品的孤立向量。
+ * 商品ID列表只包含部分样本，数量字段为完整统计。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VectorConsistencyVO {
+    /**
+     * 缺失向量的商品数量
+     */
+    private Long missingCount;
+
+    /**
+     * 孤立向量的数量
+     */
+    private Long orphanedCount;
+
+    /**
+     * 缺失向量的商品ID样本
+     */
+    private List<Long> missingProductIds;
+
+    /**
+     * 孤立向量对应的商品ID样本
+     */
+    private List<Long> orphanedProductIds;
+}
@@ -0,0 +1,84 @@
+package com.tomato.tomato_mall.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 向量库重建任务视图对象
+ * <p>
+ * 该类用于展示向量库重建任务的进度、吞吐量和预计剩余时间，
+ * 任务完成后还包含向量库与商品数据的一致性统计。
+ * </p>
+ *
+ * @author Team CBDDL
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VectorReindexJobVO {
+    /**
+     * 任务ID
+     */
+    private Long id;
+
+    /**
+     * 任务状态
+     */
+    private String status;
+
+    /**
+     * 已处理的商品数量
+     */
+    private Long processed;
+
+    /**
+     * 需要处理的商品总数
+     */
+    private Long total;
+
+    /**
+     * 检查点：已处理的最大商品ID
+     */
+    private Long lastProductId;
+
+    /**
+     * 本轮运行的吞吐量，单位：商品/秒
+     */
+    private Double throughput;
+
+    /**
+     * 预计剩余时间，单位：秒；无法估算时为null
+     */
+    private Long etaSeconds;
+
+    /**
+     * 完成后缺失向量的商品数量
+     */
+    private Long missingCount;
+
+    /**
+     * 完成后孤立向量的数量
+     */
+    private Long orphanedCount;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishTime;
+}
@@ -0,0 +1,252 @@
+package com.tomato.tomato_mall.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.tomato.tomato_mall.advisor.TokenWindowChatMemoryAdvisor;
+import com.tomato.tomato_mall.dto.MessageCreateDTO;
+import com.tomato.tomato_mall.entity.Conversation;
+import com.tomato.tomato_mall.entity.User;
+import com.tomato.tomato_mall.properties.AiAdmissionProperties;
+import com.tomato.tomato_mall.properties.AiDegradedProperties;
+import com.tomato.tomato_mall.properties.AiHistoryProperties;
+import com.tomato.tomato_mall.properties.AiStreamProperties;
+import com.tomato.tomato_mall.properties.AssistantCacheProperties;
+import com.tomato.tomato_mall.properties.ChatMemoryProperties;
+import com.tomato.tomato_mall.properties.ChatMemoryStoreProperties;
+import com.tomato.tomato_mall.repository.ConversationRepository;
+import com.tomato.tomato_mall.repository.MessageRepository;
+import com.tomato.tomato_mall.repository.UserRepository;
+import com.tomato.tomato_mall.service.ChatSummaryService;
+import com.tomato.tomato_mall.service.SemanticCacheService;
+import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.service.impl.AiAdmissionServiceImpl;
+import com.tomato.tomato_mall.service.impl.AiDegradedModeServiceImpl;
+import com.tomato.tomato_mall.service.impl.ConversationServiceImpl;
+import com.tomato.tomato_mall.service.impl.StreamReplayServiceImpl;
+import com.tomato.tomato_mall.tool.ProductTools;
+import com.tomato.tomato_mall.util.TieredChatMemory;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+import com.tomato.tomato_mall.vo.StockpileVO;
+import com.tomato.tomato_mall.vo.StreamEventVO;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 对话链路压测
+ * <p>
+ * 以 {@link MockOpenAiServer} 代替大模型和嵌入接口，用真实的聊天客户端、商品工具、聊天记忆顾问、
+ * 准入控制和流式回复缓冲组装对话服务，数据库访问以桩代替。
+ * 同时发起数千个流式对话，每个对话先由模拟模型调用 {@code searchSimilarBooks}，再流式返回回复，
+ * 报告首帧延迟 p50/p99、吞吐量、排队等待和模拟接口的峰值并发。
+ * 对话数和准入并发上限可以通过 {@code -Dloadtest.chats} 和 {@code -Dloadtest.concurrency} 调整。
+ * 默认构建不会执行该测试，使用 {@code mvn test -Ploadtest} 运行。
+ * </p>
+ */
+@Tag("loadtest")
+class ConversationLoadTest {
+
+    private static final int CHATS = Integer.getInteger("loadtest.chats", 2000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 500);
+    private static final int PRODUCTS = 500;
+    private static final int TOPICS = 20;
+    private static final int WORDS_PER_TOPIC = 6;
+
+    @Test
+    void concurrentStreamingChats() throws Exception {
+        // 没有 Spring 的日志配置时默认输出 DEBUG 日志，数千个对话的日志会淹没压测本身
+        Logger root = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        Level level = root.getLevel();
+        root.setLevel(Level.WARN);
+        try (MockOpenAiServer server = MockOpenAiServer.start(0)) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            OpenAiApi openAiApi = OpenAiApi.builder().baseUrl(server.baseUrl()).apiKey("mock").build();
+            OpenAiChatModel chatModel = OpenAiChatModel.builder()
+                    .openAiApi(openAiApi)
+                    .defaultOptions(OpenAiChatOptions.builder().model("mock-chat").build())
+                    .build();
+            OpenAiEmbeddingModel embeddingModel = new OpenAiEmbeddingModel(openAiApi);
+
+            // 商品向量通过模拟接口嵌入
+            SimpleVectorStore vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+            Random random = new Random(42);
+            List<Document> documents = new ArrayList<>();
+            for (long id = 1; id <= PRODUCTS; id++) {
+                int topic = random.nextInt(TOPICS);
+                String text = String.join(" ", word(topic, random), word(topic, random), word(topic, random),
+                        word(topic, random));
+                documents.add(new Document(text, Map.of("id", String.valueOf(id), "title", "book-" + id,
+                        "price", 10 + random.nextInt(90), "rate", random.nextInt(101) / 10.0)));
+            }
+            vectorStore.add(documents);
+            long catalogEmbeddingRequests = server.embeddingRequests();
+
+            StockpileService stockpileService = mock(StockpileService.class, withSettings().stubOnly());
+            when(stockpileService.getStockpilesByProductIds(any())).thenAnswer(invocation -> {
+                Map<Long, StockpileVO> stockpiles = new HashMap<>();
+                for (Long productId : invocation.<Collection<Long>>getArgument(0)) {
+                    stockpiles.put(productId, StockpileVO.builder().productId(productId).amount(10).frozen(0).build());
+                }
+                return stockpiles;
+            });
+            VectorStoreUtil vectorStoreUtil = new VectorStoreUtil(vectorStore, null, "public", "vector_store");
+            ProductTools productTools = new ProductTools(stockpileService, vectorStoreUtil,
+                    new AssistantCacheProperties(), registry);
+
+            TieredChatMemory chatMemory = new TieredChatMemory(new InMemoryChatMemory(),
+                    mock(JdbcTemplate.class, withSettings().stubOnly()), new ChatMemoryStoreProperties(), registry);
+            chatMemory.afterPropertiesSet();
+            ChatSummaryService chatSummaryService = mock(ChatSummaryService.class, withSettings().stubOnly());
+            ChatClient chatClient = ChatClient.builder(chatModel)
+                    .defaultSystem("你是番茄书城助手。")
+                    .defaultTools(productTools)
+                    .defaultAdvisors(new TokenWindowChatMemoryAdvisor(chatMemory, chatSummaryService,
+                            embeddingModel, new ChatMemoryProperties(), registry))
+                    .build();
+
+            AiAdmissionProperties admissionProperties = new AiAdmissionProperties();
+            admissionProperties.setMaxConcurrent(CONCURRENCY);
+            admissionProperties.setMaxQueued(CHATS);
+            admissionProperties.setQueueTimeout(Duration.ofMinutes(5));
+            AiStreamProperties streamProperties = new AiStreamProperties();
+            ConversationServiceImpl conversationService = new ConversationServiceImpl(
+                    stubConversations(), stubMessages(), stubUsers(), chatClient, chatMemory,
+                    mock(SemanticCacheService.class, withSettings().stubOnly()), chatSummaryService,
+                    stubTransactions(), streamProperties,
+                    new AiAdmissionServiceImpl(admissionProperties, registry),
+                    new AiDegradedModeServiceImpl(new AiDegradedProperties(), vectorStoreUtil, stockpileService,
+                            registry),
+                    new AiHistoryProperties());
+            StreamReplayServiceImpl streamReplayService = new StreamReplayServiceImpl(streamProperties, registry);
+
+            long[] firstFrameNanos = new long[CHATS];
+            long[] totalNanos = new long[CHATS];
+            AtomicInteger errors = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(CHATS);
+            long start = System.nanoTime();
+            for (int i = 0; i < CHATS; i++) {
+                int chat = i;
+                String username = "user-" + chat;
+                String conversationId = UUID.randomUUID().toString();
+                MessageCreateDTO message = new MessageCreateDTO();
+                message.setContent(word(chat % TOPICS, random) + " " + word(chat % TOPICS, random) + " "
+                        + word(chat % TOPICS, random));
+                long begin = System.nanoTime();
+                streamReplayService.publish(username, conversationId,
+                        conversationService.getStreamMessage(username, conversationId, message), null)
+                        .subscribe(event -> {
+                            if (StreamEventVO.MESSAGE.equals(event.getEvent()) && firstFrameNanos[chat] == 0) {
+                                firstFrameNanos[chat] = System.nanoTime() - begin;
+                            }
+                        }, e -> {
+                            errors.incrementAndGet();
+                            done.countDown();
+                        }, () -> {
+                            totalNanos[chat] = System.nanoTime() - begin;
+                            done.countDown();
+                        });
+            }
+            assertTrue(done.await(10, TimeUnit.MINUTES), "load test timed out");
+            double seconds = (System.nanoTime() - start) / 1e9;
+            conversationService.shutdown();
+            chatMemory.destroy();
+
+            Timer admissionWait = registry.get("ai.admission.wait").timer();
+            System.out.printf("chats=%d concurrency=%d errors=%d elapsed=%.1fs throughput=%.1f chats/s%n",
+                    CHATS, CONCURRENCY, errors.get(), seconds, CHATS / seconds);
+            System.out.printf("first frame p50=%.0fms p99=%.0fms, total p50=%.0fms p99=%.0fms%n",
+                    percentile(firstFrameNanos, 0.5), percentile(firstFrameNanos, 0.99),
+                    percentile(totalNanos, 0.5), percentile(totalNanos, 0.99));
+            System.out.printf("admission wait mean=%.0fms max=%.0fms%n",
+                    admissionWait.mean(TimeUnit.MILLISECONDS), admissionWait.max(TimeUnit.MILLISECONDS));
+            System.out.printf("mock server: chat requests=%d tool calls=%d peak active chats=%d "
+                    + "embedding requests=%d (catalog %d)%n", server.chatRequests(), server.toolCalls(),
+                    server.peakActiveChats(), server.embeddingRequests(), catalogEmbeddingRequests);
+
+            assertEquals(0, errors.get());
+            assertEquals(CHATS, server.toolCalls());
+            assertEquals(2L * CHATS, server.chatRequests());
+            assertTrue(server.peakActiveChats() <= CONCURRENCY);
+        } finally {
+            root.setLevel(level);
+        }
+    }
+
+    private static String word(int topic, Random random) {
+        return "t" + topic + "w" + random.nextInt(WORDS_PER_TOPIC);
+    }
+
+    private static double percentile(long[] nanos, double percentile) {
+        long[] sorted = Arrays.stream(nanos).filter(value -> value > 0).sorted().toArray();
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+    private static UserRepository stubUsers() {
+        User user = new User();
+        user.setId(1L);
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
+        return userRepository;
+    }
+
+    private static ConversationRepository stubConversations() {
+        ConversationRepository conversationRepository = mock(ConversationRepository.class, withSettings().stubOnly());
+        when(conversationRepository.findById(anyString())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setId(1L);
+            Conversation conversation = new Conversation();
+            conversation.setId(invocation.getArgument(0));
+            conversation.setUser(user);
+            return Optional.of(conversation);
+        });
+        return conversationRepository;
+    }
+
+    private static MessageRepository stubMessages() {
+        MessageRepository messageRepository = mock(MessageRepository.class, withSettings().stubOnly());
+        when(messageRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        return messageRepository;
+    }
+
+    private static PlatformTransactionManager stubTransactions() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class,
+                withSettings().stubOnly());
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        return transactionManager;
+    }
+}
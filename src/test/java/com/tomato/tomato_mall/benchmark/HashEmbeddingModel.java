@@ -0,0 +1,73 @@
+package com.tomato.tomato_mall.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * 基准测试使用的确定性嵌入模型
+ * <p>
+ * 将文本按空白切分为词，每个词哈希到固定维度的桶中计数，再做 L2 归一化。
+ * 共享词越多的文本余弦相似度越高，足以在不访问外部服务的情况下比较检索策略的召回率与延迟。
+ * </p>
+ */
+public class HashEmbeddingModel implements EmbeddingModel {
+
+    private final int dimensions;
+
+    public HashEmbeddingModel(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>();
+        List<String> inputs = request.getInstructions();
+        for (int i = 0; i < inputs.size(); i++) {
+            embeddings.add(new Embedding(embed(inputs.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        for (String token : text.split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int hash = 17;
+            for (byte b : token.getBytes(StandardCharsets.UTF_8)) {
+                hash = hash * 31 + b;
+            }
+            vector[Math.floorMod(hash, dimensions)] += 1f;
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+}
@@ -0,0 +1,201 @@
+package com.tomato.tomato_mall.benchmark;
+
+import com.tomato.tomato_mall.properties.HnswVectorStoreProperties;
+import com.tomato.tomato_mall.util.HnswVectorStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 进程内 HNSW 向量存储基准测试
+ * <p>
+ * 以暴力计算的余弦近邻为基准，报告 recall@k 和 p50/p99 检索延迟，
+ * 并验证并发写入、元数据过滤、删除以及重新加载后的检索结果。
+ * 默认构建不会执行该测试，使用 {@code mvn test -Pbenchmark} 运行。
+ * </p>
+ */
+@Tag("benchmark")
+class HnswVectorStoreBenchmarkTest {
+
+    private static final int DIMENSIONS = 128;
+    private static final int DOCUMENTS = 10000;
+    private static final int CLUSTERS = 50;
+    private static final int QUERY_COUNT = 200;
+    private static final int TOP_K = 10;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recallLatencyAndPersistence() throws Exception {
+        Random random = new Random(42);
+        List<float[]> centers = new ArrayList<>();
+        for (int i = 0; i < CLUSTERS; i++) {
+            centers.add(gaussian(random, null));
+        }
+        Map<String, float[]> vectors = new HashMap<>();
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            String text = "doc-" + i;
+            vectors.put(text, gaussian(random, centers.get(random.nextInt(CLUSTERS))));
+            documents.add(new Document(text, Map.of("id", String.valueOf(i), "price", (double) (i % 100))));
+        }
+        List<float[]> queries = IntStream.range(0, QUERY_COUNT)
+                .mapToObj(i -> gaussian(random, centers.get(random.nextInt(CLUSTERS))))
+                .toList();
+        EmbeddingModel embeddingModel = new LookupEmbeddingModel(vectors);
+
+        HnswVectorStoreProperties properties = new HnswVectorStoreProperties();
+        properties.setPath(directory.toString());
+        properties.setDimensions(DIMENSIONS);
+        HnswVectorStore store = new HnswVectorStore(embeddingModel, properties);
+        store.afterPropertiesSet();
+
+        // 并发分批写入
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < DOCUMENTS; from += 500) {
+            List<Document> batch = documents.subList(from, Math.min(DOCUMENTS, from + 500));
+            futures.add(executor.submit(() -> store.add(batch)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        System.out.printf("build: %d documents in %.1f ms%n", DOCUMENTS, (System.nanoTime() - start) / 1e6);
+
+        double recall = 0;
+        long[] latencies = new long[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            long begin = System.nanoTime();
+            List<Document> results = store.similaritySearch(queries.get(i), TOP_K, 0.0, null);
+            latencies[i] = System.nanoTime() - begin;
+            recall += recall(results, exactTopK(queries.get(i), documents, vectors, document -> true));
+        }
+        Arrays.sort(latencies);
+        System.out.printf("hnsw: recall@%d=%.3f p50=%.3f ms p99=%.3f ms%n", TOP_K, recall / QUERY_COUNT,
+                latencies[QUERY_COUNT / 2] / 1e6, latencies[(int) Math.ceil(QUERY_COUNT * 0.99) - 1] / 1e6);
+        assertTrue(recall / QUERY_COUNT > 0.9);
+
+        // 过滤条件：价格不超过 4 的文档约占 5%
+        Filter.Expression filter = new FilterExpressionBuilder().lte("price", 4.0).build();
+        double filteredRecall = 0;
+        for (float[] query : queries) {
+            List<Document> results = store.similaritySearch(query, TOP_K, 0.0, filter);
+            assertTrue(results.stream().allMatch(document -> ((Number) document.getMetadata().get("price"))
+                    .doubleValue() <= 4.0));
+            filteredRecall += recall(results, exactTopK(query, documents, vectors,
+                    document -> ((Number) document.getMetadata().get("price")).doubleValue() <= 4.0));
+        }
+        System.out.printf("hnsw filtered: recall@%d=%.3f%n", TOP_K, filteredRecall / QUERY_COUNT);
+        assertTrue(filteredRecall / QUERY_COUNT > 0.9);
+
+        // 删除后不再返回，落盘后重新加载结果不变
+        store.delete(new FilterExpressionBuilder().in("id", "0", "1", "2").build());
+        float[] probe = vectors.get("doc-0");
+        List<Document> afterDelete = store.similaritySearch(probe, TOP_K, 0.0, null);
+        assertTrue(afterDelete.stream().noneMatch(document -> Set.of("0", "1", "2")
+                .contains((String) document.getMetadata().get("id"))));
+        store.destroy();
+
+        HnswVectorStore reloaded = new HnswVectorStore(embeddingModel, properties);
+        reloaded.afterPropertiesSet();
+        assertEquals(afterDelete.stream().map(Document::getId).toList(),
+                reloaded.similaritySearch(probe, TOP_K, 0.0, null).stream().map(Document::getId).toList());
+        reloaded.destroy();
+    }
+
+    private Set<String> exactTopK(float[] query, List<Document> documents, Map<String, float[]> vectors,
+            java.util.function.Predicate<Document> filter) {
+        Set<String> result = new HashSet<>();
+        documents.stream()
+                .filter(filter)
+                .sorted(Comparator.comparingDouble(document -> -dot(query, vectors.get(document.getText()))))
+                .limit(TOP_K)
+                .forEach(document -> result.add(document.getText()));
+        return result;
+    }
+
+    private double recall(List<Document> results, Set<String> expected) {
+        return results.stream().filter(document -> expected.contains(document.getText())).count()
+                / (double) expected.size();
+    }
+
+    private static float[] gaussian(Random random, float[] center) {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (center == null ? 0 : center[i]) + (float) (random.nextGaussian() * (center == null ? 1 : 0.6)
+                    / Math.sqrt(DIMENSIONS));
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 按文本查表返回预先生成向量的嵌入模型
+     */
+    private static class LookupEmbeddingModel implements EmbeddingModel {
+
+        private final Map<String, float[]> vectors;
+
+        LookupEmbeddingModel(Map<String, float[]> vectors) {
+            this.vectors = vectors;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                embeddings.add(new Embedding(vectors.get(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vectors.get(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.tomato.tomato_mall.benchmark;
+
+import com.tomato.tomato_mall.properties.EmbeddingBatchProperties;
+import com.tomato.tomato_mall.util.MicroBatchingEmbeddingModel;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 嵌入请求合批基准测试
+ * <p>
+ * 模拟每次调用耗时固定、同时最多处理若干请求的嵌入接口，
+ * 由多个线程并发嵌入单条查询，比较直接调用与合批后的吞吐量、p50/p99 延迟和接口调用次数，
+ * 并报告批次填充率。
+ * 默认构建不会执行该测试，使用 {@code mvn test -Pbenchmark} 运行。
+ * </p>
+ */
+@Tag("benchmark")
+class MicroBatchingEmbeddingBenchmarkTest {
+
+    private static final int CLIENTS = 32;
+    private static final int QUERIES_PER_CLIENT = 40;
+    private static final long CALL_LATENCY_MS = 20;
+    private static final int PROVIDER_CONCURRENCY = 4;
+
+    @Test
+    void batchedVersusDirect() throws Exception {
+        SlowEmbeddingModel direct = new SlowEmbeddingModel();
+        Run directRun = run(direct);
+
+        SlowEmbeddingModel provider = new SlowEmbeddingModel();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EmbeddingBatchProperties properties = new EmbeddingBatchProperties();
+        MicroBatchingEmbeddingModel batching = new MicroBatchingEmbeddingModel(provider, properties, registry);
+        batching.afterPropertiesSet();
+        Run batchedRun = run(batching);
+        batching.destroy();
+
+        DistributionSummary fillRatio = registry.get("embedding.batch.fill.ratio").summary();
+        System.out.printf("%-8s %10s %10s %10s %8s%n", "mode", "qps", "p50 ms", "p99 ms", "calls");
+        print("direct", directRun, direct.calls.get());
+        print("batched", batchedRun, provider.calls.get());
+        System.out.printf("batches=%d mean fill ratio=%.2f%n", fillRatio.count(), fillRatio.mean());
+
+        // 合批不改变结果，只减少接口调用
+        assertEquals(directRun.vectors().size(), batchedRun.vectors().size());
+        for (int i = 0; i < directRun.vectors().size(); i++) {
+            assertArrayEquals(directRun.vectors().get(i), batchedRun.vectors().get(i));
+        }
+        assertTrue(provider.calls.get() < direct.calls.get() / 2);
+        assertTrue(batchedRun.qps() > directRun.qps());
+    }
+
+    private Run run(EmbeddingModel model) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        long[] latencies = new long[CLIENTS * QUERIES_PER_CLIENT];
+        List<Future<List<float[]>>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int client = 0; client < CLIENTS; client++) {
+            int offset = client * QUERIES_PER_CLIENT;
+            futures.add(executor.submit(() -> {
+                List<float[]> vectors = new ArrayList<>();
+                for (int i = 0; i < QUERIES_PER_CLIENT; i++) {
+                    long begin = System.nanoTime();
+                    vectors.add(model.embed("query t" + (offset + i) % 97 + "w" + i));
+                    latencies[offset + i] = System.nanoTime() - begin;
+                }
+                return vectors;
+            }));
+        }
+        List<float[]> vectors = new ArrayList<>();
+        for (Future<List<float[]>> future : futures) {
+            vectors.addAll(future.get());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        Arrays.sort(latencies);
+        return new Run(latencies.length / seconds, latencies[latencies.length / 2] / 1e6,
+                latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1e6, vectors);
+    }
+
+    private static void print(String mode, Run run, int calls) {
+        System.out.printf("%-8s %10.1f %10.3f %10.3f %8d%n", mode, run.qps(), run.p50Ms(), run.p99Ms(), calls);
+    }
+
+    private record Run(double qps, double p50Ms, double p99Ms, List<float[]> vectors) {
+    }
+
+    /**
+     * 每次调用固定耗时、并发数受限的嵌入接口
+     */
+    private static class SlowEmbeddingModel implements EmbeddingModel {
+
+        private final HashEmbeddingModel model = new HashEmbeddingModel(SyntheticCatalog.DIMENSIONS);
+        private final Semaphore concurrency = new Semaphore(PROVIDER_CONCURRENCY);
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            calls.incrementAndGet();
+            concurrency.acquireUninterruptibly();
+            try {
+                Thread.sleep(CALL_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrency.release();
+            }
+            return model.call(request);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return SyntheticCatalog.DIMENSIONS;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.tomato.tomato_mall.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地模拟的 OpenAI 兼容接口
+ * <p>
+ * 在本地端口上提供 {@code /v1/chat/completions} 和 {@code /v1/embeddings}，
+ * 用于在不消耗真实令牌的情况下压测对话链路。回复内容由最后一条用户消息的哈希决定，相同提问得到相同回复；
+ * 流式回复按配置的首个片段延迟和片段间隔逐个发送。
+ * 请求声明了 {@code searchSimilarBooks} 工具且尚未返回工具结果时，先以工具调用回复，查询内容为用户提问。
+ * 嵌入向量由 {@link HashEmbeddingModel} 计算，维度为 {@value #DIMENSIONS}。
+ * </p>
+ * <p>
+ * 每个请求在独立的虚拟线程上处理。可以在测试中通过 {@link #start(int)} 启动，
+ * 也可以直接运行 {@link #main(String[])} 作为独立进程，
+ * 再将 {@code spring.ai.openai.base-url} 指向打印出的地址。
+ * </p>
+ */
+public class MockOpenAiServer implements AutoCloseable {
+
+    /**
+     * 嵌入向量维度，与 {@code spring.ai.vectorstore.pgvector.dimensions} 一致
+     */
+    public static final int DIMENSIONS = 1024;
+
+    /**
+     * 模拟模型会调用的工具名称
+     */
+    public static final String SEARCH_TOOL = "searchSimilarBooks";
+
+    private static final String[] VOCABULARY = { "这本", "书的", "故事", "情节", "人物", "作者", "文笔", "细腻", "值得",
+            "一读", "推荐", "给你", "适合", "周末", "阅读", "内容", "精彩", "节奏", "紧凑", "结局", "出人", "意料", "。", "，" };
+
+    static {
+        // 逐个片段写出时关闭 Nagle 算法，否则每个片段都会等待客户端的延迟确认
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HashEmbeddingModel embeddingModel = new HashEmbeddingModel(DIMENSIONS);
+
+    private volatile Duration firstTokenLatency = Duration.ofMillis(200);
+    private volatile Duration tokenInterval = Duration.ofMillis(20);
+    private volatile int replyTokens = 40;
+    private volatile boolean toolCallsEnabled = true;
+
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong toolCalls = new AtomicLong();
+    private final AtomicLong embeddingRequests = new AtomicLong();
+    private final AtomicLong embeddedInputs = new AtomicLong();
+    private final AtomicInteger activeChats = new AtomicInteger();
+    private final AtomicInteger peakActiveChats = new AtomicInteger();
+
+    private MockOpenAiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 4096);
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::chat));
+        server.createContext("/v1/embeddings", exchange -> handle(exchange, this::embeddings));
+    }
+
+    /**
+     * 启动模拟接口
+     *
+     * @param port 监听端口，为 0 时使用随机空闲端口
+     * @return 已启动的模拟接口
+     * @throws IOException 端口无法绑定时抛出
+     */
+    public static MockOpenAiServer start(int port) throws IOException {
+        MockOpenAiServer mock = new MockOpenAiServer(port);
+        mock.server.start();
+        return mock;
+    }
+
+    /**
+     * 作为独立进程运行
+     *
+     * @param args 可选的监听端口，默认 8089
+     * @throws Exception 启动失败时抛出
+     */
+    public static void main(String[] args) throws Exception {
+        MockOpenAiServer mock = start(args.length > 0 ? Integer.parseInt(args[0]) : 8089);
+        System.out.println("Mock OpenAI server listening on " + mock.baseUrl());
+        Thread.currentThread().join();
+    }
+
+    /**
+     * @return 可以直接用作 {@code spring.ai.openai.base-url} 的地址
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setFirstTokenLatency(Duration firstTokenLatency) {
+        this.firstTokenLatency = firstTokenLatency;
+    }
+
+    public void setTokenInterval(Duration tokenInterval) {
+        this.tokenInterval = tokenInterval;
+    }
+
+    public void setReplyTokens(int replyTokens) {
+        this.replyTokens = replyTokens;
+    }
+
+    public void setToolCallsEnabled(boolean toolCallsEnabled) {
+        this.toolCallsEnabled = toolCallsEnabled;
+    }
+
+    public long chatRequests() {
+        return chatRequests.get();
+    }
+
+    public long toolCalls() {
+        return toolCalls.get();
+    }
+
+    public long embeddingRequests() {
+        return embeddingRequests.get();
+    }
+
+    public long embeddedInputs() {
+        return embeddedInputs.get();
+    }
+
+    /**
+     * @return 同时处理中的对话请求数的峰值
+     */
+    public int peakActiveChats() {
+        return peakActiveChats.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            handler.handle(exchange, objectMapper.readTree(exchange.getRequestBody()));
+        } catch (IOException e) {
+            // 客户端取消时连接被关闭，不需要处理
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void chat(HttpExchange exchange, JsonNode request) throws IOException, InterruptedException {
+        chatRequests.incrementAndGet();
+        peakActiveChats.accumulateAndGet(activeChats.incrementAndGet(), Math::max);
+        try {
+            JsonNode messages = request.path("messages");
+            String prompt = "";
+            boolean toolResult = false;
+            for (JsonNode message : messages) {
+                String role = message.path("role").asText();
+                if ("user".equals(role)) {
+                    prompt = message.path("content").asText();
+                    toolResult = false;
+                } else if ("tool".equals(role)) {
+                    toolResult = true;
+                }
+            }
+            boolean callTool = toolCallsEnabled && !toolResult && declaresSearchTool(request);
+            if (callTool) {
+                toolCalls.incrementAndGet();
+            }
+            String id = "chatcmpl-" + Integer.toHexString(prompt.hashCode());
+            if (request.path("stream").asBoolean(false)) {
+                streamChat(exchange, id, prompt, callTool);
+            } else {
+                Thread.sleep(firstTokenLatency.plus(tokenInterval.multipliedBy(Math.max(0, replyTokens - 1))));
+                ObjectNode message = objectMapper.createObjectNode().put("role", "assistant");
+                if (callTool) {
+                    message.putNull("content");
+                    message.set("tool_calls", toolCall(id, prompt, false));
+                } else {
+                    message.put("content", String.join("", reply(prompt)));
+                }
+                ObjectNode choice = objectMapper.createObjectNode().put("index", 0);
+                choice.set("message", message);
+                choice.put("finish_reason", callTool ? "tool_calls" : "stop");
+                ObjectNode completion = completion(id, "chat.completion", choice);
+                completion.putObject("usage")
+                        .put("prompt_tokens", prompt.length())
+                        .put("completion_tokens", replyTokens)
+                        .put("total_tokens", prompt.length() + replyTokens);
+                sendJson(exchange, completion);
+            }
+        } finally {
+            activeChats.decrementAndGet();
+        }
+    }
+
+    private void streamChat(HttpExchange exchange, String id, String prompt, boolean callTool)
+            throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        Thread.sleep(firstTokenLatency);
+        if (callTool) {
+            ObjectNode delta = objectMapper.createObjectNode().put("role", "assistant");
+            delta.set("tool_calls", toolCall(id, prompt, true));
+            writeEvent(out, chunk(id, delta, null));
+            writeEvent(out, chunk(id, objectMapper.createObjectNode(), "tool_calls"));
+        } else {
+            List<String> tokens = reply(prompt);
+            for (int i = 0; i < tokens.size(); i++) {
+                if (i > 0) {
+                    Thread.sleep(tokenInterval);
+                }
+                ObjectNode delta = objectMapper.createObjectNode().put("content", tokens.get(i));
+                if (i == 0) {
+                    delta.put("role", "assistant");
+                }
+                writeEvent(out, chunk(id, delta, null));
+            }
+            writeEvent(out, chunk(id, objectMapper.createObjectNode(), "stop"));
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void embeddings(HttpExchange exchange, JsonNode request) throws IOException {
+        embeddingRequests.incrementAndGet();
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = request.path("input");
+        if (input.isArray()) {
+            input.forEach(node -> inputs.add(node.asText()));
+        } else {
+            inputs.add(input.asText());
+        }
+        embeddedInputs.addAndGet(inputs.size());
+
+        ArrayNode data = objectMapper.createArrayNode();
+        int tokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            ArrayNode vector = objectMapper.createArrayNode();
+            for (float value : embeddingModel.embed(inputs.get(i))) {
+                vector.add(value);
+            }
+            data.addObject().put("object", "embedding").put("index", i).set("embedding", vector);
+            tokens += inputs.get(i).length();
+        }
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("object", "list")
+                .put("model", request.path("model").asText("mock-embedding"));
+        response.set("data", data);
+        response.putObject("usage").put("prompt_tokens", tokens).put("total_tokens", tokens);
+        sendJson(exchange, response);
+    }
+
+    private boolean declaresSearchTool(JsonNode request) {
+        for (JsonNode tool : request.path("tools")) {
+            if (SEARCH_TOOL.equals(tool.path("function").path("name").asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ArrayNode toolCall(String id, String prompt, boolean streaming) {
+        ObjectNode arguments = objectMapper.createObjectNode().put("query", prompt).put("limit", 5);
+        ObjectNode call = objectMapper.createObjectNode();
+        if (streaming) {
+            call.put("index", 0);
+        }
+        call.put("id", "call-" + id).put("type", "function");
+        call.putObject("function").put("name", SEARCH_TOOL).put("arguments", arguments.toString());
+        return objectMapper.createArrayNode().add(call);
+    }
+
+    /**
+     * 由提问的哈希确定的回复片段
+     */
+    private List<String> reply(String prompt) {
+        Random random = new Random(prompt.hashCode());
+        List<String> tokens = new ArrayList<>(replyTokens);
+        for (int i = 0; i < replyTokens; i++) {
+            tokens.add(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+        }
+        return tokens;
+    }
+
+    private ObjectNode chunk(String id, ObjectNode delta, String finishReason) {
+        ObjectNode choice = objectMapper.createObjectNode().put("index", 0);
+        choice.set("delta", delta);
+        choice.put("finish_reason", finishReason);
+        return completion(id, "chat.completion.chunk", choice);
+    }
+
+    private ObjectNode completion(String id, String object, ObjectNode choice) {
+        ObjectNode completion = objectMapper.createObjectNode()
+                .put("id", id)
+                .put("object", object)
+                .put("created", System.currentTimeMillis() / 1000)
+                .put("model", "mock-chat");
+        completion.putArray("choices").add(choice);
+        return completion;
+    }
+
+    private void writeEvent(OutputStream out, ObjectNode event) throws IOException {
+        out.write(("data: " + event + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, ObjectNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        void handle(HttpExchange exchange, JsonNode request) throws IOException, InterruptedException;
+    }
+}
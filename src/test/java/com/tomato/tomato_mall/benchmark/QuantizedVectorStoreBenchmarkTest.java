@@ -0,0 +1,194 @@
+package com.tomato.tomato_mall.benchmark;
+
+import com.tomato.tomato_mall.enums.VectorQuantizationEnum;
+import com.tomato.tomato_mall.properties.VectorQuantizationProperties;
+import com.tomato.tomato_mall.util.QuantizedPgVectorStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 量化向量索引基准测试
+ * <p>
+ * 在同一张向量表上依次建立全精度、半精度和二值 HNSW 索引，
+ * 分别报告索引体积、recall@k 以及 p50/p99 检索延迟。向量按簇生成，
+ * 真实近邻通过全精度余弦相似度暴力计算。
+ * </p>
+ * <p>
+ * 需要安装了 pgvector 0.7 及以上版本的 PostgreSQL，未提供连接地址时跳过：
+ * {@code mvn test -Pbenchmark -Dbenchmark.pgvector.url=jdbc:postgresql://localhost:5432/bench
+ * -Dbenchmark.pgvector.username=postgres -Dbenchmark.pgvector.password=postgres}。
+ * 可以通过 {@code -Dbenchmark.pgvector.rows} 调整数据量。
+ * </p>
+ */
+@Tag("benchmark")
+class QuantizedVectorStoreBenchmarkTest {
+
+    private static final String TABLE = "quantization_benchmark";
+    private static final int DIMENSIONS = 1024;
+    private static final int CLUSTERS = 100;
+    private static final int QUERY_COUNT = 200;
+    private static final int TOP_K = 10;
+
+    private static JdbcTemplate jdbcTemplate;
+    private static DataSourceTransactionManager transactionManager;
+    private static List<float[]> vectors;
+    private static List<String> ids;
+    private static List<float[]> queries;
+
+    @BeforeAll
+    static void loadVectors() {
+        String url = System.getProperty("benchmark.pgvector.url");
+        assumeTrue(url != null && !url.isBlank(), "benchmark.pgvector.url is not set");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+                System.getProperty("benchmark.pgvector.username", "postgres"),
+                System.getProperty("benchmark.pgvector.password", "postgres"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        int rows = Integer.getInteger("benchmark.pgvector.rows", 20000);
+
+        Random random = new Random(42);
+        List<float[]> centers = new ArrayList<>();
+        for (int i = 0; i < CLUSTERS; i++) {
+            centers.add(gaussian(random, null, 1.0f));
+        }
+        vectors = new ArrayList<>(rows);
+        ids = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            vectors.add(gaussian(random, centers.get(random.nextInt(CLUSTERS)), 0.5f));
+            ids.add(UUID.randomUUID().toString());
+        }
+        queries = new ArrayList<>(QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries.add(gaussian(random, centers.get(random.nextInt(CLUSTERS)), 0.5f));
+        }
+
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (id uuid PRIMARY KEY, content text, metadata json, "
+                + "embedding vector(" + DIMENSIONS + "))");
+        for (int start = 0; start < rows; start += 1000) {
+            List<Object[]> batch = new ArrayList<>();
+            for (int i = start; i < Math.min(rows, start + 1000); i++) {
+                batch.add(new Object[] { ids.get(i), "doc-" + i, "{\"id\":\"" + i + "\"}", literal(vectors.get(i)) });
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO " + TABLE
+                    + " (id, content, metadata, embedding) VALUES (?::uuid, ?, ?::json, ?::vector)", batch);
+        }
+        jdbcTemplate.execute("ANALYZE " + TABLE);
+    }
+
+    @AfterAll
+    static void dropTable() {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+    }
+
+    @Test
+    void compareQuantizationModes() {
+        List<Set<String>> truth = queries.stream().map(QuantizedVectorStoreBenchmarkTest::exactTopK).toList();
+
+        System.out.printf("%-8s %12s %10s %10s %10s%n", "mode", "index size", "recall@" + TOP_K, "p50 ms", "p99 ms");
+        for (VectorQuantizationEnum mode : VectorQuantizationEnum.values()) {
+            String indexName = TABLE + "_" + mode.name().toLowerCase() + "_idx";
+            VectorQuantizationProperties properties = new VectorQuantizationProperties();
+            properties.setQuantization(mode);
+            QuantizedPgVectorStore store = new QuantizedPgVectorStore(null, jdbcTemplate, transactionManager, null,
+                    "public", TABLE, DIMENSIONS, properties);
+            if (mode == VectorQuantizationEnum.NONE) {
+                jdbcTemplate.execute("CREATE INDEX " + indexName + " ON " + TABLE
+                        + " USING hnsw (embedding vector_cosine_ops)");
+            } else {
+                store.createIndexes();
+            }
+            Long indexSize = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class,
+                    indexName);
+
+            // 预热，使索引页进入缓冲区
+            queries.forEach(query -> store.similaritySearch(query, TOP_K, 0.0, null));
+
+            double recall = 0;
+            long[] latencies = new long[QUERY_COUNT];
+            for (int i = 0; i < QUERY_COUNT; i++) {
+                long start = System.nanoTime();
+                List<Document> results = store.similaritySearch(queries.get(i), TOP_K, 0.0, null);
+                latencies[i] = System.nanoTime() - start;
+                assertEquals(TOP_K, results.size());
+                Set<String> expected = truth.get(i);
+                recall += results.stream().filter(document -> expected.contains(document.getId())).count()
+                        / (double) TOP_K;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%-8s %9d KB %10.3f %10.3f %10.3f%n", mode, indexSize / 1024, recall / QUERY_COUNT,
+                    latencies[QUERY_COUNT / 2] / 1e6, latencies[(int) Math.ceil(QUERY_COUNT * 0.99) - 1] / 1e6);
+
+            jdbcTemplate.execute("DROP INDEX " + indexName);
+        }
+    }
+
+    private static Set<String> exactTopK(float[] query) {
+        double[] scores = new double[vectors.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = dot(query, vectors.get(i));
+        }
+        List<Integer> order = IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingDouble(i -> -scores[i]))
+                .limit(TOP_K)
+                .toList();
+        Set<String> result = new HashSet<>();
+        order.forEach(i -> result.add(ids.get(i)));
+        return result;
+    }
+
+    /**
+     * 在给定中心附近生成 L2 归一化的高斯向量
+     */
+    private static float[] gaussian(Random random, float[] center, float scale) {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (center == null ? 0 : center[i]) + (float) random.nextGaussian() * scale / (float) Math.sqrt(DIMENSIONS);
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static String literal(float[] vector) {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (float value : vector) {
+            joiner.add(Float.toString(value));
+        }
+        return joiner.toString();
+    }
+}
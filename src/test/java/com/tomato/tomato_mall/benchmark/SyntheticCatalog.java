@@ -0,0 +1,133 @@
+package com.tomato.tomato_mall.benchmark;
+
+import com.tomato.tomato_mall.entity.Product;
+import com.tomato.tomato_mall.util.DocumentConverter;
+import org.springframework.ai.document.Document;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试使用的合成商品目录
+ * <p>
+ * 按固定随机种子生成商品、对应的向量文档以及查询，嵌入由 {@link HashEmbeddingModel} 在本地计算，
+ * 相同参数每次生成的数据完全一致。每个商品的简介由所属主题的词和少量随机主题的词组成，
+ * 查询由某个主题的两个词组成，因此同主题的商品与查询更相似。
+ * </p>
+ */
+public class SyntheticCatalog {
+
+    /**
+     * 嵌入向量维度
+     */
+    public static final int DIMENSIONS = 256;
+
+    private static final int TOPICS = 20;
+    private static final int WORDS_PER_TOPIC = 6;
+
+    private final HashEmbeddingModel embeddingModel = new HashEmbeddingModel(DIMENSIONS);
+    private final List<Product> products = new ArrayList<>();
+    private final List<Document> documents;
+    private final List<float[]> embeddings;
+    private final List<String> queries = new ArrayList<>();
+    private final List<float[]> queryEmbeddings;
+
+    /**
+     * 生成商品目录
+     *
+     * @param productCount 商品数量
+     * @param queryCount   查询数量
+     * @param seed         随机种子
+     */
+    public SyntheticCatalog(int productCount, int queryCount, long seed) {
+        Random random = new Random(seed);
+        for (long id = 1; id <= productCount; id++) {
+            int topic = random.nextInt(TOPICS);
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                description.append(word(topic, random.nextInt(WORDS_PER_TOPIC))).append(' ');
+            }
+            for (int i = 0; i < 3; i++) {
+                description.append(word(random.nextInt(TOPICS), random.nextInt(WORDS_PER_TOPIC))).append(' ');
+            }
+            Product product = new Product();
+            product.setId(id);
+            product.setTitle("book-" + id);
+            product.setDescription(description.toString().trim());
+            product.setPrice(BigDecimal.valueOf(1 + random.nextInt(20000), 2));
+            product.setRate(random.nextInt(101) / 10.0);
+            product.setSpecifications(new ArrayList<>());
+            products.add(product);
+        }
+        documents = DocumentConverter.convertToDocuments(products);
+        embeddings = documents.stream().map(embeddingModel::embed).toList();
+        for (int i = 0; i < queryCount; i++) {
+            int topic = random.nextInt(TOPICS);
+            queries.add(word(topic, random.nextInt(WORDS_PER_TOPIC)) + " " + word(topic, random.nextInt(WORDS_PER_TOPIC)));
+        }
+        queryEmbeddings = queries.stream().map(embeddingModel::embed).toList();
+    }
+
+    private static String word(int topic, int index) {
+        return "t" + topic + "w" + index;
+    }
+
+    public HashEmbeddingModel embeddingModel() {
+        return embeddingModel;
+    }
+
+    public List<Product> products() {
+        return products;
+    }
+
+    public List<Document> documents() {
+        return documents;
+    }
+
+    public List<float[]> embeddings() {
+        return embeddings;
+    }
+
+    public List<String> queries() {
+        return queries;
+    }
+
+    public List<float[]> queryEmbeddings() {
+        return queryEmbeddings;
+    }
+
+    /**
+     * 暴力计算查询与每个商品的余弦相似度
+     *
+     * @param query 查询序号
+     * @return 与 {@link #products()} 顺序一致的相似度
+     */
+    public double[] scores(int query) {
+        float[] vector = queryEmbeddings.get(query);
+        double[] scores = new double[products.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = dot(vector, embeddings.get(i));
+        }
+        return scores;
+    }
+
+    /**
+     * 读取文档元数据中的商品ID
+     *
+     * @param document 商品文档
+     * @return 商品ID
+     */
+    public static long productId(Document document) {
+        return Long.parseLong(String.valueOf(document.getMetadata().get("id")));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
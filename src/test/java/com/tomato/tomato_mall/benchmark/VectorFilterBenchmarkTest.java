@@ -0,0 +1,198 @@
+package com.tomato.tomato_mall.benchmark;
+
+import com.tomato.tomato_mall.entity.Product;
+import com.tomato.tomato_mall.util.DocumentConverter;
+import com.tomato.tomato_mall.util.ProductFilterBuilder;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 带过滤条件的向量检索基准测试
+ * <p>
+ * 比较两种检索策略在选择性较高的价格、评分区间下的召回率与延迟：
+ * 预过滤将条件下推到向量存储，与相似度搜索一同执行；
+ * 后过滤先按放大倍数多取结果，再在应用中筛选。
+ * 使用内存向量存储和确定性嵌入模型，不依赖数据库和外部服务。
+ * </p>
+ * <p>
+ * 默认构建不会执行该测试，使用 {@code mvn test -Pbenchmark} 运行。
+ * </p>
+ */
+@Tag("benchmark")
+class VectorFilterBenchmarkTest {
+
+    private static final int PRODUCT_COUNT = 2000;
+    private static final int QUERY_COUNT = 50;
+    private static final int TOP_K = 10;
+    private static final int OVER_FETCH_FACTOR = 3;
+    private static final int TOPICS = 20;
+    private static final int WORDS_PER_TOPIC = 6;
+
+    private static final BigDecimal MAX_PRICE = new BigDecimal("30");
+    private static final double MIN_RATE = 7.0;
+
+    private static HashEmbeddingModel embeddingModel;
+    private static VectorStoreUtil vectorStoreUtil;
+    private static List<Product> products;
+    private static List<float[]> productEmbeddings;
+
+    @BeforeAll
+    static void loadProducts() {
+        Random random = new Random(42);
+        embeddingModel = new HashEmbeddingModel(256);
+        SimpleVectorStore vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        vectorStoreUtil = new VectorStoreUtil(vectorStore, null, "public", "vector_store");
+
+        products = new ArrayList<>();
+        for (long id = 1; id <= PRODUCT_COUNT; id++) {
+            int topic = random.nextInt(TOPICS);
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                description.append(word(topic, random.nextInt(WORDS_PER_TOPIC))).append(' ');
+            }
+            for (int i = 0; i < 3; i++) {
+                description.append(word(random.nextInt(TOPICS), random.nextInt(WORDS_PER_TOPIC))).append(' ');
+            }
+            Product product = new Product();
+            product.setId(id);
+            product.setTitle("book-" + id);
+            product.setDescription(description.toString().trim());
+            product.setPrice(BigDecimal.valueOf(1 + random.nextInt(20000), 2).setScale(2, RoundingMode.HALF_UP));
+            product.setRate(random.nextInt(101) / 10.0);
+            product.setSpecifications(new ArrayList<>());
+            products.add(product);
+        }
+        List<Document> documents = DocumentConverter.convertToDocuments(products);
+        vectorStore.add(documents);
+        productEmbeddings = documents.stream().map(embeddingModel::embed).toList();
+    }
+
+    private static String word(int topic, int index) {
+        return "t" + topic + "w" + index;
+    }
+
+    @Test
+    void preFilterVersusPostFilter() {
+        Filter.Expression filter = ProductFilterBuilder.create().maxPrice(MAX_PRICE).minRate(MIN_RATE).build();
+        Predicate<Product> matches = product -> product.getPrice().compareTo(MAX_PRICE) <= 0
+                && product.getRate() >= MIN_RATE;
+
+        Random random = new Random(7);
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int topic = random.nextInt(TOPICS);
+            queries.add(word(topic, random.nextInt(WORDS_PER_TOPIC)) + " " + word(topic, random.nextInt(WORDS_PER_TOPIC)));
+        }
+
+        // 预热，避免首次调用的类加载和 JIT 影响计时
+        for (String query : queries) {
+            vectorStoreUtil.searchProducts(query, TOP_K, 0.0, filter);
+            vectorStoreUtil.searchProducts(query, TOP_K * OVER_FETCH_FACTOR, 0.0, null);
+        }
+
+        double preRecall = 0;
+        double postRecall = 0;
+        long preNanos = 0;
+        long postNanos = 0;
+        for (String query : queries) {
+            GroundTruth truth = groundTruth(query, matches);
+
+            long start = System.nanoTime();
+            List<Document> pre = vectorStoreUtil.searchProducts(query, TOP_K, 0.0, filter);
+            preNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Document> post = vectorStoreUtil.searchProducts(query, TOP_K * OVER_FETCH_FACTOR, 0.0, null)
+                    .stream()
+                    .filter(document -> ((Number) document.getMetadata().get("price")).doubleValue()
+                            <= MAX_PRICE.doubleValue()
+                            && ((Number) document.getMetadata().get("rate")).doubleValue() >= MIN_RATE)
+                    .limit(TOP_K)
+                    .toList();
+            postNanos += System.nanoTime() - start;
+
+            preRecall += recall(pre, truth);
+            postRecall += recall(post, truth);
+        }
+        preRecall /= QUERY_COUNT;
+        postRecall /= QUERY_COUNT;
+
+        long selected = products.stream().filter(matches).count();
+        System.out.printf("filter selectivity: %d/%d products%n", selected, PRODUCT_COUNT);
+        System.out.printf("pre-filter : recall@%d=%.3f avg latency=%.3f ms%n",
+                TOP_K, preRecall, preNanos / 1e6 / QUERY_COUNT);
+        System.out.printf("post-filter: recall@%d=%.3f avg latency=%.3f ms (over-fetch x%d)%n",
+                TOP_K, postRecall, postNanos / 1e6 / QUERY_COUNT, OVER_FETCH_FACTOR);
+
+        assertEquals(1.0, preRecall, 1e-9);
+        assertTrue(postRecall < preRecall);
+    }
+
+    /**
+     * 暴力计算满足过滤条件的真实前K个商品
+     * <p>
+     * 与第K名相似度相同的商品同样视为正确结果，避免并列分数的排序差异影响召回率。
+     * </p>
+     */
+    private GroundTruth groundTruth(String query, Predicate<Product> matches) {
+        float[] queryEmbedding = embeddingModel.embed(query);
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            if (matches.test(products.get(i))) {
+                candidates.add(i);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(i -> -dot(queryEmbedding, productEmbeddings.get(i))));
+        int expected = Math.min(TOP_K, candidates.size());
+        Set<Long> accepted = new HashSet<>();
+        if (expected > 0) {
+            double kthScore = dot(queryEmbedding, productEmbeddings.get(candidates.get(expected - 1)));
+            for (int index : candidates) {
+                if (dot(queryEmbedding, productEmbeddings.get(index)) < kthScore - 1e-5) {
+                    break;
+                }
+                accepted.add(products.get(index).getId());
+            }
+        }
+        return new GroundTruth(accepted, expected);
+    }
+
+    private double recall(List<Document> results, GroundTruth truth) {
+        if (truth.expected() == 0) {
+            return 1.0;
+        }
+        long hits = results.stream()
+                .map(document -> Long.valueOf(String.valueOf(document.getMetadata().get("id"))))
+                .filter(truth.accepted()::contains)
+                .count();
+        return Math.min(1.0, (double) hits / truth.expected());
+    }
+
+    private record GroundTruth(Set<Long> accepted, int expected) {
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
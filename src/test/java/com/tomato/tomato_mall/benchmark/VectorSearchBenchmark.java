@@ -0,0 +1,275 @@
+package com.tomato.tomato_mall.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 向量检索召回率与延迟基准工具
+ * <p>
+ * 对任意向量存储按参数网格执行扫描：每组建图参数（m、ef_construction）重新写入整个合成目录，
+ * 再依次组合检索宽度（ef_search）、相似度阈值和 topK 执行全部查询，
+ * 以暴力计算的近邻为基准统计 recall@k，同时记录单线程 QPS 和 p50/p99 延迟。
+ * 扫描结果以 JSON 数组写入输出目录，便于比较不同参数和不同存储实现。
+ * </p>
+ * <p>
+ * 相似度相同的商品在暴力结果中先后顺序不确定，与第 k 个真实近邻得分相同的结果同样计为命中。
+ * </p>
+ */
+public class VectorSearchBenchmark {
+
+    private static final double SCORE_TOLERANCE = 1e-6;
+
+    private final SyntheticCatalog catalog;
+    private final List<int[]> exactOrders;
+    private final List<double[]> exactScores;
+
+    /**
+     * 创建基准工具，并预先计算每个查询的精确排序
+     *
+     * @param catalog 合成商品目录
+     */
+    public VectorSearchBenchmark(SyntheticCatalog catalog) {
+        this.catalog = catalog;
+        this.exactScores = IntStream.range(0, catalog.queries().size()).mapToObj(catalog::scores).toList();
+        this.exactOrders = exactScores.stream()
+                .map(scores -> IntStream.range(0, scores.length).boxed()
+                        .sorted(Comparator.comparingDouble(i -> -scores[i]))
+                        .mapToInt(Integer::intValue)
+                        .toArray())
+                .toList();
+    }
+
+    /**
+     * 按参数网格扫描一个向量存储
+     *
+     * @param target 被测向量存储
+     * @param grid   参数网格
+     * @return 每组参数的测量结果
+     */
+    public List<Result> sweep(Target target, Grid grid) throws Exception {
+        List<Result> results = new ArrayList<>();
+        List<int[]> indexParameters = new ArrayList<>();
+        List<Integer> efSearches = target.approximate() ? grid.efSearch() : List.of(0);
+        if (target.approximate()) {
+            for (int m : grid.m()) {
+                for (int efConstruction : grid.efConstruction()) {
+                    indexParameters.add(new int[] { m, efConstruction });
+                }
+            }
+        } else {
+            indexParameters.add(new int[] { 0, 0 });
+        }
+
+        for (int[] parameters : indexParameters) {
+            long start = System.nanoTime();
+            target.build(catalog, parameters[0], parameters[1]);
+            double buildMs = (System.nanoTime() - start) / 1e6;
+            try {
+                for (int efSearch : efSearches) {
+                    target.setEfSearch(efSearch);
+                    for (double threshold : grid.threshold()) {
+                        for (int topK : grid.topK()) {
+                            results.add(measure(target, parameters[0], parameters[1], efSearch, topK, threshold,
+                                    buildMs));
+                        }
+                    }
+                }
+            } finally {
+                target.close();
+            }
+        }
+        return results;
+    }
+
+    private Result measure(Target target, int m, int efConstruction, int efSearch, int topK, double threshold,
+            double buildMs) {
+        int queryCount = catalog.queries().size();
+        // 预热一轮，排除类加载、JIT 和缓存的影响
+        for (int i = 0; i < queryCount; i++) {
+            target.search(catalog.queries().get(i), catalog.queryEmbeddings().get(i), topK, threshold);
+        }
+
+        long[] latencies = new long[queryCount];
+        double recall = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queryCount; i++) {
+            long begin = System.nanoTime();
+            List<Document> documents = target.search(catalog.queries().get(i), catalog.queryEmbeddings().get(i),
+                    topK, threshold);
+            latencies[i] = System.nanoTime() - begin;
+            recall += recall(i, documents, topK, threshold);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        return new Result(target.name(), m, efConstruction, efSearch, topK, threshold, recall / queryCount,
+                queryCount / seconds, latencies[queryCount / 2] / 1e6,
+                latencies[(int) Math.ceil(queryCount * 0.99) - 1] / 1e6, buildMs);
+    }
+
+    /**
+     * 计算单个查询的召回率，没有任何商品达到阈值时返回空结果即为完全召回
+     */
+    private double recall(int query, List<Document> documents, int topK, double threshold) {
+        double[] scores = exactScores.get(query);
+        int[] order = exactOrders.get(query);
+        int expected = 0;
+        while (expected < Math.min(topK, order.length) && scores[order[expected]] >= threshold) {
+            expected++;
+        }
+        if (expected == 0) {
+            return documents.isEmpty() ? 1.0 : 0.0;
+        }
+        double cutoff = scores[order[expected - 1]] - SCORE_TOLERANCE;
+        long hits = documents.stream()
+                .mapToInt(document -> (int) SyntheticCatalog.productId(document) - 1)
+                .distinct()
+                .filter(index -> scores[index] >= cutoff)
+                .count();
+        return Math.min(hits, expected) / (double) expected;
+    }
+
+    /**
+     * 打印结果表格并以 JSON 写入文件
+     *
+     * @param results 测量结果
+     * @param file    输出文件
+     */
+    public static void report(List<Result> results, Path file) throws IOException {
+        System.out.printf("%-10s %4s %6s %6s %5s %6s %8s %10s %9s %9s%n", "target", "m", "ef_c", "ef_s", "topK",
+                "thres", "recall", "qps", "p50 ms", "p99 ms");
+        for (Result result : results) {
+            System.out.printf("%-10s %4d %6d %6d %5d %6.2f %8.3f %10.1f %9.3f %9.3f%n", result.target(), result.m(),
+                    result.efConstruction(), result.efSearch(), result.topK(), result.threshold(), result.recall(),
+                    result.qps(), result.p50Ms(), result.p99Ms());
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), results);
+        System.out.println("results written to " + file.toAbsolutePath());
+    }
+
+    /**
+     * 参数网格，精确检索的存储只使用阈值和 topK
+     *
+     * @param m              每个节点的最大连接数
+     * @param efConstruction 建图时的候选列表长度
+     * @param efSearch       检索时的候选列表长度
+     * @param threshold      相似度阈值
+     * @param topK           返回数量
+     */
+    public record Grid(List<Integer> m, List<Integer> efConstruction, List<Integer> efSearch,
+            List<Double> threshold, List<Integer> topK) {
+
+        /**
+         * 从系统属性读取参数网格，多个取值以逗号分隔，例如 {@code -Dbenchmark.vector.ef-search=16,64,200}
+         *
+         * @return 参数网格
+         */
+        public static Grid fromSystemProperties() {
+            return new Grid(
+                    integers("benchmark.vector.m", "8,16"),
+                    integers("benchmark.vector.ef-construction", "64,200"),
+                    integers("benchmark.vector.ef-search", "10,40,100"),
+                    Arrays.stream(System.getProperty("benchmark.vector.threshold", "0.0,0.3").split(","))
+                            .map(String::trim).map(Double::valueOf).toList(),
+                    integers("benchmark.vector.top-k", "5,10"));
+        }
+
+        private static List<Integer> integers(String key, String defaultValue) {
+            return Arrays.stream(System.getProperty(key, defaultValue).split(","))
+                    .map(String::trim).map(Integer::valueOf).toList();
+        }
+    }
+
+    /**
+     * 一组参数的测量结果，精确检索的存储建图参数和检索宽度记为 0
+     */
+    public record Result(String target, int m, int efConstruction, int efSearch, int topK, double threshold,
+            double recall, double qps, double p50Ms, double p99Ms, double buildMs) {
+    }
+
+    /**
+     * 被测向量存储
+     */
+    public interface Target extends AutoCloseable {
+
+        /**
+         * @return 结果中使用的名称
+         */
+        String name();
+
+        /**
+         * @return 是否为近似检索，只有近似检索才扫描建图参数和检索宽度
+         */
+        boolean approximate();
+
+        /**
+         * 使用给定建图参数创建存储并写入整个商品目录
+         */
+        void build(SyntheticCatalog catalog, int m, int efConstruction) throws Exception;
+
+        /**
+         * 调整之后检索使用的候选列表长度
+         */
+        default void setEfSearch(int efSearch) {
+        }
+
+        /**
+         * 执行一次检索，实现可以选择使用查询文本或预先计算的查询向量
+         */
+        List<Document> search(String query, float[] embedding, int topK, double threshold);
+
+        /**
+         * 释放本轮建图创建的资源
+         */
+        @Override
+        default void close() throws Exception {
+        }
+
+        /**
+         * 将任意向量存储包装为精确检索的被测对象，通过标准的 {@link SearchRequest} 检索
+         *
+         * @param name  名称
+         * @param store 向量存储，写入前应为空
+         * @return 被测对象
+         */
+        static Target of(String name, VectorStore store) {
+            return new Target() {
+                @Override
+                public String name() {
+                    return name;
+                }
+
+                @Override
+                public boolean approximate() {
+                    return false;
+                }
+
+                @Override
+                public void build(SyntheticCatalog catalog, int m, int efConstruction) {
+                    store.add(catalog.documents());
+                }
+
+                @Override
+                public List<Document> search(String query, float[] embedding, int topK, double threshold) {
+                    return store.similaritySearch(SearchRequest.builder()
+                            .query(query)
+                            .topK(topK)
+                            .similarityThreshold(threshold)
+                            .build());
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.tomato.tomato_mall.benchmark;
+
+import com.tomato.tomato_mall.enums.VectorQuantizationEnum;
+import com.tomato.tomato_mall.properties.HnswVectorStoreProperties;
+import com.tomato.tomato_mall.properties.VectorQuantizationProperties;
+import com.tomato.tomato_mall.util.HnswVectorStore;
+import com.tomato.tomato_mall.util.QuantizedPgVectorStore;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 向量检索参数扫描基准测试
+ * <p>
+ * 使用 {@link VectorSearchBenchmark} 在同一份合成目录上扫描内存向量存储（精确检索基线）、
+ * 进程内 HNSW 向量存储，以及提供连接地址时的 pgvector HNSW 索引，
+ * 结果写入 {@code target/benchmark/vector-search-<存储>.json}。
+ * </p>
+ * <p>
+ * 默认构建不会执行该测试，使用 {@code mvn test -Pbenchmark} 运行。数据量和参数网格可以通过系统属性调整：
+ * {@code -Dbenchmark.vector.documents=20000 -Dbenchmark.vector.queries=500 -Dbenchmark.vector.m=8,16,32
+ * -Dbenchmark.vector.ef-construction=100,200 -Dbenchmark.vector.ef-search=16,64,256
+ * -Dbenchmark.vector.threshold=0.0,0.3 -Dbenchmark.vector.top-k=5,10,20}；
+ * 扫描 pgvector 还需要 {@code -Dbenchmark.pgvector.url}，用户名和密码与量化基准测试相同。
+ * </p>
+ */
+@Tag("benchmark")
+class VectorSearchBenchmarkTest {
+
+    private static final String TABLE = "vector_search_benchmark";
+
+    private static SyntheticCatalog catalog;
+    private static VectorSearchBenchmark benchmark;
+    private static VectorSearchBenchmark.Grid grid;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void generateCatalog() {
+        catalog = new SyntheticCatalog(Integer.getInteger("benchmark.vector.documents", 5000),
+                Integer.getInteger("benchmark.vector.queries", 200), 42);
+        benchmark = new VectorSearchBenchmark(catalog);
+        grid = VectorSearchBenchmark.Grid.fromSystemProperties();
+    }
+
+    @Test
+    void sweepSimpleVectorStore() throws Exception {
+        SimpleVectorStore store = SimpleVectorStore.builder(catalog.embeddingModel()).build();
+        List<VectorSearchBenchmark.Result> results = benchmark.sweep(VectorSearchBenchmark.Target.of("simple", store),
+                grid);
+        VectorSearchBenchmark.report(results, output("simple"));
+
+        // 内存向量存储是精确检索，用来校验基准本身
+        results.forEach(result -> assertEquals(1.0, result.recall(), 1e-9));
+    }
+
+    @Test
+    void sweepHnswVectorStore() throws Exception {
+        List<VectorSearchBenchmark.Result> results = benchmark.sweep(new HnswTarget(directory), grid);
+        VectorSearchBenchmark.report(results, output("hnsw"));
+
+        int widest = grid.efSearch().stream().mapToInt(Integer::intValue).max().orElseThrow();
+        results.stream()
+                .filter(result -> result.efSearch() == widest)
+                .forEach(result -> assertTrue(result.recall() > 0.9, result.toString()));
+    }
+
+    @Test
+    void sweepPgVector() throws Exception {
+        String url = System.getProperty("benchmark.pgvector.url");
+        assumeTrue(url != null && !url.isBlank(), "benchmark.pgvector.url is not set");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+                System.getProperty("benchmark.pgvector.username", "postgres"),
+                System.getProperty("benchmark.pgvector.password", "postgres"));
+
+        List<VectorSearchBenchmark.Result> results = benchmark.sweep(new PgVectorTarget(dataSource), grid);
+        VectorSearchBenchmark.report(results, output("pgvector"));
+    }
+
+    private static Path output(String target) {
+        return Path.of(System.getProperty("benchmark.output", "target/benchmark"), "vector-search-" + target + ".json");
+    }
+
+    /**
+     * 进程内 HNSW 向量存储，每组建图参数使用单独的数据目录
+     */
+    private static class HnswTarget implements VectorSearchBenchmark.Target {
+
+        private final Path directory;
+        private HnswVectorStore store;
+
+        HnswTarget(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public String name() {
+            return "hnsw";
+        }
+
+        @Override
+        public boolean approximate() {
+            return true;
+        }
+
+        @Override
+        public void build(SyntheticCatalog catalog, int m, int efConstruction) throws Exception {
+            HnswVectorStoreProperties properties = new HnswVectorStoreProperties();
+            properties.setPath(directory.resolve("m" + m + "-ef" + efConstruction).toString());
+            properties.setDimensions(SyntheticCatalog.DIMENSIONS);
+            properties.setM(m);
+            properties.setEfConstruction(efConstruction);
+            store = new HnswVectorStore(catalog.embeddingModel(), properties);
+            store.afterPropertiesSet();
+            store.add(catalog.documents());
+        }
+
+        @Override
+        public void setEfSearch(int efSearch) {
+            store.setEfSearch(efSearch);
+        }
+
+        @Override
+        public List<Document> search(String query, float[] embedding, int topK, double threshold) {
+            return store.similaritySearch(embedding, topK, threshold, null);
+        }
+
+        @Override
+        public void close() {
+            store.destroy();
+        }
+    }
+
+    /**
+     * pgvector HNSW 索引，每组建图参数重建索引，通过全精度模式的量化向量存储检索
+     */
+    private static class PgVectorTarget implements VectorSearchBenchmark.Target {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final DataSourceTransactionManager transactionManager;
+        private QuantizedPgVectorStore store;
+
+        PgVectorTarget(DriverManagerDataSource dataSource) {
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.transactionManager = new DataSourceTransactionManager(dataSource);
+        }
+
+        @Override
+        public String name() {
+            return "pgvector";
+        }
+
+        @Override
+        public boolean approximate() {
+            return true;
+        }
+
+        @Override
+        public void build(SyntheticCatalog catalog, int m, int efConstruction) {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " (id uuid PRIMARY KEY, content text, metadata json, "
+                    + "embedding vector(" + SyntheticCatalog.DIMENSIONS + "))");
+            List<Document> documents = catalog.documents();
+            for (int start = 0; start < documents.size(); start += 1000) {
+                List<Object[]> batch = new ArrayList<>();
+                for (int i = start; i < Math.min(documents.size(), start + 1000); i++) {
+                    Document document = documents.get(i);
+                    batch.add(new Object[] { document.getId(), document.getText(),
+                            "{\"id\":\"" + document.getMetadata().get("id") + "\"}",
+                            literal(catalog.embeddings().get(i)) });
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO " + TABLE
+                        + " (id, content, metadata, embedding) VALUES (?::uuid, ?, ?::json, ?::vector)", batch);
+            }
+            jdbcTemplate.execute("CREATE INDEX ON " + TABLE + " USING hnsw (embedding vector_cosine_ops) WITH (m = "
+                    + m + ", ef_construction = " + efConstruction + ")");
+            jdbcTemplate.execute("ANALYZE " + TABLE);
+        }
+
+        @Override
+        public void setEfSearch(int efSearch) {
+            VectorQuantizationProperties properties = new VectorQuantizationProperties();
+            properties.setQuantization(VectorQuantizationEnum.NONE);
+            properties.setEfSearch(efSearch);
+            store = new QuantizedPgVectorStore(null, jdbcTemplate, transactionManager, null, "public", TABLE,
+                    SyntheticCatalog.DIMENSIONS, properties);
+        }
+
+        @Override
+        public List<Document> search(String query, float[] embedding, int topK, double threshold) {
+            return store.similaritySearch(embedding, topK, threshold, null);
+        }
+
+        @Override
+        public void close() {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+
+        private static String literal(float[] vector) {
+            StringJoiner joiner = new StringJoiner(",", "[", "]");
+            for (float value : vector) {
+                joiner.add(Float.toString(value));
+            }
+            return joiner.toString();
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.tomato.tomato_mall.controller;
 import com.tomato.tomato_mall.dto.ConversationCreateDTO;
 import com.tomato.tomato_mall.dto.MessageCreateDTO;
 import com.tomato.tomato_mall.service.ConversationService;
+import com.tomato.tomato_mall.service.StreamReplayService;
 import com.tomato.tomato_mall.vo.ConversationVO;
+import com.tomato.tomato_mall.vo.CursorPageVO;
 import com.tomato.tomato_mall.vo.MessageVO;
+import com.tomato.tomato_mall.vo.StreamEventVO;
 import com.tomato.tomato_mall.vo.ResponseVO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,7 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -33,6 +37,9 @@ class ConversationControllerTest {
     @Mock
     private ConversationService conversationService;
 
+    @Mock
+    private StreamReplayService streamReplayService;
+
     @InjectMocks
     private ConversationController conversationController;
 
@@ -92,6 +99,23 @@ class ConversationControllerTest {
         verify(conversationService, times(1)).getUserConversations(eq("testuser"));
     }
 
+    @Test
+    void testGetUserConversationPage_Success() throws Exception {
+        // --- Arrange ---
+        mockSecurityContext("testuser");
+        CursorPageVO<ConversationVO> page = new CursorPageVO<>(List.of(conversationVO), "next", true);
+        when(conversationService.getUserConversationPage(eq("testuser"), eq("cursor"), eq(10))).thenReturn(page);
+
+        // --- Act ---
+        ResponseEntity<ResponseVO<CursorPageVO<ConversationVO>>> response = conversationController
+                .getUserConversationPage("cursor", 10);
+
+        // --- Assert ---
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(page, response.getBody().getData());
+    }
+
     @Test
     void testCreateConversation_Success() throws Exception {
         // --- Arrange ---
@@ -134,6 +158,25 @@ class ConversationControllerTest {
         verify(conversationService, times(1)).getConversation(eq("testuser"), eq(conversationId));
     }
 
+    @Test
+    void testGetMessagePage_Success() throws Exception {
+        // --- Arrange ---
+        mockSecurityContext("testuser");
+        String conversationId = "CONV-123456789012";
+        CursorPageVO<MessageVO> page = new CursorPageVO<>(List.of(messageVO), null, false);
+        when(conversationService.getMessagePage(eq("testuser"), eq(conversationId), isNull(), isNull()))
+                .thenReturn(page);
+
+        // --- Act ---
+        ResponseEntity<ResponseVO<CursorPageVO<MessageVO>>> response = conversationController
+                .getMessagePage(conversationId, null, null);
+
+        // --- Assert ---
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(page, response.getBody().getData());
+    }
+
     @Test
     void testDeleteConversation_Success() throws Exception {
         // --- Arrange ---
@@ -182,21 +225,45 @@ class ConversationControllerTest {
         // --- Arrange ---
         mockSecurityContext("testuser");
         String conversationId = "CONV-123456789012";
+        Flux<String> chunks = Flux.just("Hello", " World");
         when(conversationService.getStreamMessage(eq("testuser"), eq(conversationId), any(MessageCreateDTO.class)))
-                .thenReturn(Flux.just("Hello", " World"));
+                .thenReturn(chunks);
+        when(streamReplayService.publish("testuser", conversationId, chunks, Duration.ofMillis(50))).thenReturn(Flux.just(
+                new StreamEventVO("GEN-1:1", "Hello"), new StreamEventVO("GEN-1:2", " World")));
 
         // --- Act ---
         Flux<org.springframework.http.codec.ServerSentEvent<String>> response = 
-                conversationController.getStreamMessage(conversationId, messageDTO);
+                conversationController.getStreamMessage(conversationId, 50, messageDTO);
 
         // --- Assert ---
         assertNotNull(response);
-        List<String> messages = response.map(sse -> sse.data()).collectList().block();
-        assertNotNull(messages);
-        assertEquals(2, messages.size());
-        assertEquals("Hello", messages.get(0));
-        assertEquals(" World", messages.get(1));
+        List<org.springframework.http.codec.ServerSentEvent<String>> events = response.collectList().block();
+        assertNotNull(events);
+        assertEquals(2, events.size());
+        assertEquals("Hello", events.get(0).data());
+        assertEquals(" World", events.get(1).data());
+        assertEquals("GEN-1:1", events.get(0).id());
+        assertEquals("GEN-1:2", events.get(1).id());
 
         verify(conversationService, times(1)).getStreamMessage(eq("testuser"), eq(conversationId), eq(messageDTO));
     }
+
+    @Test
+    void testResumeStreamMessage_Success() throws Exception {
+        // --- Arrange ---
+        mockSecurityContext("testuser");
+        String conversationId = "CONV-123456789012";
+        when(streamReplayService.resume("testuser", conversationId, "GEN-1:1"))
+                .thenReturn(Flux.just(new StreamEventVO("GEN-1:2", " World")));
+
+        // --- Act ---
+        List<org.springframework.http.codec.ServerSentEvent<String>> events = conversationController
+                .resumeStreamMessage(conversationId, "GEN-1:1").collectList().block();
+
+        // --- Assert ---
+        assertNotNull(events);
+        assertEquals(1, events.size());
+        assertEquals("GEN-1:2", events.get(0).id());
+        assertEquals(" World", events.get(0).data());
+    }
 }
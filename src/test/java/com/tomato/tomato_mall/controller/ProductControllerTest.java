@@ -1,12 +1,17 @@
 package com.tomato.tomato_mall.controller;
 
 import com.tomato.tomato_mall.dto.ProductCreateDTO;
+import com.tomato.tomato_mall.dto.ProductSearchDTO;
 import com.tomato.tomato_mall.dto.ProductUpdateDTO;
+import com.tomato.tomato_mall.dto.StockpileBulkItemDTO;
 import com.tomato.tomato_mall.dto.StockpileUpdateDTO;
+import com.tomato.tomato_mall.service.ProductBulkService;
 import com.tomato.tomato_mall.service.ProductService;
 import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.vo.ProductBulkResultVO;
 import com.tomato.tomato_mall.vo.ProductVO;
 import com.tomato.tomato_mall.vo.ResponseVO;
+import com.tomato.tomato_mall.vo.StockpileBulkResultVO;
 import com.tomato.tomato_mall.vo.StockpileVO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,7 +24,10 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
@@ -37,6 +45,9 @@ class ProductControllerTest {
     @Mock // 模拟 StockpileService
     private StockpileService stockpileService;
 
+    @Mock // 模拟 ProductBulkService
+    private ProductBulkService productBulkService;
+
     @InjectMocks // 创建 ProductController 实例，并注入上面的 Mock 对象
     private ProductController productController;
 
@@ -150,6 +161,26 @@ class ProductControllerTest {
         verify(productService, times(1)).getProductById(eq(productId));
     }
 
+    @Test
+    void searchProducts_Success() {
+        // --- Arrange ---
+        ProductSearchDTO searchDTO = new ProductSearchDTO();
+        searchDTO.setQuery("科幻小说");
+        searchDTO.setMaxPrice(new BigDecimal("100"));
+        when(productService.searchProducts(searchDTO)).thenReturn(List.of(productVO));
+
+        // --- Act ---
+        ResponseEntity<ResponseVO<List<ProductVO>>> response = productController.searchProducts(searchDTO);
+
+        // --- Assert ---
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ResponseVO<List<ProductVO>> body = response.getBody();
+        assertNotNull(body);
+        assertEquals(200, body.getCode());
+        assertEquals(List.of(productVO), body.getData());
+        verify(productService, times(1)).searchProducts(searchDTO);
+    }
+
     @Test
     void createProduct_Success() {
         // --- Arrange ---
@@ -252,4 +283,59 @@ class ProductControllerTest {
         // 验证 stockpileService.updateStockpile 被调用
         verify(stockpileService, times(1)).updateStockpile(eq(productId), eq(stockpileUpdateDTO));
     }
-}
\ No newline at end of file
+
+    @Test
+    void bulkProcessProducts_Success() {
+        // --- Arrange ---
+        InputStream body = new ByteArrayInputStream("title,price\n测试商品,9.9\n".getBytes(StandardCharsets.UTF_8));
+        ProductBulkResultVO resultVO = ProductBulkResultVO.builder()
+                .total(1)
+                .succeeded(1)
+                .failed(0)
+                .chunks(List.of())
+                .build();
+        when(productBulkService.bulkProcess(body, "text/csv", 500)).thenReturn(resultVO);
+
+        // --- Act ---
+        ResponseEntity<ResponseVO<ProductBulkResultVO>> response =
+                productController.bulkProcessProducts("text/csv", 500, body);
+
+        // --- Assert ---
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ResponseVO<ProductBulkResultVO> responseBody = response.getBody();
+        assertNotNull(responseBody);
+        assertEquals(200, responseBody.getCode());
+        assertEquals(resultVO, responseBody.getData());
+
+        // 验证 productBulkService.bulkProcess 被调用
+        verify(productBulkService, times(1)).bulkProcess(body, "text/csv", 500);
+    }
+
+    @Test
+    void bulkUpdateProductStock_Success() {
+        // --- Arrange ---
+        List<StockpileBulkItemDTO> items = List.of(new StockpileBulkItemDTO(1L, 100));
+        StockpileBulkResultVO resultVO = StockpileBulkResultVO.builder()
+                .total(1)
+                .updated(1)
+                .rejected(0)
+                .rejections(List.of())
+                .build();
+        when(stockpileService.bulkUpdateStockpiles(items)).thenReturn(resultVO);
+
+        // --- Act ---
+        ResponseEntity<ResponseVO<StockpileBulkResultVO>> response = productController.bulkUpdateProductStock(items);
+
+        // --- Assert ---
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ResponseVO<StockpileBulkResultVO> body = response.getBody();
+        assertNotNull(body);
+        assertEquals(200, body.getCode());
+        assertEquals(resultVO, body.getData());
+
+        // 验证 stockpileService.bulkUpdateStockpiles 被调用
+        verify(stockpileService, times(1)).bulkUpdateStockpiles(eq(items));
+    }
+}
@@ -0,0 +1,91 @@
+package com.tomato.tomato_mall.controller;
+
+import com.tomato.tomato_mall.service.VectorReindexService;
+import com.tomato.tomato_mall.vo.ResponseVO;
+import com.tomato.tomato_mall.vo.VectorConsistencyVO;
+import com.tomato.tomato_mall.vo.VectorReindexJobVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VectorStoreControllerTest {
+
+    @Mock
+    private VectorReindexService vectorReindexService;
+
+    @InjectMocks
+    private VectorStoreController vectorStoreController;
+
+    private VectorReindexJobVO jobVO;
+
+    @BeforeEach
+    void setUp() {
+        jobVO = VectorReindexJobVO.builder()
+                .id(1L)
+                .status("RUNNING")
+                .processed(0L)
+                .total(100L)
+                .build();
+    }
+
+    @Test
+    void startReindex_Success() {
+        // --- Arrange ---
+        when(vectorReindexService.startReindex()).thenReturn(jobVO);
+
+        // --- Act ---
+        ResponseEntity<ResponseVO<VectorReindexJobVO>> response = vectorStoreController.startReindex();
+
+        // --- Assert ---
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(200, response.getBody().getCode());
+        assertEquals(jobVO, response.getBody().getData());
+        verify(vectorReindexService, times(1)).startReindex();
+    }
+
+    @Test
+    void getReindexStatus_Success() {
+        // --- Arrange ---
+        when(vectorReindexService.getLatestJob()).thenReturn(jobVO);
+
+        // --- Act ---
+        ResponseEntity<ResponseVO<VectorReindexJobVO>> response = vectorStoreController.getReindexStatus();
+
+        // --- Assert ---
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(jobVO, response.getBody().getData());
+    }
+
+    @Test
+    void checkConsistency_Success() {
+        // --- Arrange ---
+        VectorConsistencyVO report = VectorConsistencyVO.builder()
+                .missingCount(1L)
+                .orphanedCount(0L)
+                .missingProductIds(List.of(5L))
+                .orphanedProductIds(List.of())
+                .build();
+        when(vectorReindexService.checkConsistency()).thenReturn(report);
+
+        // --- Act ---
+        ResponseEntity<ResponseVO<VectorConsistencyVO>> response = vectorStoreController.checkConsistency();
+
+        // --- Assert ---
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(report, response.getBody().getData());
+    }
+}
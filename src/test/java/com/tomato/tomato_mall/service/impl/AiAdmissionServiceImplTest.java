@@ -0,0 +1,178 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.properties.AiAdmissionProperties;
+import com.tomato.tomato_mall.service.AiAdmissionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiAdmissionServiceImplTest {
+
+    private AiAdmissionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AiAdmissionServiceImpl aiAdmissionService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiAdmissionProperties();
+        properties.setMaxConcurrent(1);
+        properties.setMaxConcurrentPerUser(1);
+        meterRegistry = new SimpleMeterRegistry();
+        aiAdmissionService = new AiAdmissionServiceImpl(properties, meterRegistry);
+    }
+
+    // --- acquire 方法测试 ---
+    @Test
+    void acquire_WithinLimitGrantedImmediately() {
+        // --- Act ---
+        AiAdmissionService.Permit permit = aiAdmissionService.acquire("alice");
+
+        // --- Assert ---
+        assertEquals(1, gauge("ai.admission.in.flight"));
+        permit.close();
+        permit.close();
+        assertEquals(0, gauge("ai.admission.in.flight"));
+    }
+
+    @Test
+    void acquire_Disabled() {
+        // --- Arrange ---
+        properties.setEnabled(false);
+
+        // --- Act ---
+        aiAdmissionService.acquire("alice");
+        aiAdmissionService.acquire("alice");
+
+        // --- Assert ---
+        assertEquals(0, gauge("ai.admission.in.flight"));
+    }
+
+    // --- admit 方法测试 ---
+    @Test
+    void admit_QueuedUntilPermitReleased() {
+        // --- Arrange ---
+        AiAdmissionService.Permit permit = aiAdmissionService.acquire("alice");
+        List<Integer> positions = new ArrayList<>();
+        List<String> received = new ArrayList<>();
+
+        // --- Act ---
+        aiAdmissionService.admit("alice", Flux.just("reply"))
+                .contextWrite(listener(positions::add))
+                .subscribe(received::add);
+
+        // --- Assert ---
+        assertTrue(received.isEmpty());
+        assertEquals(List.of(1), positions);
+        assertEquals(1, gauge("ai.admission.queued"));
+
+        permit.close();
+        assertEquals(List.of("reply"), received);
+        assertEquals(List.of(1, 0), positions);
+        assertEquals(0, gauge("ai.admission.queued"));
+        assertEquals(0, gauge("ai.admission.in.flight"));
+    }
+
+    @Test
+    void admit_UsersServedInTurn() {
+        // --- Arrange ---
+        properties.setMaxQueuedPerUser(2);
+        AiAdmissionService.Permit permit = aiAdmissionService.acquire("alice");
+        List<String> order = new ArrayList<>();
+        List<Integer> secondAlicePositions = new ArrayList<>();
+        aiAdmissionService.admit("alice", call(order, "alice-1")).subscribe();
+        aiAdmissionService.admit("alice", call(order, "alice-2"))
+                .contextWrite(listener(secondAlicePositions::add))
+                .subscribe();
+        aiAdmissionService.admit("bob", call(order, "bob-1")).subscribe();
+
+        // --- Act ---
+        permit.close();
+
+        // --- Assert ---
+        assertEquals(List.of("alice-1", "bob-1", "alice-2"), order);
+        assertEquals(List.of(2, 3, 2, 1, 0), secondAlicePositions);
+    }
+
+    @Test
+    void admit_QueueFullRejected() {
+        // --- Arrange ---
+        properties.setMaxQueuedPerUser(1);
+        aiAdmissionService.acquire("alice");
+        aiAdmissionService.admit("alice", Flux.just("queued")).subscribe();
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> aiAdmissionService.admit("alice", Flux.just("rejected")).blockLast());
+        assertEquals(ErrorTypeEnum.AI_SERVICE_BUSY, exception.getErrorType());
+        assertEquals(1, meterRegistry.get("ai.admission.rejections").tag("reason", "queue_full").counter().count());
+    }
+
+    @Test
+    void admit_QueueTimeout() {
+        // --- Arrange ---
+        properties.setQueueTimeout(Duration.ofMillis(20));
+        aiAdmissionService.acquire("alice");
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> aiAdmissionService.admit("alice", Flux.just("reply")).blockLast(Duration.ofSeconds(5)));
+        assertEquals(ErrorTypeEnum.AI_SERVICE_BUSY, exception.getErrorType());
+        assertEquals(1, meterRegistry.get("ai.admission.rejections").tag("reason", "timeout").counter().count());
+        assertEquals(0, gauge("ai.admission.queued"));
+    }
+
+    @Test
+    void admit_CancelledWhileQueued() {
+        // --- Arrange ---
+        AiAdmissionService.Permit permit = aiAdmissionService.acquire("alice");
+        List<String> received = new ArrayList<>();
+        Disposable subscription = aiAdmissionService.admit("alice", Flux.just("reply")).subscribe(received::add);
+
+        // --- Act ---
+        subscription.dispose();
+        permit.close();
+
+        // --- Assert ---
+        assertTrue(received.isEmpty());
+        assertEquals(0, gauge("ai.admission.queued"));
+        assertEquals(0, gauge("ai.admission.in.flight"));
+    }
+
+    @Test
+    void admit_PermitReleasedWhenCallFails() {
+        // --- Act ---
+        assertThrows(IllegalStateException.class, () -> aiAdmissionService
+                .admit("alice", Flux.error(new IllegalStateException("model unavailable"))).blockLast());
+
+        // --- Assert ---
+        assertEquals(0, gauge("ai.admission.in.flight"));
+        assertEquals(1, meterRegistry.get("ai.admission.wait").timer().count());
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static Context listener(IntConsumer listener) {
+        return Context.of(AiAdmissionService.QUEUE_LISTENER_KEY, listener);
+    }
+
+    private static Flux<String> call(List<String> order, String name) {
+        return Flux.defer(() -> {
+            order.add(name);
+            return Flux.just(name);
+        });
+    }
+}
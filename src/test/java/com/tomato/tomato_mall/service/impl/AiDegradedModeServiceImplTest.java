@@ -0,0 +1,176 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.properties.AiDegradedProperties;
+import com.tomato.tomato_mall.service.AiDegradedModeService;
+import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+import com.tomato.tomato_mall.vo.StockpileVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AiDegradedModeServiceImplTest {
+
+    @Mock
+    private VectorStoreUtil vectorStoreUtil;
+
+    @Mock
+    private StockpileService stockpileService;
+
+    private AiDegradedProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AiDegradedModeServiceImpl degradedModeService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiDegradedProperties();
+        properties.setWindowSize(4);
+        properties.setMinCalls(4);
+        properties.setSlowCallThreshold(Duration.ofSeconds(5));
+        properties.setProbeInterval(Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        degradedModeService = new AiDegradedModeServiceImpl(properties, vectorStoreUtil, stockpileService,
+                meterRegistry);
+    }
+
+    // --- isRecommendation 方法测试 ---
+    @Test
+    void isRecommendation_MatchesRecommendationIntents() {
+        // --- Act & Assert ---
+        assertTrue(degradedModeService.isRecommendation("推荐几本科幻小说"));
+        assertTrue(degradedModeService.isRecommendation("有什么适合孩子读的绘本"));
+        assertTrue(degradedModeService.isRecommendation("Can you recommend a mystery novel?"));
+        assertFalse(degradedModeService.isRecommendation("我的订单什么时候发货"));
+    }
+
+    // --- 模式切换测试 ---
+    @Test
+    void record_UnhealthyCallsEnterDegradedMode() {
+        // --- Act ---
+        degradedModeService.recordSuccess(Duration.ofMillis(500));
+        degradedModeService.recordFailure();
+        degradedModeService.recordSuccess(Duration.ofSeconds(6));
+
+        // --- Assert ---
+        assertFalse(degradedModeService.isDegraded());
+        degradedModeService.recordCancelled(Duration.ofMillis(100)); // 等待时间短，不计入
+        assertFalse(degradedModeService.isDegraded());
+        degradedModeService.recordCancelled(Duration.ofSeconds(8));
+        assertTrue(degradedModeService.isDegraded());
+        assertTrue(degradedModeService.shouldDegrade());
+        assertEquals(1, meterRegistry.get("ai.degraded.mode").gauge().value());
+        assertEquals(1, meterRegistry.get("ai.degraded.transitions").tag("to", "degraded").counter().count());
+    }
+
+    @Test
+    void record_HealthyWindowStaysNormal() {
+        // --- Act ---
+        degradedModeService.recordFailure();
+        for (int i = 0; i < 4; i++) {
+            degradedModeService.recordSuccess(Duration.ofMillis(500));
+        }
+        degradedModeService.recordFailure();
+
+        // --- Assert ---
+        assertFalse(degradedModeService.isDegraded());
+        assertFalse(degradedModeService.shouldDegrade());
+    }
+
+    @Test
+    void shouldDegrade_ProbeRecoversNormalMode() {
+        // --- Arrange ---
+        properties.setProbeInterval(Duration.ZERO);
+        for (int i = 0; i < 4; i++) {
+            degradedModeService.recordFailure();
+        }
+
+        // --- Act ---
+        boolean degraded = degradedModeService.shouldDegrade();
+        degradedModeService.recordFailure();
+        boolean stillDegraded = degradedModeService.isDegraded();
+        degradedModeService.recordSuccess(Duration.ofMillis(500));
+
+        // --- Assert ---
+        assertFalse(degraded); // 试探间隔已到，放行本次调用
+        assertTrue(stillDegraded);
+        assertFalse(degradedModeService.isDegraded());
+        assertEquals(1, meterRegistry.get("ai.degraded.transitions").tag("to", "normal").counter().count());
+    }
+
+    @Test
+    void shouldDegrade_Disabled() {
+        // --- Arrange ---
+        for (int i = 0; i < 4; i++) {
+            degradedModeService.recordFailure();
+        }
+        properties.setEnabled(false);
+
+        // --- Act & Assert ---
+        assertFalse(degradedModeService.shouldDegrade());
+        assertFalse(degradedModeService.isRecommendation("推荐几本科幻小说"));
+    }
+
+    // --- answer 方法测试 ---
+    @Test
+    void answer_ListsBooksWithStock() {
+        // --- Arrange ---
+        Document available = new Document("三体", Map.of("id", "1", "title", "三体", "price", 23.0, "rate", 9.3));
+        Document soldOut = new Document("球状闪电", Map.of("id", "2", "title", "球状闪电"));
+        when(vectorStoreUtil.searchProducts(eq("推荐科幻小说"), eq(5), anyDouble(), isNull()))
+                .thenReturn(List.of(available, soldOut));
+        when(stockpileService.getStockpilesByProductIds(List.of(1L, 2L))).thenReturn(Map.of(
+                1L, StockpileVO.builder().productId(1L).amount(12).frozen(0).build(),
+                2L, StockpileVO.builder().productId(2L).amount(0).frozen(0).build()));
+
+        // --- Act ---
+        Optional<String> answer = degradedModeService.answer("推荐科幻小说");
+
+        // --- Assert ---
+        assertTrue(answer.isPresent());
+        assertTrue(AiDegradedModeService.isDegradedAnswer(answer.get()));
+        assertTrue(answer.get().contains("1. 《三体》 价格：23.0元 评分：9.3 有货（可售 12 本）"), answer.get());
+        assertTrue(answer.get().contains("2. 《球状闪电》 暂时缺货"), answer.get());
+        assertEquals(1, meterRegistry.get("ai.degraded.answers").counter().count());
+    }
+
+    @Test
+    void answer_NoMatchingBooks() {
+        // --- Arrange ---
+        when(vectorStoreUtil.searchProducts(any(), anyInt(), anyDouble(), isNull())).thenReturn(List.of());
+
+        // --- Act ---
+        Optional<String> answer = degradedModeService.answer("推荐科幻小说");
+
+        // --- Assert ---
+        assertTrue(answer.isPresent());
+        assertTrue(answer.get().startsWith(AiDegradedModeService.NOTICE));
+        verifyNoInteractions(stockpileService);
+    }
+
+    @Test
+    void answer_SearchFailure() {
+        // --- Arrange ---
+        when(vectorStoreUtil.searchProducts(any(), anyInt(), anyDouble(), isNull()))
+                .thenThrow(new RuntimeException("embedding unavailable"));
+
+        // --- Act & Assert ---
+        assertTrue(degradedModeService.answer("推荐科幻小说").isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.entity.ChatMemorySummary;
+import com.tomato.tomato_mall.properties.ChatMemoryProperties;
+import com.tomato.tomato_mall.repository.ChatMemorySummaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatSummaryServiceImplTest {
+
+    @Mock
+    private ChatModel chatModel;
+
+    @Mock
+    private ChatMemorySummaryRepository summaryRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private List<Runnable> queued;
+    private ChatSummaryServiceImpl chatSummaryService;
+    private List<Message> messages;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        queued = new ArrayList<>();
+        chatSummaryService = new ChatSummaryServiceImpl(chatModel, summaryRepository, new ChatMemoryProperties(),
+                meterRegistry, queued::add);
+        messages = List.of(new UserMessage("推荐几本推理小说"), new AssistantMessage("推荐《白夜行》和《嫌疑人X的献身》"));
+    }
+
+    // --- getSummary 方法测试 ---
+    @Test
+    void getSummary_Exists() {
+        // --- Arrange ---
+        ChatMemorySummary summary = new ChatMemorySummary("CONV-1234567", "用户喜欢推理小说", "abc", null);
+        when(summaryRepository.findById("CONV-1234567")).thenReturn(Optional.of(summary));
+
+        // --- Act ---
+        Optional<ChatMemorySummary> result = chatSummaryService.getSummary("CONV-1234567");
+
+        // --- Assert ---
+        assertEquals(Optional.of(summary), result);
+    }
+
+    // --- summarizeAsync 方法测试 ---
+    @Test
+    void summarizeAsync_SavesMergedSummary() {
+        // --- Arrange ---
+        when(chatModel.call(any(Message[].class))).thenReturn(" 用户喜欢东野圭吾的推理小说 ");
+
+        // --- Act ---
+        chatSummaryService.summarizeAsync("CONV-1234567", "用户在找小说", messages, "fp-2");
+        queued.forEach(Runnable::run);
+
+        // --- Assert ---
+        ArgumentCaptor<Message[]> prompt = ArgumentCaptor.forClass(Message[].class);
+        verify(chatModel).call(prompt.capture());
+        String transcript = prompt.getValue()[1].getText();
+        assertTrue(transcript.contains("用户在找小说"));
+        assertTrue(transcript.contains("用户：推荐几本推理小说"));
+        assertTrue(transcript.contains("助手：推荐《白夜行》"));
+
+        ArgumentCaptor<ChatMemorySummary> saved = ArgumentCaptor.forClass(ChatMemorySummary.class);
+        verify(summaryRepository).save(saved.capture());
+        assertEquals("CONV-1234567", saved.getValue().getConversationKey());
+        assertEquals("用户喜欢东野圭吾的推理小说", saved.getValue().getSummary());
+        assertEquals("fp-2", saved.getValue().getLastMessageFingerprint());
+        assertEquals(1, meterRegistry.get("ai.chat.memory.summarizations").tag("result", "success").counter().count());
+    }
+
+    @Test
+    void summarizeAsync_InFlightConversationSkipped() {
+        // --- Act ---
+        chatSummaryService.summarizeAsync("CONV-1234567", null, messages, "fp-2");
+        chatSummaryService.summarizeAsync("CONV-1234567", null, messages, "fp-2");
+
+        // --- Assert ---
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void summarizeAsync_ModelFailure() {
+        // --- Arrange ---
+        when(chatModel.call(any(Message[].class))).thenThrow(new RuntimeException("model unavailable"));
+
+        // --- Act ---
+        chatSummaryService.summarizeAsync("CONV-1234567", null, messages, "fp-2");
+        queued.forEach(Runnable::run);
+
+        // --- Assert ---
+        verify(summaryRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get("ai.chat.memory.summarizations").tag("result", "failure").counter().count());
+
+        // 失败后可以重新提交
+        chatSummaryService.summarizeAsync("CONV-1234567", null, messages, "fp-2");
+        assertEquals(2, queued.size());
+    }
+
+    @Test
+    void summarizeAsync_ClearedWhileInFlight() {
+        // --- Arrange ---
+        when(chatModel.call(any(Message[].class))).thenReturn("用户喜欢推理小说");
+        chatSummaryService.summarizeAsync("CONV-1234567", null, messages, "fp-2");
+
+        // --- Act ---
+        chatSummaryService.clear("CONV-1234567");
+        queued.forEach(Runnable::run);
+
+        // --- Assert ---
+        verify(summaryRepository, never()).save(any());
+    }
+
+    // --- clear 方法测试 ---
+    @Test
+    void clear_DeletesSummary() {
+        // --- Arrange ---
+        when(summaryRepository.existsById("CONV-1234567")).thenReturn(true);
+
+        // --- Act ---
+        chatSummaryService.clear("CONV-1234567");
+
+        // --- Assert ---
+        verify(summaryRepository).deleteById("CONV-1234567");
+    }
+}
@@ -1,31 +1,64 @@
 package com.tomato.tomato_mall.service.impl;
 
+import com.tomato.tomato_mall.advisor.TokenWindowChatMemoryAdvisor;
 import com.tomato.tomato_mall.dto.ConversationCreateDTO;
 import com.tomato.tomato_mall.dto.MessageCreateDTO;
 import com.tomato.tomato_mall.entity.Conversation;
+import com.tomato.tomato_mall.entity.Message;
 import com.tomato.tomato_mall.entity.User;
 import com.tomato.tomato_mall.enums.ErrorTypeEnum;
 import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.properties.AiAdmissionProperties;
+import com.tomato.tomato_mall.properties.AiDegradedProperties;
+import com.tomato.tomato_mall.properties.AiHistoryProperties;
+import com.tomato.tomato_mall.properties.AiStreamProperties;
+import com.tomato.tomato_mall.properties.ChatMemoryProperties;
 import com.tomato.tomato_mall.repository.ConversationRepository;
 import com.tomato.tomato_mall.repository.MessageRepository;
 import com.tomato.tomato_mall.repository.UserRepository;
+import com.tomato.tomato_mall.service.AiAdmissionService;
+import com.tomato.tomato_mall.service.AiDegradedModeService;
+import com.tomato.tomato_mall.service.ChatSummaryService;
+import com.tomato.tomato_mall.service.SemanticCacheService;
+import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.util.StubChatModel;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
 import com.tomato.tomato_mall.vo.ConversationVO;
+import com.tomato.tomato_mall.vo.CursorPageVO;
+import com.tomato.tomato_mall.vo.MessageVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.memory.ChatMemory;
-
+import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +79,28 @@ class ConversationServiceImplTest {
     @Mock
     private ChatMemory chatMemory;
 
+    @Mock
+    private SemanticCacheService semanticCacheService;
+
+    @Mock
+    private ChatSummaryService chatSummaryService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private AiStreamProperties streamProperties = new AiStreamProperties();
+
+    @Spy
+    private AiAdmissionService aiAdmissionService = new AiAdmissionServiceImpl(new AiAdmissionProperties(),
+            new SimpleMeterRegistry());
+
+    @Mock
+    private AiDegradedModeService degradedModeService;
+
+    @Spy
+    private AiHistoryProperties historyProperties = new AiHistoryProperties();
+
     @InjectMocks
     private ConversationServiceImpl conversationService;
 
@@ -82,7 +137,7 @@ class ConversationServiceImplTest {
         // --- Arrange ---
         List<Conversation> conversations = Arrays.asList(conversation);
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(conversationRepository.findByUserOrderByUpdateTimeDesc(user)).thenReturn(conversations);
+        when(conversationRepository.findPageByUser(eq(user), any(Pageable.class))).thenReturn(conversations);
 
         // --- Act ---
         List<ConversationVO> result = conversationService.getUserConversations("testuser");
@@ -94,7 +149,7 @@ class ConversationServiceImplTest {
         assertEquals(conversation.getTitle(), result.get(0).getTitle());
 
         verify(userRepository, times(1)).findByUsername("testuser");
-        verify(conversationRepository, times(1)).findByUserOrderByUpdateTimeDesc(user);
+        verify(conversationRepository, times(1)).findPageByUser(user, PageRequest.of(0, 20));
     }
 
     @Test
@@ -109,14 +164,14 @@ class ConversationServiceImplTest {
 
         assertEquals(ErrorTypeEnum.USER_NOT_FOUND, exception.getErrorType());
         verify(userRepository, times(1)).findByUsername("testuser");
-        verify(conversationRepository, never()).findByUserOrderByUpdateTimeDesc(any());
+        verify(conversationRepository, never()).findPageByUser(any(), any());
     }
 
     @Test
     void getUserConversations_EmptyList() {
         // --- Arrange ---
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(conversationRepository.findByUserOrderByUpdateTimeDesc(user)).thenReturn(Arrays.asList());
+        when(conversationRepository.findPageByUser(eq(user), any(Pageable.class))).thenReturn(Arrays.asList());
 
         // --- Act ---
         List<ConversationVO> result = conversationService.getUserConversations("testuser");
@@ -126,7 +181,62 @@ class ConversationServiceImplTest {
         assertTrue(result.isEmpty());
 
         verify(userRepository, times(1)).findByUsername("testuser");
-        verify(conversationRepository, times(1)).findByUserOrderByUpdateTimeDesc(user);
+        verify(conversationRepository, times(1)).findPageByUser(user, PageRequest.of(0, 20));
+    }
+
+    // --- getUserConversationPage 方法测试 ---
+    @Test
+    void getUserConversationPage_WalksPagesWithCursor() {
+        // --- Arrange ---
+        LocalDateTime time = LocalDateTime.of(2025, 5, 1, 12, 0, 0, 123456000);
+        Conversation second = conversation("CONV-2", time);
+        Conversation third = conversation("CONV-1", time);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findPageByUser(user, PageRequest.of(0, 3)))
+                .thenReturn(List.of(conversation("CONV-3", time.plusMinutes(1)), second, third));
+        when(conversationRepository.findPageByUserBefore(user, time, "CONV-2", PageRequest.of(0, 3)))
+                .thenReturn(List.of(third));
+
+        // --- Act ---
+        CursorPageVO<ConversationVO> first = conversationService.getUserConversationPage("testuser", null, 2);
+        CursorPageVO<ConversationVO> next = conversationService.getUserConversationPage("testuser",
+                first.getNextCursor(), 2);
+
+        // --- Assert ---
+        assertEquals(List.of("CONV-3", "CONV-2"), first.getItems().stream().map(ConversationVO::getId).toList());
+        assertTrue(first.isHasMore());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of("CONV-1"), next.getItems().stream().map(ConversationVO::getId).toList());
+        assertFalse(next.isHasMore());
+        assertNull(next.getNextCursor());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void getUserConversationPage_ClampsPageSize() {
+        // --- Arrange ---
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findPageByUser(eq(user), any(Pageable.class))).thenReturn(List.of());
+
+        // --- Act ---
+        conversationService.getUserConversationPage("testuser", null, null);
+        conversationService.getUserConversationPage("testuser", " ", 1000);
+
+        // --- Assert ---
+        verify(conversationRepository).findPageByUser(user, PageRequest.of(0, 21));
+        verify(conversationRepository).findPageByUser(user, PageRequest.of(0, 101));
+    }
+
+    @Test
+    void getUserConversationPage_InvalidCursor() {
+        // --- Arrange ---
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> conversationService.getUserConversationPage("testuser", "not-a-cursor", 10));
+        assertEquals(ErrorTypeEnum.INVALID_PAGE_CURSOR, exception.getErrorType());
+        verify(conversationRepository, never()).findPageByUserBefore(any(), any(), any(), any());
     }
 
     // --- createConversation 方法测试 ---
@@ -225,6 +335,67 @@ class ConversationServiceImplTest {
         verify(conversationRepository, times(1)).findById("CONV-123456789012");
     }
 
+    @Test
+    void getConversation_ReturnsLatestMessagesInOrder() {
+        // --- Arrange ---
+        historyProperties.setMessagePageSize(2);
+        LocalDateTime time = LocalDateTime.of(2025, 5, 1, 12, 0);
+        Message oldest = message("MSG-2", time.plusSeconds(1));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.findPageByConversation(conversation, PageRequest.of(0, 3)))
+                .thenReturn(List.of(message("MSG-3", time.plusSeconds(2)), oldest, message("MSG-1", time)));
+        when(messageRepository.findPageByConversationBefore(conversation, oldest.getCreateTime(), "MSG-2",
+                PageRequest.of(0, 3))).thenReturn(List.of(message("MSG-1", time)));
+
+        // --- Act ---
+        ConversationVO result = conversationService.getConversation("testuser", "CONV-123456789012");
+        CursorPageVO<MessageVO> older = conversationService.getMessagePage("testuser", "CONV-123456789012",
+                result.getNextMessageCursor(), null);
+
+        // --- Assert ---
+        assertEquals(List.of("MSG-2", "MSG-3"), result.getMessages().stream().map(MessageVO::getId).toList());
+        assertTrue(result.isHasMoreMessages());
+        assertEquals(List.of("MSG-1"), older.getItems().stream().map(MessageVO::getId).toList());
+        assertFalse(older.isHasMore());
+    }
+
+    // --- getMessagePage 方法测试 ---
+    @Test
+    void getMessagePage_NewestFirst() {
+        // --- Arrange ---
+        LocalDateTime time = LocalDateTime.of(2025, 5, 1, 12, 0);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.findPageByConversation(conversation, PageRequest.of(0, 11)))
+                .thenReturn(List.of(message("MSG-2", time.plusSeconds(1)), message("MSG-1", time)));
+
+        // --- Act ---
+        CursorPageVO<MessageVO> page = conversationService.getMessagePage("testuser", "CONV-123456789012", null,
+                10);
+
+        // --- Assert ---
+        assertEquals(List.of("MSG-2", "MSG-1"), page.getItems().stream().map(MessageVO::getId).toList());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getMessagePage_ConversationNotBelongToUser() {
+        // --- Arrange ---
+        User otherUser = new User();
+        otherUser.setId(2L);
+        conversation.setUser(otherUser);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> conversationService.getMessagePage("testuser", "CONV-123456789012", null, null));
+        assertEquals(ErrorTypeEnum.CONVERSATION_NOT_BELONG_TO_USER, exception.getErrorType());
+        verifyNoInteractions(messageRepository);
+    }
+
     // --- deleteConversation 方法测试 ---
     @Test
     void deleteConversation_Success() {
@@ -239,7 +410,11 @@ class ConversationServiceImplTest {
         verify(userRepository, times(1)).findByUsername("testuser");
         verify(conversationRepository, times(1)).findById("CONV-123456789012");
         verify(chatMemory, times(1)).clear("CONV-1234567"); // 取前12位
-        verify(conversationRepository, times(1)).delete(conversation);
+        verify(chatSummaryService, times(1)).clear("CONV-1234567");
+        verify(conversationRepository, times(1)).markDeleted("CONV-123456789012");
+        assertTrue(conversation.getDeleted());
+        verify(conversationRepository, never()).delete(any());
+        verifyNoInteractions(messageRepository);
     }
 
     @Test
@@ -256,7 +431,7 @@ class ConversationServiceImplTest {
         verify(userRepository, times(1)).findByUsername("testuser");
         verify(conversationRepository, never()).findById(any());
         verify(chatMemory, never()).clear(any());
-        verify(conversationRepository, never()).delete(any());
+        verify(conversationRepository, never()).markDeleted(any());
     }
 
     @Test
@@ -274,9 +449,481 @@ class ConversationServiceImplTest {
         verify(userRepository, times(1)).findByUsername("testuser");
         verify(conversationRepository, times(1)).findById("CONV-123456789012");
         verify(chatMemory, never()).clear(any());
-        verify(conversationRepository, never()).delete(any());
+        verify(conversationRepository, never()).markDeleted(any());
+    }
+
+    // --- purgeDeletedConversations 方法测试 ---
+    @Test
+    void purgeDeletedConversations_DeletesMessagesInBulk() {
+        // --- Arrange ---
+        List<String> ids = List.of("CONV-1", "CONV-2");
+        when(conversationRepository.findDeletedIds(any(Pageable.class))).thenReturn(ids);
+
+        // --- Act ---
+        conversationService.purgeDeletedConversations();
+
+        // --- Assert ---
+        InOrder inOrder = inOrder(messageRepository, conversationRepository);
+        inOrder.verify(messageRepository).deleteByConversationIdIn(ids);
+        inOrder.verify(conversationRepository).purgeByIdIn(ids);
+        verify(messageRepository, never()).findPageByConversation(any(), any());
+    }
+
+    @Test
+    void purgeDeletedConversations_NothingToPurge() {
+        // --- Arrange ---
+        when(conversationRepository.findDeletedIds(any(Pageable.class))).thenReturn(List.of());
+
+        // --- Act ---
+        conversationService.purgeDeletedConversations();
+
+        // --- Assert ---
+        verifyNoInteractions(messageRepository);
+        verify(conversationRepository, never()).purgeByIdIn(any());
+    }
+
+    // --- 语义回答缓存命中测试 ---
+    @Test
+    void getMessage_SemanticCacheHit() {
+        // --- Arrange ---
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(semanticCacheService.isEligible("Hello AI")).thenReturn(true);
+        when(messageRepository.existsByConversation(conversation)).thenReturn(false);
+        when(semanticCacheService.findAnswer("Hello AI")).thenReturn(Optional.of("Cached answer"));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- Act ---
+        MessageVO result = conversationService.getMessage("testuser", "CONV-123456789012", messageDTO);
+
+        // --- Assert ---
+        assertEquals("Cached answer", result.getContent());
+        assertEquals("ASSISTANT", result.getRole());
+        verify(chatMemory, times(1)).add(eq("CONV-1234567"), anyList());
+        verify(semanticCacheService, never()).saveAnswer(any(), any(), any());
+        verifyNoInteractions(chatClient);
+    }
+
+    @Test
+    void getStreamMessage_SemanticCacheHit() {
+        // --- Arrange ---
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(semanticCacheService.isEligible("Hello AI")).thenReturn(true);
+        when(semanticCacheService.findAnswer("Hello AI")).thenReturn(Optional.of("Cached answer"));
+        when(semanticCacheService.replay("Cached answer")).thenReturn(Flux.just("Cached ", "answer"));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- Act ---
+        List<String> chunks = conversationService.getStreamMessage("testuser", "CONV-123456789012", messageDTO)
+                .collectList().block();
+
+        // --- Assert ---
+        assertEquals(List.of("Cached ", "answer"), chunks);
+        verify(messageRepository, times(1)).save(argThat(message -> message.getRole() == Message.Role.ASSISTANT
+                && "Cached answer".equals(message.getContent())));
+        verify(chatMemory, times(1)).add(eq("CONV-1234567"), anyList());
+        verify(conversationRepository, times(1)).save(conversation);
+        verifyNoInteractions(chatClient);
+    }
+
+    // --- 调用大模型时不持有事务测试 ---
+    @Test
+    void getMessage_ModelCalledOutsideTransaction() {
+        // --- Arrange ---
+        AtomicInteger openTransactions = trackTransactions();
+        AtomicInteger openDuringCall = new AtomicInteger(-1);
+        ChatClient.ChatClientRequestSpec requestSpec = stubPrompt();
+        ChatClient.CallResponseSpec callSpec = mock(ChatClient.CallResponseSpec.class);
+        when(requestSpec.call()).thenReturn(callSpec);
+        when(callSpec.content()).thenAnswer(invocation -> {
+            openDuringCall.set(openTransactions.get());
+            return "AI reply";
+        });
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- Act ---
+        MessageVO result = conversationService.getMessage("testuser", "CONV-123456789012", messageDTO);
+
+        // --- Assert ---
+        assertEquals("AI reply", result.getContent());
+        assertEquals(0, openDuringCall.get());
+        assertEquals(0, openTransactions.get());
+        InOrder inOrder = inOrder(callSpec, transactionManager, messageRepository, conversationRepository);
+        inOrder.verify(callSpec).content();
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(messageRepository).save(argThat(message -> message.getRole() == Message.Role.ASSISTANT));
+        inOrder.verify(conversationRepository).save(conversation);
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void getMessage_AdmissionRejected() {
+        // --- Arrange ---
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY)).when(aiAdmissionService).acquire("testuser");
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> conversationService.getMessage("testuser", "CONV-123456789012", messageDTO));
+        assertEquals(ErrorTypeEnum.AI_SERVICE_BUSY, exception.getErrorType());
+        verifyNoInteractions(chatClient);
+        verify(messageRepository, never()).save(argThat(message -> message.getRole() == Message.Role.ASSISTANT));
+        verify(degradedModeService, never()).recordFailure(); // 排队失败不是模型故障
     }
 
-    // 注意：getMessage 和 getStreamMessage 方法由于涉及复杂的 AI 客户端 Mock，
-    // 在单元测试中较难准确模拟，建议在集成测试中进行测试
+    @Test
+    void getMessage_AdmissionRejectionsDoNotTripDegradedMode() {
+        // --- Arrange ---
+        AiDegradedProperties degradedProperties = new AiDegradedProperties();
+        AiDegradedModeService realDegradedMode = new AiDegradedModeServiceImpl(degradedProperties,
+                mock(VectorStoreUtil.class), mock(StockpileService.class), new SimpleMeterRegistry());
+        ConversationServiceImpl service = new ConversationServiceImpl(conversationRepository, messageRepository,
+                userRepository, chatClient, chatMemory, semanticCacheService, chatSummaryService, transactionManager,
+                streamProperties, aiAdmissionService, realDegradedMode, historyProperties);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY)).when(aiAdmissionService).acquire("testuser");
+        doReturn(Flux.error(new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY)))
+                .when(aiAdmissionService).admit(eq("testuser"), any());
+        when(chatClient.prompt()).thenReturn(mock(ChatClient.ChatClientRequestSpec.class, RETURNS_DEEP_STUBS));
+
+        // --- Act ---
+        for (int i = 0; i < degradedProperties.getWindowSize(); i++) {
+            assertThrows(BusinessException.class,
+                    () -> service.getMessage("testuser", "CONV-123456789012", messageDTO));
+            assertThrows(BusinessException.class, () -> service
+                    .getStreamMessage("testuser", "CONV-123456789012", messageDTO).collectList().block());
+        }
+
+        // --- Assert ---
+        assertFalse(realDegradedMode.isDegraded());
+    }
+
+    @Test
+    void getStreamMessage_ModelStreamedOutsideTransaction() throws InterruptedException {
+        // --- Arrange ---
+        AtomicInteger openTransactions = trackTransactions();
+        AtomicInteger openDuringStream = new AtomicInteger(-1);
+        ChatClient.ChatClientRequestSpec requestSpec = stubPrompt();
+        ChatClient.StreamResponseSpec streamSpec = mock(ChatClient.StreamResponseSpec.class);
+        when(requestSpec.stream()).thenReturn(streamSpec);
+        when(streamSpec.content()).thenReturn(Flux.just("AI ", "reply")
+                .doOnSubscribe(subscription -> openDuringStream.set(openTransactions.get())));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- Act ---
+        List<String> chunks = conversationService.getStreamMessage("testuser", "CONV-123456789012", messageDTO)
+                .collectList().block();
+        conversationService.shutdown(); // 等待持久化线程完成写入
+
+        // --- Assert ---
+        assertEquals(List.of("AI ", "reply"), chunks);
+        assertEquals(0, openDuringStream.get());
+        assertEquals(0, openTransactions.get());
+        verify(messageRepository, times(1)).save(argThat(message -> message.getRole() == Message.Role.ASSISTANT
+                && "AI reply".equals(message.getContent())));
+        verify(conversationRepository, times(1)).save(conversation);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    // --- 流式回复取消和出错测试 ---
+    @Test
+    void getStreamMessage_CancelledBeforeContent() throws InterruptedException {
+        // --- Arrange ---
+        ChatClient.ChatClientRequestSpec requestSpec = stubPrompt();
+        ChatClient.StreamResponseSpec streamSpec = mock(ChatClient.StreamResponseSpec.class);
+        when(requestSpec.stream()).thenReturn(streamSpec);
+        when(streamSpec.content()).thenReturn(Flux.never());
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- Act ---
+        conversationService.getStreamMessage("testuser", "CONV-123456789012", messageDTO)
+                .subscribe()
+                .dispose();
+        conversationService.shutdown();
+
+        // --- Assert ---
+        verify(messageRepository, times(1)).save(any(Message.class)); // 只有用户消息
+        verify(messageRepository, never()).save(argThat(message -> message.getRole() == Message.Role.ASSISTANT));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void getStreamMessage_ErrorKeepsPartialContent() throws InterruptedException {
+        // --- Arrange ---
+        ChatClient.ChatClientRequestSpec requestSpec = stubPrompt();
+        ChatClient.StreamResponseSpec streamSpec = mock(ChatClient.StreamResponseSpec.class);
+        when(requestSpec.stream()).thenReturn(streamSpec);
+        when(streamSpec.content()).thenReturn(Flux.concat(Flux.just("Partial "),
+                Flux.error(new RuntimeException("model disconnected"))));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- Act ---
+        assertThrows(RuntimeException.class, () -> conversationService
+                .getStreamMessage("testuser", "CONV-123456789012", messageDTO).collectList().block());
+        conversationService.shutdown();
+
+        // --- Assert ---
+        verify(messageRepository, times(1)).save(argThat(message -> message.getRole() == Message.Role.ASSISTANT
+                && "Partial ".equals(message.getContent())));
+        verify(semanticCacheService, never()).saveAnswer(any(), any(), any());
+    }
+
+    // --- 降级模式测试 ---
+    @Test
+    void getMessage_DegradedModeAnswersLocally() {
+        // --- Arrange ---
+        String answer = AiDegradedModeService.NOTICE + "1. 《三体》";
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(degradedModeService.isRecommendation("Hello AI")).thenReturn(true);
+        when(degradedModeService.shouldDegrade()).thenReturn(true);
+        when(degradedModeService.answer("Hello AI")).thenReturn(Optional.of(answer));
+
+        // --- Act ---
+        MessageVO result = conversationService.getMessage("testuser", "CONV-123456789012", messageDTO);
+
+        // --- Assert ---
+        assertEquals(answer, result.getContent());
+        assertTrue(result.isDegraded());
+        verify(chatMemory, times(1)).add(eq("CONV-1234567"), anyList());
+        verifyNoInteractions(chatClient);
+    }
+
+    @Test
+    void getMessage_RecommendationFallsBackWhenRejected() {
+        // --- Arrange ---
+        String answer = AiDegradedModeService.NOTICE + "1. 《三体》";
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(degradedModeService.isRecommendation("Hello AI")).thenReturn(true);
+        when(degradedModeService.answer("Hello AI")).thenReturn(Optional.of(answer));
+        doThrow(new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY)).when(aiAdmissionService).acquire("testuser");
+
+        // --- Act ---
+        MessageVO result = conversationService.getMessage("testuser", "CONV-123456789012", messageDTO);
+
+        // --- Assert ---
+        assertEquals(answer, result.getContent());
+        assertTrue(result.isDegraded());
+        verify(degradedModeService, never()).recordFailure(); // 排队失败不是模型故障
+        verify(chatMemory, times(1)).add("CONV-1234567",
+                List.of(new UserMessage("Hello AI"), new AssistantMessage(answer)));
+        verifyNoInteractions(chatClient);
+    }
+
+    @Test
+    void getMessage_ModelCallReportedHealthy() {
+        // --- Arrange ---
+        ChatClient.ChatClientRequestSpec requestSpec = stubPrompt();
+        ChatClient.CallResponseSpec callSpec = mock(ChatClient.CallResponseSpec.class);
+        when(requestSpec.call()).thenReturn(callSpec);
+        when(callSpec.content()).thenReturn("AI reply");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- Act ---
+        MessageVO result = conversationService.getMessage("testuser", "CONV-123456789012", messageDTO);
+
+        // --- Assert ---
+        assertFalse(result.isDegraded());
+        verify(degradedModeService, times(1)).recordSuccess(any());
+        verify(degradedModeService, never()).answer(any());
+    }
+
+    @Test
+    void getStreamMessage_DegradedModeAnswersLocally() {
+        // --- Arrange ---
+        String answer = AiDegradedModeService.NOTICE + "1. 《三体》";
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(degradedModeService.isRecommendation("Hello AI")).thenReturn(true);
+        when(degradedModeService.shouldDegrade()).thenReturn(true);
+        when(degradedModeService.answer("Hello AI")).thenReturn(Optional.of(answer));
+
+        // --- Act ---
+        List<String> chunks = conversationService.getStreamMessage("testuser", "CONV-123456789012", messageDTO)
+                .collectList().block();
+
+        // --- Assert ---
+        assertEquals(List.of(answer), chunks);
+        verify(messageRepository, times(1)).save(argThat(message -> message.getRole() == Message.Role.ASSISTANT
+                && answer.equals(message.getContent())));
+        verifyNoInteractions(chatClient);
+    }
+
+    @Test
+    void getStreamMessage_RecommendationFallsBackOnError() {
+        // --- Arrange ---
+        String answer = AiDegradedModeService.NOTICE + "1. 《三体》";
+        ChatClient.ChatClientRequestSpec requestSpec = stubPrompt();
+        ChatClient.StreamResponseSpec streamSpec = mock(ChatClient.StreamResponseSpec.class);
+        when(requestSpec.stream()).thenReturn(streamSpec);
+        when(streamSpec.content()).thenReturn(Flux.error(new RuntimeException("model unavailable")));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(degradedModeService.isRecommendation("Hello AI")).thenReturn(true);
+        when(degradedModeService.answer("Hello AI")).thenReturn(Optional.of(answer));
+
+        // --- Act ---
+        List<String> chunks = conversationService.getStreamMessage("testuser", "CONV-123456789012", messageDTO)
+                .collectList().block();
+
+        // --- Assert ---
+        assertEquals(List.of(answer), chunks);
+        verify(degradedModeService, times(1)).recordFailure();
+        // 降级回答在弹性线程上发出，回复在订阅者收到完成信号之后才提交写入
+        verify(messageRepository, timeout(5000).times(1)).save(argThat(message -> message.getRole()
+                == Message.Role.ASSISTANT && answer.equals(message.getContent())));
+        verify(chatMemory, times(1)).add("CONV-1234567", new AssistantMessage(answer)); // 用户消息已由记忆顾问写入
+    }
+
+    @Test
+    void getStreamMessage_RejectedFirstTurnFallbackNotCached() {
+        // --- Arrange ---
+        String answer = AiDegradedModeService.NOTICE + "1. 《三体》";
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(semanticCacheService.isEligible("Hello AI")).thenReturn(true);
+        when(semanticCacheService.findAnswer("Hello AI")).thenReturn(Optional.empty());
+        when(degradedModeService.isRecommendation("Hello AI")).thenReturn(true);
+        when(degradedModeService.answer("Hello AI")).thenReturn(Optional.of(answer));
+        when(chatClient.prompt()).thenReturn(mock(ChatClient.ChatClientRequestSpec.class, RETURNS_DEEP_STUBS));
+        doReturn(Flux.error(new BusinessException(ErrorTypeEnum.AI_SERVICE_BUSY)))
+                .when(aiAdmissionService).admit(eq("testuser"), any());
+
+        // --- Act ---
+        List<String> chunks = conversationService.getStreamMessage("testuser", "CONV-123456789012", messageDTO)
+                .collectList().block();
+
+        // --- Assert ---
+        assertEquals(List.of(answer), chunks);
+        verify(messageRepository, timeout(5000).times(1)).save(argThat(message -> message.getRole()
+                == Message.Role.ASSISTANT && answer.equals(message.getContent())));
+        // 未获得许可时记忆顾问没有执行，一问一答都需要写入
+        verify(chatMemory, times(1)).add("CONV-1234567",
+                List.of(new UserMessage("Hello AI"), new AssistantMessage(answer)));
+        verify(semanticCacheService, after(200).never()).saveAnswer(any(), any(), any());
+        verify(degradedModeService, never()).recordFailure();
+    }
+
+    // --- 降级回答与真实记忆顾问测试 ---
+    @Test
+    void getMessage_FallbackAfterModelErrorRemembersQuestionOnce() {
+        // --- Arrange ---
+        String answer = AiDegradedModeService.NOTICE + "1. 《三体》";
+        InMemoryChatMemory memory = new InMemoryChatMemory();
+        ConversationServiceImpl service = serviceWithFailingModel(memory);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(degradedModeService.isRecommendation("Hello AI")).thenReturn(true);
+        when(degradedModeService.answer("Hello AI")).thenReturn(Optional.of(answer));
+
+        // --- Act ---
+        MessageVO result = service.getMessage("testuser", "CONV-123456789012", messageDTO);
+
+        // --- Assert ---
+        assertEquals(answer, result.getContent());
+        assertEquals(List.of(new UserMessage("Hello AI"), new AssistantMessage(answer)),
+                memory.get("CONV-1234567", 10));
+    }
+
+    @Test
+    void getStreamMessage_FallbackAfterModelErrorRemembersQuestionOnce() throws InterruptedException {
+        // --- Arrange ---
+        String answer = AiDegradedModeService.NOTICE + "1. 《三体》";
+        InMemoryChatMemory memory = new InMemoryChatMemory();
+        ConversationServiceImpl service = serviceWithFailingModel(memory);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(conversationRepository.findById("CONV-123456789012")).thenReturn(Optional.of(conversation));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(degradedModeService.isRecommendation("Hello AI")).thenReturn(true);
+        when(degradedModeService.answer("Hello AI")).thenReturn(Optional.of(answer));
+
+        // --- Act ---
+        List<String> chunks = service.getStreamMessage("testuser", "CONV-123456789012", messageDTO)
+                .collectList().block();
+
+        // --- Assert ---
+        assertEquals(List.of(answer), chunks);
+        assertEquals(List.of(new UserMessage("Hello AI"), new AssistantMessage(answer)),
+                memory.get("CONV-1234567", 10));
+        verify(messageRepository, timeout(5000).times(1)).save(argThat(message -> message.getRole()
+                == Message.Role.ASSISTANT && answer.equals(message.getContent())));
+        service.shutdown();
+    }
+
+    /**
+     * 创建使用真实记忆顾问、模型总是调用失败的对话服务
+     */
+    private ConversationServiceImpl serviceWithFailingModel(ChatMemory memory) {
+        ChatClient failingClient = ChatClient.builder(new StubChatModel("", Duration.ZERO, Duration.ZERO, 1))
+                .defaultAdvisors(new TokenWindowChatMemoryAdvisor(memory, chatSummaryService,
+                        mock(EmbeddingModel.class), new ChatMemoryProperties(), new SimpleMeterRegistry()))
+                .build();
+        return new ConversationServiceImpl(conversationRepository, messageRepository, userRepository,
+                failingClient, memory, semanticCacheService, chatSummaryService, transactionManager,
+                streamProperties, aiAdmissionService, degradedModeService, historyProperties);
+    }
+
+    /**
+     * 模拟事务管理器，返回当前未提交的事务数量
+     */
+    private AtomicInteger trackTransactions() {
+        AtomicInteger open = new AtomicInteger();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            open.incrementAndGet();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(invocation -> open.decrementAndGet()).when(transactionManager).commit(any());
+        return open;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChatClient.ChatClientRequestSpec stubPrompt() {
+        ChatClient.ChatClientRequestSpec requestSpec = mock(ChatClient.ChatClientRequestSpec.class);
+        when(chatClient.prompt()).thenReturn(requestSpec);
+        when(requestSpec.user("Hello AI")).thenReturn(requestSpec);
+        when(requestSpec.advisors(any(Consumer.class))).thenReturn(requestSpec);
+        return requestSpec;
+    }
+
+    private Conversation conversation(String id, LocalDateTime updateTime) {
+        Conversation result = new Conversation();
+        result.setId(id);
+        result.setUser(user);
+        result.setTitle(id);
+        result.setCreateTime(updateTime);
+        result.setUpdateTime(updateTime);
+        return result;
+    }
+
+    private Message message(String id, LocalDateTime createTime) {
+        Message message = new Message();
+        message.setId(id);
+        message.setConversation(conversation);
+        message.setRole(Message.Role.USER);
+        message.setContent(id);
+        message.setCreateTime(createTime);
+        return message;
+    }
 }
@@ -0,0 +1,256 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.entity.OrderItem;
+import com.tomato.tomato_mall.entity.Product;
+import com.tomato.tomato_mall.entity.Specification;
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.repository.OrderItemRepository;
+import com.tomato.tomato_mall.repository.ProductRepository;
+import com.tomato.tomato_mall.service.ProductVectorTaskService;
+import com.tomato.tomato_mall.vo.BulkChunkResultVO;
+import com.tomato.tomato_mall.vo.ProductBulkResultVO;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductBulkServiceImplTest {
+
+    private static Validator validator;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @Mock
+    private ProductVectorTaskService productVectorTaskService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductBulkServiceImpl productBulkService;
+
+    private Product existingProduct;
+
+    @BeforeAll
+    static void initValidator() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @BeforeEach
+    void setUp() {
+        productBulkService = new ProductBulkServiceImpl(productRepository, orderItemRepository,
+                productVectorTaskService, validator, entityManager, transactionManager);
+
+        existingProduct = new Product();
+        existingProduct.setId(1L);
+        existingProduct.setTitle("Old Title");
+        existingProduct.setPrice(new BigDecimal("10.00"));
+        existingProduct.setRate(5.0);
+        existingProduct.setSpecifications(new ArrayList<>());
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void bulkProcess_UnsupportedContentType() {
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> productBulkService.bulkProcess(stream("{}"), "application/json", 100));
+        assertEquals(ErrorTypeEnum.BULK_FORMAT_NOT_SUPPORTED, exception.getErrorType());
+        verifyNoInteractions(transactionManager, productRepository);
+    }
+
+    @Test
+    void bulkProcess_NdjsonMixedOperations() {
+        // --- Arrange ---
+        String body = """
+                {"title":"New Book","price":12.5,"rate":8,"amount":30,"specifications":[{"item":"作者","value":"张三"}]}
+                {"id":1,"title":"Updated Title"}
+                {"op":"delete","id":2}
+                {"title":"X","price":1,"rate":1}
+                not json
+                {"op":"upsert","id":3}
+                """;
+        Product deletable = new Product();
+        deletable.setId(2L);
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(anyCollection()))
+                .thenReturn(List.of(existingProduct, deletable));
+        when(productRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Product> saved = invocation.getArgument(0);
+            saved.forEach(product -> product.setId(100L));
+            return saved;
+        });
+        when(orderItemRepository.findProductIdsByStatus(Set.of(2L), OrderItem.OrderItemStatus.PENDING))
+                .thenReturn(List.of());
+
+        // --- Act ---
+        ProductBulkResultVO result = productBulkService.bulkProcess(stream(body), "application/x-ndjson", 500);
+
+        // --- Assert ---
+        assertEquals(6, result.getTotal());
+        assertEquals(3, result.getSucceeded());
+        assertEquals(3, result.getFailed());
+        assertEquals(1, result.getChunks().size());
+
+        BulkChunkResultVO chunk = result.getChunks().get(0);
+        assertTrue(chunk.getCommitted());
+        assertEquals(1, chunk.getCreated());
+        assertEquals(1, chunk.getUpdated());
+        assertEquals(1, chunk.getDeleted());
+        assertEquals(List.of(4L, 5L, 6L), chunk.getErrors().stream().map(e -> e.getLine()).toList());
+        assertEquals("JSON 格式错误", chunk.getErrors().get(1).getMessage());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Product>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productRepository).saveAll(captor.capture());
+        Product created = captor.getValue().get(0);
+        assertEquals("New Book", created.getTitle());
+        assertEquals(30, created.getStockpile().getAmount());
+        assertEquals(1, created.getSpecifications().size());
+        assertSame(created, created.getSpecifications().get(0).getProduct());
+
+        assertEquals("Updated Title", existingProduct.getTitle());
+        verify(productRepository).markDeletedByIdIn(List.of(2L));
+        assertTrue(deletable.getDeleted());
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+        verify(transactionManager, times(1)).commit(any());
+
+        verify(productVectorTaskService).enqueueAll(List.of(100L, 1L, 2L));
+    }
+
+    @Test
+    void bulkProcess_CsvSplitIntoChunks() {
+        // --- Arrange ---
+        String body = """
+                title,price,rate,specifications,detail
+                Book A,10,7,"作者:李四;出版社:人民",plain
+                Book B,20,8,,"multi
+                line, with comma"
+                Book C,abc,9,,
+                """;
+
+        // --- Act ---
+        ProductBulkResultVO result = productBulkService.bulkProcess(stream(body), "text/csv; charset=UTF-8", 2);
+
+        // --- Assert ---
+        assertEquals(3, result.getTotal());
+        assertEquals(2, result.getSucceeded());
+        assertEquals(2, result.getChunks().size());
+        assertEquals(2L, result.getChunks().get(0).getFirstLine());
+        assertEquals(3L, result.getChunks().get(0).getLastLine());
+        assertEquals(2, result.getChunks().get(0).getCreated());
+        assertEquals(5L, result.getChunks().get(1).getFirstLine());
+        assertEquals(1, result.getChunks().get(1).getFailed());
+        assertEquals("字段 price 格式错误: abc", result.getChunks().get(1).getErrors().get(0).getMessage());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Product>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(2)).saveAll(captor.capture());
+        List<Product> firstChunk = captor.getAllValues().get(0);
+        assertEquals("multi\nline, with comma", firstChunk.get(1).getDetail());
+        assertEquals(List.of("作者", "出版社"),
+                firstChunk.get(0).getSpecifications().stream().map(Specification::getItem).toList());
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(productRepository, never()).findWithSpecificationsByIdInAndDeletedFalse(anyCollection());
+    }
+
+    @Test
+    void bulkProcess_DeleteOccupiedProductIsSkipped() {
+        // --- Arrange ---
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(anyCollection())).thenReturn(List.of(existingProduct));
+        when(orderItemRepository.findProductIdsByStatus(Set.of(1L, 9L), OrderItem.OrderItemStatus.PENDING))
+                .thenReturn(List.of(1L));
+
+        // --- Act ---
+        ProductBulkResultVO result = productBulkService.bulkProcess(
+                stream("{\"op\":\"DELETE\",\"id\":1}\n{\"op\":\"DELETE\",\"id\":9}\n"), "application/x-ndjson", 10);
+
+        // --- Assert ---
+        BulkChunkResultVO chunk = result.getChunks().get(0);
+        assertTrue(chunk.getCommitted());
+        assertEquals(0, chunk.getDeleted());
+        assertEquals(2, chunk.getFailed());
+        assertEquals(ErrorTypeEnum.PRODUCT_OCCUPIED_BY_ORDER.getMessage(), chunk.getErrors().get(0).getMessage());
+        assertEquals(ErrorTypeEnum.PRODUCT_NOT_FOUND.getMessage(), chunk.getErrors().get(1).getMessage());
+        verify(productRepository, never()).markDeletedByIdIn(anyCollection());
+    }
+
+    @Test
+    void bulkProcess_DeletesChunkInOneStatement() {
+        // --- Arrange ---
+        Product second = new Product();
+        second.setId(2L);
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(anyCollection()))
+                .thenReturn(List.of(existingProduct, second));
+        when(orderItemRepository.findProductIdsByStatus(anyCollection(), eq(OrderItem.OrderItemStatus.PENDING)))
+                .thenReturn(List.of());
+
+        // --- Act ---
+        ProductBulkResultVO result = productBulkService.bulkProcess(
+                stream("{\"op\":\"DELETE\",\"id\":1}\n{\"op\":\"DELETE\",\"id\":2}\n"), "application/x-ndjson", 10);
+
+        // --- Assert ---
+        assertEquals(2, result.getChunks().get(0).getDeleted());
+        verify(orderItemRepository, times(1)).findProductIdsByStatus(anyCollection(), any());
+        verify(orderItemRepository, never()).existsByProductAndStatus(any(), any());
+        verify(productRepository, times(1)).markDeletedByIdIn(List.of(1L, 2L));
+        verify(productVectorTaskService).enqueueAll(List.of(1L, 2L));
+    }
+
+    @Test
+    void bulkProcess_ChunkRolledBackOnDatabaseError() {
+        // --- Arrange ---
+        when(productRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // --- Act ---
+        ProductBulkResultVO result = productBulkService.bulkProcess(
+                stream("{\"title\":\"Book\",\"price\":1,\"rate\":1}\n{\"title\":\"Book 2\",\"price\":2,\"rate\":2}\n"),
+                "application/x-ndjson", 10);
+
+        // --- Assert ---
+        BulkChunkResultVO chunk = result.getChunks().get(0);
+        assertFalse(chunk.getCommitted());
+        assertEquals(0, chunk.getCreated());
+        assertEquals(2, chunk.getFailed());
+        assertEquals(0, result.getSucceeded());
+        assertTrue(chunk.getErrors().get(0).getMessage().contains("duplicate key"));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(productVectorTaskService, never()).enqueueAll(anyCollection());
+    }
+}
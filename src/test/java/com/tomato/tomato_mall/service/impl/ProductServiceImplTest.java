@@ -1,8 +1,10 @@
 package com.tomato.tomato_mall.service.impl;
 
 import com.tomato.tomato_mall.dto.ProductCreateDTO;
+import com.tomato.tomato_mall.dto.ProductSearchDTO;
 import com.tomato.tomato_mall.dto.ProductUpdateDTO;
 import com.tomato.tomato_mall.dto.SpecificationDTO;
+import com.tomato.tomato_mall.entity.OrderItem;
 import com.tomato.tomato_mall.entity.Product;
 import com.tomato.tomato_mall.entity.Specification;
 import com.tomato.tomato_mall.entity.Stockpile;
@@ -12,23 +14,37 @@ import com.tomato.tomato_mall.repository.AdvertisementRepository;
 import com.tomato.tomato_mall.repository.CartRepository;
 import com.tomato.tomato_mall.repository.OrderItemRepository;
 import com.tomato.tomato_mall.repository.ProductRepository;
+import com.tomato.tomato_mall.repository.SpecificationRepository;
 import com.tomato.tomato_mall.repository.StockpileRepository;
+import com.tomato.tomato_mall.service.ProductVectorTaskService;
 import com.tomato.tomato_mall.util.VectorStoreUtil;
 import com.tomato.tomato_mall.vo.ProductVO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +53,9 @@ class ProductServiceImplTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private SpecificationRepository specificationRepository;
+
     @Mock
     private StockpileRepository stockpileRepository;
 
@@ -49,9 +68,15 @@ class ProductServiceImplTest {
     @Mock
     private AdvertisementRepository advertisementRepository;
 
+    @Mock
+    private ProductVectorTaskService productVectorTaskService;
+
     @Mock
     private VectorStoreUtil vectorStoreUtil;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -128,7 +153,7 @@ class ProductServiceImplTest {
         assertEquals(createDTO.getDescription(), result.getDescription());
 
         verify(productRepository, times(1)).save(any(Product.class));
-        verify(vectorStoreUtil, times(1)).addProductVector(any(Product.class));
+        verify(productVectorTaskService, times(1)).enqueue(1L);
     }
 
     @Test
@@ -157,17 +182,36 @@ class ProductServiceImplTest {
         // --- Arrange ---
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(orderItemRepository.existsByProductAndStatus(any(), any())).thenReturn(false);
-        when(orderItemRepository.findByProduct(product)).thenReturn(new ArrayList<>());
 
         // --- Act ---
         productService.deleteProduct(1L);
 
         // --- Assert ---
         verify(productRepository, times(1)).findById(1L);
-        verify(cartRepository, times(1)).deleteByProductId(1L);
-        verify(advertisementRepository, times(1)).deleteAllByProduct(product);
-        verify(productRepository, times(1)).delete(product);
-        verify(vectorStoreUtil, times(1)).removeProductVector(1L);
+        verify(productRepository, times(1)).markDeleted(1L);
+        assertTrue(product.getDeleted());
+        verify(productVectorTaskService, times(1)).enqueue(1L);
+
+        // 关联数据留给清理任务处理
+        verify(productRepository, never()).delete(any(Product.class));
+        verifyNoInteractions(cartRepository, advertisementRepository, specificationRepository, stockpileRepository);
+        verify(orderItemRepository, never()).detachProducts(any());
+    }
+
+    @Test
+    void deleteProduct_OccupiedByPendingOrder() {
+        // --- Arrange ---
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(orderItemRepository.existsByProductAndStatus(product, OrderItem.OrderItemStatus.PENDING)).thenReturn(true);
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class, () -> {
+            productService.deleteProduct(1L);
+        });
+
+        assertEquals(ErrorTypeEnum.PRODUCT_OCCUPIED_BY_ORDER, exception.getErrorType());
+        verify(productRepository, never()).markDeleted(any());
+        verify(productVectorTaskService, never()).enqueue(any());
     }
 
     @Test
@@ -182,7 +226,43 @@ class ProductServiceImplTest {
 
         assertEquals(ErrorTypeEnum.PRODUCT_NOT_FOUND, exception.getErrorType());
         verify(productRepository, times(1)).findById(1L);
-        verify(productRepository, never()).delete(any(Product.class));
+        verify(productRepository, never()).markDeleted(any());
+    }
+
+    // --- purgeDeletedProducts 方法测试 ---
+    @Test
+    void purgeDeletedProducts_RemovesChildrenWithBulkStatements() {
+        // --- Arrange ---
+        List<Long> ids = List.of(1L, 2L);
+        when(productRepository.findDeletedIds(any(Pageable.class))).thenReturn(ids);
+
+        // --- Act ---
+        productService.purgeDeletedProducts();
+
+        // --- Assert ---
+        InOrder inOrder = inOrder(orderItemRepository, cartRepository, advertisementRepository,
+                specificationRepository, stockpileRepository, productRepository);
+        inOrder.verify(orderItemRepository).detachCartItemsOfProducts(ids);
+        inOrder.verify(orderItemRepository).detachProducts(ids);
+        inOrder.verify(cartRepository).deleteByProductIdIn(ids);
+        inOrder.verify(advertisementRepository).deleteByProductIdIn(ids);
+        inOrder.verify(specificationRepository).deleteByProductIdIn(ids);
+        inOrder.verify(stockpileRepository).deleteByProductIdIn(ids);
+        inOrder.verify(productRepository).purgeByIdIn(ids);
+        verify(orderItemRepository, never()).findByProduct(any());
+    }
+
+    @Test
+    void purgeDeletedProducts_NothingToPurge() {
+        // --- Arrange ---
+        when(productRepository.findDeletedIds(any(Pageable.class))).thenReturn(List.of());
+
+        // --- Act ---
+        productService.purgeDeletedProducts();
+
+        // --- Assert ---
+        verify(productRepository, never()).purgeByIdIn(any());
+        verifyNoInteractions(orderItemRepository, cartRepository, specificationRepository, stockpileRepository);
     }
 
     // --- updateProduct 方法测试 ---
@@ -202,7 +282,7 @@ class ProductServiceImplTest {
 
         verify(productRepository, times(1)).findById(updateDTO.getId());
         verify(productRepository, times(1)).save(any(Product.class));
-        verify(vectorStoreUtil, times(1)).updateProductVector(any(Product.class));
+        verify(productVectorTaskService, times(1)).enqueue(1L);
     }
 
     @Test
@@ -251,4 +331,60 @@ class ProductServiceImplTest {
         assertEquals(ErrorTypeEnum.PRODUCT_NOT_FOUND, exception.getErrorType());
         verify(productRepository, times(1)).findById(1L);
     }
+
+    // --- searchProducts 方法测试 ---
+    @Test
+    void searchProducts_KeepsSimilarityOrderAndSkipsDeleted() {
+        // --- Arrange ---
+        ProductSearchDTO searchDTO = new ProductSearchDTO();
+        searchDTO.setQuery(" 科幻小说 ");
+        searchDTO.setMinPrice(new BigDecimal("10"));
+        searchDTO.setMaxRate(9.0);
+        searchDTO.setLimit(3);
+
+        Product other = new Product();
+        other.setId(2L);
+        other.setTitle("Other Book");
+        other.setSpecifications(new ArrayList<>());
+        when(vectorStoreUtil.searchProducts(eq("科幻小说"), eq(3), anyDouble(), any(Filter.Expression.class)))
+                .thenReturn(List.of(
+                        new Document("b", Map.of("id", "2")),
+                        new Document("deleted", Map.of("id", "3")),
+                        new Document("a", Map.of("id", "1"))));
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(List.of(2L, 3L, 1L)))
+                .thenReturn(List.of(product, other));
+
+        // --- Act ---
+        List<ProductVO> result = productService.searchProducts(searchDTO);
+
+        // --- Assert ---
+        assertEquals(List.of(2L, 1L), result.stream().map(ProductVO::getId).toList());
+        ArgumentCaptor<Filter.Expression> captor = ArgumentCaptor.forClass(Filter.Expression.class);
+        verify(vectorStoreUtil).searchProducts(eq("科幻小说"), eq(3), anyDouble(), captor.capture());
+        assertEquals(Filter.ExpressionType.AND, captor.getValue().type());
+        // 语义检索在事务外执行，只有商品读取在只读事务中
+        InOrder inOrder = inOrder(vectorStoreUtil, transactionManager, productRepository);
+        inOrder.verify(vectorStoreUtil).searchProducts(any(), anyInt(), anyDouble(), any());
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        inOrder.verify(transactionManager).getTransaction(definition.capture());
+        inOrder.verify(productRepository).findWithSpecificationsByIdInAndDeletedFalse(any());
+        inOrder.verify(transactionManager).commit(any());
+        assertTrue(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    void searchProducts_NoMatches() {
+        // --- Arrange ---
+        ProductSearchDTO searchDTO = new ProductSearchDTO();
+        searchDTO.setQuery("不存在的书");
+        when(vectorStoreUtil.searchProducts(eq("不存在的书"), anyInt(), anyDouble(), isNull()))
+                .thenReturn(List.of());
+
+        // --- Act ---
+        List<ProductVO> result = productService.searchProducts(searchDTO);
+
+        // --- Assert ---
+        assertTrue(result.isEmpty());
+        verify(productRepository, never()).findWithSpecificationsByIdInAndDeletedFalse(any());
+    }
 }
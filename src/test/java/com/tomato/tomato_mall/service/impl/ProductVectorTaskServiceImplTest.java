@@ -0,0 +1,237 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.entity.Product;
+import com.tomato.tomato_mall.entity.ProductVectorTask;
+import com.tomato.tomato_mall.entity.VectorReindexDirtyProduct;
+import com.tomato.tomato_mall.enums.ReindexStatusEnum;
+import com.tomato.tomato_mall.properties.ProductVectorProperties;
+import com.tomato.tomato_mall.repository.ProductRepository;
+import com.tomato.tomato_mall.repository.ProductVectorTaskRepository;
+import com.tomato.tomato_mall.repository.VectorReindexDirtyProductRepository;
+import com.tomato.tomato_mall.repository.VectorReindexJobRepository;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductVectorTaskServiceImplTest {
+
+    @Mock
+    private ProductVectorTaskRepository taskRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private VectorReindexJobRepository reindexJobRepository;
+
+    @Mock
+    private VectorReindexDirtyProductRepository dirtyProductRepository;
+
+    @Mock
+    private VectorStoreUtil vectorStoreUtil;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductVectorProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductVectorTaskServiceImpl taskService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductVectorProperties();
+        properties.setMaxAttempts(3);
+        meterRegistry = new SimpleMeterRegistry();
+        taskService = new ProductVectorTaskServiceImpl(taskRepository, productRepository, reindexJobRepository,
+                dirtyProductRepository, vectorStoreUtil,
+                properties, meterRegistry, transactionManager);
+    }
+
+    private ProductVectorTask task(long id, long productId, int attempts) {
+        ProductVectorTask task = new ProductVectorTask();
+        task.setId(id);
+        task.setProductId(productId);
+        task.setAttempts(attempts);
+        return task;
+    }
+
+    private Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter("product.vector.tasks", "outcome", outcome).count();
+    }
+
+    @Test
+    void enqueueAll_SavesOneTaskPerProduct() {
+        // --- Act ---
+        taskService.enqueueAll(List.of(1L, 2L));
+
+        // --- Assert ---
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductVectorTask>> captor = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).saveAll(captor.capture());
+        assertEquals(List.of(1L, 2L), captor.getValue().stream().map(ProductVectorTask::getProductId).toList());
+    }
+
+    @Test
+    void enqueueAll_EmptyCollection() {
+        // --- Act ---
+        taskService.enqueueAll(List.of());
+
+        // --- Assert ---
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void processPendingTasks_NoTasks() {
+        // --- Arrange ---
+        when(taskRepository.findClaimable(any(), anyInt(), any(Pageable.class))).thenReturn(List.of());
+        when(taskRepository.countByAttemptsLessThan(3)).thenReturn(0L);
+        when(taskRepository.countByAttemptsGreaterThanEqual(3)).thenReturn(2L);
+
+        // --- Act ---
+        int processed = taskService.processPendingTasks();
+
+        // --- Assert ---
+        assertEquals(0, processed);
+        assertEquals(2.0, meterRegistry.get("product.vector.tasks.dead").gauge().value());
+        verifyNoInteractions(vectorStoreUtil, productRepository);
+    }
+
+    @Test
+    void processPendingTasks_CoalescesAndSyncsBatch() {
+        // --- Arrange ---
+        ProductVectorTask first = task(1L, 10L, 0);
+        ProductVectorTask duplicate = task(2L, 10L, 0);
+        ProductVectorTask removed = task(3L, 20L, 0);
+        when(taskRepository.findClaimable(any(), eq(3), any(Pageable.class)))
+                .thenReturn(List.of(first, duplicate, removed));
+        when(taskRepository.countByAttemptsLessThan(3)).thenReturn(3L);
+        when(taskRepository.findOldestCreateTime(3)).thenReturn(LocalDateTime.now().minusSeconds(30));
+        Product existing = product(10L);
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(Set.of(10L, 20L)))
+                .thenReturn(List.of(existing));
+
+        // --- Act ---
+        int processed = taskService.processPendingTasks();
+
+        // --- Assert ---
+        assertEquals(3, processed);
+        assertNotNull(first.getLockedUntil());
+        verify(vectorStoreUtil).updateProductVectors(List.of(existing));
+        verify(vectorStoreUtil).removeProductVectors(List.of(20L));
+        verify(taskRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        assertEquals(3.0, outcome("completed"));
+        assertEquals(1.0, outcome("coalesced"));
+        assertEquals(3.0, meterRegistry.get("product.vector.tasks.pending").gauge().value());
+        assertTrue(meterRegistry.get("product.vector.tasks.lag").gauge().value() >= 30);
+        assertEquals(1, meterRegistry.get("product.vector.sync").timer().count());
+    }
+
+    @Test
+    void processPendingTasks_BatchFailureRetriesProductsIndividually() {
+        // --- Arrange ---
+        ProductVectorTask good = task(1L, 10L, 0);
+        ProductVectorTask bad = task(2L, 20L, 0);
+        when(taskRepository.findClaimable(any(), eq(3), any(Pageable.class))).thenReturn(List.of(good, bad));
+        Product goodProduct = product(10L);
+        Product badProduct = product(20L);
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(anyCollection())).thenAnswer(invocation -> {
+            Set<Long> ids = invocation.getArgument(0);
+            return ids.size() > 1 ? List.of(goodProduct, badProduct)
+                    : ids.contains(10L) ? List.of(goodProduct) : List.of(badProduct);
+        });
+        doThrow(new RuntimeException("embedding failed")).when(vectorStoreUtil)
+                .updateProductVectors(argThat(products -> products.contains(badProduct)));
+
+        // --- Act ---
+        LocalDateTime before = LocalDateTime.now();
+        taskService.processPendingTasks();
+
+        // --- Assert ---
+        verify(vectorStoreUtil).updateProductVectors(List.of(goodProduct));
+        verify(taskRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(taskRepository).saveAll(List.of(bad));
+        assertEquals(1, bad.getAttempts());
+        assertEquals("embedding failed", bad.getLastError());
+        assertNull(bad.getLockedUntil());
+        assertFalse(bad.getAvailableAt().isBefore(before.plusSeconds(5)));
+        assertEquals(1.0, outcome("completed"));
+        assertEquals(1.0, outcome("retried"));
+    }
+
+    @Test
+    void processPendingTasks_LastAttemptMarksTaskDead() {
+        // --- Arrange ---
+        ProductVectorTask task = task(1L, 10L, 2);
+        when(taskRepository.findClaimable(any(), eq(3), any(Pageable.class))).thenReturn(List.of(task));
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(anyCollection()))
+                .thenThrow(new RuntimeException("connection refused"));
+
+        // --- Act ---
+        taskService.processPendingTasks();
+
+        // --- Assert ---
+        assertEquals(3, task.getAttempts());
+        assertEquals(1.0, outcome("dead"));
+        assertEquals(0.0, outcome("retried"));
+        verify(taskRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void processPendingTasks_RecordsProductsDuringReindex() {
+        // --- Arrange ---
+        when(taskRepository.findClaimable(any(), eq(3), any(Pageable.class)))
+                .thenReturn(List.of(task(1L, 10L, 0), task(2L, 10L, 0)));
+        when(reindexJobRepository.findIdsByStatus(ReindexStatusEnum.RUNNING)).thenReturn(List.of(7L));
+
+        // --- Act ---
+        taskService.processPendingTasks();
+
+        // --- Assert ---
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VectorReindexDirtyProduct>> captor = ArgumentCaptor.forClass(List.class);
+        verify(dirtyProductRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(7L, captor.getValue().get(0).getJobId());
+        assertEquals(10L, captor.getValue().get(0).getProductId());
+    }
+
+    @Test
+    void backoff_DoublesUpToMaximum() {
+        // --- Arrange ---
+        properties.setInitialBackoff(Duration.ofSeconds(5));
+        properties.setMaxBackoff(Duration.ofSeconds(30));
+
+        // --- Act & Assert ---
+        assertEquals(Duration.ofSeconds(5), taskService.backoff(1));
+        assertEquals(Duration.ofSeconds(10), taskService.backoff(2));
+        assertEquals(Duration.ofSeconds(20), taskService.backoff(3));
+        assertEquals(Duration.ofSeconds(30), taskService.backoff(4));
+        assertEquals(Duration.ofSeconds(30), taskService.backoff(50));
+    }
+}
@@ -0,0 +1,143 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.properties.SemanticCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SemanticCacheServiceImplTest {
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private SemanticCacheProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private SemanticCacheServiceImpl semanticCacheService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SemanticCacheProperties();
+        properties.setEnabled(true);
+        properties.setReplayInterval(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        semanticCacheService = new SemanticCacheServiceImpl(embeddingModel, properties, meterRegistry);
+    }
+
+    // --- isEligible 方法测试 ---
+    @Test
+    void isEligible_GenericQuestion() {
+        // --- Act & Assert ---
+        assertTrue(semanticCacheService.isEligible("有什么好看的推理小说"));
+    }
+
+    @Test
+    void isEligible_ContextDependentFollowUp() {
+        // --- Act & Assert ---
+        assertFalse(semanticCacheService.isEligible("这本书多少钱"));
+        assertFalse(semanticCacheService.isEligible("第二本的作者是谁"));
+        assertFalse(semanticCacheService.isEligible("我的订单到哪了"));
+        assertFalse(semanticCacheService.isEligible("Tell me more about it"));
+        assertEquals(4, meterRegistry.get("ai.semantic.cache.lookups").tag("result", "ineligible").counter().count());
+    }
+
+    @Test
+    void isEligible_TooShort() {
+        // --- Act & Assert ---
+        assertFalse(semanticCacheService.isEligible("推荐"));
+    }
+
+    @Test
+    void isEligible_Disabled() {
+        // --- Arrange ---
+        properties.setEnabled(false);
+
+        // --- Act & Assert ---
+        assertFalse(semanticCacheService.isEligible("有什么好看的推理小说"));
+    }
+
+    // --- findAnswer 方法测试 ---
+    @Test
+    void findAnswer_SimilarPromptHit() {
+        // --- Arrange ---
+        when(embeddingModel.embed("有什么好看的推理小说")).thenReturn(new float[] { 1f, 0f, 0f });
+        when(embeddingModel.embed("推荐几本好看的推理小说")).thenReturn(new float[] { 0.98f, 0.1f, 0f });
+        semanticCacheService.saveAnswer("有什么好看的推理小说", "推荐《白夜行》", Duration.ofSeconds(3));
+
+        // --- Act ---
+        Optional<String> result = semanticCacheService.findAnswer("推荐几本好看的推理小说");
+
+        // --- Assert ---
+        assertEquals(Optional.of("推荐《白夜行》"), result);
+        assertEquals(1, meterRegistry.get("ai.semantic.cache.lookups").tag("result", "hit").counter().count());
+        assertEquals(3, meterRegistry.get("ai.semantic.cache.saved.time").timer()
+                .totalTime(TimeUnit.SECONDS), 1e-9);
+    }
+
+    @Test
+    void findAnswer_NormalizedExactMatchSkipsEmbedding() {
+        // --- Arrange ---
+        when(embeddingModel.embed("recommend sci-fi")).thenReturn(new float[] { 1f, 0f });
+        semanticCacheService.saveAnswer("Recommend  Sci-Fi ", "Try Dune", Duration.ofSeconds(1));
+
+        // --- Act ---
+        Optional<String> result = semanticCacheService.findAnswer("recommend sci-fi");
+
+        // --- Assert ---
+        assertEquals(Optional.of("Try Dune"), result);
+        verify(embeddingModel, times(1)).embed(anyString());
+    }
+
+    @Test
+    void findAnswer_DissimilarPromptMiss() {
+        // --- Arrange ---
+        when(embeddingModel.embed("有什么好看的推理小说")).thenReturn(new float[] { 1f, 0f, 0f });
+        when(embeddingModel.embed("有什么适合儿童的绘本")).thenReturn(new float[] { 0f, 1f, 0f });
+        semanticCacheService.saveAnswer("有什么好看的推理小说", "推荐《白夜行》", Duration.ofSeconds(3));
+
+        // --- Act ---
+        Optional<String> result = semanticCacheService.findAnswer("有什么适合儿童的绘本");
+
+        // --- Assert ---
+        assertTrue(result.isEmpty());
+        assertEquals(1, meterRegistry.get("ai.semantic.cache.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void findAnswer_EmbeddingFailureIsMiss() {
+        // --- Arrange ---
+        when(embeddingModel.embed(anyString())).thenThrow(new RuntimeException("embedding unavailable"));
+
+        // --- Act ---
+        Optional<String> result = semanticCacheService.findAnswer("有什么好看的推理小说");
+
+        // --- Assert ---
+        assertTrue(result.isEmpty());
+    }
+
+    // --- replay 方法测试 ---
+    @Test
+    void replay_SplitsIntoChunks() {
+        // --- Arrange ---
+        properties.setReplayChunkSize(3);
+
+        // --- Act ---
+        List<String> chunks = semanticCacheService.replay("推荐《白夜行》").collectList().block();
+
+        // --- Assert ---
+        assertEquals(List.of("推荐《", "白夜行", "》"), chunks);
+    }
+}
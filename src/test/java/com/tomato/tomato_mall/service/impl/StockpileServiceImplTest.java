@@ -1,5 +1,6 @@
 package com.tomato.tomato_mall.service.impl;
 
+import com.tomato.tomato_mall.dto.StockpileBulkItemDTO;
 import com.tomato.tomato_mall.dto.StockpileUpdateDTO;
 import com.tomato.tomato_mall.entity.Product;
 import com.tomato.tomato_mall.entity.Stockpile;
@@ -7,6 +8,8 @@ import com.tomato.tomato_mall.enums.ErrorTypeEnum;
 import com.tomato.tomato_mall.exception.BusinessException;
 import com.tomato.tomato_mall.repository.ProductRepository;
 import com.tomato.tomato_mall.repository.StockpileRepository;
+import com.tomato.tomato_mall.vo.StockpileBulkResultVO;
+import com.tomato.tomato_mall.vo.StockpileRejectionVO;
 import com.tomato.tomato_mall.vo.StockpileVO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,10 +19,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -108,6 +117,35 @@ class StockpileServiceImplTest {
         verify(stockpileRepository, times(1)).findByProductId(1L);
     }
 
+    // --- getStockpilesByProductIds 方法测试 ---
+    @Test
+    void getStockpilesByProductIds_Success() {
+        // --- Arrange ---
+        when(stockpileRepository.findByProductIdIn(List.of(1L, 2L))).thenReturn(List.of(stockpile));
+
+        // --- Act ---
+        Map<Long, StockpileVO> result = stockpileService.getStockpilesByProductIds(List.of(1L, 2L));
+
+        // --- Assert ---
+        assertEquals(1, result.size());
+        assertEquals(stockpile.getAmount(), result.get(1L).getAmount());
+        assertEquals(stockpile.getFrozen(), result.get(1L).getFrozen());
+        assertNull(result.get(2L));
+
+        verify(stockpileRepository, times(1)).findByProductIdIn(List.of(1L, 2L));
+        verify(productRepository, never()).existsById(any());
+    }
+
+    @Test
+    void getStockpilesByProductIds_EmptyIds() {
+        // --- Act ---
+        Map<Long, StockpileVO> result = stockpileService.getStockpilesByProductIds(List.of());
+
+        // --- Assert ---
+        assertTrue(result.isEmpty());
+        verify(stockpileRepository, never()).findByProductIdIn(anyCollection());
+    }
+
     // --- updateStockpile 方法测试 ---
     @Test
     void updateStockpile_Success() {
@@ -201,4 +239,72 @@ class StockpileServiceImplTest {
         verify(stockpileRepository, times(1)).findByProductId(1L);
         verify(stockpileRepository, times(1)).save(stockpile);
     }
+
+    // --- bulkUpdateStockpiles 方法测试 ---
+    @Test
+    void bulkUpdateStockpiles_AppliesValidItemsAndReportsRejections() {
+        // --- Arrange ---
+        List<StockpileBulkItemDTO> items = Arrays.asList(
+                new StockpileBulkItemDTO(3L, 30),
+                new StockpileBulkItemDTO(1L, 100),
+                new StockpileBulkItemDTO(2L, 5),
+                new StockpileBulkItemDTO(1L, 200),
+                new StockpileBulkItemDTO(4L, -1),
+                new StockpileBulkItemDTO(null, 10),
+                new StockpileBulkItemDTO(9L, 50));
+        when(stockpileRepository.updateAmountsNotBelowFrozen(any(Long[].class), any(Integer[].class)))
+                .thenReturn(List.of(1L, 3L));
+        when(stockpileRepository.findFrozenByProductIds(anyCollection())).thenReturn(Map.of(2L, 8));
+
+        // --- Act ---
+        StockpileBulkResultVO result = stockpileService.bulkUpdateStockpiles(items);
+
+        // --- Assert ---
+        assertEquals(7, result.getTotal());
+        assertEquals(2, result.getUpdated());
+        assertEquals(5, result.getRejected());
+
+        // 批次内按商品ID排序提交
+        verify(stockpileRepository, times(1)).updateAmountsNotBelowFrozen(
+                new Long[] { 1L, 2L, 3L, 9L }, new Integer[] { 100, 5, 30, 50 });
+        verify(stockpileRepository, times(1)).findFrozenByProductIds(List.of(2L, 9L));
+
+        Map<Long, String> reasons = new HashMap<>();
+        result.getRejections().stream()
+                .filter(r -> r.getProductId() != null)
+                .forEach(r -> reasons.merge(r.getProductId(), r.getReason(), (a, b) -> a + "|" + b));
+        assertEquals("重复的商品ID", reasons.get(1L));
+        assertEquals("库存数量不能小于冻结数量", reasons.get(2L));
+        assertEquals("库存数量不合法", reasons.get(4L));
+        assertEquals(ErrorTypeEnum.STOCKPILE_NOT_FOUND.getMessage(), reasons.get(9L));
+        StockpileRejectionVO belowFrozen = result.getRejections().stream()
+                .filter(r -> Long.valueOf(2L).equals(r.getProductId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(8, belowFrozen.getFrozen());
+        verify(stockpileRepository, never()).save(any());
+    }
+
+    @Test
+    void bulkUpdateStockpiles_SplitsIntoBatches() {
+        // --- Arrange ---
+        int count = StockpileServiceImpl.BULK_BATCH_SIZE * 2 + 1;
+        List<StockpileBulkItemDTO> items = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            items.add(new StockpileBulkItemDTO(id, 10));
+            ids.add(id);
+        }
+        when(stockpileRepository.updateAmountsNotBelowFrozen(any(Long[].class), any(Integer[].class)))
+                .thenAnswer(invocation -> Arrays.asList((Long[]) invocation.getArgument(0)));
+
+        // --- Act ---
+        StockpileBulkResultVO result = stockpileService.bulkUpdateStockpiles(items);
+
+        // --- Assert ---
+        assertEquals(count, result.getUpdated());
+        assertEquals(0, result.getRejected());
+        verify(stockpileRepository, times(3)).updateAmountsNotBelowFrozen(any(Long[].class), any(Integer[].class));
+        verify(stockpileRepository, never()).findFrozenByProductIds(anyCollection());
+    }
 }
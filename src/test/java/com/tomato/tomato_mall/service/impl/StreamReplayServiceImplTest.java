@@ -0,0 +1,232 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.properties.AiStreamProperties;
+import com.tomato.tomato_mall.service.AiAdmissionService;
+import com.tomato.tomato_mall.vo.StreamEventVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamReplayServiceImplTest {
+
+    private AiStreamProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private StreamReplayServiceImpl streamReplayService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiStreamProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        streamReplayService = new StreamReplayServiceImpl(properties, meterRegistry);
+    }
+
+    // --- publish 方法测试 ---
+    @Test
+    void publish_AssignsIncreasingEventIds() {
+        // --- Act ---
+        List<StreamEventVO> events = streamReplayService
+                .publish("testuser", "CONV-1", Flux.just("a", "b", "c"), Duration.ZERO)
+                .collectList().block();
+
+        // --- Assert ---
+        assertEquals(List.of("a", "b", "c"), events.stream().map(StreamEventVO::getData).toList());
+        String generationId = events.get(0).getId().substring(0, events.get(0).getId().lastIndexOf(':'));
+        assertEquals(List.of(generationId + ":1", generationId + ":2", generationId + ":3"),
+                events.stream().map(StreamEventVO::getId).toList());
+    }
+
+    @Test
+    void publish_GenerationContinuesAfterClientDisconnects() {
+        // --- Arrange ---
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<StreamEventVO> received = new ArrayList<>();
+        Disposable client = streamReplayService.publish("testuser", "CONV-1", upstream.asFlux(), Duration.ZERO)
+                .subscribe(received::add);
+        upstream.tryEmitNext("a");
+
+        // --- Act ---
+        client.dispose();
+        upstream.tryEmitNext("b");
+        upstream.tryEmitComplete();
+
+        // --- Assert ---
+        assertEquals(1, received.size());
+        List<StreamEventVO> resumed = streamReplayService.resume("testuser", "CONV-1", received.get(0).getId())
+                .collectList().block();
+        assertEquals(List.of("b"), resumed.stream().map(StreamEventVO::getData).toList());
+    }
+
+    @Test
+    void publish_CoalescesChunksWithinWindow() {
+        // --- Arrange ---
+        properties.setMaxFrameWindow(Duration.ofMinutes(1));
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<StreamEventVO> events = streamReplayService.publish("testuser", "CONV-1", upstream.asFlux(),
+                Duration.ofMinutes(1));
+
+        // --- Act ---
+        upstream.tryEmitNext("你");
+        upstream.tryEmitNext("好");
+        upstream.tryEmitNext("！");
+        upstream.tryEmitComplete();
+
+        // --- Assert ---
+        // 第一个片段立即成帧，窗口内的后续片段在回复结束时合并推送
+        assertEquals(List.of("你", "好！"), events.map(StreamEventVO::getData).collectList().block());
+        assertEquals(2, meterRegistry.get("ai.stream.frames").counter().count());
+        assertEquals(9, meterRegistry.get("ai.stream.frame.size").summary().totalAmount());
+    }
+
+    @Test
+    void publish_FrameSentWhenWindowElapses() {
+        // --- Arrange ---
+        properties.setFrameWindow(Duration.ofMillis(10));
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<StreamEventVO> events = streamReplayService.publish("testuser", "CONV-1", upstream.asFlux(), null);
+
+        // --- Act ---
+        upstream.tryEmitNext("a");
+        upstream.tryEmitNext("b");
+        upstream.tryEmitNext("c");
+
+        // --- Assert ---
+        assertEquals(List.of("a", "bc"), events.take(2).map(StreamEventVO::getData).collectList()
+                .block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void publish_FrameSentWhenFull() {
+        // --- Arrange ---
+        properties.setMaxFrameWindow(Duration.ofMinutes(1));
+        properties.setMaxFrameChars(2);
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<StreamEventVO> received = new ArrayList<>();
+        streamReplayService.publish("testuser", "CONV-1", upstream.asFlux(), Duration.ofMinutes(1))
+                .subscribe(received::add);
+
+        // --- Act ---
+        upstream.tryEmitNext("a");
+        upstream.tryEmitNext("b");
+        upstream.tryEmitNext("c");
+        upstream.tryEmitNext("d");
+
+        // --- Assert ---
+        assertEquals(List.of("a", "bc"), received.stream().map(StreamEventVO::getData).toList());
+    }
+
+    @Test
+    void publish_QueuePositionsSentWithoutIds() {
+        // --- Arrange ---
+        AtomicReference<IntConsumer> queueListener = new AtomicReference<>();
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<String> chunks = Flux.deferContextual(context -> {
+            queueListener.set(context.get(AiAdmissionService.QUEUE_LISTENER_KEY));
+            return upstream.asFlux();
+        });
+        List<StreamEventVO> received = new ArrayList<>();
+        Flux<StreamEventVO> events = streamReplayService.publish("testuser", "CONV-1", chunks, Duration.ZERO);
+        queueListener.get().accept(2);
+        events.subscribe(received::add);
+
+        // --- Act ---
+        queueListener.get().accept(1);
+        queueListener.get().accept(0);
+        upstream.tryEmitNext("a");
+
+        // --- Assert ---
+        assertEquals(List.of("queue:2", "queue:1", "queue:0", "message:a"),
+                received.stream().map(event -> event.getEvent() + ":" + event.getData()).toList());
+        assertNull(received.get(0).getId());
+        assertNotNull(received.get(3).getId());
+    }
+
+    // --- resume 方法测试 ---
+    @Test
+    void resume_ReplaysMissedChunksThenContinuesLive() {
+        // --- Arrange ---
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<StreamEventVO> first = new ArrayList<>();
+        streamReplayService.publish("testuser", "CONV-1", upstream.asFlux(), Duration.ZERO)
+                .subscribe(first::add);
+        upstream.tryEmitNext("a");
+        upstream.tryEmitNext("b");
+        upstream.tryEmitNext("c");
+        String lastEventId = first.get(0).getId();
+
+        // --- Act ---
+        List<StreamEventVO> resumed = new ArrayList<>();
+        streamReplayService.resume("testuser", "CONV-1", lastEventId).subscribe(resumed::add);
+        upstream.tryEmitNext("d");
+        upstream.tryEmitComplete();
+
+        // --- Assert ---
+        assertEquals(List.of("b", "c", "d"), resumed.stream().map(StreamEventVO::getData).toList());
+        assertEquals(1, meterRegistry.get("ai.stream.resumes").tag("result", "replayed").counter().count());
+    }
+
+    @Test
+    void resume_CompletedGenerationWithinGracePeriod() {
+        // --- Arrange ---
+        List<StreamEventVO> events = streamReplayService
+                .publish("testuser", "CONV-1", Flux.just("a", "b"), Duration.ZERO)
+                .collectList().block();
+
+        // --- Act ---
+        List<StreamEventVO> resumed = streamReplayService.resume("testuser", "CONV-1", events.get(0).getId())
+                .collectList().block();
+
+        // --- Assert ---
+        assertEquals(List.of(events.get(1)), resumed);
+    }
+
+    @Test
+    void resume_OtherUserRejected() {
+        // --- Arrange ---
+        List<StreamEventVO> events = streamReplayService
+                .publish("testuser", "CONV-1", Flux.just("a"), Duration.ZERO)
+                .collectList().block();
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> streamReplayService.resume("otheruser", "CONV-1", events.get(0).getId()));
+        assertEquals(ErrorTypeEnum.STREAM_RESUME_UNAVAILABLE, exception.getErrorType());
+        assertEquals(1, meterRegistry.get("ai.stream.resumes").tag("result", "unavailable").counter().count());
+    }
+
+    @Test
+    void resume_DroppedChunksUnavailable() {
+        // --- Arrange ---
+        properties.setMaxBufferedCharsPerReply(2);
+        streamReplayService = new StreamReplayServiceImpl(properties, new SimpleMeterRegistry());
+        List<StreamEventVO> events = streamReplayService
+                .publish("testuser", "CONV-1", Flux.just("a", "b", "c"), Duration.ZERO)
+                .collectList().block();
+
+        // --- Act & Assert ---
+        // 第一个片段已被丢弃，只能从第二个片段之后续传
+        assertEquals(List.of("b", "c"), events.stream().map(StreamEventVO::getData).toList());
+        assertThrows(BusinessException.class, () -> streamReplayService.resume("testuser", "CONV-1",
+                events.get(0).getId().replaceAll(":\\d+$", ":0")));
+        assertEquals(List.of("c"), streamReplayService.resume("testuser", "CONV-1", events.get(0).getId())
+                .map(StreamEventVO::getData).collectList().block());
+    }
+
+    @Test
+    void resume_MalformedEventId() {
+        // --- Act & Assert ---
+        assertThrows(BusinessException.class, () -> streamReplayService.resume("testuser", "CONV-1", "garbage"));
+    }
+}
@@ -0,0 +1,289 @@
+package com.tomato.tomato_mall.service.impl;
+
+import com.tomato.tomato_mall.entity.Product;
+import com.tomato.tomato_mall.entity.VectorReindexJob;
+import com.tomato.tomato_mall.enums.ErrorTypeEnum;
+import com.tomato.tomato_mall.enums.ReindexStatusEnum;
+import com.tomato.tomato_mall.exception.BusinessException;
+import com.tomato.tomato_mall.properties.VectorReindexProperties;
+import com.tomato.tomato_mall.repository.ProductRepository;
+import com.tomato.tomato_mall.repository.VectorReindexDirtyProductRepository;
+import com.tomato.tomato_mall.repository.VectorReindexJobRepository;
+import com.tomato.tomato_mall.service.ProductVectorTaskService;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+import com.tomato.tomato_mall.vo.VectorConsistencyVO;
+import com.tomato.tomato_mall.vo.VectorReindexJobVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VectorReindexServiceImplTest {
+
+    @Mock
+    private VectorReindexJobRepository jobRepository;
+
+    @Mock
+    private VectorReindexDirtyProductRepository dirtyProductRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductVectorTaskService productVectorTaskService;
+
+    @Mock
+    private VectorStoreUtil vectorStoreUtil;
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private VectorReindexServiceImpl reindexService;
+
+    private VectorReindexJob job;
+
+    @BeforeEach
+    void setUp() {
+        VectorReindexProperties properties = new VectorReindexProperties();
+        properties.setPageSize(2);
+        properties.setParallelism(2);
+        properties.setEmbeddingBatchSize(1);
+        properties.setRequestsPerSecond(1000);
+        reindexService = new VectorReindexServiceImpl(jobRepository, dirtyProductRepository, productRepository,
+                productVectorTaskService, vectorStoreUtil, embeddingModel, properties, transactionManager);
+
+        job = new VectorReindexJob();
+        job.setId(1L);
+        job.setStatus(ReindexStatusEnum.RUNNING);
+        job.setShadowTable("vector_store_reindex_1");
+        job.setTotal(3L);
+        job.setRunStartTime(LocalDateTime.now().minusSeconds(10));
+        job.setHeartbeatTime(LocalDateTime.now());
+        job.setCreateTime(LocalDateTime.now().minusSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reindexService.shutdown();
+    }
+
+    private Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle("Book " + id);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setRate(8.0);
+        return product;
+    }
+
+    @Test
+    void startReindex_AlreadyRunning() {
+        // --- Arrange ---
+        when(jobRepository.existsByStatus(ReindexStatusEnum.RUNNING)).thenReturn(true);
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class, () -> reindexService.startReindex());
+        assertEquals(ErrorTypeEnum.REINDEX_ALREADY_RUNNING, exception.getErrorType());
+        verify(vectorStoreUtil, never()).createShadowTable(any());
+    }
+
+    @Test
+    void startReindex_EmbeddedStoreNotSupported() {
+        // --- Arrange ---
+        when(vectorStoreUtil.isEmbeddedStore()).thenReturn(true);
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class, () -> reindexService.startReindex());
+        assertEquals(ErrorTypeEnum.VECTOR_STORE_OPERATION_NOT_SUPPORTED, exception.getErrorType());
+        verifyNoInteractions(jobRepository);
+    }
+
+    @Test
+    void startReindex_CreatesJobAndShadowTable() {
+        // --- Arrange ---
+        when(jobRepository.existsByStatus(ReindexStatusEnum.RUNNING)).thenReturn(false);
+        when(productRepository.countByDeletedFalse()).thenReturn(3L);
+        when(jobRepository.save(any(VectorReindexJob.class))).thenAnswer(invocation -> {
+            VectorReindexJob saved = invocation.getArgument(0);
+            saved.setId(5L);
+            saved.setRunStartTime(LocalDateTime.now());
+            saved.setCreateTime(LocalDateTime.now());
+            return saved;
+        });
+        when(vectorStoreUtil.shadowTableName(5L)).thenReturn("vector_store_reindex_5");
+
+        // --- Act ---
+        VectorReindexJobVO result = reindexService.startReindex();
+
+        // --- Assert ---
+        assertEquals(5L, result.getId());
+        assertEquals("RUNNING", result.getStatus());
+        assertEquals(3L, result.getTotal());
+        verify(vectorStoreUtil).createShadowTable("vector_store_reindex_5");
+        verify(jobRepository, timeout(1000)).findById(5L);
+    }
+
+    @Test
+    void run_IndexesAllPagesAndSwaps() {
+        // --- Arrange ---
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        lenient().when(jobRepository.save(any(VectorReindexJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(productRepository.findIdsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of(3L));
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(anyCollection())).thenAnswer(invocation -> {
+            List<Product> products = new ArrayList<>();
+            for (Object id : (List<?>) invocation.getArgument(0)) {
+                products.add(product((Long) id));
+            }
+            return products;
+        });
+        when(embeddingModel.embed(anyList())).thenReturn(List.of(new float[] { 0.1f, 0.2f }));
+        when(dirtyProductRepository.findProductIdsByJobId(1L)).thenReturn(List.of(2L));
+        when(vectorStoreUtil.countMissingProducts()).thenReturn(0L);
+        when(vectorStoreUtil.countOrphanedVectors()).thenReturn(0L);
+
+        // --- Act ---
+        reindexService.run(1L);
+
+        // --- Assert ---
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Document>> captor = ArgumentCaptor.forClass(List.class);
+        verify(vectorStoreUtil).insertShadowDocuments(eq("vector_store_reindex_1"), captor.capture(), anyList());
+        assertEquals(List.of("1", "2", "3"),
+                captor.getValue().stream().map(document -> document.getMetadata().get("id")).toList());
+        verify(embeddingModel, times(3)).embed(anyList());
+
+        var inOrder = inOrder(vectorStoreUtil, productVectorTaskService);
+        inOrder.verify(vectorStoreUtil).createShadowIndexes("vector_store_reindex_1");
+        inOrder.verify(vectorStoreUtil).swapShadowTable("vector_store_reindex_1");
+        inOrder.verify(productVectorTaskService).enqueueAll(List.of(2L));
+        verify(dirtyProductRepository).deleteByJobId(1L);
+
+        assertEquals(ReindexStatusEnum.COMPLETED, job.getStatus());
+        assertEquals(3L, job.getLastProductId());
+        assertEquals(3L, job.getProcessed());
+        assertEquals(0L, job.getMissingCount());
+        assertNotNull(job.getFinishTime());
+    }
+
+    @Test
+    void run_EmbeddingFailureMarksJobFailed() {
+        // --- Arrange ---
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        lenient().when(jobRepository.save(any(VectorReindexJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L));
+        when(productRepository.findWithSpecificationsByIdInAndDeletedFalse(anyCollection()))
+                .thenReturn(List.of(product(1L)));
+        when(embeddingModel.embed(anyList())).thenThrow(new RuntimeException("rate limited"));
+
+        // --- Act ---
+        reindexService.run(1L);
+
+        // --- Assert ---
+        assertEquals(ReindexStatusEnum.FAILED, job.getStatus());
+        assertTrue(job.getErrorMessage().contains("rate limited"));
+        verify(vectorStoreUtil).dropShadowTable("vector_store_reindex_1");
+        verify(vectorStoreUtil, never()).swapShadowTable(any());
+        verify(dirtyProductRepository).deleteByJobId(1L);
+    }
+
+    @Test
+    void run_ResumesFromCheckpoint() {
+        // --- Arrange ---
+        job.setLastProductId(2L);
+        job.setProcessed(2L);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        lenient().when(jobRepository.save(any(VectorReindexJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.findIdsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of());
+
+        // --- Act ---
+        reindexService.run(1L);
+
+        // --- Assert ---
+        verify(productRepository, never()).findIdsAfter(eq(0L), any(Pageable.class));
+        verify(vectorStoreUtil, never()).insertShadowDocuments(any(), anyList(), anyList());
+        verify(vectorStoreUtil).swapShadowTable("vector_store_reindex_1");
+        assertEquals(ReindexStatusEnum.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void resumeStalledJobs_ClaimsStalledJob() {
+        // --- Arrange ---
+        when(jobRepository.findIdsByStatus(ReindexStatusEnum.RUNNING)).thenReturn(List.of(1L));
+        when(jobRepository.claimStalled(eq(1L), any(), any())).thenReturn(1);
+
+        // --- Act ---
+        reindexService.resumeStalledJobs();
+
+        // --- Assert ---
+        verify(jobRepository, timeout(1000)).findById(1L);
+    }
+
+    @Test
+    void getLatestJob_EstimatesRemainingTime() {
+        // --- Arrange ---
+        job.setProcessed(100L);
+        job.setTotal(300L);
+        job.setRunStartTime(LocalDateTime.now().minusSeconds(10));
+        when(jobRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(job));
+
+        // --- Act ---
+        VectorReindexJobVO result = reindexService.getLatestJob();
+
+        // --- Assert ---
+        assertEquals(10.0, result.getThroughput(), 0.5);
+        assertEquals(20L, result.getEtaSeconds(), 2);
+    }
+
+    @Test
+    void getLatestJob_NoJob() {
+        // --- Arrange ---
+        when(jobRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.empty());
+
+        // --- Act & Assert ---
+        BusinessException exception = assertThrows(BusinessException.class, () -> reindexService.getLatestJob());
+        assertEquals(ErrorTypeEnum.REINDEX_JOB_NOT_FOUND, exception.getErrorType());
+    }
+
+    @Test
+    void checkConsistency_Success() {
+        // --- Arrange ---
+        when(vectorStoreUtil.countMissingProducts()).thenReturn(2L);
+        when(vectorStoreUtil.countOrphanedVectors()).thenReturn(1L);
+        when(vectorStoreUtil.findMissingProductIds(VectorReindexServiceImpl.SAMPLE_SIZE)).thenReturn(List.of(4L, 5L));
+        when(vectorStoreUtil.findOrphanedProductIds(VectorReindexServiceImpl.SAMPLE_SIZE)).thenReturn(List.of(9L));
+
+        // --- Act ---
+        VectorConsistencyVO result = reindexService.checkConsistency();
+
+        // --- Assert ---
+        assertEquals(2L, result.getMissingCount());
+        assertEquals(1L, result.getOrphanedCount());
+        assertEquals(List.of(4L, 5L), result.getMissingProductIds());
+        assertEquals(List.of(9L), result.getOrphanedProductIds());
+    }
+}
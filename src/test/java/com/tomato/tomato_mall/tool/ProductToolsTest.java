@@ -0,0 +1,102 @@
+package com.tomato.tomato_mall.tool;
+
+import com.tomato.tomato_mall.properties.AssistantCacheProperties;
+import com.tomato.tomato_mall.service.StockpileService;
+import com.tomato.tomato_mall.util.VectorStoreUtil;
+import com.tomato.tomato_mall.vo.StockpileVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductToolsTest {
+
+    @Mock
+    private StockpileService stockpileService;
+
+    @Mock
+    private VectorStoreUtil vectorStoreUtil;
+
+    private ProductTools productTools;
+
+    private final Document book = new Document("书籍id: 1\n书名: 三体\n", Map.of("id", "1", "title", "三体"));
+
+    @BeforeEach
+    void setUp() {
+        productTools = new ProductTools(stockpileService, vectorStoreUtil, new AssistantCacheProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    // --- searchSimilarBooks 方法测试 ---
+    @Test
+    void searchSimilarBooks_CachedResultStillReadsFreshStock() {
+        // --- Arrange ---
+        when(vectorStoreUtil.searchProducts(anyString(), anyInt(), anyDouble(), any())).thenReturn(List.of(book));
+        when(stockpileService.getStockpilesByProductIds(List.of(1L)))
+                .thenReturn(Map.of(1L, stockpile(10, 1)))
+                .thenReturn(Map.of(1L, stockpile(3, 2)));
+
+        // --- Act ---
+        String first = productTools.searchSimilarBooks("科幻小说", 5, null, null, null);
+        String second = productTools.searchSimilarBooks("  科幻小说 ", 5, null, null, null);
+
+        // --- Assert ---
+        verify(vectorStoreUtil, times(1)).searchProducts(anyString(), anyInt(), anyDouble(), any());
+        verify(stockpileService, times(2)).getStockpilesByProductIds(List.of(1L));
+        assertTrue(first.contains("库存总数: 10"));
+        assertTrue(second.contains("库存总数: 3"));
+        assertTrue(second.contains("冻结数量: 2"));
+        assertFalse(second.contains("库存总数: 10"));
+    }
+
+    @Test
+    void searchSimilarBooks_EquivalentPriceHitsCache() {
+        // --- Arrange ---
+        when(vectorStoreUtil.searchProducts(anyString(), anyInt(), anyDouble(), any())).thenReturn(List.of(book));
+        when(stockpileService.getStockpilesByProductIds(List.of(1L))).thenReturn(Map.of(1L, stockpile(10, 0)));
+
+        // --- Act ---
+        productTools.searchSimilarBooks("科幻小说", 5, new BigDecimal("30"), null, null);
+        productTools.searchSimilarBooks("科幻小说", 5, new BigDecimal("30.00"), null, null);
+
+        // --- Assert ---
+        verify(vectorStoreUtil, times(1)).searchProducts(anyString(), anyInt(), anyDouble(), any());
+    }
+
+    @Test
+    void searchSimilarBooks_DifferentFilterOrLimitMissesCache() {
+        // --- Arrange ---
+        when(vectorStoreUtil.searchProducts(anyString(), anyInt(), anyDouble(), any())).thenReturn(List.of(book));
+        when(stockpileService.getStockpilesByProductIds(List.of(1L))).thenReturn(Map.of(1L, stockpile(10, 0)));
+
+        // --- Act ---
+        productTools.searchSimilarBooks("科幻小说", 5, null, null, null);
+        productTools.searchSimilarBooks("科幻小说", 5, new BigDecimal("20"), null, null);
+        productTools.searchSimilarBooks("科幻小说", 5, null, new BigDecimal("50"), null);
+        productTools.searchSimilarBooks("科幻小说", 5, null, null, 8.0);
+        productTools.searchSimilarBooks("科幻小说", 10, null, null, null);
+
+        // --- Assert ---
+        verify(vectorStoreUtil, times(4)).searchProducts(eq("科幻小说"), eq(5), anyDouble(), any());
+        verify(vectorStoreUtil, times(1)).searchProducts(eq("科幻小说"), eq(10), anyDouble(), any());
+    }
+
+    private static StockpileVO stockpile(int amount, int frozen) {
+        return StockpileVO.builder().productId(1L).amount(amount).frozen(frozen).build();
+    }
+}
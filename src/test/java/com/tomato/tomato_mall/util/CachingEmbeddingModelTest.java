@@ -0,0 +1,123 @@
+package com.tomato.tomato_mall.util;
+
+import com.tomato.tomato_mall.entity.EmbeddingCache;
+import com.tomato.tomato_mall.repository.EmbeddingCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingEmbeddingModelTest {
+
+    private static final String MODEL = "text-embedding-v3";
+
+    @Mock
+    private EmbeddingModel delegate;
+
+    @Mock
+    private EmbeddingCacheRepository cacheRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingEmbeddingModel embeddingModel;
+
+    private final float[] cachedVector = { 0.1f, 0.2f };
+    private final float[] freshVector = { 0.3f, 0.4f };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        embeddingModel = new CachingEmbeddingModel(delegate, MODEL, cacheRepository, jdbcTemplate, meterRegistry);
+    }
+
+    // --- call 方法测试 ---
+    @Test
+    @SuppressWarnings("unchecked")
+    void call_EmbedsDeduplicatedMissesAndWritesOneBatch() {
+        // --- Arrange ---
+        String hashA = DocumentConverter.contentHash("三体");
+        String hashB = DocumentConverter.contentHash("活着");
+        when(cacheRepository.findByModelAndTextHashIn(eq(MODEL), anyList()))
+                .thenReturn(List.of(new EmbeddingCache(1L, MODEL, hashA, CachingEmbeddingModel.encode(cachedVector),
+                        LocalDateTime.now())));
+        when(delegate.call(any(EmbeddingRequest.class)))
+                .thenReturn(new EmbeddingResponse(List.of(new Embedding(freshVector, 0))));
+
+        // --- Act ---
+        EmbeddingResponse response = embeddingModel.call(
+                new EmbeddingRequest(List.of("三体", "活着", "活着"), null));
+
+        // --- Assert ---
+        ArgumentCaptor<EmbeddingRequest> request = ArgumentCaptor.forClass(EmbeddingRequest.class);
+        verify(delegate).call(request.capture());
+        assertEquals(List.of("活着"), request.getValue().getInstructions()); // 同一请求内的重复文本只嵌入一次
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(MODEL, rows.getValue().get(0)[0]);
+        assertEquals(hashB, rows.getValue().get(0)[1]);
+        assertArrayEquals(freshVector, CachingEmbeddingModel.decode((byte[]) rows.getValue().get(0)[2]));
+
+        assertEquals(3, response.getResults().size());
+        assertArrayEquals(cachedVector, response.getResults().get(0).getOutput());
+        assertArrayEquals(freshVector, response.getResults().get(1).getOutput());
+        assertArrayEquals(freshVector, response.getResults().get(2).getOutput());
+        assertEquals(2, meterRegistry.get("embedding.cache").tag("result", "hit").counter().count()); // 重复文本复用本次结果
+        assertEquals(1, meterRegistry.get("embedding.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void call_AllHitsSkipDelegateAndInsert() {
+        // --- Arrange ---
+        when(cacheRepository.findByModelAndTextHashIn(eq(MODEL), anyList()))
+                .thenReturn(List.of(new EmbeddingCache(1L, MODEL, DocumentConverter.contentHash("三体"),
+                        CachingEmbeddingModel.encode(cachedVector), LocalDateTime.now())));
+
+        // --- Act ---
+        EmbeddingResponse response = embeddingModel.call(new EmbeddingRequest(List.of("三体", "三体"), null));
+
+        // --- Assert ---
+        verifyNoInteractions(delegate, jdbcTemplate);
+        assertEquals(2, response.getResults().size());
+        assertArrayEquals(cachedVector, response.getResults().get(1).getOutput());
+        assertEquals(1, response.getResults().get(1).getIndex());
+    }
+
+    // --- encode / decode 方法测试 ---
+    @Test
+    void encode_DecodeRoundTrip() {
+        // --- Arrange ---
+        float[] vector = { 0f, -1.5f, 3.25f, Float.MIN_VALUE, Float.MAX_VALUE };
+
+        // --- Act ---
+        byte[] bytes = CachingEmbeddingModel.encode(vector);
+
+        // --- Assert ---
+        assertEquals(vector.length * Float.BYTES, bytes.length);
+        assertArrayEquals(new byte[] { 0, 0, (byte) 0xC0, (byte) 0xBF }, Arrays.copyOfRange(bytes, 4, 8));
+        assertArrayEquals(vector, CachingEmbeddingModel.decode(bytes));
+    }
+}
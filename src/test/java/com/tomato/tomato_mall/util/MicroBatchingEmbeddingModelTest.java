@@ -0,0 +1,105 @@
+package com.tomato.tomato_mall.util;
+
+import com.tomato.tomato_mall.properties.EmbeddingBatchProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MicroBatchingEmbeddingModelTest {
+
+    @Mock
+    private EmbeddingModel delegate;
+
+    private EmbeddingBatchProperties properties;
+    private MicroBatchingEmbeddingModel embeddingModel;
+
+    private final float[] vector = { 0.1f, 0.2f };
+
+    @BeforeEach
+    void setUp() {
+        properties = new EmbeddingBatchProperties();
+        properties.setMaxWait(Duration.ofMillis(1));
+        embeddingModel = new MicroBatchingEmbeddingModel(delegate, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        embeddingModel.destroy();
+    }
+
+    // --- call 方法测试 ---
+    @Test
+    void call_ReturnsBatchedEmbedding() {
+        // --- Arrange ---
+        embeddingModel.afterPropertiesSet();
+        when(delegate.call(any(EmbeddingRequest.class)))
+                .thenReturn(new EmbeddingResponse(List.of(new Embedding(vector, 0))));
+
+        // --- Act ---
+        EmbeddingResponse response = embeddingModel.call(new EmbeddingRequest(List.of("三体"), null));
+
+        // --- Assert ---
+        assertArrayEquals(vector, response.getResult().getOutput());
+        verify(delegate).call(argThat(request -> request.getOptions() != null)); // 经过合批线程发送
+    }
+
+    @Test
+    void call_TimeoutFallsBackToDelegate() {
+        // --- Arrange ---
+        properties.setResultTimeout(Duration.ofMillis(100));
+        embeddingModel = new MicroBatchingEmbeddingModel(delegate, properties, new SimpleMeterRegistry());
+        embeddingModel.afterPropertiesSet();
+        CountDownLatch release = new CountDownLatch(1);
+        EmbeddingRequest request = new EmbeddingRequest(List.of("三体"), null);
+        when(delegate.call(any(EmbeddingRequest.class))).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) != request) {
+                release.await(5, TimeUnit.SECONDS); // 合批请求一直没有返回
+            }
+            return new EmbeddingResponse(List.of(new Embedding(vector, 0)));
+        });
+
+        // --- Act ---
+        EmbeddingResponse response = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> embeddingModel.call(request));
+        release.countDown();
+
+        // --- Assert ---
+        assertArrayEquals(vector, response.getResult().getOutput());
+        verify(delegate).call(request);
+    }
+
+    @Test
+    void call_AfterDestroyCallsDelegateDirectly() throws InterruptedException {
+        // --- Arrange ---
+        embeddingModel.afterPropertiesSet();
+        embeddingModel.destroy();
+        EmbeddingRequest request = new EmbeddingRequest(List.of("三体"), null);
+        when(delegate.call(request)).thenReturn(new EmbeddingResponse(List.of(new Embedding(vector, 0))));
+
+        // --- Act ---
+        EmbeddingResponse response = embeddingModel.call(request);
+
+        // --- Assert ---
+        assertArrayEquals(vector, response.getResult().getOutput());
+        verify(delegate, times(1)).call(any(EmbeddingRequest.class));
+    }
+}
@@ -0,0 +1,107 @@
+package com.tomato.tomato_mall.util;
+
+import com.tomato.tomato_mall.enums.VectorQuantizationEnum;
+import com.tomato.tomato_mall.properties.VectorQuantizationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuantizedPgVectorStoreTest {
+
+    private static final String INDEX = "products_vectors_halfvec_idx";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private VectorQuantizationProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new VectorQuantizationProperties();
+        properties.setQuantization(VectorQuantizationEnum.HALFVEC);
+    }
+
+    // --- createIndexes 方法测试 ---
+    @Test
+    void createIndexes_BuildsConcurrently() {
+        // --- Arrange ---
+        when(jdbcTemplate.queryForList(startsWith("SELECT i.indisvalid"), eq(Boolean.class), eq("mall"), eq(INDEX)))
+                .thenReturn(List.of());
+
+        // --- Act ---
+        store().createIndexes();
+
+        // --- Assert ---
+        verify(jdbcTemplate).execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + INDEX
+                + " ON mall.products_vectors USING hnsw ((embedding::halfvec(4)) halfvec_cosine_ops)");
+        verify(jdbcTemplate, never()).execute(startsWith("DROP INDEX"));
+    }
+
+    @Test
+    void createIndexes_RebuildsInvalidIndex() {
+        // --- Arrange ---
+        when(jdbcTemplate.queryForList(startsWith("SELECT i.indisvalid"), eq(Boolean.class), eq("mall"), eq(INDEX)))
+                .thenReturn(List.of(false));
+
+        // --- Act ---
+        store().createIndexes();
+
+        // --- Assert ---
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("DROP INDEX CONCURRENTLY IF EXISTS mall." + INDEX);
+        inOrder.verify(jdbcTemplate).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + INDEX));
+    }
+
+    @Test
+    void createIndexes_DropsFullPrecisionIndexOfConfiguredTable() {
+        // --- Arrange ---
+        properties.setDropFullPrecisionIndex(true);
+        when(jdbcTemplate.queryForList(startsWith("SELECT i.indisvalid"), eq(Boolean.class), eq("mall"), eq(INDEX)))
+                .thenReturn(List.of(true));
+        when(jdbcTemplate.queryForList(startsWith("SELECT indexname FROM pg_indexes"), eq(String.class),
+                eq("mall"), eq("products_vectors"), anyString()))
+                .thenReturn(List.of("products_vectors_index"));
+
+        // --- Act ---
+        store().createIndexes();
+
+        // --- Assert ---
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + INDEX));
+        inOrder.verify(jdbcTemplate).execute("DROP INDEX CONCURRENTLY IF EXISTS mall.products_vectors_index");
+        verify(jdbcTemplate, never()).execute(contains("spring_ai_vector_index"));
+    }
+
+    @Test
+    void createIndexes_NoneQuantizationDoesNothing() {
+        // --- Arrange ---
+        properties.setQuantization(VectorQuantizationEnum.NONE);
+
+        // --- Act ---
+        store().createIndexes();
+
+        // --- Assert ---
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private QuantizedPgVectorStore store() {
+        return new QuantizedPgVectorStore(null, jdbcTemplate, transactionManager, null, "mall", "products_vectors",
+                4, properties);
+    }
+}
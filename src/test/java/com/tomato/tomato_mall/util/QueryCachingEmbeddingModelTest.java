@@ -0,0 +1,115 @@
+package com.tomato.tomato_mall.util;
+
+import com.tomato.tomato_mall.properties.AssistantCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueryCachingEmbeddingModelTest {
+
+    @Mock
+    private EmbeddingModel documentModel;
+
+    @Mock
+    private EmbeddingModel queryModel;
+
+    private QueryCachingEmbeddingModel embeddingModel;
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = new QueryCachingEmbeddingModel(documentModel, queryModel, new AssistantCacheProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    // --- embed 方法测试 ---
+    @Test
+    void embed_NormalizedEqualQueriesEmbedOnce() {
+        // --- Arrange ---
+        float[] vector = { 0.1f, 0.2f };
+        when(queryModel.embed("推荐 sci-fi 小说")).thenReturn(vector);
+
+        // --- Act ---
+        float[] first = embeddingModel.embed("推荐 sci-fi 小说");
+        float[] second = embeddingModel.embed("  推荐\t\tSCI-FI   小说 ");
+        float[] third = embeddingModel.embed("推荐　ｓｃｉ－ｆｉ 小说"); // 全角字符
+
+        // --- Assert ---
+        assertArrayEquals(vector, first);
+        assertSame(first, second);
+        assertSame(first, third);
+        verify(queryModel, times(1)).embed("推荐 sci-fi 小说");
+        verifyNoInteractions(documentModel); // 查询不经过持久化缓存
+    }
+
+    @Test
+    void embed_DifferentQueriesEmbedSeparately() {
+        // --- Arrange ---
+        when(queryModel.embed(anyString())).thenReturn(new float[] { 0.1f });
+
+        // --- Act ---
+        embeddingModel.embed("科幻小说");
+        embeddingModel.embed("悬疑小说");
+
+        // --- Assert ---
+        verify(queryModel).embed("科幻小说");
+        verify(queryModel).embed("悬疑小说");
+    }
+
+    // --- embedQueries 方法测试 ---
+    @Test
+    @SuppressWarnings("unchecked")
+    void embedQueries_EmbedsUncachedQueriesInOneBatch() {
+        // --- Arrange ---
+        float[] cached = { 0.1f };
+        when(queryModel.embed("科幻小说")).thenReturn(cached);
+        embeddingModel.embed("科幻小说");
+        when(queryModel.embed(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+                .map(text -> new float[] { text.length() })
+                .toList());
+
+        // --- Act ---
+        List<float[]> vectors = embeddingModel.embedQueries(List.of("科幻小说", "悬疑 小说", " 悬疑  小说", "历史"));
+        List<float[]> again = embeddingModel.embedQueries(List.of("历史", "悬疑 小说"));
+
+        // --- Assert ---
+        ArgumentCaptor<List<String>> batch = ArgumentCaptor.forClass(List.class);
+        verify(queryModel, times(1)).embed(batch.capture());
+        assertEquals(Set.of("悬疑 小说", "历史"), Set.copyOf(batch.getValue())); // 未命中的查询去重后一次嵌入
+        assertEquals(2, batch.getValue().size());
+        assertSame(cached, vectors.get(0));
+        assertArrayEquals(new float[] { 5 }, vectors.get(1));
+        assertSame(vectors.get(1), vectors.get(2));
+        assertArrayEquals(new float[] { 2 }, vectors.get(3));
+        assertSame(vectors.get(3), again.get(0)); // 批量结果同样进入缓存
+        assertSame(vectors.get(1), again.get(1));
+        verifyNoInteractions(documentModel);
+    }
+
+    // --- call 方法测试 ---
+    @Test
+    void call_DelegatesToDocumentModel() {
+        // --- Arrange ---
+        EmbeddingRequest request = new EmbeddingRequest(List.of("书名: 三体"), null);
+
+        // --- Act ---
+        embeddingModel.call(request);
+
+        // --- Assert ---
+        verify(documentModel).call(request);
+        verifyNoInteractions(queryModel);
+    }
+}
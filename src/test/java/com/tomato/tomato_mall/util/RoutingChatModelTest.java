@@ -0,0 +1,201 @@
+package com.tomato.tomato_mall.util;
+
+import com.tomato.tomato_mall.properties.ChatRoutingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingChatModelTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ChatRoutingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private StubChatModel primary;
+    private StubChatModel secondary;
+    private RoutingChatModel routingChatModel;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChatRoutingProperties();
+        properties.setHedgeEnabled(true);
+        properties.setHedgeDelay(Duration.ofMillis(100));
+        properties.setMinHedgeDelay(Duration.ofMillis(10));
+        properties.setMaxHedgeDelay(Duration.ofSeconds(1));
+        properties.setMinLatencySamples(5);
+        properties.setFailureThreshold(2);
+        properties.setOpenDuration(Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        primary = new StubChatModel("主模型", Duration.ZERO, Duration.ZERO, 0);
+        secondary = new StubChatModel("备用", Duration.ZERO, Duration.ZERO, 0);
+        routingChatModel = new RoutingChatModel(primary, secondary, properties, meterRegistry);
+    }
+
+    // --- stream 方法测试 ---
+    @Test
+    void stream_PrimaryFastNoHedge() {
+        // --- Act ---
+        String reply = stream();
+
+        // --- Assert ---
+        assertEquals("主模型", reply);
+        assertEquals(0, secondaryCount("hedge"));
+        assertEquals(1, wins("primary"));
+        assertEquals(0, wins("secondary"));
+    }
+
+    @Test
+    void stream_SlowPrimaryHedgedAndCancelled() {
+        // --- Arrange ---
+        primary.setFirstTokenLatency(Duration.ofSeconds(2));
+
+        // --- Act ---
+        String reply = stream();
+
+        // --- Assert ---
+        assertEquals("备用", reply);
+        assertEquals(1, secondaryCount("hedge"));
+        assertEquals(1, wins("secondary"));
+        assertEquals(1, calls("primary", "cancelled"));
+        assertEquals(0, calls("primary", "failure"));
+    }
+
+    @Test
+    void stream_PrimaryFailureFailsOverImmediately() {
+        // --- Arrange ---
+        properties.setHedgeEnabled(false);
+        primary.setFailureRate(1);
+
+        // --- Act ---
+        String reply = stream();
+
+        // --- Assert ---
+        assertEquals("备用", reply);
+        assertEquals(1, secondaryCount("failover"));
+        assertEquals(1, calls("primary", "failure"));
+    }
+
+    @Test
+    void stream_BothFailPropagatesError() {
+        // --- Arrange ---
+        primary.setFailureRate(1);
+        secondary.setFailureRate(1);
+
+        // --- Act & Assert ---
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> routingChatModel.stream(new Prompt("你好")).blockLast(TIMEOUT));
+        assertEquals("Stub chat model failure", exception.getMessage());
+    }
+
+    @Test
+    void stream_OpenCircuitSkipsPrimary() {
+        // --- Arrange ---
+        primary.setFailureRate(1);
+        stream();
+        stream();
+        primary.setFailureRate(0);
+
+        // --- Act ---
+        String reply = stream();
+
+        // --- Assert ---
+        assertEquals("备用", reply);
+        assertEquals(2, calls("primary", "failure"));
+        assertEquals(1, meterRegistry.get("ai.chat.provider.circuit").tag("provider", "primary").gauge().value());
+    }
+
+    // --- call 方法测试 ---
+    @Test
+    void call_FailsOverToSecondary() {
+        // --- Arrange ---
+        primary.setFailureRate(1);
+
+        // --- Act ---
+        ChatResponse response = routingChatModel.call(new Prompt("你好"));
+
+        // --- Assert ---
+        assertEquals("备用", response.getResult().getOutput().getText());
+        assertEquals(1, secondaryCount("failover"));
+    }
+
+    @Test
+    void call_NoProviderAvailable() {
+        // --- Arrange ---
+        properties.setFailureThreshold(1);
+        routingChatModel = new RoutingChatModel(primary, secondary, properties, new SimpleMeterRegistry());
+        primary.setFailureRate(1);
+        secondary.setFailureRate(1);
+        assertThrows(IllegalStateException.class, () -> routingChatModel.call(new Prompt("你好")));
+
+        // --- Act & Assert ---
+        assertThrows(RoutingChatModel.ProviderUnavailableException.class,
+                () -> routingChatModel.call(new Prompt("你好")));
+    }
+
+    // --- hedgeDelay 方法测试 ---
+    @Test
+    void hedgeDelay_FollowsPrimaryLatencyPercentile() {
+        // --- Arrange ---
+        // 初始延迟与实际延迟拉开差距，避免负载下的调度抖动影响断言
+        properties.setHedgeDelay(Duration.ofMillis(500));
+        routingChatModel = new RoutingChatModel(primary, secondary, properties, meterRegistry);
+        assertEquals(Duration.ofMillis(500), routingChatModel.hedgeDelay());
+        primary.setFirstTokenLatency(Duration.ofMillis(30));
+
+        // --- Act ---
+        for (int i = 0; i < 5; i++) {
+            stream();
+        }
+
+        // --- Assert ---
+        Duration delay = routingChatModel.hedgeDelay();
+        assertTrue(delay.compareTo(Duration.ofMillis(30)) >= 0, delay::toString);
+        assertTrue(delay.compareTo(Duration.ofMillis(500)) < 0, delay::toString);
+        assertEquals(0, secondaryCount("hedge"));
+    }
+
+    @Test
+    void hedgeDelay_ClientCancelNotSampled() {
+        // --- Arrange ---
+        primary.setFirstTokenLatency(Duration.ofSeconds(2));
+
+        // --- Act ---
+        for (int i = 0; i < 5; i++) {
+            // 调用方在对冲前取消
+            routingChatModel.stream(new Prompt("你好")).take(Duration.ofMillis(10)).collectList().block(TIMEOUT);
+        }
+
+        // --- Assert ---
+        assertEquals(Duration.ofMillis(100), routingChatModel.hedgeDelay());
+        assertEquals(0, secondaryCount("hedge"));
+        assertEquals(5, calls("primary", "cancelled"));
+    }
+
+    private String stream() {
+        List<ChatResponse> responses = routingChatModel.stream(new Prompt("你好")).collectList().block(TIMEOUT);
+        return responses.stream()
+                .map(response -> response.getResult().getOutput().getText())
+                .collect(Collectors.joining());
+    }
+
+    private double secondaryCount(String reason) {
+        return meterRegistry.get("ai.chat.routing.secondary").tag("reason", reason).counter().count();
+    }
+
+    private double wins(String provider) {
+        return meterRegistry.get("ai.chat.routing.wins").tag("provider", provider).counter().count();
+    }
+
+    private double calls(String provider, String result) {
+        return meterRegistry.get("ai.chat.provider.calls").tag("provider", provider).tag("result", result)
+                .counter().count();
+    }
+}
@@ -0,0 +1,262 @@
+package com.tomato.tomato_mall.util;
+
+import com.tomato.tomato_mall.properties.ChatMemoryStoreProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TieredChatMemoryTest {
+
+    private static final String CONVERSATION = "conv-1";
+
+    @Mock
+    private ChatMemory delegate;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ChatMemoryStoreProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private TieredChatMemory chatMemory;
+
+    private final Message question = new UserMessage("推荐几本科幻小说");
+    private final Message answer = new AssistantMessage("推荐《三体》");
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChatMemoryStoreProperties();
+        properties.setMessagesPerConversation(10);
+        properties.setFlushInterval(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        chatMemory = new TieredChatMemory(delegate, jdbcTemplate, properties, meterRegistry);
+    }
+
+    // --- get 方法测试 ---
+    @Test
+    void get_ColdLoadMergesPendingMessages() {
+        // --- Arrange ---
+        Message stored = new UserMessage("你好");
+        when(delegate.get(CONVERSATION, 10)).thenReturn(List.of(stored));
+        chatMemory.add(CONVERSATION, List.of(question, answer));
+
+        // --- Act ---
+        List<Message> messages = chatMemory.get(CONVERSATION, 10);
+        List<Message> cached = chatMemory.get(CONVERSATION, 2);
+
+        // --- Assert ---
+        assertEquals(List.of(stored, question, answer), messages);
+        assertEquals(List.of(question, answer), cached);
+        verify(delegate, times(1)).get(CONVERSATION, 10); // 第二次读取命中缓存
+        verify(delegate, never()).add(any(), anyList());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void get_CacheBoundedByCharacters() throws InterruptedException {
+        // --- Arrange ---
+        properties.setMaxCachedCharacters(100);
+        chatMemory = new TieredChatMemory(delegate, jdbcTemplate, properties, meterRegistry);
+        when(delegate.get(CONVERSATION, 10)).thenReturn(List.of());
+        chatMemory.get(CONVERSATION, 10);
+
+        // --- Act ---
+        chatMemory.add(CONVERSATION, List.of(new UserMessage("长".repeat(200)))); // 超过缓存容量
+        awaitEviction(); // 缓存在后台线程中移出对话
+        chatMemory.get(CONVERSATION, 10);
+
+        // --- Assert ---
+        verify(delegate, times(2)).get(CONVERSATION, 10); // 超重的对话被移出缓存，重新加载
+    }
+
+    // --- flush 方法测试 ---
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WritesOneBatchWithIncreasingTimestamps() {
+        // --- Arrange ---
+        chatMemory.add(CONVERSATION, List.of(question, answer));
+
+        // --- Act ---
+        chatMemory.flush();
+
+        // --- Assert ---
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO ai_chat_memory"), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        Object[] first = rows.getValue().get(0);
+        Object[] second = rows.getValue().get(1);
+        assertArrayEquals(new Object[] { CONVERSATION, "推荐几本科幻小说", "USER" }, List.of(first).subList(0, 3).toArray());
+        assertArrayEquals(new Object[] { CONVERSATION, "推荐《三体》", "ASSISTANT" }, List.of(second).subList(0, 3).toArray());
+        assertTrue(((Timestamp) second[3]).after((Timestamp) first[3])); // 按追加顺序排序
+        verify(delegate, never()).add(any(), anyList());
+        assertEquals(0, pendingMessages());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_RequeuesBatchAfterFailure() {
+        // --- Arrange ---
+        Message followUp = new UserMessage("还有别的吗");
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"))
+                .thenReturn(new int[] { 1, 1, 1 });
+        chatMemory.add(CONVERSATION, List.of(question, answer));
+
+        // --- Act ---
+        chatMemory.flush();
+        double pendingAfterFailure = pendingMessages();
+        chatMemory.add(CONVERSATION, List.of(followUp));
+        chatMemory.flush();
+
+        // --- Assert ---
+        assertEquals(2, pendingAfterFailure);
+        assertEquals(0, pendingMessages());
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture());
+        List<Object> retried = rows.getAllValues().get(1).stream().map(row -> row[1]).toList();
+        assertEquals(List.of("推荐几本科幻小说", "推荐《三体》", "还有别的吗"), retried); // 失败的消息排在新消息之前
+        assertEquals(3, meterRegistry.get("ai.chat.memory.flushed.messages").tag("result", "success")
+                .counter().count());
+        assertEquals(2, meterRegistry.get("ai.chat.memory.flushed.messages").tag("result", "failure")
+                .counter().count());
+    }
+
+    @Test
+    void flush_DoesNotBlockConversationDuringWrite() throws Exception {
+        // --- Arrange ---
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new int[] { 1 };
+        });
+        when(delegate.get(CONVERSATION, 10)).thenReturn(List.of());
+        chatMemory.add(CONVERSATION, List.of(question));
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(chatMemory::flush);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // --- Act ---
+        CompletableFuture<List<Message>> read = CompletableFuture.supplyAsync(() -> {
+            chatMemory.add(CONVERSATION, List.of(answer));
+            return chatMemory.get(CONVERSATION, 10);
+        });
+
+        // --- Assert ---
+        assertEquals(List.of(question, answer), read.get(1, TimeUnit.SECONDS)); // 包含正在写入的消息
+        release.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        assertEquals(1, pendingMessages());
+    }
+
+    @Test
+    void add_BacklogTriggersFlush() {
+        // --- Arrange ---
+        properties.setMaxPendingMessages(2);
+        chatMemory = new TieredChatMemory(delegate, jdbcTemplate, properties, new SimpleMeterRegistry());
+
+        // --- Act ---
+        chatMemory.add(CONVERSATION, List.of(question));
+        verifyNoInteractions(jdbcTemplate);
+        chatMemory.add(CONVERSATION, List.of(answer));
+
+        // --- Assert ---
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    // --- clear 方法测试 ---
+    @Test
+    void clear_DiscardsPendingMessages() {
+        // --- Arrange ---
+        chatMemory.add(CONVERSATION, List.of(question, answer));
+
+        // --- Act ---
+        chatMemory.clear(CONVERSATION);
+        chatMemory.flush();
+
+        // --- Assert ---
+        verify(delegate).clear(CONVERSATION);
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(0, pendingMessages());
+    }
+
+    @Test
+    void clear_DuringWriteDeletesWrittenBatch() throws Exception {
+        // --- Arrange ---
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new int[] { 1 };
+        });
+        chatMemory.add(CONVERSATION, List.of(question));
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(chatMemory::flush);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // --- Act ---
+        chatMemory.clear(CONVERSATION);
+        release.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+
+        // --- Assert ---
+        verify(delegate, times(2)).clear(CONVERSATION); // 写入完成后再次清除
+        assertEquals(0, pendingMessages());
+    }
+
+    // --- destroy 方法测试 ---
+    @Test
+    void destroy_FlushesPendingMessages() throws InterruptedException {
+        // --- Arrange ---
+        chatMemory.afterPropertiesSet();
+        chatMemory.add(CONVERSATION, List.of(question, answer));
+        chatMemory.add("conv-2", List.of(question));
+
+        // --- Act ---
+        chatMemory.destroy();
+
+        // --- Assert ---
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList()); // 每个对话一次批量写入
+        verify(delegate, never()).get(any(), anyInt());
+        assertEquals(0, pendingMessages());
+    }
+
+    private void awaitEviction() throws InterruptedException {
+        for (int i = 0; i < 500 && cachedConversations() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, cachedConversations());
+    }
+
+    private double cachedConversations() {
+        return meterRegistry.get("cache.size").tag("cache", "chat-memory").gauge().value();
+    }
+
+    private double pendingMessages() {
+        return meterRegistry.get("ai.chat.memory.pending.messages").gauge().value();
+    }
+}
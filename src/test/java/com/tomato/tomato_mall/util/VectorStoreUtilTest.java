@@ -0,0 +1,173 @@
+package com.tomato.tomato_mall.util;
+
+import com.tomato.tomato_mall.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VectorStoreUtilTest {
+
+    private static final String DOCUMENT_ID = "5f1c7a4e-2b7d-4c55-9a0e-7d1b3c2e9f10";
+
+    @Mock
+    private VectorStore vectorStore;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private VectorStoreUtil vectorStoreUtil;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        vectorStoreUtil = new VectorStoreUtil(vectorStore, jdbcTemplate, "public", "vector_store");
+        product = new Product();
+        product.setId(1L);
+        product.setTitle("三体");
+        product.setDescription("科幻小说");
+        product.setPrice(new BigDecimal("39.90"));
+        product.setRate(9.0);
+    }
+
+    // --- updateProductVectors 方法测试 ---
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateProductVectors_UnchangedHashUpdatesMetadataOnly() throws Exception {
+        // --- Arrange ---
+        Document current = DocumentConverter.convertToDocument(product);
+        givenStoredDocument((String) current.getMetadata().get(DocumentConverter.CONTENT_HASH_KEY));
+        product.setPrice(new BigDecimal("29.90")); // 只修改价格，文档文本不变
+
+        // --- Act ---
+        vectorStoreUtil.updateProductVectors(List.of(product));
+
+        // --- Assert ---
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE public.vector_store SET metadata"), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(DOCUMENT_ID, rows.getValue().get(0)[1]);
+        assertTrue(((String) rows.getValue().get(0)[0]).contains("29.9"));
+        verify(vectorStore, never()).add(anyList());
+        verify(vectorStore, never()).delete(any(Filter.Expression.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateProductVectors_ChangedHashDeletesThenAdds() throws Exception {
+        // --- Arrange ---
+        givenStoredDocument("stale-hash");
+        product.setDescription("刘慈欣的科幻小说"); // 文档文本变化
+
+        // --- Act ---
+        vectorStoreUtil.updateProductVectors(List.of(product));
+
+        // --- Assert ---
+        InOrder inOrder = inOrder(vectorStore);
+        ArgumentCaptor<Filter.Expression> expression = ArgumentCaptor.forClass(Filter.Expression.class);
+        inOrder.verify(vectorStore).delete(expression.capture());
+        ArgumentCaptor<List<Document>> added = ArgumentCaptor.forClass(List.class);
+        inOrder.verify(vectorStore).add(added.capture());
+        assertEquals(Filter.ExpressionType.IN, expression.getValue().type());
+        assertEquals(List.of("1"), ((Filter.Value) expression.getValue().right()).value());
+        assertEquals(1, added.getValue().size());
+        assertTrue(added.getValue().get(0).getText().contains("刘慈欣的科幻小说"));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    // --- migrateNumericMetadata 方法测试 ---
+    @Test
+    void migrateNumericMetadata_ConvertsEachKeyOnlyWhenNumericString() {
+        // --- Arrange ---
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        when(jdbcTemplate.update(sql.capture())).thenReturn(1);
+
+        // --- Act ---
+        int migrated = vectorStoreUtil.migrateNumericMetadata();
+
+        // --- Assert ---
+        assertEquals(1, migrated);
+        String statement = sql.getValue();
+        // 只有 price 为字符串、rate 缺失的文档：rate 转换为 null 后被去除，合并时保留原元数据
+        assertTrue(statement.contains("SET metadata = metadata::jsonb || jsonb_strip_nulls(jsonb_build_object("));
+        assertFalse(statement.contains("jsonb_set("));
+        for (String key : List.of("price", "rate")) {
+            String guard = "CASE WHEN (json_typeof((metadata::json)->'" + key + "') = 'string' AND metadata->>'"
+                    + key + "' ~ '";
+            String cast = "THEN to_jsonb((metadata->>'" + key + "')::numeric) END";
+            assertEquals(1, occurrences(statement, cast), key);
+            int castAt = statement.indexOf(cast);
+            assertTrue(statement.lastIndexOf(guard, castAt) > statement.indexOf("'" + key + "', "), key); // 转换前先判断字段存在且可解析
+        }
+        assertTrue(statement.contains(" WHERE (json_typeof((metadata::json)->'price') = 'string' AND "));
+        assertTrue(statement.contains(" OR (json_typeof((metadata::json)->'rate') = 'string' AND "));
+        assertFalse("abc".matches(numericPattern(statement))); // 非数字字符串不转换，不会中断启动
+        assertFalse("".matches(numericPattern(statement)));
+        assertTrue("39.90".matches(numericPattern(statement)));
+        assertTrue("9".matches(numericPattern(statement)));
+        assertTrue("1.5E2".matches(numericPattern(statement)));
+    }
+
+    @Test
+    void migrateNumericMetadata_SkipsEmbeddedStore() {
+        // --- Arrange ---
+        vectorStoreUtil = new VectorStoreUtil(mock(HnswVectorStore.class), jdbcTemplate, "public", "vector_store");
+
+        // --- Act ---
+        int migrated = vectorStoreUtil.migrateNumericMetadata();
+
+        // --- Assert ---
+        assertEquals(0, migrated);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static int occurrences(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 取出语句中用于判断数字字符串的正则表达式
+     */
+    private static String numericPattern(String statement) {
+        int start = statement.indexOf(" ~ '") + 4;
+        return statement.substring(start, statement.indexOf("')", start));
+    }
+
+    /**
+     * 模拟向量表中商品1已有一条文档
+     */
+    private void givenStoredDocument(String contentHash) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString(1)).thenReturn(DOCUMENT_ID);
+        when(resultSet.getString(2)).thenReturn("1");
+        when(resultSet.getString(3)).thenReturn(contentHash);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}